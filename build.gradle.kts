@@ -38,6 +38,22 @@ distributions {
             }
         }
     }
+    // Variante à démarrage rapide: la distribution principale avec l'archive AppCDS et des scripts qui l'utilisent.
+    create("cds") {
+        contents {
+            from(tasks.getByName<AsciidoctorTask>("asciidoctor")) {
+                into ("docs")
+            }
+            into("lib") {
+                from(tasks.named("jar"))
+                from(configurations.named("runtimeClasspath"))
+            }
+            into("bin") {
+                from(tasks.named("cdsStartScripts"))
+                fileMode = "755".toInt(radix = 8)
+            }
+        }
+    }
 }
 
 tasks.withType<JavaCompile> {
@@ -62,6 +78,7 @@ dependencies {
     implementation(group = "com.beust", name = "jcommander", version = "1.72")
     implementation(group = "com.google.guava", name = "guava", version = "28.1-jre")
     implementation(group = "org.apache.poi", name = "poi-ooxml", version = "4.1.0")
+    implementation(group = "org.apache.commons", name = "commons-compress", version = "1.18")
 
     // Json
     val jacksonVersion = "2.9.9"
@@ -74,6 +91,9 @@ dependencies {
     implementation(group = "com.fasterxml.jackson.datatype", name = "jackson-datatype-jsr310", version = jacksonVersion)
     implementation(group = "com.jayway.jsonpath", name = "json-path", version = "2.4.0")
 
+    // SQL
+    runtimeOnly(group = "com.h2database", name = "h2", version = "1.4.200")
+
     // Logs
     implementation(group = "org.slf4j", name = "slf4j-api", version = "1.7.28")
     runtimeOnly(group = "ch.qos.logback", name = "logback-classic", version = "1.2.3")
@@ -94,3 +114,97 @@ val test by tasks.getting(Test::class) {
     // Use junit platform for unit tests
     useJUnitPlatform()
 }
+
+/*
+ * Démarrage rapide avec AppCDS (JDK 13 ou plus).
+ *
+ * L'archive est créée par un export d'entraînement hors ligne, exécuté avec les JAR de la distribution cds installée,
+ * puis déposée à côté d'eux: la JVM n'utilise l'archive que si le chemin des classes et les JAR sont ceux de sa
+ * création. Elle n'est donc pas dans le contenu de la distribution, que l'installation recopierait, mais ajoutée
+ * après l'installation et dans les livrables. La JVM qui utilise l'archive doit être celle qui l'a créée; sinon,
+ * elle l'ignore et charge les classes depuis les JAR.
+ */
+val cdsInstallLib = file("$buildDir/install/${project.name}-cds/lib")
+val cdsArchiveFile = File(cdsInstallLib, "${project.name}.jsa")
+
+val cdsArchive by tasks.registering(JavaExec::class) {
+    group = "distribution"
+    description = "Creates the AppCDS archive of the classes loaded by an offline training export."
+    dependsOn("installCdsDist")
+
+    val startScripts = tasks.getByName<CreateStartScripts>("startScripts")
+    classpath = files(startScripts.classpath!!.files.map { File(cdsInstallLib, it.name) })
+    main = "com.zeenea.cli.export.training.TrainingRun"
+    jvmArgs("-XX:ArchiveClassesAtExit=$cdsArchiveFile")
+    outputs.file(cdsArchiveFile)
+}
+
+tasks.named("installCdsDist") {
+    finalizedBy(cdsArchive)
+}
+
+listOf("cdsDistZip", "cdsDistTar").forEach { name ->
+    tasks.named<AbstractArchiveTask>(name) {
+        into("${project.name}-cds-${project.version}/lib") {
+            from(cdsArchive)
+        }
+    }
+}
+
+val cdsStartScripts by tasks.registering(CreateStartScripts::class) {
+    description = "Creates start scripts that load classes from the AppCDS archive."
+    val startScripts = tasks.getByName<CreateStartScripts>("startScripts")
+    outputDir = file("$buildDir/cds-scripts")
+    mainClassName = startScripts.mainClassName
+    applicationName = startScripts.applicationName
+    classpath = startScripts.classpath
+    defaultJvmOpts = listOf("-XX:SharedArchiveFile=__APP_HOME__/lib/${project.name}.jsa", "-Xshare:auto")
+    doLast {
+        unixScript.writeText(unixScript.readText().replace("__APP_HOME__", "\$APP_HOME"))
+        windowsScript.writeText(windowsScript.readText().replace("__APP_HOME__", "%APP_HOME%"))
+    }
+}
+
+/*
+ * Mesure du démarrage: temps jusqu'à la première requête à l'API et durée totale d'un petit export, avec et sans
+ * l'archive AppCDS. Exemple, avec des filtres qui retiennent une centaine d'assets:
+ *
+ *   ./gradlew startupBenchmark -PbenchmarkUrl=http://localhost:8080/ -PbenchmarkUser=zeenea \
+ *       -PbenchmarkPassword=secret -PbenchmarkArgs="--category Sales --format ndjson" -PbenchmarkRuns=10
+ */
+tasks.register("startupBenchmark") {
+    group = "verification"
+    description = "Measures the startup time of a small export with and without the AppCDS archive."
+    dependsOn("installDist", "installCdsDist", cdsArchive)
+
+    doLast {
+        fun property(name: String) = findProperty(name)?.toString()
+            ?: throw GradleException("Missing property -P$name")
+        fun median(values: List<Long>) = values.sorted().let { if (it.isEmpty()) -1 else it[it.size / 2] }
+
+        val connection = listOf("--url", property("benchmarkUrl"), "-u", property("benchmarkUser"),
+            "-p", property("benchmarkPassword"))
+        val filters = findProperty("benchmarkArgs")?.toString()?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+        val runs = findProperty("benchmarkRuns")?.toString()?.toInt() ?: 5
+        val firstRequestPattern = Regex("first API request at (\\d+) ms")
+        val outputDir = file("$buildDir/benchmark").apply { mkdirs() }
+
+        for ((variant, installDir) in listOf("standard" to project.name, "appcds" to "${project.name}-cds")) {
+            val script = file("$buildDir/install/$installDir/bin/${project.name}")
+            val firstRequests = mutableListOf<Long>()
+            val totals = mutableListOf<Long>()
+            repeat(runs) { run ->
+                val command = listOf(script.path) + connection + filters +
+                    listOf("-o", File(outputDir, "$variant-$run.xlsx").path, "--force")
+                val start = System.nanoTime()
+                val process = ProcessBuilder(command).redirectErrorStream(true).start()
+                val output = process.inputStream.bufferedReader().readText()
+                if (process.waitFor() != 0) throw GradleException("$variant export failed:\n$output")
+                totals += (System.nanoTime() - start) / 1_000_000
+                firstRequestPattern.find(output)?.let { firstRequests += it.groupValues[1].toLong() }
+            }
+            logger.lifecycle("$variant: first API request ${median(firstRequests)} ms, " +
+                "total ${median(totals)} ms (median of $runs runs)")
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.zeenea.cli.export;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.zeenea.cli.util.LongHashSet;
+import com.zeenea.client.api.asset.RichCategory;
+import com.zeenea.client.api.asset.RichDataset;
+import com.zeenea.client.api.asset.RichField;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Filtres des assets exportés.
+ *
+ * <p>Les filtres sont évalués par l'export, sur chaque asset lu, avant la construction de sa ligne: l'API Zeenea
+ * ne reçoit aucun critère et rend toujours la liste complète des assets. Les filtres évitent la construction et
+ * l'écriture des lignes, pas la lecture du catalogue.</p>
+ *
+ * <p>Les filtres portent sur:</p>
+ * <ul>
+ *     <li>les catégories sont filtrées par nom,</li>
+ *     <li>les datasets sont filtrés par catégorie, data storage (nom ou type), tags, date de dernière mise à jour
+ *     et taux de complétion,</li>
+ *     <li>les champs sont restreints aux datasets retenus, dès qu'un filtre de dataset est actif.</li>
+ * </ul>
+ *
+ * <p>Pour restreindre les champs, l'empreinte du nom de chaque dataset retenu est conservée dans un ensemble
+ * compact d'entiers longs: c'est le seul lien entre un champ et son dataset
+ * ({@link RichField#getDatasetName()}). Les datasets doivent donc être exportés avant les champs.</p>
+ *
+ * <p>Un champ est rattaché à son dataset par nom seulement: les champs d'un dataset écarté qui porte le même nom
+ * qu'un dataset retenu sont exportés. Les noms ainsi partagés sont comptés ({@link #getSharedNameCount()}) pour
+ * être signalés.</p>
+ */
+public final class AssetFilter {
+    private static final HashFunction NAME_HASH = Hashing.murmur3_128();
+
+    private final Set<String> categories;
+    private final Set<String> storages;
+    private final Set<String> tags;
+    @Nullable
+    private final Instant updatedSince;
+    @Nullable
+    private final Instant updatedBefore;
+    @Nullable
+    private final Double minCompletion;
+    @Nullable
+    private final Double maxCompletion;
+
+    private final LongHashSet datasetNames = new LongHashSet();
+    private final LongHashSet rejectedNames = new LongHashSet();
+    private final LongHashSet sharedNames = new LongHashSet();
+
+    private AssetFilter(ExportParams params) {
+        this.categories = normalize(params.getCategories());
+        this.storages = normalize(params.getStorages());
+        this.tags = normalize(params.getTags());
+        this.updatedSince = params.getUpdatedSince();
+        this.updatedBefore = params.getUpdatedBefore();
+        this.minCompletion = params.getMinCompletion();
+        this.maxCompletion = params.getMaxCompletion();
+    }
+
+    /**
+     * Construit les filtres depuis les paramètres de l'export.
+     *
+     * @param params Paramètres de l'export.
+     * @return Les filtres.
+     */
+    public static AssetFilter of(ExportParams params) {
+        return new AssetFilter(params);
+    }
+
+    /**
+     * @return {@code true} si au moins un filtre de dataset est actif.
+     */
+    public boolean isDatasetRestricted() {
+        return !categories.isEmpty() || !storages.isEmpty() || !tags.isEmpty()
+            || updatedSince != null || updatedBefore != null
+            || minCompletion != null || maxCompletion != null;
+    }
+
+    /**
+     * Décrit les filtres, pour l'état des points de reprise.
+     *
+     * @return Les filtres normalisés, triés.
+     */
+    public String describe() {
+        return "categories=" + new TreeSet<>(categories)
+            + ";storages=" + new TreeSet<>(storages)
+            + ";tags=" + new TreeSet<>(tags)
+            + ";updatedSince=" + updatedSince
+            + ";updatedBefore=" + updatedBefore
+            + ";minCompletion=" + minCompletion
+            + ";maxCompletion=" + maxCompletion;
+    }
+
+    /**
+     * Filtre d'une catégorie.
+     *
+     * @param category la catégorie.
+     * @return {@code true} si la catégorie est exportée.
+     */
+    public boolean acceptCategory(RichCategory category) {
+        return categories.isEmpty() || contains(categories, category.getName());
+    }
+
+    /**
+     * Filtre d'un dataset.
+     * <p>Les datasets acceptés sont mémorisés pour restreindre les champs.</p>
+     *
+     * @param dataset le dataset.
+     * @return {@code true} si le dataset est exporté.
+     */
+    public boolean acceptDataset(RichDataset dataset) {
+        if (!isDatasetRestricted()) return true;
+
+        boolean accepted = (categories.isEmpty() || contains(categories, dataset.getCategoryName()))
+            && (storages.isEmpty()
+            || contains(storages, dataset.getDataStorageName())
+            || contains(storages, asString(dataset.getDataStorageType())))
+            && (tags.isEmpty() || containsAny(tags, dataset.getTags()))
+            && acceptLastUpdate(dataset.getLastUpdate())
+            && acceptCompletion(dataset.getCompletion());
+
+        if (accepted) {
+            rememberDataset(dataset.getName());
+        } else {
+            rememberRejectedDataset(dataset.getName());
+        }
+        return accepted;
+    }
+
+    /**
+     * Filtre d'un champ.
+     *
+     * @param field le champ.
+     * @return {@code true} si le champ appartient à un dataset exporté ou si aucun filtre de dataset n'est actif.
+     */
+    public boolean acceptField(RichField field) {
+        return !isDatasetRestricted() || containsDataset(field.getDatasetName());
+    }
+
+    /**
+     * @return Le nombre de datasets retenus.
+     */
+    public int getDatasetCount() {
+        return datasetNames.size();
+    }
+
+    /**
+     * @return Le nombre de noms portés à la fois par un dataset retenu et par un dataset écarté, dont les champs
+     * sont donc exportés avec ceux du dataset retenu.
+     */
+    public int getSharedNameCount() {
+        return sharedNames.size();
+    }
+
+    void rememberDataset(@Nullable String datasetName) {
+        if (datasetName != null) {
+            long fingerprint = fingerprint(datasetName);
+            datasetNames.add(fingerprint);
+            if (rejectedNames.contains(fingerprint)) {
+                sharedNames.add(fingerprint);
+            }
+        }
+    }
+
+    private void rememberRejectedDataset(@Nullable String datasetName) {
+        if (datasetName != null) {
+            long fingerprint = fingerprint(datasetName);
+            rejectedNames.add(fingerprint);
+            if (datasetNames.contains(fingerprint)) {
+                sharedNames.add(fingerprint);
+            }
+        }
+    }
+
+    boolean containsDataset(@Nullable String datasetName) {
+        return datasetName != null && datasetNames.contains(fingerprint(datasetName));
+    }
+
+    private boolean acceptLastUpdate(@Nullable Instant lastUpdate) {
+        if (updatedSince == null && updatedBefore == null) return true;
+        if (lastUpdate == null) return false;
+        return (updatedSince == null || !lastUpdate.isBefore(updatedSince))
+            && (updatedBefore == null || lastUpdate.isBefore(updatedBefore));
+    }
+
+    private boolean acceptCompletion(@Nullable Number completion) {
+        if (minCompletion == null && maxCompletion == null) return true;
+        if (completion == null) return false;
+        double value = completion.doubleValue();
+        return (minCompletion == null || value >= minCompletion)
+            && (maxCompletion == null || value <= maxCompletion);
+    }
+
+    private static long fingerprint(String name) {
+        return NAME_HASH.hashString(name, StandardCharsets.UTF_8).asLong();
+    }
+
+    @Nullable
+    private static String asString(@Nullable Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static boolean contains(Set<String> values, @Nullable String value) {
+        return value != null && values.contains(value.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean containsAny(Set<String> values, @Nullable Collection<String> candidates) {
+        if (candidates == null) return false;
+        for (String candidate : candidates) {
+            if (contains(values, candidate)) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> normalize(Collection<String> values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            String key = value.trim().toLowerCase(Locale.ROOT);
+            if (!key.isEmpty()) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+}
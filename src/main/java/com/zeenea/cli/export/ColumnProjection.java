@@ -0,0 +1,155 @@
+package com.zeenea.cli.export;
+
+import com.google.common.collect.ImmutableSet;
+import com.zeenea.client.api.property.Property;
+import com.zeenea.client.api.property.PropertySection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Projection des colonnes à exporter.
+ *
+ * <p>La projection est définie par deux listes de sélecteurs:</p>
+ * <ul>
+ *     <li>{@code columns}: libellés des colonnes principales, identifiants ou libellés de propriétés, libellés de
+ *     section;</li>
+ *     <li>{@code properties}: identifiants ou libellés de propriétés, libellés de section.</li>
+ * </ul>
+ *
+ * <p>Lorsque la liste {@code columns} est vide, toutes les colonnes principales sont exportées.
+ * Lorsque les deux listes sont vides, toutes les propriétés sont exportées. La comparaison ignore la casse.</p>
+ *
+ * <p>Les sélecteurs peuvent aussi être lus depuis un fichier de profil au format {@link Properties} contenant les
+ * clés {@code columns} et {@code properties}, dont les valeurs sont séparées par des virgules.</p>
+ */
+public final class ColumnProjection {
+    private final Set<String> columns;
+    private final Set<String> properties;
+    private final Set<String> matched = ConcurrentHashMap.newKeySet();
+
+    private ColumnProjection(Collection<String> columns, Collection<String> properties) {
+        this.columns = normalize(columns);
+        this.properties = normalize(properties);
+    }
+
+    /**
+     * Construit la projection depuis les paramètres de l'export.
+     *
+     * @param params Paramètres de l'export.
+     * @return La projection.
+     * @throws UncheckedIOException Si le fichier de profil ne peut être lu.
+     */
+    public static ColumnProjection of(ExportParams params) {
+        Set<String> columns = new HashSet<>(params.getColumns());
+        Set<String> properties = new HashSet<>(params.getProperties());
+
+        Path profile = params.getProjectionProfile();
+        if (profile != null) {
+            Properties profileValues = new Properties();
+            try (Reader reader = Files.newBufferedReader(profile, StandardCharsets.UTF_8)) {
+                profileValues.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            split(profileValues.getProperty("columns"), columns);
+            split(profileValues.getProperty("properties"), properties);
+        }
+
+        return new ColumnProjection(columns, properties);
+    }
+
+    /**
+     * Indique si une colonne de la section principale doit être exportée.
+     *
+     * @param label Libellé de la colonne.
+     * @return {@code true} si la colonne est exportée.
+     */
+    public boolean acceptColumn(String label) {
+        return columns.isEmpty() || match(columns, label);
+    }
+
+    /**
+     * Indique si une propriété doit être exportée.
+     *
+     * @param section  Section du formulaire contenant la propriété.
+     * @param property Propriété.
+     * @return {@code true} si la propriété est exportée.
+     */
+    public boolean acceptProperty(PropertySection section, Property property) {
+        if (columns.isEmpty() && properties.isEmpty()) return true;
+
+        String id = String.valueOf(property.getId());
+        return match(columns, id) || match(columns, property.getLabel()) || match(columns, section.getLabel())
+            || match(properties, id) || match(properties, property.getLabel()) || match(properties, section.getLabel());
+    }
+
+    /**
+     * @return {@code true} si la projection retient toutes les colonnes.
+     */
+    public boolean isAll() {
+        return columns.isEmpty() && properties.isEmpty();
+    }
+
+    /**
+     * Décrit la projection, pour l'empreinte des feuilles.
+     *
+     * @return Les sélecteurs normalisés, triés.
+     */
+    public String describe() {
+        return "columns=" + new TreeSet<>(columns) + ";properties=" + new TreeSet<>(properties);
+    }
+
+    /**
+     * Sélecteurs qui n'ont retenu aucune colonne.
+     *
+     * @return Les sélecteurs normalisés.
+     */
+    public Set<String> getUnmatchedSelectors() {
+        Set<String> unmatched = new HashSet<>(columns);
+        unmatched.addAll(properties);
+        unmatched.removeAll(matched);
+        return unmatched;
+    }
+
+    private boolean match(Set<String> selectors, String value) {
+        if (value == null) return false;
+        String key = value.trim().toLowerCase(Locale.ROOT);
+        if (selectors.contains(key)) {
+            matched.add(key);
+            return true;
+        }
+        return false;
+    }
+
+    private static void split(String value, Set<String> target) {
+        if (value == null) return;
+        for (String selector : value.split(",")) {
+            if (!selector.trim().isEmpty()) {
+                target.add(selector);
+            }
+        }
+    }
+
+    private static Set<String> normalize(Collection<String> selectors) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (String selector : selectors) {
+            String key = selector.trim().toLowerCase(Locale.ROOT);
+            if (!key.isEmpty()) {
+                builder.add(key);
+            }
+        }
+        return builder.build();
+    }
+}
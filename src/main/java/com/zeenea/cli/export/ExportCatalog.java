@@ -5,32 +5,83 @@ package com.zeenea.cli.export;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import com.google.common.collect.ImmutableList;
+import com.zeenea.cli.export.batch.BatchExport;
+import com.zeenea.cli.export.cache.CachingProxy;
+import com.zeenea.cli.export.cache.DiskResponseCache;
+import com.zeenea.cli.export.checkpoint.ExportCheckpoint;
+import com.zeenea.cli.export.checkpoint.ResumableListing;
+import com.zeenea.cli.export.checkpoint.SheetCheckpoint;
+import com.zeenea.cli.export.ids.IdList;
+import com.zeenea.cli.export.ids.IdSelection;
+import com.zeenea.cli.export.layout.ColumnLayout;
+import com.zeenea.cli.export.layout.ColumnSpec;
+import com.zeenea.cli.export.partition.PartitionedWorkbooks;
+import com.zeenea.cli.export.partition.SplitBy;
+import com.zeenea.cli.export.reuse.ExportManifest;
+import com.zeenea.cli.export.reuse.WorkbookParts;
+import com.zeenea.cli.export.sample.DatasetSample;
+import com.zeenea.cli.export.sample.SampleSheet;
+import com.zeenea.cli.export.sample.SampleStrata;
+import com.zeenea.cli.export.sample.StratifiedSampler;
+import com.zeenea.cli.export.server.ExportServer;
+import com.zeenea.cli.export.sink.AsyncSink;
+import com.zeenea.cli.export.sink.CsvSink;
+import com.zeenea.cli.export.sink.NdjsonSink;
+import com.zeenea.cli.export.sink.SinkFiles;
+import com.zeenea.cli.export.sink.SqlSink;
+import com.zeenea.cli.export.summary.SummarySheetExport;
+import com.zeenea.cli.export.xlsb.XlsbSink;
 import com.zeenea.cli.export.xlsx.ColumnExport;
+import com.zeenea.cli.export.xlsx.CombinedSheetExport;
+import com.zeenea.cli.export.xlsx.ExportSink;
 import com.zeenea.cli.export.xlsx.ExportStyles;
+import com.zeenea.cli.export.xlsx.OffHeapRowIndex;
+import com.zeenea.cli.export.xlsx.RowRecord;
+import com.zeenea.cli.export.sort.SortSpec;
 import com.zeenea.cli.export.xlsx.SheetExport;
+import com.zeenea.cli.export.xlsx.SheetRowIndex;
+import com.zeenea.cli.export.xlsx.ValueType;
+import com.zeenea.cli.export.xlsx.WorkbookRendering;
+import com.zeenea.cli.util.StringPool;
+import com.zeenea.cli.util.TagJoiner;
+import com.zeenea.cli.util.UnclosableOutputStream;
 import com.zeenea.client.api.StreamResult;
 import com.zeenea.client.api.ZeeneaClient;
 import com.zeenea.client.api.asset.*;
 import com.zeenea.client.api.id.Nature;
 import com.zeenea.client.api.property.*;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -52,6 +103,16 @@ public class ExportCatalog {
     private static final int NUMBER_WIDTH = 10;
     private static final int BOOLEAN_WIDTH = 3;
 
+    private static final String COMBINED_SHEET_NAME = "Dataset+Field";
+    private static final String SUMMARY_SHEET_NAME = "Summary";
+    private static final String SAMPLE_SHEET_NAME = "Sample";
+    private static final int SINK_QUEUE_CAPACITY = 4096;
+    private static final int CHECKPOINT_INTERVAL = 1000;
+    private static final int STRING_POOL_CAPACITY = 1 << 16;
+    private static final int STRING_POOL_MAX_LENGTH = 128;
+    private static final int TAG_JOINS = 4096;
+    private static final List<String> INDEXED_COLUMNS = Arrays.asList("Identifiant", "Dataset Name", "Category Name");
+
     private static final Logger log = LoggerFactory.getLogger(ExportCatalog.class);
 
     private final ExportParams params;
@@ -59,6 +120,42 @@ public class ExportCatalog {
     private final CategoryApi categoryApi;
     private final DatasetApi datasetApi;
     private final FieldApi fieldApi;
+    private final ColumnProjection projection;
+    private final AssetFilter filter;
+    @Nullable
+    private final ColumnLayout layout;
+    @Nullable
+    private final IdList ids;
+    // Partagées par les feuilles: les noms de catégorie et de dataset se répètent d'une feuille à l'autre.
+    private final StringPool stringPool = new StringPool(STRING_POOL_CAPACITY, STRING_POOL_MAX_LENGTH);
+    private final TagJoiner tagJoiner = new TagJoiner(TAG_JOINS);
+
+    private final List<ExportSink> sinks = new ArrayList<>();
+    @Nullable
+    private CombinedSheetExport combinedExport;
+    @Nullable
+    private SummarySheetExport summaryExport;
+    @Nullable
+    private OffHeapRowIndex datasetIndex;
+    @Nullable
+    private SheetRowIndex categoryRows;
+    @Nullable
+    private SheetRowIndex datasetRows;
+    @Nullable
+    private ExportManifest previousManifest;
+    @Nullable
+    private ExportManifest manifest;
+    private final List<String> reusedParts = new ArrayList<>();
+    @Nullable
+    private ExportCheckpoint checkpoint;
+    @Nullable
+    private PartitionedWorkbooks partitions;
+    @Nullable
+    private WorkbookRendering rendering;
+    @Nullable
+    private final Semaphore requestPermits;
+    private final Map<String, Long> itemCounts = new LinkedHashMap<>();
+    private volatile long firstRequestUptime = -1;
 
     /**
      * Construit un {@link ExportCatalog}
@@ -67,26 +164,70 @@ public class ExportCatalog {
      * @param client Client Zeenea.
      */
     public ExportCatalog(ExportParams params, ZeeneaClient client) {
+        this(params, client, null);
+    }
+
+    /**
+     * Construit un {@link ExportCatalog} dont les appels à l'API sont limités, par exemple entre les exports d'un
+     * même lot.
+     *
+     * @param params         Paramètres de l'export.
+     * @param client         Client Zeenea.
+     * @param requestPermits Limite des appels simultanés à l'API, {@code null} pour ne pas limiter les appels.
+     */
+    public ExportCatalog(ExportParams params, ZeeneaClient client, @Nullable Semaphore requestPermits) {
         this.params = params;
+        this.requestPermits = requestPermits;
         this.client = client;
         this.categoryApi = client.getCategoryApi();
         this.datasetApi = client.getDatasetApi();
         this.fieldApi = client.getFieldApi();
+        this.projection = ColumnProjection.of(params);
+        this.filter = AssetFilter.of(params);
+        this.layout = params.getLayoutFile() != null
+            ? ColumnLayout.load(params.getLayoutFile(),
+                Arrays.asList(Nature.Category.toString(), Nature.Dataset.toString(), Nature.Field.toString()))
+            : null;
+        if (params.getIdsFile() != null && params.isSampling()) {
+            throw new ParameterException("Option --ids-file cannot be used with --sample or --sample-rate");
+        }
+        this.ids = params.getIdsFile() != null ? IdList.load(params.getIdsFile()) : null;
     }
 
     /**
      * Fonction principale du programme.
      * Elle est exécutée par le script de lancement de l'application.
      *
+     * <p>Lorsque le premier argument est {@code serve}, le programme démarre le {@link ExportServer serveur d'export}
+     * avec les arguments suivants. Lorsqu'il est {@code batch}, le programme exécute un
+     * {@link BatchExport lot d'exports}.</p>
+     *
      * @param args Argument de la ligne de commande.
      */
     public static void main(String[] args) {
         try {
+            if (args.length > 0 && "serve".equals(args[0])) {
+                ExportServer.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            if (args.length > 0 && "batch".equals(args[0])) {
+                BatchExport.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
             ExportParams exportParams = parseExportParams(args);
 
-            try (ZeeneaClient client = ZeeneaClient.connect(exportParams.toZeeneaConfig())) {
-                new ExportCatalog(exportParams, client).exportCatalog();
+            // Temps de démarrage, mesuré depuis le lancement de la JVM: voir la tâche Gradle startupBenchmark.
+            long firstRequest;
+            try (CachingProxy cache = openCache(exportParams);
+                 ZeeneaClient client = ZeeneaClient.connect(cache != null
+                     ? exportParams.toZeeneaConfig(cache.getUri()) : exportParams.toZeeneaConfig())) {
+                ExportCatalog exportCatalog = new ExportCatalog(exportParams, client);
+                exportCatalog.exportCatalog();
+                firstRequest = exportCatalog.getFirstRequestUptime();
             }
+            log.info("Export done {} ms after JVM start, first API request at {} ms",
+                ManagementFactory.getRuntimeMXBean().getUptime(), firstRequest);
 
         } catch (ParameterException e) {
             System.err.println(e.getMessage());
@@ -100,6 +241,29 @@ public class ExportCatalog {
         }
     }
 
+    /**
+     * Démarre le relais local du cache des réponses de l'API Zeenea.
+     *
+     * @param params Configuration de l'export.
+     * @return Le relais, ou {@code null} sans {@code --cache-dir}, avec {@code --no-cache} ou si le dossier est
+     * utilisé par un autre export.
+     */
+    @Nullable
+    private static CachingProxy openCache(ExportParams params) {
+        if (params.getCacheDirectory() == null || params.isNoCache()) return null;
+        if (params.getCacheSize() <= 0) {
+            throw new ParameterException("Option --cache-size expects a positive size in MiB");
+        }
+        DiskResponseCache cache = DiskResponseCache.tryOpen(params.getCacheDirectory(),
+            (long) params.getCacheSize() << 20);
+        if (cache == null) {
+            log.warn("HTTP cache {} is used by another export, responses are not cached",
+                params.getCacheDirectory());
+            return null;
+        }
+        return CachingProxy.start(params.getUri(), cache);
+    }
+
     /**
      * Analyse les arguements fournis en ligne de commande et construit un {@link ExportParams} contenant les valeurs lues.
      *
@@ -135,19 +299,120 @@ public class ExportCatalog {
     /**
      * Réalise l'export du catalogue.
      *
+     * <p>Les résultats de l'API ne sont parcourus qu'une fois, quel que soit le nombre de
+     * {@link ExportParams#getFormats() formats de sortie}: chaque feuille transmet ses lignes au classeur Excel et
+     * aux autres destinations, qui écrivent chacune dans son propre thread.</p>
+     *
+     * <p>Avec l'option {@link ExportParams#getCheckpointDirectory() --checkpoint-dir} ou
+     * {@link ExportParams#isResume() --resume}, les lignes construites sont enregistrées dans des
+     * {@link ExportCheckpoint points de reprise}, supprimés à la fin d'un export réussi. Un export interrompu peut
+     * alors être repris avec l'option {@code --resume}, avec les mêmes filtres et les mêmes colonnes.</p>
+     *
      * @throws UncheckedIOException En cas d'erreur d'écriture du fichier Excel d'export.
      */
     public void exportCatalog() {
-        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        export(null);
+    }
+
+    /**
+     * Réalise l'export du catalogue dans un flux, par exemple la réponse d'une requête HTTP.
+     *
+     * <p>L'export doit avoir un seul format de sortie, {@link ExportFormat#isStreamable() écrit en un seul flux}.
+     * Les lignes NDJSON sont écrites au fil de la lecture du catalogue, les classeurs une fois complets. Sans fichier
+     * de sortie, l'export n'a pas de point de reprise et ne reprend pas les feuilles d'un export précédent.</p>
+     *
+     * @param out Le flux, qui n'est pas fermé.
+     * @throws IllegalArgumentException Si le format de sortie ne peut être écrit dans un flux.
+     * @throws UncheckedIOException     En cas d'erreur d'écriture.
+     */
+    public void exportCatalog(OutputStream out) {
+        List<ExportFormat> formats = params.getFormats();
+        if (formats.size() != 1 || !formats.get(0).isStreamable()) {
+            throw new IllegalArgumentException("A streamed export needs a single xlsx, xlsb or ndjson format: " + formats);
+        }
+        if (params.getSplitBy() != null) {
+            throw new IllegalArgumentException("A streamed export cannot be split into several workbooks");
+        }
+        export(new UnclosableOutputStream(out));
+    }
+
+    /**
+     * Réalise l'export dans les fichiers de sortie ou dans un flux.
+     *
+     * @param target Flux de l'unique format de sortie, {@code null} pour écrire les fichiers de sortie.
+     */
+    private void export(@Nullable OutputStream target) {
+        List<ExportFormat> formats = params.getFormats();
+        boolean split = params.getSplitBy() != null && formats.contains(ExportFormat.XLSX);
+        SXSSFWorkbook workbook = formats.contains(ExportFormat.XLSX) && !split ? new SXSSFWorkbook() : null;
         try {
-            ExportStyles exportStyles = ExportStyles.of(workbook);
+            if (target == null && !params.isSampling() && params.isCheckpointing()) {
+                checkpoint = ExportCheckpoint.open(checkpointDirectory(), params.isResume());
+            } else if (params.isResume() && params.isSampling()) {
+                log.warn("Option --resume is ignored with --sample and --sample-rate");
+            }
+            openSinks(formats, target);
+            if (split) {
+                openPartitions();
+            } else if (params.getSplitBy() != null) {
+                log.warn("Option --split-by is ignored without the xlsx format");
+            }
+
+            ExportStyles exportStyles = null;
+            if (workbook != null) {
+                exportStyles = ExportStyles.of(workbook);
+                prepareWorkbookSheets(workbook, exportStyles);
+                if (params.getRenderThreads() > 1) {
+                    rendering = WorkbookRendering.builder()
+                        .threads(params.getRenderThreads())
+                        .chunkRows(params.getRenderChunk())
+                        .tempDirectory(params.getTempDirectory())
+                        .build();
+                }
+                if (params.isReuseUnchanged() && target == null) {
+                    previousManifest = ExportManifest.load(manifestFile(), params.getOutputFile());
+                    manifest = new ExportManifest();
+                }
+            } else if (params.isSummary() || params.isLinks() || params.isCombined() || params.isReuseUnchanged()) {
+                log.warn("Options --summary, --links, --combined and --reuse-unchanged are ignored without the xlsx format or with --split-by");
+            }
+
+            DatasetSample sample = params.isSampling() ? sampleDatasets() : null;
+            if (sample != null && workbook != null) {
+                SampleSheet.write(workbook, exportStyles, SAMPLE_SHEET_NAME, describeSample(sample));
+            }
+            IdSelection selection = ids != null ? selectDatasets(ids) : null;
+
+            Supplier<StreamResult<RichCategory>> categories = categoryApi::listAll;
+            Predicate<RichCategory> categoryFilter = filter::acceptCategory;
+            BooleanSupplier categoryStop = null;
+            Supplier<StreamResult<RichDataset>> datasets = datasetApi::listAll;
+            Predicate<RichDataset> datasetFilter = filter::acceptDataset;
+            Supplier<StreamResult<RichField>> fields = fieldApi::listAll;
+            Predicate<RichField> fieldFilter = filter::acceptField;
+            if (sample != null) {
+                categoryFilter = category -> filter.acceptCategory(category) && sample.acceptCategory(category);
+                categoryStop = sample::isCategoryComplete;
+                datasets = sample::listDatasets;
+                // Les datasets de l'échantillon ont été filtrés au tirage.
+                datasetFilter = dataset -> true;
+                fieldFilter = sample::acceptField;
+            } else if (selection != null) {
+                categories = selection.categories(categoryApi::listAll);
+                datasets = selection::listDatasets;
+                // Les datasets de la liste d'identifiants ont été filtrés à leur recherche.
+                datasetFilter = dataset -> true;
+                fields = selection.fields(fieldApi::listAll);
+            }
 
             exportAsset(
                 Nature.Category,
                 workbook,
                 exportStyles,
                 this::prepareCategoryExportMainSection,
-                categoryApi::listAll
+                categories,
+                categoryFilter,
+                categoryStop
             );
 
             exportAsset(
@@ -155,26 +420,222 @@ public class ExportCatalog {
                 workbook,
                 exportStyles,
                 this::prepareDatasetExportMainSection,
-                datasetApi::listAll
+                datasets,
+                datasetFilter,
+                null
             );
 
+            if (filter.getSharedNameCount() > 0) {
+                log.warn("{} dataset names are shared by retained and filtered-out datasets: the fields of the "
+                    + "filtered-out ones are exported too", filter.getSharedNameCount());
+            }
+
+            if (datasetIndex != null) {
+                log.info("{} datasets indexed for field enrichment, {} duplicate names ignored, {} KiB used",
+                    datasetIndex.size(), datasetIndex.getDuplicateCount(), datasetIndex.memoryUsage() >> 10);
+            }
+
             exportAsset(
                 Nature.Field,
                 workbook,
                 exportStyles,
                 this::prepareFieldExportMainSection,
-                fieldApi::listAll
+                fields,
+                fieldFilter,
+                null
             );
 
-            try {
-                try (OutputStream out = openExportFile()) {
-                    workbook.write(out);
+            if (selection != null && !selection.getMissing().isEmpty()) {
+                List<IdList.Entry> missing = selection.getMissing();
+                log.warn("{} identifiers of {} not found, first ones: {}", missing.size(), params.getIdsFile(),
+                    missing.stream().limit(10).map(entry -> entry.getNature() + ":" + entry.getUuid())
+                        .collect(Collectors.joining(", ")));
+            }
+
+            log.info("{} of {} short text values shared through the string pool", stringPool.getHitCount(),
+                stringPool.getLookupCount());
+
+            if (combinedExport != null) {
+                combinedExport.finish();
+            }
+
+            if (summaryExport != null) {
+                summaryExport.finish();
+            }
+
+            if (!projection.getUnmatchedSelectors().isEmpty()) {
+                log.warn("Column selectors matching nothing: {}", projection.getUnmatchedSelectors());
+            }
+
+            for (ExportSink sink : sinks) {
+                sink.close();
+            }
+
+            if (partitions != null) {
+                partitions.write();
+            } else if (workbook != null && target != null) {
+                try {
+                    writeWorkbook(workbook, target);
+                    target.flush();
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            } else if (workbook != null && manifest != null) {
+                writeReusingUnchangedSheets(workbook, manifest);
+            } else if (workbook != null) {
+                try {
+                    try (OutputStream out = openExportFile()) {
+                        writeWorkbook(workbook, out);
+                    }
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
                 }
-            } catch (IOException ioe) {
-                throw new UncheckedIOException(ioe);
             }
+            if (checkpoint != null) {
+                checkpoint.clear();
+            }
+        } catch (RuntimeException e) {
+            if (checkpoint != null) {
+                log.error("Export interrupted, run it again with --resume to continue from the checkpoint in {}",
+                    checkpoint.getDirectory());
+            }
+            throw e;
         } finally {
-            workbook.dispose();
+            if (combinedExport != null) {
+                combinedExport.close();
+                combinedExport = null;
+            }
+            for (ExportSink sink : sinks) {
+                try {
+                    sink.close();
+                } catch (RuntimeException e) {
+                    log.warn("Unable to close export sink", e);
+                }
+            }
+            sinks.clear();
+            if (partitions != null) {
+                partitions.close();
+                partitions = null;
+            }
+            if (rendering != null) {
+                rendering.close();
+                rendering = null;
+            }
+            summaryExport = null;
+            previousManifest = null;
+            manifest = null;
+            reusedParts.clear();
+            checkpoint = null;
+            datasetIndex = null;
+            categoryRows = null;
+            datasetRows = null;
+            if (workbook != null) {
+                workbook.dispose();
+            }
+        }
+    }
+
+    /**
+     * Prépare les feuilles et les index propres au classeur Excel, selon les options de l'export.
+     *
+     * @param workbook     Document Excel de travail.
+     * @param exportStyles Cache des styles utilisés pour l'export.
+     */
+    private void prepareWorkbookSheets(SXSSFWorkbook workbook, ExportStyles exportStyles) {
+        if (params.isSummary()) {
+            summaryExport = SummarySheetExport.builder()
+                .name(SUMMARY_SHEET_NAME)
+                .workbook(workbook)
+                .styles(exportStyles)
+                .build();
+        }
+
+        if (params.isLinks()) {
+            categoryRows = new SheetRowIndex(Nature.Category.toString());
+            datasetRows = new SheetRowIndex(Nature.Dataset.toString());
+            // Les liens sont des formules: Excel doit les calculer à l'ouverture du classeur.
+            workbook.setForceFormulaRecalculation(true);
+        }
+
+        if (params.isCombined()) {
+            combinedExport = CombinedSheetExport.builder()
+                .name(COMBINED_SHEET_NAME)
+                .workbook(workbook)
+                .styles(exportStyles)
+                .sortMemory((long) params.getSortMemory() << 20)
+                .tempDirectory(params.getTempDirectory())
+                .stringPool(stringPool)
+                .build();
+        }
+    }
+
+    /**
+     * Prépare les classeurs partitionnés qui remplacent le classeur Excel unique, nommés d'après le fichier de sortie.
+     */
+    private void openPartitions() {
+        Path outputFile = params.getOutputFile();
+        Path directory = SinkFiles.directory(outputFile);
+        String baseName = SinkFiles.baseName(outputFile);
+        log.info("Write one workbook per {} to {}/{}-<partition>.xlsx", params.getSplitBy().getOption(), directory, baseName);
+        partitions = PartitionedWorkbooks.builder()
+            .splitBy(params.getSplitBy())
+            .directory(directory)
+            .baseName(baseName)
+            .outputOptions(outputOptions())
+            .threads(params.getSplitThreads())
+            .maxOpenFiles(params.getMaxOpenPartitions())
+            .tempDirectory(params.getTempDirectory())
+            .build();
+    }
+
+    /**
+     * Ouvre les destinations des formats de sortie autres que le classeur Excel.
+     *
+     * <p>Les fichiers sont écrits à côté du fichier de sortie et nommés d'après lui. Chaque destination écrit dans
+     * son propre thread, au travers d'une file bornée.</p>
+     *
+     * @param formats Formats de sortie.
+     * @param target  Flux de l'unique format de sortie, {@code null} pour écrire les fichiers de sortie.
+     */
+    private void openSinks(List<ExportFormat> formats, @Nullable OutputStream target) {
+        Path outputFile = params.getOutputFile();
+        Path directory = SinkFiles.directory(outputFile);
+        String baseName = SinkFiles.baseName(outputFile);
+
+        for (ExportFormat format : formats) {
+            ExportSink sink;
+            switch (format) {
+                case CSV:
+                    log.info("Write CSV files to {}/{}-<sheet>.csv", directory, baseName);
+                    sink = new CsvSink(directory, baseName, outputOptions());
+                    break;
+                case NDJSON:
+                    if (target != null) {
+                        sink = new NdjsonSink(target);
+                        break;
+                    }
+                    Path file = directory.resolve(baseName + ".ndjson");
+                    log.info("Write NDJSON to {}", file);
+                    sink = new NdjsonSink(file, outputOptions());
+                    break;
+                case XLSB:
+                    if (target != null) {
+                        sink = new XlsbSink(target, params.getTempDirectory());
+                        break;
+                    }
+                    Path workbookFile = directory.resolve(baseName + ".xlsb");
+                    log.info("Write XLSB workbook to {}", workbookFile);
+                    sink = new XlsbSink(workbookFile, params.getTempDirectory(), outputOptions());
+                    break;
+                case H2:
+                    Path database = directory.resolve(baseName);
+                    log.info("Write H2 database to {}.mv.db", database);
+                    sink = new SqlSink(database, overrideOutput(), INDEXED_COLUMNS);
+                    break;
+                default:
+                    continue;
+            }
+            sinks.add(new AsyncSink(format.name().toLowerCase(Locale.ROOT), sink, SINK_QUEUE_CAPACITY));
         }
     }
 
@@ -188,11 +649,14 @@ public class ExportCatalog {
      * <p>
      * La méthode:
      * <ol>
-     *     <li>crée un object d'export vers une nouvelle feuille Excel,</li>
+     *     <li>crée un object d'export vers une nouvelle feuille Excel et les autres destinations,</li>
      *     <li>prépare l'export avec le consumer {@code preparation} fournie,</li>
      *     <li>ajoute l'export des propriétés dynamiques de l'asset,</li>
-     *     <li>requête Zeenea à partir de la {@code query} fournie en paramètres,</li>
-     *     <li>effectue l'export à partir du résultat.</li>
+     *     <li>relit les lignes enregistrées au dernier point de reprise, lors de la reprise d'un export,</li>
+     *     <li>requête Zeenea à partir de la {@code query} fournie en paramètres, en reprenant après le dernier asset
+     *     enregistré et en retentant la lecture après une erreur,</li>
+     *     <li>effectue l'export des éléments du résultat acceptés par le filtre {@code assetFilter},</li>
+     *     <li>termine l'export, ce qui écrit les lignes lorsque la feuille est triée.</li>
      * </ol>
      *
      * <p>Notez que les résultats de l'API Zeenea sont automatiquement et naturellement paginés.
@@ -200,39 +664,428 @@ public class ExportCatalog {
      * Exporter une collection très grande ne devrait pas posser de problèmes particulier.</p>
      *
      * @param nature       Nature de l'asset à exporter.
-     * @param workbook     Document Excel de travail.
-     * @param exportStyles Cache des styles utilisés pour l'export.
+     * @param workbook     Document Excel de travail, {@code null} si le format Excel n'est pas demandé.
+     * @param exportStyles Cache des styles utilisés pour l'export, {@code null} sans document Excel.
      * @param preparation  Méthode de préparation de l'export.
      * @param query        Requête auprès de l'API Zeenea utile pour l'export de l'asset.
+     * @param assetFilter  Filtre des assets à exporter.
+     * @param stop         Condition d'arrêt de la lecture des assets, {@code null} pour lire toute la liste.
      * @param <T>          Type de l'asset exporté.
      */
     private <T extends Asset> void exportAsset(Nature nature,
-                                               Workbook workbook,
-                                               ExportStyles exportStyles,
+                                               @Nullable SXSSFWorkbook workbook,
+                                               @Nullable ExportStyles exportStyles,
                                                Consumer<SheetExport.Builder<T>> preparation,
-                                               Supplier<StreamResult<T>> query) {
+                                               Supplier<StreamResult<T>> query,
+                                               Predicate<T> assetFilter,
+                                               @Nullable BooleanSupplier stop) {
 
         SheetExport.Builder<T> exportBuilder = SheetExport.<T>builder()
             .name(nature.toString())
             .workbook(workbook)
-            .styles(exportStyles);
+            .styles(exportStyles)
+            .columnFilter(column -> projection.acceptColumn(column.getLabel()) || isSplitColumn(column.getLabel()))
+            .sort(SortSpec.parse(params.getSortBy(nature.toString())))
+            .sortMemory((long) params.getSortMemory() << 20)
+            .tempDirectory(params.getTempDirectory())
+            .pruneEmptyColumns(params.isPruneEmptyColumns())
+            .widthSampleSize(params.isAutoWidth() ? params.getWidthSample() : 0)
+            .rowIndex(rowIndexOf(nature))
+            .rendering(rendering)
+            .stringPool(stringPool);
+        sinks.forEach(exportBuilder::addSink);
+        if (workbook != null && previousManifest != null) {
+            ExportManifest previous = previousManifest;
+            String sheetName = nature.toString();
+            exportBuilder
+                .contentSeed(contentSeed(nature))
+                .reusable(digest -> previous.isReusable(sheetName, sheetPart(workbook, sheetName), digest));
+        }
 
         preparation.accept(exportBuilder);
         prepareAssetExportProperties(exportBuilder, nature);
-        SheetExport<T> export = exportBuilder.build();
 
-        try (StreamResult<T> assetStream = query.get()) {
-            log.info("{} {} expected",
-                assetStream.getEstimatedSize(),
+        try (SheetExport<T> export = exportBuilder.build();
+             SheetCheckpoint sheetCheckpoint = checkpoint != null
+                 ? checkpoint.sheet(export.getName(), export.getColumnLabels(), selectionSeed(nature)) : null) {
+            attachListeners(nature, export);
+            if (partitions != null) {
+                attachPartitions(nature, exportBuilder, export, partitions);
+            }
+            ResumableListing<T> listing = ResumableListing.<T>builder()
+                .name(export.getName())
+                .query(timed(query))
+                .retries(params.getRetries())
+                .checkpoint(CHECKPOINT_INTERVAL, sheetCheckpoint != null ? sheetCheckpoint::mark : null)
+                .key(ExportCatalog::assetKey)
+                .requestPermits(requestPermits)
+                .stopWhen(stop)
+                .build();
+            if (sheetCheckpoint != null) {
+                // La position enregistrée n'est valable que si la liste est rendue dans le même ordre.
+                if (!sheetCheckpoint.isComplete()
+                    && !listing.seek(sheetCheckpoint.getConsumed(), sheetCheckpoint.getLastKey())) {
+                    log.warn("{}: the listing changed since the checkpoint, the sheet starts over", export.getName());
+                    sheetCheckpoint.restart();
+                }
+                sheetCheckpoint.replay(export.getColumnCount(), export::restore);
+                export.addListener(sheetCheckpoint);
+            }
+
+            if (sheetCheckpoint == null || !sheetCheckpoint.isComplete()) {
+                long consumed = listing.consume(sheetCheckpoint != null ? sheetCheckpoint.getConsumed() : 0, item -> {
+                    if (assetFilter.test(item)) {
+                        export.exportItem(item);
+                    }
+                });
+                export.setExpectedItemCount(listing.getEstimatedSize());
+                if (sheetCheckpoint != null) {
+                    sheetCheckpoint.complete(consumed);
+                }
+            }
+            export.finish();
+            if (workbook != null && manifest != null && export.getDigest() != null) {
+                String part = sheetPart(workbook, export.getName());
+                manifest.put(export.getName(), new ExportManifest.SheetEntry(part, export.getDigest(), -1, -1));
+                if (export.isReused()) {
+                    reusedParts.add(part);
+                }
+            }
+
+            itemCounts.put(export.getName(), export.getItemCount().get());
+            log.info("{} {} found",
+                export.getItemCount(),
                 export.getName());
+        }
+    }
+
+
+    /**
+     * Tire l'échantillon des datasets d'un export d'aperçu.
+     *
+     * <p>Les datasets retenus par les filtres sont présentés à un {@link StratifiedSampler échantillon stratifié};
+     * la lecture de la liste s'arrête après {@code --sample-scan} datasets présentés.</p>
+     *
+     * @return L'échantillon.
+     * @throws ParameterException Si les options de l'échantillon sont invalides.
+     */
+    private DatasetSample sampleDatasets() {
+        if (params.getSample() > 0 && params.getSampleRate() > 0) {
+            throw new ParameterException("Options --sample and --sample-rate cannot be used together");
+        }
+        if (params.getSampleRate() > 1) {
+            throw new ParameterException("Option --sample-rate expects a value between 0 and 1");
+        }
+        long seed = params.getSampleSeed() != null ? params.getSampleSeed() : new Random().nextLong();
+        SampleStrata strata = params.getSampleStrata();
+        StratifiedSampler<RichDataset> sampler = params.getSample() > 0
+            ? StratifiedSampler.ofSize(strata::stratumOf, params.getSample(), seed)
+            : StratifiedSampler.ofRate(strata::stratumOf, params.getSampleRate(), seed);
+        int scanLimit = params.getSampleScan();
+
+        ResumableListing<RichDataset> listing = ResumableListing.<RichDataset>builder()
+            .name("Dataset sample")
+            .query(timed(datasetApi::listAll))
+            .retries(params.getRetries())
+            .requestPermits(requestPermits)
+            .stopWhen(scanLimit > 0 ? () -> sampler.getSeenCount() >= scanLimit : null)
+            .build();
+        listing.consume(0, dataset -> {
+            if (filter.acceptDataset(dataset)) {
+                sampler.offer(dataset);
+            }
+        });
+
+        DatasetSample sample = new DatasetSample(sampler.sample(), sampler.getSeenCount(), sampler.getStrataCount(),
+            listing.isStopped(), seed);
+        log.info("{} datasets sampled by {} among {} read ({} strata, seed {})", sample.getDatasets().size(),
+            strata.getOption(), sample.getScannedCount(), sample.getStrataCount(), seed);
+        return sample;
+    }
+
+    /**
+     * Recherche les datasets d'un export ciblé par une liste d'identifiants.
+     *
+     * <p>La lecture de la liste des datasets s'arrête dès que tous les datasets de la liste d'identifiants ont été
+     * trouvés.</p>
+     *
+     * @param ids La liste d'identifiants.
+     * @return Les assets de l'export.
+     */
+    private IdSelection selectDatasets(IdList ids) {
+        IdSelection selection = new IdSelection(ids);
+        log.info("{} identifiers read from {}: {} categories, {} datasets, {} fields", ids.getEntries().size(),
+            params.getIdsFile(), ids.count(Nature.Category), ids.count(Nature.Dataset), ids.count(Nature.Field));
+
+        ResumableListing<RichDataset> listing = ResumableListing.<RichDataset>builder()
+            .name("Dataset selection")
+            .query(timed(datasetApi::listAll))
+            .retries(params.getRetries())
+            .requestPermits(requestPermits)
+            .stopWhen(selection::isDatasetComplete)
+            .build();
+        long read = listing.consume(0, dataset -> {
+            if (filter.acceptDataset(dataset)) {
+                selection.offerDataset(dataset);
+            }
+        });
+        selection.completeDatasets();
+        log.info("{} datasets found among {} read", selection.getDatasets().size(), read);
+        return selection;
+    }
+
+    /**
+     * Paramètres de l'échantillon écrits dans la feuille d'entête de l'aperçu.
+     *
+     * @param sample L'échantillon.
+     * @return Les paramètres, par libellé.
+     */
+    private Map<String, Object> describeSample(DatasetSample sample) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        if (params.getSample() > 0) {
+            description.put("Sample size", params.getSample());
+        } else {
+            description.put("Sample rate", Double.toString(params.getSampleRate()));
+        }
+        description.put("Strata", params.getSampleStrata().getOption());
+        description.put("Seed", Long.toString(sample.getSeed()));
+        description.put("Scan limit", params.getSampleScan() > 0 ? (Object) params.getSampleScan() : "none");
+        description.put("Datasets read", sample.getScannedCount());
+        description.put("Dataset listing complete", sample.isTruncated() ? "no" : "yes");
+        description.put("Strata found", sample.getStrataCount());
+        description.put("Datasets sampled", sample.getDatasets().size());
+        description.put("Sampled at", Instant.now().toString());
+        return description;
+    }
+
+    /**
+     * Note le moment de la première requête de listage, pour la mesure du démarrage.
+     *
+     * @param query Requête de listage auprès de l'API Zeenea.
+     * @param <T>   Type des assets listés.
+     * @return La requête, qui note le temps écoulé depuis le lancement de la JVM à son premier appel.
+     */
+    private <T> Supplier<StreamResult<T>> timed(Supplier<StreamResult<T>> query) {
+        return () -> {
+            if (firstRequestUptime < 0) {
+                firstRequestUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            }
+            return query.get();
+        };
+    }
+
+    /**
+     * Moment de la première requête de listage, une fois l'export réalisé.
+     *
+     * @return Le temps écoulé en millisecondes depuis le lancement de la JVM, ou -1 si aucun asset n'a été listé.
+     */
+    public long getFirstRequestUptime() {
+        return firstRequestUptime;
+    }
+
+    /**
+     * Nombre d'assets exportés par feuille, une fois l'export réalisé.
+     *
+     * @return Les nombres d'assets, par nom de feuille dans l'ordre des feuilles.
+     */
+    public Map<String, Long> getItemCounts() {
+        return Collections.unmodifiableMap(itemCounts);
+    }
+
+    /**
+     * Options qui modifient le contenu d'une feuille, incluses dans l'empreinte de la feuille.
+     *
+     * <p>Les options qui ne changent pas les lignes ni les colonnes (tri, largeur, feuilles ajoutées) sont
+     * toujours incluses. La projection, la description des colonnes et le partitionnement changent en général
+     * les libellés des colonnes, déjà décrits par l'empreinte; ils sont inclus pour qu'une colonne dont seule la
+     * source ou le style change ne soit pas reprise à tort.</p>
+     *
+     * @param nature Nature de l'asset exporté.
+     * @return La description des options.
+     */
+    private String contentSeed(Nature nature) {
+        return "sort=" + params.getSortBy(nature.toString())
+            + ";prune=" + params.isPruneEmptyColumns()
+            + ";width=" + (params.isAutoWidth() ? params.getWidthSample() : 0)
+            + ";links=" + params.isLinks()
+            + ";summary=" + params.isSummary()
+            + ";combined=" + params.isCombined()
+            + ";projection=" + projection.describe()
+            + ";layout=" + describeColumnLayout(nature)
+            + ";split=" + (params.getSplitBy() != null ? params.getSplitBy().getOption() : "none");
+    }
+
+    /**
+     * Options qui choisissent les assets d'une feuille et les valeurs de leurs lignes, enregistrées avec les points
+     * de reprise.
+     *
+     * <p>Une reprise avec d'autres filtres, une autre liste d'identifiants ou une autre projection ne relit pas les
+     * lignes construites avec les options précédentes: la feuille repart du début.</p>
+     *
+     * @param nature Nature de l'asset exporté.
+     * @return La description des options.
+     */
+    private String selectionSeed(Nature nature) {
+        return "filters=" + filter.describe()
+            + ";ids=" + (ids != null ? ids.fingerprint() : "none")
+            + ";projection=" + projection.describe()
+            + ";layout=" + describeColumnLayout(nature)
+            + ";enrich=" + params.getEnrichFields();
+    }
+
+    /**
+     * Décrit les colonnes d'une feuille lues depuis le fichier {@code --layout}, pour l'empreinte de la feuille.
+     *
+     * @param nature Nature de l'asset exporté.
+     * @return La description des colonnes, vide si la feuille garde ses colonnes prédéfinies.
+     */
+    private String describeColumnLayout(Nature nature) {
+        if (layout == null || !layout.covers(nature.toString())) return "";
 
-            export.export(assetStream);
+        StringBuilder description = new StringBuilder();
+        for (ColumnSpec column : layout.getColumns(nature.toString())) {
+            description.append('[').append(column.getLabel()).append('|').append(column.getWidth()).append('|')
+                .append(column.getType()).append('|').append(column.getStyle()).append('|')
+                .append(column.getSource()).append(']');
         }
-        log.info("{} {} found",
-            export.getItemCount(),
-            export.getName());
+        return description.toString();
     }
 
+    /**
+     * Écrit le classeur Excel, avec les lignes écrites en parallèle s'il y a lieu.
+     *
+     * @param workbook Document Excel de travail.
+     * @param out      Flux de destination.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    private void writeWorkbook(SXSSFWorkbook workbook, OutputStream out) throws IOException {
+        if (rendering != null) {
+            rendering.write(workbook, out);
+        } else {
+            workbook.write(out);
+        }
+    }
+
+    /**
+     * Nom de la partie d'une feuille dans l'archive du classeur.
+     *
+     * @param workbook Document Excel de travail.
+     * @param name     Nom de la feuille.
+     * @return Le nom de la partie, par exemple {@code xl/worksheets/sheet1.xml}.
+     */
+    private static String sheetPart(SXSSFWorkbook workbook, String name) {
+        return workbook.getXSSFWorkbook().getSheet(name).getPackagePart().getPartName().getName().substring(1);
+    }
+
+    /**
+     * Identité d'un asset, pour vérifier l'ordre de sa liste à la reprise.
+     *
+     * @param asset L'asset.
+     * @return L'UUID de l'asset, ou {@code null} s'il n'en a pas.
+     */
+    @Nullable
+    private static String assetKey(Asset asset) {
+        return asset.getId() != null ? asset.getId().getUuid() : null;
+    }
+
+    /**
+     * Index des numéros de ligne de la feuille d'un asset, cible des liens internes.
+     *
+     * @param nature Nature de l'asset exporté.
+     * @return L'index ou {@code null} si la feuille n'est pas la cible de liens.
+     */
+    @Nullable
+    private SheetRowIndex rowIndexOf(Nature nature) {
+        switch (nature) {
+            case Category:
+                return categoryRows;
+            case Dataset:
+                return datasetRows;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Écrit le nom d'un asset, sous forme de lien vers sa ligne lorsque les liens sont demandés.
+     *
+     * @param writer L'objet d'écriture d'une cellule Excel.
+     * @param name   Nom de l'asset.
+     * @param target Index des lignes de la feuille de l'asset, {@code null} si les liens ne sont pas demandés.
+     */
+    private static void writeLink(SheetExport.Writer writer, @Nullable String name, @Nullable SheetRowIndex target) {
+        if (target == null) {
+            writer.write(name);
+        } else {
+            writer.writeInternalLink(name, target.addressOf(name));
+        }
+    }
+
+    /**
+     * Rattache à l'export d'une feuille les observateurs de ses lignes, selon les options de l'export.
+     *
+     * @param nature Nature de l'asset exporté.
+     * @param export Export de la feuille.
+     */
+    private void attachListeners(Nature nature, SheetExport<?> export) {
+        if (summaryExport != null) {
+            summaryExport.attach(export, nature == Nature.Dataset
+                ? ImmutableList.of("Category Name", "Data Storage Type")
+                : ImmutableList.of());
+        }
+        if (nature == Nature.Dataset && !params.getEnrichFields().isEmpty()) {
+            datasetIndex = OffHeapRowIndex.attach(export, params.getEnrichFields());
+        }
+        if (combinedExport != null) {
+            if (nature == Nature.Dataset) {
+                combinedExport.attachDatasets(export);
+            } else if (nature == Nature.Field) {
+                combinedExport.attachFields(export, SortSpec.parse(params.getSortBy(nature.toString())));
+            }
+        }
+    }
+
+    /**
+     * Indique si une colonne est la colonne de partitionnement, toujours exportée pour router les lignes.
+     *
+     * @param label Libellé de la colonne.
+     * @return {@code true} pour la colonne de partitionnement.
+     */
+    private boolean isSplitColumn(String label) {
+        return params.getSplitBy() != null && params.getSplitBy().getColumn().equals(label);
+    }
+
+    /**
+     * Route les lignes d'une feuille vers les classeurs partitionnés.
+     *
+     * <p>Les catégories et les datasets sont routés par la valeur de leur colonne de partitionnement, les champs
+     * vers la partition de leur dataset. Les catégories n'ont pas de data storage: elles ne sont pas exportées dans
+     * les classeurs partitionnés par data storage.</p>
+     *
+     * @param nature     Nature de l'asset exporté.
+     * @param layout     Monteur de l'export de la feuille.
+     * @param export     Export de la feuille.
+     * @param partitions Classeurs partitionnés.
+     * @param <T>        Type de l'asset exporté.
+     */
+    private <T> void attachPartitions(Nature nature, SheetExport.Builder<T> layout, SheetExport<T> export,
+                                      PartitionedWorkbooks partitions) {
+        switch (nature) {
+            case Category:
+                if (params.getSplitBy() == SplitBy.CATEGORY) {
+                    export.addListener(partitions.routeByColumn(layout, export, false));
+                }
+                break;
+            case Dataset:
+                export.addListener(partitions.routeByColumn(layout, export, true));
+                break;
+            case Field:
+                export.addListener(partitions.routeByKey(layout, export));
+                break;
+            default:
+                break;
+        }
+    }
 
     /**
      * Prépare l'export des colonnes principales des categories.
@@ -240,6 +1093,9 @@ public class ExportCatalog {
      * @param builder Builder de l'objet d'export.
      */
     private void prepareCategoryExportMainSection(SheetExport.Builder<RichCategory> builder) {
+        builder.key(RichCategory::getName);
+        if (layout != null && layout.prepare(Nature.Category.toString(), RichCategory.class, builder)) return;
+
         builder
             .addColumn(col ->
                 col.label("Identifiant")
@@ -256,24 +1112,21 @@ public class ExportCatalog {
             .addColumn(col ->
                 col.label("Last Update")
                     .width(TIMESTAMP_WIDTH)
+                    .type(ValueType.TIMESTAMP)
                     .exporter((writer, item) -> writer.write(item.getLastUpdate())))
             .addColumn(col ->
                 col.label("tags")
                     .width(10)
-                    .exporter((writer, item) -> {
-                        List<String> tags = new ArrayList<>(item.getTags());
-                        if (!tags.isEmpty()) {
-                            tags.sort(String.CASE_INSENSITIVE_ORDER);
-                            writer.write(String.join("\n", tags));
-                        }
-                    }))
+                    .exporter((writer, item) -> writer.write(tagJoiner.join(item.getTags()))))
             .addColumn(col ->
                 col.label("Completion")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getCompletion())))
             .addColumn(col ->
                 col.label("Datasets Completion")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getDatasetCompletion())));
     }
 
@@ -283,6 +1136,9 @@ public class ExportCatalog {
      * @param builder Builder de l'objet d'export.
      */
     private void prepareDatasetExportMainSection(SheetExport.Builder<RichDataset> builder) {
+        builder.key(RichDataset::getName);
+        if (layout != null && layout.prepare(Nature.Dataset.toString(), RichDataset.class, builder)) return;
+
         builder
             .addColumn(col ->
                 col.label("Identifiant")
@@ -291,7 +1147,7 @@ public class ExportCatalog {
             .addColumn(col ->
                 col.label("Category Name")
                     .width(TEXT_WIDTH)
-                    .exporter((writer, item) -> writer.write(item.getCategoryName())))
+                    .exporter((writer, item) -> writeLink(writer, item.getCategoryName(), categoryRows)))
             .addColumn(col ->
                 col.label("Dataset Name")
                     .width(TEXT_WIDTH)
@@ -319,36 +1175,36 @@ public class ExportCatalog {
             .addColumn(col ->
                 col.label("Last Update")
                     .width(TIMESTAMP_WIDTH)
+                    .type(ValueType.TIMESTAMP)
                     .exporter((writer, item) -> writer.write(item.getLastUpdate())))
             .addColumn(col ->
                 col.label("Last Integration")
                     .width(TIMESTAMP_WIDTH)
+                    .type(ValueType.TIMESTAMP)
                     .exporter((writer, item) -> writer.write(item.getLastIntegration())))
             .addColumn(col ->
                 col.label("Record Number")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getNbRecord())))
             .addColumn(col ->
                 col.label("File Number")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getNbFile())))
             .addColumn(col ->
                 col.label("Size On Disk")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getSizeOnDisk())))
             .addColumn(col ->
                 col.label("tags")
                     .width(10)
-                    .exporter((writer, item) -> {
-                        List<String> tags = new ArrayList<>(item.getTags());
-                        if (!tags.isEmpty()) {
-                            tags.sort(String.CASE_INSENSITIVE_ORDER);
-                            writer.write(String.join("\n", tags));
-                        }
-                    }))
+                    .exporter((writer, item) -> writer.write(tagJoiner.join(item.getTags()))))
             .addColumn(col ->
                 col.label("Completion")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getCompletion())));
     }
 
@@ -359,6 +1215,13 @@ public class ExportCatalog {
      */
     @SuppressWarnings("unchecked")
     private void prepareFieldExportMainSection(SheetExport.Builder<RichField> builder) {
+        builder.key(RichField::getDatasetName);
+        // Le groupe des datasets suit la section principale, quel que soit l'ordre des appels au monteur.
+        if (datasetIndex != null) {
+            prepareFieldExportDatasetSection(builder, datasetIndex);
+        }
+        if (layout != null && layout.prepare(Nature.Field.toString(), RichField.class, builder)) return;
+
         builder
             .addColumn(col ->
                 col.label("Identifiant")
@@ -367,10 +1230,11 @@ public class ExportCatalog {
             .addColumn(col ->
                 col.label("Dataset Name")
                     .width(TEXT_WIDTH)
-                    .exporter((writer, item) -> writer.write(item.getDatasetName())))
+                    .exporter((writer, item) -> writeLink(writer, item.getDatasetName(), datasetRows)))
             .addColumn(col ->
                 col.label("Index")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getNativeIndex())))
             .addColumn(col ->
                 col.label("Field Name")
@@ -391,29 +1255,27 @@ public class ExportCatalog {
             .addColumn(col ->
                 col.label("Nullable")
                     .width(BOOLEAN_WIDTH)
+                    .type(ValueType.BOOLEAN)
                     .exporter((writer, item) -> writer.write(item.getNullable())))
             .addColumn(col ->
                 col.label("Multivalued")
                     .width(BOOLEAN_WIDTH)
+                    .type(ValueType.BOOLEAN)
                     .exporter((writer, item) -> writer.write(item.getMultivalued())))
             .addColumn(col ->
                 col.label("Primary Key")
                     .width(BOOLEAN_WIDTH)
+                    .type(ValueType.BOOLEAN)
                     .exporter((writer, item) -> writer.write(item.getPrimaryKey())))
             .addColumn(col ->
                 col.label("Last Update")
                     .width(TIMESTAMP_WIDTH)
+                    .type(ValueType.TIMESTAMP)
                     .exporter((writer, item) -> writer.write(item.getLastUpdate())))
             .addColumn(col ->
                 col.label("Tags")
                     .width(10)
-                    .exporter((writer, item) -> {
-                        List<String> tags = new ArrayList<>(item.getTags());
-                        if (!tags.isEmpty()) {
-                            tags.sort(String.CASE_INSENSITIVE_ORDER);
-                            writer.write(String.join("\n", tags));
-                        }
-                    }))
+                    .exporter((writer, item) -> writer.write(tagJoiner.join(item.getTags()))))
             .addColumn(col ->
                 col.label("Concepts")
                     .width(10)
@@ -421,23 +1283,54 @@ public class ExportCatalog {
                         List<ConceptName> concepts = item.getConcepts();
                         if (!concepts.isEmpty()) {
                             writer.write(concepts.stream()
-                                .map(ConceptName::getName)
+                                .map(concept -> stringPool.canonical(concept.getName()))
                                 .collect(Collectors.joining("\n")));
                         }
                     }))
             .addColumn(col ->
                 col.label("Completion")
                     .width(NUMBER_WIDTH)
+                    .type(ValueType.INTEGER)
                     .exporter((writer, item) -> writer.write(item.getCompletion())));
     }
 
+    /**
+     * Prépare l'export des colonnes des datasets recopiées sur les lignes des champs.
+     *
+     * <p>Les colonnes forment un groupe "Dataset". Leurs valeurs sont lues dans l'{@link OffHeapRowIndex index}
+     * alimenté pendant l'export des datasets, à partir du nom du dataset du champ.</p>
+     *
+     * @param builder Builder de l'objet d'export.
+     * @param index   Index des colonnes des datasets.
+     */
+    private void prepareFieldExportDatasetSection(SheetExport.Builder<RichField> builder, OffHeapRowIndex index) {
+        builder.addGroup(groupBuilder -> {
+            groupBuilder.label(Nature.Dataset.toString());
+            for (int colIdx = 0; colIdx < index.getLabels().size(); ++colIdx) {
+                int datasetCol = colIdx;
+                groupBuilder.addColumn(ColumnExport.<RichField>builder()
+                    .label(index.getLabels().get(colIdx))
+                    .width(index.getWidth(colIdx))
+                    .type(index.getType(colIdx))
+                    .exporter((writer, item) -> {
+                        RowRecord dataset = index.get(item.getDatasetName());
+                        if (dataset != null) {
+                            writer.copy(dataset, datasetCol);
+                        }
+                    })
+                    .build());
+            }
+        });
+    }
+
     /**
      * Prépare l'export des propriétés d'un asset.
      *
      * <h3>Détail d'implantation</h3>
      *
      * <p>Cette méthode appelle l'API Zeenea qui permet de récupérer le formulaire par défaut de l'asset à exporter.
-     * A partir du résultat, il crée un groupe de colonnes par section et une colonne par proprété dans la section.</p>
+     * A partir du résultat, il crée un groupe de colonnes par section et une colonne par proprété dans la section.
+     * Seules les propriétés retenues par la {@link ColumnProjection projection} sont exportées.</p>
      *
      * @param builder Builder de l'objet d'export.
      * @param target  Nature de l'asset à exporter.
@@ -450,9 +1343,12 @@ public class ExportCatalog {
                 groupBuilder.label(formSection.getLabel());
                 for (PropertyLine line : formSection.getLines()) {
                     for (Property property : line.getProperties()) {
+                        if (!projection.acceptProperty(formSection, property)) continue;
+
                         groupBuilder.addColumn(ColumnExport.<T>builder()
                             .label(property.getLabel())
                             .width(widthByPropertyType(property.getPropertyType()))
+                            .type(valueTypeByPropertyType(property.getPropertyType()))
                             .exporter((writer, item) -> propertyValueExporter(writer, property, item))
                             .build());
                     }
@@ -484,6 +1380,23 @@ public class ExportCatalog {
         }
     }
 
+    /**
+     * Détermine le type des valeurs de la colonne en fonction du type de la propriété.
+     *
+     * @param propertyType Type de la propriété.
+     * @return Type des valeurs de la colonne.
+     */
+    private ValueType valueTypeByPropertyType(PropertyType propertyType) {
+        switch (propertyType) {
+            case Number:
+                return ValueType.DECIMAL;
+            case TimeStamp:
+                return ValueType.TIMESTAMP;
+            default:
+                return ValueType.TEXT;
+        }
+    }
+
     /**
      * Méthode qui permet l'extraction de la valeur d'une propriété d'une instance d'un asset et de l'écrire dans une
      * cellule de la feuille Excel.
@@ -577,13 +1490,117 @@ public class ExportCatalog {
     private OutputStream openExportFile() throws IOException {
         Path outputFilePath = params.getOutputFile();
         log.info("Write result to {}", outputFilePath);
-        OpenOption[] options;
-        if (params.isOverrideExistingOutput()) {
-            options = new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
+        return Files.newOutputStream(outputFilePath, outputOptions());
+    }
+
+    /**
+     * Écrit le classeur en reprenant de l'export précédent les feuilles dont le contenu n'a pas changé.
+     *
+     * <p>Le classeur est d'abord écrit dans un fichier temporaire, sans le contenu des feuilles reprises. Il est
+     * ensuite assemblé avec les entrées de ces feuilles dans le classeur précédent, recopiées sans être
+     * décompressées, puis remplace le classeur précédent. Le manifeste est enfin mis à jour pour l'export suivant.</p>
+     *
+     * @param workbook Document Excel de travail.
+     * @param manifest Manifeste des feuilles de cet export.
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    private void writeReusingUnchangedSheets(SXSSFWorkbook workbook, ExportManifest manifest) {
+        Path outputFile = params.getOutputFile();
+        Path directory = SinkFiles.directory(outputFile);
+        Path written = null;
+        Path assembled = null;
+        try {
+            if (Files.exists(outputFile) && !overrideOutput()) {
+                throw new FileAlreadyExistsException(outputFile.toString());
+            }
+            log.info("Write result to {}", outputFile);
+            written = Files.createTempFile(directory, "catalog-export-", ".xlsx");
+            try (OutputStream out = Files.newOutputStream(written)) {
+                writeWorkbook(workbook, out);
+            }
+
+            Map<String, ZipArchiveEntry> entries;
+            if (reusedParts.isEmpty()) {
+                entries = WorkbookParts.entries(written);
+                Files.move(written, outputFile, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                assembled = Files.createTempFile(directory, "catalog-export-", ".xlsx");
+                entries = WorkbookParts.assemble(written, outputFile, reusedParts, assembled);
+                Files.move(assembled, outputFile, StandardCopyOption.REPLACE_EXISTING);
+                log.info("{} unchanged sheets copied from the previous export", reusedParts.size());
+            }
+
+            for (Map.Entry<String, ExportManifest.SheetEntry> sheet : new ArrayList<>(manifest.getSheets().entrySet())) {
+                ExportManifest.SheetEntry entry = sheet.getValue();
+                ZipArchiveEntry zipEntry = entries.get(entry.getPart());
+                if (zipEntry != null) {
+                    manifest.put(sheet.getKey(), new ExportManifest.SheetEntry(
+                        entry.getPart(), entry.getDigest(), zipEntry.getCrc(), zipEntry.getCompressedSize()));
+                }
+            }
+            manifest.save(manifestFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(written);
+            deleteQuietly(assembled);
+        }
+    }
+
+    /**
+     * Fichier du manifeste du classeur, à côté du fichier de sortie.
+     *
+     * @return Le chemin du manifeste.
+     */
+    private Path manifestFile() {
+        Path outputFile = params.getOutputFile();
+        return SinkFiles.directory(outputFile).resolve(SinkFiles.baseName(outputFile) + ".manifest");
+    }
+
+    private static void deleteQuietly(@Nullable Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary file {}", file, e);
+        }
+    }
+
+    /**
+     * Remplace les fichiers d'export existants, soit à la demande, soit lors de la reprise d'un export interrompu
+     * dont les fichiers ont été écrits en partie.
+     *
+     * @return {@code true} si les fichiers existants doivent être remplacés.
+     */
+    private boolean overrideOutput() {
+        return params.isOverrideExistingOutput() || (checkpoint != null && checkpoint.isResumed());
+    }
+
+    /**
+     * Dossier des points de reprise, par défaut à côté du fichier de sortie.
+     *
+     * @return Le chemin du dossier.
+     */
+    private Path checkpointDirectory() {
+        if (params.getCheckpointDirectory() != null) {
+            return params.getCheckpointDirectory();
+        }
+        Path outputFile = params.getOutputFile();
+        return SinkFiles.directory(outputFile).resolve(SinkFiles.baseName(outputFile) + ".checkpoint");
+    }
+
+    /**
+     * Options d'ouverture des fichiers d'export, selon l'option
+     * {@link ExportParams#isOverrideExistingOutput() overrideExistingOutput}.
+     *
+     * @return Les options.
+     */
+    private OpenOption[] outputOptions() {
+        if (overrideOutput()) {
+            return new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
         } else {
-            options = new OpenOption[]{StandardOpenOption.CREATE_NEW};
+            return new OpenOption[]{StandardOpenOption.CREATE_NEW};
         }
-        return Files.newOutputStream(outputFilePath, options);
     }
 
 
@@ -0,0 +1,58 @@
+package com.zeenea.cli.export;
+
+/**
+ * Format de sortie de l'export.
+ */
+public enum ExportFormat {
+    /**
+     * Classeur Excel, écrit dans le fichier de sortie.
+     */
+    XLSX(true, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx"),
+    /**
+     * Classeur Excel binaire, plus rapide à écrire et à ouvrir, à côté du fichier de sortie.
+     */
+    XLSB(true, "application/vnd.ms-excel.sheet.binary.macroEnabled.12", ".xlsb"),
+    /**
+     * Fichiers CSV, un par feuille, à côté du fichier de sortie.
+     */
+    CSV(false, "text/csv", ".csv"),
+    /**
+     * Fichier NDJSON, un objet JSON par ligne de toutes les feuilles, à côté du fichier de sortie.
+     */
+    NDJSON(true, "application/x-ndjson", ".ndjson"),
+    /**
+     * Base de données H2 embarquée, une table par feuille, à côté du fichier de sortie.
+     */
+    H2(false, "application/octet-stream", ".mv.db");
+
+    private final boolean streamable;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(boolean streamable, String contentType, String extension) {
+        this.streamable = streamable;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * @return {@code true} si le format tient dans un seul flux et peut être écrit dans une réponse HTTP.
+     */
+    public boolean isStreamable() {
+        return streamable;
+    }
+
+    /**
+     * @return Le type MIME du format.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return L'extension des fichiers du format, point compris.
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
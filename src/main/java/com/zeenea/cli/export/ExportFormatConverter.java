@@ -0,0 +1,22 @@
+package com.zeenea.cli.export;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Convertisseur JCommander d'un {@link ExportFormat format de sortie}, sans tenir compte de la casse.
+ */
+public class ExportFormatConverter implements IStringConverter<ExportFormat> {
+    @Override
+    public ExportFormat convert(String value) {
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException("Unknown format \"" + value + "\", expected one of "
+                + Arrays.toString(ExportFormat.values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
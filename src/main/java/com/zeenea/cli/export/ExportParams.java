@@ -1,12 +1,23 @@
 package com.zeenea.cli.export;
 
+import com.beust.jcommander.DynamicParameter;
 import com.beust.jcommander.Parameter;
+import com.zeenea.cli.export.partition.SplitBy;
+import com.zeenea.cli.export.partition.SplitByConverter;
+import com.zeenea.cli.export.sample.SampleStrata;
+import com.zeenea.cli.export.sample.SampleStrataConverter;
 import com.zeenea.client.api.ZeeneaConfig;
 import com.zeenea.client.api.ZeeneaConfigBuilder;
 
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration de l'export.
@@ -33,6 +44,126 @@ public class ExportParams  {
     @Parameter(names = {"-p", "--password"}, description = "Mot de passe de l'utilisateur Zeenea", required = true, password = true)
     private String password;
 
+    @Parameter(names = {"--format"}, description = "Formats de sortie: xlsx, xlsb, csv, ndjson, h2", converter = ExportFormatConverter.class)
+    private List<ExportFormat> formats = new ArrayList<>();
+
+    @Parameter(names = {"--columns"}, description = "Colonnes à exporter: libellés de colonne, identifiants de propriété ou libellés de section")
+    private List<String> columns = new ArrayList<>();
+
+    @Parameter(names = {"--properties"}, description = "Propriétés à exporter: identifiants, libellés de propriété ou libellés de section")
+    private List<String> properties = new ArrayList<>();
+
+    @Parameter(names = {"--profile"}, description = "Fichier de profil de projection des colonnes")
+    private Path projectionProfile;
+
+    @Parameter(names = {"--layout"}, description = "Fichier JSON des colonnes principales des feuilles, qui remplacent les colonnes prédéfinies")
+    private Path layoutFile;
+
+    @Parameter(names = {"--category"}, description = "Catégories à exporter (noms)")
+    private List<String> categories = new ArrayList<>();
+
+    @Parameter(names = {"--storage"}, description = "Data storages des datasets à exporter (noms ou types)")
+    private List<String> storages = new ArrayList<>();
+
+    @Parameter(names = {"--tag"}, description = "Tags des datasets à exporter (au moins un)")
+    private List<String> tags = new ArrayList<>();
+
+    @Parameter(names = {"--updated-since"}, description = "Date de mise à jour minimale des datasets (ISO-8601 ou durée relative: 7d, 12h, 30m)", converter = InstantConverter.class)
+    private Instant updatedSince;
+
+    @Parameter(names = {"--updated-before"}, description = "Date de mise à jour maximale (exclue) des datasets (ISO-8601 ou durée relative: 7d, 12h, 30m)", converter = InstantConverter.class)
+    private Instant updatedBefore;
+
+    @Parameter(names = {"--min-completion"}, description = "Taux de complétion minimal des datasets")
+    private Double minCompletion;
+
+    @Parameter(names = {"--max-completion"}, description = "Taux de complétion maximal des datasets")
+    private Double maxCompletion;
+
+    @DynamicParameter(names = {"--sort-by"}, description = "Tri d'une feuille: <feuille>=<colonne>[:desc],... Exemple: --sort-by Dataset=\"Category Name,Dataset Name\"")
+    private Map<String, String> sortBy = new HashMap<>();
+
+    @Parameter(names = {"--sort-memory"}, description = "Mémoire maximale utilisée par le tri d'une feuille, en Mo")
+    private int sortMemory = 64;
+
+    @Parameter(names = {"--temp-dir"}, description = "Dossier des fichiers temporaires")
+    private Path tempDirectory;
+
+    @Parameter(names = {"--combined"}, description = "Ajoute une feuille combinant chaque dataset et ses champs")
+    private boolean combined = false;
+
+    @Parameter(names = {"--prune-empty-columns"}, description = "Retire les colonnes dont aucune cellule n'est remplie")
+    private boolean pruneEmptyColumns = false;
+
+    @Parameter(names = {"--auto-width"}, description = "Estime la largeur des colonnes à partir d'un échantillon des lignes")
+    private boolean autoWidth = false;
+
+    @Parameter(names = {"--width-sample"}, description = "Taille de l'échantillon des lignes pour l'estimation de la largeur des colonnes")
+    private int widthSample = 1000;
+
+    @Parameter(names = {"--summary"}, description = "Ajoute une feuille de synthèse en tête du classeur")
+    private boolean summary = false;
+
+    @Parameter(names = {"--links"}, description = "Ajoute des liens des champs vers leur dataset et des datasets vers leur catégorie")
+    private boolean links = false;
+
+    @Parameter(names = {"--enrich-fields"}, description = "Colonnes des datasets à recopier dans la feuille des champs")
+    private List<String> enrichFields = new ArrayList<>();
+
+    @Parameter(names = {"--reuse-unchanged"}, description = "Reprend du classeur précédent les feuilles dont le contenu n'a pas changé")
+    private boolean reuseUnchanged = false;
+
+    @Parameter(names = {"--resume"}, description = "Reprend un export interrompu à partir de son dernier point de reprise")
+    private boolean resume = false;
+
+    @Parameter(names = {"--checkpoint-dir"}, description = "Dossier des points de reprise de l'export")
+    private Path checkpointDirectory;
+
+    @Parameter(names = {"--retries"}, description = "Nombre de nouvelles tentatives de lecture d'une liste d'assets après une erreur")
+    private int retries = 5;
+
+    @Parameter(names = {"--split-by"}, description = "Écrit un classeur par partition: category ou dataStorage", converter = SplitByConverter.class)
+    private SplitBy splitBy;
+
+    @Parameter(names = {"--split-threads"}, description = "Nombre de classeurs de partition écrits en même temps")
+    private int splitThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    @Parameter(names = {"--max-open-partitions"}, description = "Nombre maximal de fichiers de partition ouverts pendant la lecture du catalogue")
+    private int maxOpenPartitions = 64;
+
+    @Parameter(names = {"--render-threads"}, description = "Nombre de threads d'écriture des lignes du classeur, 1 pour les écrire par POI")
+    private int renderThreads = 1;
+
+    @Parameter(names = {"--render-chunk"}, description = "Nombre de lignes des blocs écrits par un thread avec --render-threads")
+    private int renderChunk = 1000;
+
+    @Parameter(names = {"--sample"}, description = "Aperçu: nombre de datasets tirés au hasard, avec leurs catégories et leurs champs")
+    private int sample;
+
+    @Parameter(names = {"--sample-rate"}, description = "Aperçu: part des datasets tirés au hasard, entre 0 et 1")
+    private double sampleRate;
+
+    @Parameter(names = {"--sample-by"}, description = "Strates de l'échantillon: category ou storageType", converter = SampleStrataConverter.class)
+    private SampleStrata sampleStrata = SampleStrata.CATEGORY;
+
+    @Parameter(names = {"--sample-scan"}, description = "Nombre maximal de datasets lus pour l'échantillon, 0 pour lire toute la liste")
+    private int sampleScan = 10000;
+
+    @Parameter(names = {"--sample-seed"}, description = "Graine du tirage de l'échantillon, pour le reproduire")
+    private Long sampleSeed;
+
+    @Parameter(names = {"--ids-file"}, description = "Fichier des identifiants des assets à exporter, un par ligne")
+    private Path idsFile;
+
+    @Parameter(names = {"--cache-dir"}, description = "Active le cache des réponses de l'API Zeenea, dans ce dossier")
+    private Path cacheDirectory;
+
+    @Parameter(names = {"--cache-size"}, description = "Taille maximale du cache des réponses de l'API Zeenea, en Mio")
+    private int cacheSize = 512;
+
+    @Parameter(names = {"--no-cache"}, description = "Désactive le cache des réponses de l'API Zeenea, même avec --cache-dir")
+    private boolean noCache = false;
+
     @Parameter(names = "--help", description = "Affiche le message d'aide", help = true)
     private boolean help;
 
@@ -43,8 +174,19 @@ public class ExportParams  {
      * @see ZeeneaConfig
      */
     public ZeeneaConfig toZeeneaConfig() {
+        return toZeeneaConfig(getUri());
+    }
+
+    /**
+     * Convert this {@code ExportConfig} to a {@code ZeeneaConfig} connecting to another URI, such as a local relay.
+     *
+     * @param uri The URI the client connects to.
+     * @return a ZeeneaConfig.
+     * @see com.zeenea.cli.export.cache.CachingProxy
+     */
+    public ZeeneaConfig toZeeneaConfig(URI uri) {
         return new ZeeneaConfigBuilder()
-            .uri(getUri())
+            .uri(uri)
             .username(getUser())
             .password(getPassword())
             .build();
@@ -101,6 +243,634 @@ public class ExportParams  {
         this.overrideExistingOutput = overrideExistingOutput;
     }
 
+    /**
+     * Formats de sortie, produits en un seul passage sur les résultats de l'API.
+     * <p>Option: {@code --format}, {@code xlsx} par défaut.</p>
+     *
+     * @return La liste des formats, jamais vide.
+     */
+    public List<ExportFormat> getFormats() {
+        return formats.isEmpty() ? Collections.singletonList(ExportFormat.XLSX) : formats;
+    }
+
+    public void setFormats(List<ExportFormat> formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Sélecteurs des colonnes à exporter.
+     * <p>Option: {@code --columns}.</p>
+     *
+     * @return La liste des sélecteurs, vide pour exporter toutes les colonnes.
+     * @see ColumnProjection
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Sélecteurs des propriétés à exporter.
+     * <p>Option: {@code --properties}.</p>
+     *
+     * @return La liste des sélecteurs, vide pour exporter toutes les propriétés.
+     * @see ColumnProjection
+     */
+    public List<String> getProperties() {
+        return properties;
+    }
+
+    public void setProperties(List<String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Fichier de profil de projection des colonnes.
+     * <p>Option: {@code --profile}.</p>
+     *
+     * @return un {@link Path} ou {@code null}.
+     * @see ColumnProjection
+     */
+    public Path getProjectionProfile() {
+        return projectionProfile;
+    }
+
+    public void setProjectionProfile(Path projectionProfile) {
+        this.projectionProfile = projectionProfile;
+    }
+
+    /**
+     * Fichier JSON des colonnes principales des feuilles, qui remplacent les colonnes prédéfinies.
+     * <p>Option: {@code --layout}.</p>
+     *
+     * @return un {@link Path} ou {@code null}.
+     * @see com.zeenea.cli.export.layout.ColumnLayout
+     */
+    public Path getLayoutFile() {
+        return layoutFile;
+    }
+
+    public void setLayoutFile(Path layoutFile) {
+        this.layoutFile = layoutFile;
+    }
+
+    /**
+     * Noms des catégories à exporter.
+     * <p>Option: {@code --category}.</p>
+     *
+     * @return La liste des noms, vide pour exporter toutes les catégories.
+     * @see AssetFilter
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * Noms ou types des data storages des datasets à exporter.
+     * <p>Option: {@code --storage}.</p>
+     *
+     * @return La liste des noms ou types, vide pour ne pas filtrer.
+     * @see AssetFilter
+     */
+    public List<String> getStorages() {
+        return storages;
+    }
+
+    public void setStorages(List<String> storages) {
+        this.storages = storages;
+    }
+
+    /**
+     * Tags des datasets à exporter; un dataset est retenu s'il porte au moins un de ces tags.
+     * <p>Option: {@code --tag}.</p>
+     *
+     * @return La liste des tags, vide pour ne pas filtrer.
+     * @see AssetFilter
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * Date de mise à jour minimale des datasets à exporter.
+     * <p>Option: {@code --updated-since}.</p>
+     *
+     * @return un {@link Instant} ou {@code null}.
+     * @see AssetFilter
+     */
+    public Instant getUpdatedSince() {
+        return updatedSince;
+    }
+
+    public void setUpdatedSince(Instant updatedSince) {
+        this.updatedSince = updatedSince;
+    }
+
+    /**
+     * Date de mise à jour maximale, exclue, des datasets à exporter.
+     * <p>Option: {@code --updated-before}.</p>
+     *
+     * @return un {@link Instant} ou {@code null}.
+     * @see AssetFilter
+     */
+    public Instant getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    public void setUpdatedBefore(Instant updatedBefore) {
+        this.updatedBefore = updatedBefore;
+    }
+
+    /**
+     * Taux de complétion minimal des datasets à exporter.
+     * <p>Option: {@code --min-completion}.</p>
+     *
+     * @return le taux ou {@code null}.
+     * @see AssetFilter
+     */
+    public Double getMinCompletion() {
+        return minCompletion;
+    }
+
+    public void setMinCompletion(Double minCompletion) {
+        this.minCompletion = minCompletion;
+    }
+
+    /**
+     * Taux de complétion maximal des datasets à exporter.
+     * <p>Option: {@code --max-completion}.</p>
+     *
+     * @return le taux ou {@code null}.
+     * @see AssetFilter
+     */
+    public Double getMaxCompletion() {
+        return maxCompletion;
+    }
+
+    public void setMaxCompletion(Double maxCompletion) {
+        this.maxCompletion = maxCompletion;
+    }
+
+    /**
+     * Spécifications de tri, par nom de feuille.
+     * <p>Option: {@code --sort-by}.</p>
+     *
+     * @return Les spécifications de tri.
+     * @see com.zeenea.cli.export.sort.SortSpec
+     */
+    public Map<String, String> getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(Map<String, String> sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    /**
+     * Spécification de tri d'une feuille.
+     *
+     * @param sheetName Nom de la feuille, la casse est ignorée.
+     * @return La spécification ou {@code null} si la feuille n'est pas triée.
+     */
+    public String getSortBy(String sheetName) {
+        for (Map.Entry<String, String> entry : sortBy.entrySet()) {
+            if (entry.getKey().trim().equalsIgnoreCase(sheetName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mémoire maximale utilisée par le tri d'une feuille.
+     * <p>Option: {@code --sort-memory}.</p>
+     *
+     * @return la taille en Mo.
+     */
+    public int getSortMemory() {
+        return sortMemory;
+    }
+
+    public void setSortMemory(int sortMemory) {
+        this.sortMemory = sortMemory;
+    }
+
+    /**
+     * Dossier des fichiers temporaires.
+     * <p>Option: {@code --temp-dir}.</p>
+     *
+     * @return un {@link Path} ou {@code null} pour le dossier temporaire du système.
+     */
+    public Path getTempDirectory() {
+        return tempDirectory;
+    }
+
+    public void setTempDirectory(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Ajoute une feuille combinant chaque dataset et ses champs, regroupés avec le plan Excel.
+     * <p>Option: {@code --combined}.</p>
+     *
+     * @return {@code true} si la feuille combinée est demandée.
+     * @see com.zeenea.cli.export.xlsx.CombinedSheetExport
+     */
+    public boolean isCombined() {
+        return combined;
+    }
+
+    public void setCombined(boolean combined) {
+        this.combined = combined;
+    }
+
+    /**
+     * Retire de chaque feuille les colonnes dont aucune cellule n'est remplie.
+     * <p>Option: {@code --prune-empty-columns}.</p>
+     *
+     * @return {@code true} si les colonnes vides doivent être retirées.
+     * @see com.zeenea.cli.export.xlsx.ColumnOccupancy
+     */
+    public boolean isPruneEmptyColumns() {
+        return pruneEmptyColumns;
+    }
+
+    public void setPruneEmptyColumns(boolean pruneEmptyColumns) {
+        this.pruneEmptyColumns = pruneEmptyColumns;
+    }
+
+    /**
+     * Estime la largeur des colonnes à partir d'un échantillon des lignes, au lieu d'une largeur fixe par type de
+     * colonne.
+     * <p>Option: {@code --auto-width}.</p>
+     *
+     * @return {@code true} si la largeur des colonnes doit être estimée.
+     * @see com.zeenea.cli.export.xlsx.ColumnWidthEstimator
+     */
+    public boolean isAutoWidth() {
+        return autoWidth;
+    }
+
+    public void setAutoWidth(boolean autoWidth) {
+        this.autoWidth = autoWidth;
+    }
+
+    /**
+     * Nombre de premières lignes échantillonnées pour estimer la largeur des colonnes, qui est aussi la taille du
+     * réservoir des lignes suivantes.
+     * <p>Option: {@code --width-sample}, 1000 par défaut.</p>
+     *
+     * @return La taille de l'échantillon.
+     */
+    public int getWidthSample() {
+        return widthSample;
+    }
+
+    public void setWidthSample(int widthSample) {
+        this.widthSample = widthSample;
+    }
+
+    /**
+     * Ajoute une feuille de synthèse en tête du classeur.
+     * <p>Option: {@code --summary}.</p>
+     *
+     * @return {@code true} si la feuille de synthèse est demandée.
+     * @see com.zeenea.cli.export.summary.SummarySheetExport
+     */
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * Ajoute des liens internes au classeur: du nom du dataset d'un champ vers la ligne du dataset, et du nom de la
+     * catégorie d'un dataset vers la ligne de la catégorie.
+     * <p>Option: {@code --links}.</p>
+     *
+     * @return {@code true} si les liens sont demandés.
+     * @see com.zeenea.cli.export.xlsx.SheetRowIndex
+     */
+    public boolean isLinks() {
+        return links;
+    }
+
+    public void setLinks(boolean links) {
+        this.links = links;
+    }
+
+    /**
+     * Libellés des colonnes de la feuille des datasets recopiées sur chaque ligne de la feuille des champs.
+     * <p>Option: {@code --enrich-fields}.</p>
+     *
+     * @return La liste des libellés, vide si l'enrichissement n'est pas demandé.
+     * @see com.zeenea.cli.export.xlsx.OffHeapRowIndex
+     */
+    public List<String> getEnrichFields() {
+        return enrichFields;
+    }
+
+    public void setEnrichFields(List<String> enrichFields) {
+        this.enrichFields = enrichFields;
+    }
+
+    /**
+     * Reprend du classeur de l'export précédent, sans les recompresser, les feuilles dont le contenu n'a pas changé.
+     * <p>Option: {@code --reuse-unchanged}.</p>
+     *
+     * @return {@code true} si les feuilles inchangées doivent être reprises.
+     * @see com.zeenea.cli.export.reuse.ExportManifest
+     */
+    public boolean isReuseUnchanged() {
+        return reuseUnchanged;
+    }
+
+    public void setReuseUnchanged(boolean reuseUnchanged) {
+        this.reuseUnchanged = reuseUnchanged;
+    }
+
+    /**
+     * Reprend un export interrompu: les lignes enregistrées au dernier point de reprise sont relues et la lecture
+     * des assets continue après le dernier asset enregistré.
+     * <p>Option: {@code --resume}.</p>
+     *
+     * @return {@code true} si l'export doit être repris.
+     * @see com.zeenea.cli.export.checkpoint.ExportCheckpoint
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Dossier des points de reprise de l'export.
+     * <p>Option: {@code --checkpoint-dir}.</p>
+     *
+     * @return un {@link Path} ou {@code null} pour un dossier {@code <nom>.checkpoint} à côté du fichier de sortie.
+     */
+    public Path getCheckpointDirectory() {
+        return checkpointDirectory;
+    }
+
+    public void setCheckpointDirectory(Path checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    /**
+     * Les points de reprise ne sont écrits que sur demande: avec {@code --resume}, ou avec {@code --checkpoint-dir}
+     * pour un export qui pourra être repris.
+     *
+     * @return {@code true} si l'export écrit des points de reprise.
+     */
+    public boolean isCheckpointing() {
+        return resume || checkpointDirectory != null;
+    }
+
+    /**
+     * Nombre de nouvelles tentatives de lecture d'une liste d'assets après une erreur de l'API, avec une attente
+     * croissante entre deux tentatives.
+     * <p>Option: {@code --retries}.</p>
+     *
+     * @return Le nombre de tentatives, {@code 0} pour échouer à la première erreur.
+     * @see com.zeenea.cli.export.checkpoint.ResumableListing
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * Partitionnement du classeur: un classeur par catégorie ou par data storage, au lieu d'un classeur unique.
+     * <p>Option: {@code --split-by}.</p>
+     *
+     * @return Le partitionnement, ou {@code null} pour un classeur unique.
+     * @see com.zeenea.cli.export.partition.PartitionedWorkbooks
+     */
+    public SplitBy getSplitBy() {
+        return splitBy;
+    }
+
+    public void setSplitBy(SplitBy splitBy) {
+        this.splitBy = splitBy;
+    }
+
+    /**
+     * Nombre de classeurs de partition écrits en même temps, chacun dans son thread.
+     * <p>Option: {@code --split-threads}.</p>
+     *
+     * @return Le nombre de threads d'écriture.
+     */
+    public int getSplitThreads() {
+        return splitThreads;
+    }
+
+    public void setSplitThreads(int splitThreads) {
+        this.splitThreads = splitThreads;
+    }
+
+    /**
+     * Nombre maximal de fichiers de partition ouverts pendant la lecture du catalogue; au-delà, les fichiers les
+     * moins récemment utilisés sont fermés.
+     * <p>Option: {@code --max-open-partitions}.</p>
+     *
+     * @return Le nombre de fichiers.
+     */
+    public int getMaxOpenPartitions() {
+        return maxOpenPartitions;
+    }
+
+    public void setMaxOpenPartitions(int maxOpenPartitions) {
+        this.maxOpenPartitions = maxOpenPartitions;
+    }
+
+    /**
+     * Nombre de threads d'écriture des lignes du classeur. Avec plus d'un thread, les lignes sont écrites en XML par
+     * blocs en parallèle et insérées dans les feuilles à l'écriture du classeur; les liens vers une URL sont alors
+     * écrits sous forme de formule {@code HYPERLINK}.
+     * <p>Option: {@code --render-threads}.</p>
+     *
+     * @return Le nombre de threads, {@code 1} pour écrire les lignes par POI.
+     */
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+    }
+
+    /**
+     * Nombre de lignes des blocs écrits par un thread avec {@code --render-threads}.
+     * <p>Option: {@code --render-chunk}.</p>
+     *
+     * @return Le nombre de lignes.
+     */
+    public int getRenderChunk() {
+        return renderChunk;
+    }
+
+    public void setRenderChunk(int renderChunk) {
+        this.renderChunk = renderChunk;
+    }
+
+    /**
+     * Nombre de datasets de l'échantillon d'un export d'aperçu.
+     * <p>Option: {@code --sample}.</p>
+     *
+     * @return Le nombre de datasets, {@code 0} sans échantillon de taille fixe.
+     * @see com.zeenea.cli.export.sample.StratifiedSampler
+     */
+    public int getSample() {
+        return sample;
+    }
+
+    public void setSample(int sample) {
+        this.sample = sample;
+    }
+
+    /**
+     * Part des datasets de l'échantillon d'un export d'aperçu.
+     * <p>Option: {@code --sample-rate}.</p>
+     *
+     * @return La part des datasets, dans {@code ]0, 1]}, ou {@code 0} sans échantillon proportionnel.
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @return {@code true} si l'export est un aperçu sur un échantillon des datasets.
+     */
+    public boolean isSampling() {
+        return sample > 0 || sampleRate > 0;
+    }
+
+    /**
+     * Strates de l'échantillon, représentées en proportion de leur taille.
+     * <p>Option: {@code --sample-by}.</p>
+     *
+     * @return Les strates.
+     */
+    public SampleStrata getSampleStrata() {
+        return sampleStrata;
+    }
+
+    public void setSampleStrata(SampleStrata sampleStrata) {
+        this.sampleStrata = sampleStrata;
+    }
+
+    /**
+     * Nombre maximal de datasets lus pour l'échantillon; la lecture de la liste s'arrête au-delà.
+     * <p>Option: {@code --sample-scan}.</p>
+     *
+     * @return Le nombre de datasets, {@code 0} pour lire toute la liste.
+     */
+    public int getSampleScan() {
+        return sampleScan;
+    }
+
+    public void setSampleScan(int sampleScan) {
+        this.sampleScan = sampleScan;
+    }
+
+    /**
+     * Graine du tirage de l'échantillon.
+     * <p>Option: {@code --sample-seed}.</p>
+     *
+     * @return La graine, ou {@code null} pour une graine aléatoire.
+     */
+    public Long getSampleSeed() {
+        return sampleSeed;
+    }
+
+    public void setSampleSeed(Long sampleSeed) {
+        this.sampleSeed = sampleSeed;
+    }
+
+    /**
+     * Fichier des identifiants des assets à exporter, un par ligne.
+     * <p>Option: {@code --ids-file}.</p>
+     *
+     * @return un {@link Path} ou {@code null} pour exporter tout le catalogue.
+     * @see com.zeenea.cli.export.ids.IdList
+     */
+    public Path getIdsFile() {
+        return idsFile;
+    }
+
+    public void setIdsFile(Path idsFile) {
+        this.idsFile = idsFile;
+    }
+
+    /**
+     * Dossier du cache des réponses de l'API Zeenea; le cache n'est utilisé que si le dossier est donné.
+     * <p>Option: {@code --cache-dir}.</p>
+     *
+     * @return le dossier du cache, ou {@code null} sans cache.
+     * @see com.zeenea.cli.export.cache.DiskResponseCache
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Taille maximale du cache des réponses de l'API Zeenea, en Mio; les réponses les moins récemment utilisées sont
+     * supprimées au-delà.
+     * <p>Option: {@code --cache-size}, 512 par défaut.</p>
+     *
+     * @return La taille en Mio.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Désactive le cache des réponses de l'API Zeenea, même si son dossier est donné.
+     * <p>Option: {@code --no-cache}. Sans {@code --cache-dir}, le cache n'est pas utilisé et l'option est sans
+     * effet.</p>
+     *
+     * @return {@code true} si les réponses ne passent pas par le cache.
+     * @see com.zeenea.cli.export.cache.CachingProxy
+     */
+    public boolean isNoCache() {
+        return noCache;
+    }
+
+    public void setNoCache(boolean noCache) {
+        this.noCache = noCache;
+    }
+
     public boolean isHelp() {
         return help;
     }
@@ -0,0 +1,57 @@
+package com.zeenea.cli.export;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Convertisseur JCommander d'une date.
+ *
+ * <p>Les formats acceptés sont:</p>
+ * <ul>
+ *     <li>un instant ISO-8601, par exemple {@code 2019-10-01T12:00:00Z},</li>
+ *     <li>une date ISO-8601, par exemple {@code 2019-10-01}, interprétée comme minuit UTC,</li>
+ *     <li>une durée relative à l'heure courante: {@code 7d}, {@code 12h}, {@code 30m} ou {@code P7D}.</li>
+ * </ul>
+ */
+public class InstantConverter implements IStringConverter<Instant> {
+    private static final Pattern RELATIVE = Pattern.compile("(\\d+)\\s*([dhm])");
+
+    @Override
+    public Instant convert(String value) {
+        String text = value.trim();
+
+        Matcher matcher = RELATIVE.matcher(text);
+        if (matcher.matches()) {
+            long amount = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "d":
+                    return Instant.now().minus(Duration.ofDays(amount));
+                case "h":
+                    return Instant.now().minus(Duration.ofHours(amount));
+                default:
+                    return Instant.now().minus(Duration.ofMinutes(amount));
+            }
+        }
+
+        try {
+            if (text.startsWith("P") || text.startsWith("p")) {
+                return Instant.now().minus(Duration.parse(text));
+            }
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ParameterException("Invalid date \"" + value + "\": expected an ISO-8601 instant or date, "
+                + "or a relative duration such as 7d, 12h, 30m or P7D");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.zeenea.cli.export.batch;
+
+import com.beust.jcommander.ParameterException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Configuration d'un lot d'exports, lue dans un fichier au format {@link Properties}.
+ *
+ * <p>Les clés sans préfixe sont les limites du lot:</p>
+ * <ul>
+ *     <li>{@code max-exports}: nombre maximal d'exports exécutés en même temps, 4 par défaut;</li>
+ *     <li>{@code max-requests}: nombre maximal d'appels à l'API en cours, tous exports confondus, 8 par défaut;</li>
+ *     <li>{@code memory-mb}: mémoire réservée aux exports en cours, en Mo, les trois quarts du tas par défaut.</li>
+ * </ul>
+ * <p>Chaque clé {@code <nom>.url} déclare un export, décrit par les clés {@code <nom>.*}, voir
+ * {@link BatchProfile}. Les exports sont exécutés dans l'ordre alphabétique de leurs noms.</p>
+ */
+public final class BatchConfig {
+    private final int maxExports;
+    private final int maxRequests;
+    private final int memoryMb;
+    private final List<BatchProfile> profiles;
+
+    private BatchConfig(int maxExports, int maxRequests, int memoryMb, List<BatchProfile> profiles) {
+        this.maxExports = maxExports;
+        this.maxRequests = maxRequests;
+        this.memoryMb = memoryMb;
+        this.profiles = profiles;
+    }
+
+    /**
+     * Lit la configuration d'un lot.
+     *
+     * @param file Le fichier de configuration.
+     * @return La configuration.
+     * @throws UncheckedIOException Si le fichier ne peut être lu.
+     * @throws ParameterException   Si la configuration est invalide.
+     */
+    public static BatchConfig load(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(".url")) {
+                names.add(key.substring(0, key.length() - ".url".length()));
+            }
+        }
+        if (names.isEmpty()) {
+            throw new ParameterException("No export declared in " + file + ": expected <name>.url keys");
+        }
+
+        List<BatchProfile> profiles = new ArrayList<>();
+        Map<Path, String> outputs = new HashMap<>();
+        for (String name : names) {
+            BatchProfile profile = BatchProfile.of(name, properties);
+            String other = outputs.put(profile.getOutput().toAbsolutePath().normalize(), name);
+            if (other != null) {
+                throw new ParameterException("Profiles " + other + " and " + name + " write the same output " + profile.getOutput());
+            }
+            profiles.add(profile);
+        }
+
+        long defaultMemory = Runtime.getRuntime().maxMemory() * 3 / 4 >> 20;
+        return new BatchConfig(
+            positive(properties, "max-exports", 4),
+            positive(properties, "max-requests", 8),
+            positive(properties, "memory-mb", (int) Math.min(Integer.MAX_VALUE, defaultMemory)),
+            profiles);
+    }
+
+    private static int positive(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) return result;
+        } catch (NumberFormatException e) {
+            // Signalé ci-dessous.
+        }
+        throw new ParameterException("Invalid " + key + " \"" + value + "\": a positive integer is expected");
+    }
+
+    /**
+     * @return Le nombre maximal d'exports exécutés en même temps.
+     */
+    public int getMaxExports() {
+        return maxExports;
+    }
+
+    /**
+     * @return Le nombre maximal d'appels à l'API en cours, tous exports confondus.
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @return La mémoire réservée aux exports en cours, en Mo.
+     */
+    public int getMemoryMb() {
+        return memoryMb;
+    }
+
+    /**
+     * @return Les exports du lot.
+     */
+    public List<BatchProfile> getProfiles() {
+        return Collections.unmodifiableList(profiles);
+    }
+}
@@ -0,0 +1,167 @@
+package com.zeenea.cli.export.batch;
+
+import com.beust.jcommander.JCommander;
+import com.zeenea.cli.export.ExportCatalog;
+import com.zeenea.cli.export.ExportParams;
+import com.zeenea.client.api.ZeeneaClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lot d'exports de plusieurs instances Zeenea, exécutés en même temps dans la même JVM.
+ *
+ * <p>Chaque export se connecte à son instance avec son propre client. Deux limites sont partagées par les exports
+ * du lot:</p>
+ * <ul>
+ *     <li>le nombre d'appels à l'API en cours, qui sont les lectures des listes d'assets, voir
+ *     {@link com.zeenea.cli.export.checkpoint.ResumableListing};</li>
+ *     <li>la mémoire: un export ne démarre que lorsque sa réservation tient dans la mémoire du lot.</li>
+ * </ul>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>La réservation mémoire d'un export est une estimation: {@value #BASE_MEMORY_MB} Mo, plus la mémoire de tri
+ * d'une feuille ({@code --sort-memory}), doublée pour l'option {@code --combined} dont la feuille combinée est
+ * triée en même temps que la feuille en cours. Elle est plafonnée à la mémoire du lot, pour qu'un export trop gros
+ * s'exécute seul plutôt que jamais.</p>
+ */
+public final class BatchExport {
+    private static final Logger log = LoggerFactory.getLogger(BatchExport.class);
+    static final int BASE_MEMORY_MB = 64;
+
+    private final BatchConfig config;
+    private final Semaphore requestPermits;
+    private final Semaphore memoryPermits;
+
+    /**
+     * @param config Configuration du lot.
+     */
+    public BatchExport(BatchConfig config) {
+        this.config = config;
+        this.requestPermits = new Semaphore(config.getMaxRequests(), true);
+        this.memoryPermits = new Semaphore(config.getMemoryMb(), true);
+    }
+
+    /**
+     * Point d'entrée de la commande {@code catalog-export batch}.
+     *
+     * <p>Le programme s'arrête avec le code de retour 1 si au moins un export a échoué.</p>
+     *
+     * @param args Arguments de la ligne de commande, après {@code batch}.
+     */
+    public static void main(String[] args) {
+        BatchParams batchParams = new BatchParams();
+        JCommander jCommander = JCommander.newBuilder()
+            .programName("catalog-export batch")
+            .addObject(batchParams)
+            .build();
+        jCommander.parse(args);
+        if (batchParams.isHelp()) {
+            jCommander.usage();
+            System.exit(0);
+        }
+
+        BatchConfig config = BatchConfig.load(batchParams.getConfig());
+        Instant start = Instant.now();
+        BatchReport report = new BatchExport(config).run(start);
+        report.log();
+        if (batchParams.getReport() != null) {
+            report.write(batchParams.getReport(), Instant.now());
+        }
+        if (report.hasFailures()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Exécute les exports du lot et attend leur fin.
+     *
+     * @param start Le début du lot.
+     * @return Le rapport d'exécution.
+     */
+    public BatchReport run(Instant start) {
+        BatchReport report = new BatchReport(start);
+        log.info("Batch of {} exports, {} at a time, {} API requests and {} MB shared",
+            config.getProfiles().size(), config.getMaxExports(), config.getMaxRequests(), config.getMemoryMb());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(config.getMaxExports(),
+            runnable -> new Thread(runnable, "catalog-export-batch-" + threadCount.incrementAndGet()));
+        try {
+            List<Future<?>> jobs = new ArrayList<>();
+            for (BatchProfile profile : config.getProfiles()) {
+                jobs.add(executor.submit(() -> export(profile, report)));
+            }
+            for (Future<?> job : jobs) {
+                try {
+                    job.get();
+                } catch (ExecutionException e) {
+                    // Les erreurs d'un export sont enregistrées dans le rapport.
+                    log.debug("Unexpected batch job error", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+        return report;
+    }
+
+    private void export(BatchProfile profile, BatchReport report) {
+        Instant start = Instant.now();
+        long startTime = System.nanoTime();
+        int memory = 0;
+        try {
+            ExportParams params = parse(profile);
+            memory = memoryReservation(params);
+            if (!memoryPermits.tryAcquire(memory)) {
+                log.info("Batch export {} waiting for {} MB", profile.getName(), memory);
+                memoryPermits.acquire(memory);
+            }
+            log.info("Batch export {} started", profile.getName());
+            try (ZeeneaClient client = ZeeneaClient.connect(params.toZeeneaConfig())) {
+                ExportCatalog catalog = new ExportCatalog(params, client, requestPermits);
+                catalog.exportCatalog();
+                report.succeeded(profile, start, elapsed(startTime), catalog.getItemCounts());
+            } finally {
+                memoryPermits.release(memory);
+            }
+        } catch (InterruptedException e) {
+            report.failed(profile, start, elapsed(startTime), e);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Batch export {} failed", profile.getName(), e);
+            report.failed(profile, start, elapsed(startTime), e);
+        }
+    }
+
+    private static ExportParams parse(BatchProfile profile) {
+        ExportParams params = new ExportParams();
+        JCommander.newBuilder()
+            .addObject(params)
+            .build()
+            .parse(profile.toArguments().toArray(new String[0]));
+        return params;
+    }
+
+    private int memoryReservation(ExportParams params) {
+        long memory = BASE_MEMORY_MB + (long) params.getSortMemory() * (params.isCombined() ? 2 : 1);
+        return (int) Math.min(memory, config.getMemoryMb());
+    }
+
+    private static long elapsed(long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,64 @@
+package com.zeenea.cli.export.batch;
+
+import com.beust.jcommander.Parameter;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration d'un lot d'exports, commande {@code catalog-export batch}.
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>JCommander est utilisé pour analyser les arguments fournis en ligne de commande et injecter leurs valeurs
+ * dans cet objet.</p>
+ *
+ * @see <a href="http://jcommander.org/">La documentation de JCommander</a> (en).
+ */
+public class BatchParams {
+    @Parameter(names = {"--config"}, description = "Fichier de configuration du lot d'exports", required = true)
+    private Path config;
+
+    @Parameter(names = {"--report"}, description = "Fichier JSON du rapport d'exécution du lot")
+    private Path report;
+
+    @Parameter(names = "--help", description = "Affiche le message d'aide", help = true)
+    private boolean help;
+
+    /**
+     * <p>Option: {@code --config}.</p>
+     *
+     * @return Le fichier de configuration du lot.
+     */
+    public Path getConfig() {
+        return config;
+    }
+
+    public void setConfig(Path config) {
+        this.config = config;
+    }
+
+    /**
+     * <p>Option: {@code --report}.</p>
+     *
+     * @return Le fichier du rapport d'exécution, ou {@code null} pour ne pas l'écrire.
+     */
+    public Path getReport() {
+        return report;
+    }
+
+    public void setReport(Path report) {
+        this.report = report;
+    }
+
+    /**
+     * <p>Option: {@code --help}.</p>
+     *
+     * @return {@code true} si l'aide est demandée.
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    public void setHelp(boolean help) {
+        this.help = help;
+    }
+}
@@ -0,0 +1,159 @@
+package com.zeenea.cli.export.batch;
+
+import com.beust.jcommander.ParameterException;
+import com.zeenea.cli.util.Arguments;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Export d'un lot, décrit par les clés {@code <nom>.*} du fichier de configuration.
+ *
+ * <p>Le mot de passe n'est pas écrit dans la configuration: il est lu dans une variable d'environnement
+ * ({@code <nom>.password-env}) ou dans un fichier ({@code <nom>.password-file}), dont seule la première ligne est
+ * utilisée.</p>
+ */
+public final class BatchProfile {
+    private static final Set<String> PROFILE_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "--url", "-u", "--user", "-p", "--password", "-o", "--output", "--format", "--help")));
+
+    private final String name;
+    private final String url;
+    private final String user;
+    @Nullable
+    private final String passwordEnv;
+    @Nullable
+    private final Path passwordFile;
+    private final Path output;
+    private final List<String> formats;
+    private final List<String> options;
+
+    private BatchProfile(String name, Properties properties) {
+        this.name = name;
+        this.url = required(properties, "url");
+        this.user = required(properties, "user");
+        this.passwordEnv = property(properties, "password-env");
+        String passwordPath = property(properties, "password-file");
+        this.passwordFile = passwordPath != null ? Paths.get(passwordPath) : null;
+        if ((passwordEnv == null) == (passwordFile == null)) {
+            throw new ParameterException("Profile " + name + ": exactly one of password-env and password-file is expected");
+        }
+        this.output = Paths.get(required(properties, "output"));
+
+        this.formats = new ArrayList<>();
+        String format = property(properties, "format");
+        if (format != null) {
+            for (String item : format.split(",")) {
+                if (!item.trim().isEmpty()) formats.add(item.trim());
+            }
+        }
+
+        String optionLine = property(properties, "options");
+        try {
+            this.options = optionLine != null ? Arguments.split(optionLine) : new ArrayList<>();
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException("Profile " + name + ": invalid options: " + e.getMessage());
+        }
+        for (String option : options) {
+            if (PROFILE_OPTIONS.contains(option)) {
+                throw new ParameterException("Profile " + name + ": option " + option + " is set by the profile keys");
+            }
+        }
+    }
+
+    /**
+     * Lit un export dans la configuration du lot.
+     *
+     * @param name       Nom de l'export, préfixe de ses clés.
+     * @param properties Configuration du lot.
+     * @return L'export.
+     * @throws ParameterException Si une clé obligatoire manque ou si les options sont invalides.
+     */
+    static BatchProfile of(String name, Properties properties) {
+        return new BatchProfile(name, properties);
+    }
+
+    private String required(Properties properties, String key) {
+        String value = property(properties, key);
+        if (value == null) {
+            throw new ParameterException("Profile " + name + ": missing key " + name + "." + key);
+        }
+        return value;
+    }
+
+    @Nullable
+    private String property(Properties properties, String key) {
+        String value = properties.getProperty(name + "." + key);
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Construit les arguments de la ligne de commande de l'export, mot de passe compris.
+     *
+     * @return Les arguments.
+     * @throws ParameterException Si la variable d'environnement du mot de passe n'est pas définie.
+     * @throws UncheckedIOException Si le fichier du mot de passe ne peut être lu.
+     */
+    public List<String> toArguments() {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+            "--url", url,
+            "--user", user,
+            "--password", password(),
+            "--output", output.toString()));
+        for (String format : formats) {
+            arguments.add("--format");
+            arguments.add(format);
+        }
+        arguments.addAll(options);
+        return arguments;
+    }
+
+    private String password() {
+        if (passwordEnv != null) {
+            String value = System.getenv(passwordEnv);
+            if (value == null) {
+                throw new ParameterException("Profile " + name + ": environment variable " + passwordEnv + " is not set");
+            }
+            return value;
+        }
+        try {
+            List<String> lines = Files.readAllLines(passwordFile, StandardCharsets.UTF_8);
+            return lines.isEmpty() ? "" : lines.get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return Le nom de l'export.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return L'URL de l'instance Zeenea.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Le fichier de sortie de l'export.
+     */
+    public Path getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,126 @@
+package com.zeenea.cli.export.batch;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapport d'exécution d'un lot d'exports: le résultat, la durée et le nombre d'assets exportés de chaque export.
+ *
+ * <p>Les résultats sont ajoutés par les threads des exports, au fur et à mesure de leur fin.</p>
+ */
+public final class BatchReport {
+    private static final Logger log = LoggerFactory.getLogger(BatchReport.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Instant start;
+    private final List<Entry> entries = new ArrayList<>();
+
+    BatchReport(Instant start) {
+        this.start = start;
+    }
+
+    synchronized void succeeded(BatchProfile profile, Instant start, long durationMs, Map<String, Long> itemCounts) {
+        entries.add(new Entry(profile, start, durationMs, new LinkedHashMap<>(itemCounts), null));
+    }
+
+    synchronized void failed(BatchProfile profile, Instant start, long durationMs, Throwable error) {
+        entries.add(new Entry(profile, start, durationMs, Collections.emptyMap(), String.valueOf(error)));
+    }
+
+    /**
+     * @return {@code true} si au moins un export a échoué.
+     */
+    public synchronized boolean hasFailures() {
+        return entries.stream().anyMatch(entry -> entry.error != null);
+    }
+
+    /**
+     * Trace le résultat de chaque export, dans l'ordre de leurs noms.
+     */
+    public synchronized void log() {
+        entries.sort(Comparator.comparing(entry -> entry.profile.getName()));
+        for (Entry entry : entries) {
+            if (entry.error == null) {
+                log.info("Batch export {}: done in {} ms, {}", entry.profile.getName(), entry.durationMs, entry.itemCounts);
+            } else {
+                log.error("Batch export {}: failed after {} ms, {}", entry.profile.getName(), entry.durationMs, entry.error);
+            }
+        }
+    }
+
+    /**
+     * Écrit le rapport au format JSON.
+     *
+     * @param file Le fichier du rapport, remplacé s'il existe.
+     * @param end  La fin du lot.
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public synchronized void write(Path file, Instant end) {
+        entries.sort(Comparator.comparing(entry -> entry.profile.getName()));
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeStringField("start", start.toString());
+            generator.writeStringField("end", end.toString());
+            generator.writeNumberField("durationMs", end.toEpochMilli() - start.toEpochMilli());
+            generator.writeArrayFieldStart("exports");
+            for (Entry entry : entries) {
+                generator.writeStartObject();
+                generator.writeStringField("name", entry.profile.getName());
+                generator.writeStringField("url", entry.profile.getUrl());
+                generator.writeStringField("output", entry.profile.getOutput().toString());
+                generator.writeStringField("status", entry.error == null ? "done" : "failed");
+                generator.writeStringField("start", entry.start.toString());
+                generator.writeNumberField("durationMs", entry.durationMs);
+                generator.writeObjectFieldStart("items");
+                for (Map.Entry<String, Long> count : entry.itemCounts.entrySet()) {
+                    generator.writeNumberField(count.getKey(), count.getValue());
+                }
+                generator.writeEndObject();
+                if (entry.error != null) {
+                    generator.writeStringField("error", entry.error);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final BatchProfile profile;
+        private final Instant start;
+        private final long durationMs;
+        private final Map<String, Long> itemCounts;
+        @Nullable
+        private final String error;
+
+        Entry(BatchProfile profile, Instant start, long durationMs, Map<String, Long> itemCounts, @Nullable String error) {
+            this.profile = profile;
+            this.start = start;
+            this.durationMs = durationMs;
+            this.itemCounts = itemCounts;
+            this.error = error;
+        }
+    }
+}
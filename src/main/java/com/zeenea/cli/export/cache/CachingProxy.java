@@ -0,0 +1,291 @@
+package com.zeenea.cli.export.cache;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relais HTTP local qui place un {@link DiskResponseCache cache de réponses} entre le client Zeenea et l'API.
+ *
+ * <p>Le client Zeenea est dirigé vers le relais, qui transmet chaque requête à l'API. Une réponse {@code 200} à une
+ * requête {@code GET} qui porte un validateur ({@code ETag} ou {@code Last-Modified}) est gardée dans le cache. À la
+ * requête suivante, le relais envoie une requête conditionnelle ({@code If-None-Match}, {@code If-Modified-Since});
+ * si l'API répond {@code 304}, la réponse est servie depuis le disque, sans être téléchargée à nouveau.</p>
+ *
+ * <p>La clé d'une requête est formée de sa méthode, de son URL et des entêtes qui peuvent changer la réponse:
+ * {@code Accept}, {@code Accept-Encoding} et l'empreinte de {@code Authorization}, pour que deux utilisateurs ne
+ * partagent pas leurs réponses.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le SDK Zeenea ne donne pas accès à son client HTTP: le relais est un serveur du JDK
+ * ({@code com.sun.net.httpserver}) qui n'écoute que sur l'adresse de bouclage, et les requêtes vers l'API sont faites
+ * par {@link HttpURLConnection}. Le corps d'une réponse est transmis au client pendant qu'il est écrit dans le
+ * cache, sans être gardé en mémoire. Les réponses sans validateur, les autres méthodes et les autres statuts sont
+ * transmis sans passer par le cache.</p>
+ */
+public final class CachingProxy implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(CachingProxy.class);
+    private static final Set<String> HOP_BY_HOP_HEADERS = ImmutableSet.of(
+        "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+        "transfer-encoding", "upgrade", "host", "content-length");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final URI upstream;
+    private final DiskResponseCache cache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong downloaded = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    private CachingProxy(URI upstream, DiskResponseCache cache, HttpServer server, ExecutorService executor) {
+        this.upstream = upstream;
+        this.cache = cache;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Démarre un relais sur un port libre de l'adresse de bouclage.
+     *
+     * @param upstream URL de l'API Zeenea.
+     * @param cache    Cache des réponses.
+     * @return Le relais démarré.
+     * @throws UncheckedIOException Si le serveur ne peut être démarré.
+     */
+    public static CachingProxy start(URI upstream, DiskResponseCache cache) {
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-export-http-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            CachingProxy proxy = new CachingProxy(upstream, cache, server, executor);
+            server.createContext("/", proxy::handle);
+            server.setExecutor(executor);
+            server.start();
+            log.info("HTTP cache relay for {} listening on {}", upstream, proxy.getUri());
+            return proxy;
+        } catch (IOException e) {
+            executor.shutdown();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return L'URL à donner au client Zeenea: celle de l'API, sur le relais.
+     */
+    public URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        try {
+            return new URI("http", null, address.getAddress().getHostAddress(), address.getPort(),
+                upstream.getPath(), upstream.getQuery(), null);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            forward(exchange);
+        } catch (IOException | RuntimeException e) {
+            log.warn("HTTP cache relay: {} {} failed: {}", exchange.getRequestMethod(),
+                exchange.getRequestURI(), e.toString());
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void forward(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String target = exchange.getRequestURI().getRawPath()
+            + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : "");
+        String key = "GET".equals(method) ? key(target, exchange.getRequestHeaders()) : null;
+        try (DiskResponseCache.CachedResponse cached = key != null ? cache.get(key) : null) {
+            forward(exchange, method, target, key, cached);
+        }
+    }
+
+    private void forward(HttpExchange exchange, String method, String target, @Nullable String key,
+                         @Nullable DiskResponseCache.CachedResponse cached) throws IOException {
+        boolean cacheable = key != null;
+        HttpURLConnection connection = (HttpURLConnection) new URL(upstream.toURL(), target).openConnection();
+        connection.setRequestMethod(method);
+        connection.setInstanceFollowRedirects(false);
+        connection.setUseCaches(false);
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) continue;
+            for (String value : header.getValue()) {
+                connection.addRequestProperty(header.getKey(), value);
+            }
+        }
+        if (cached != null) {
+            String etag = cached.getHeader("ETag");
+            String lastModified = cached.getHeader("Last-Modified");
+            if (etag != null && connection.getRequestProperty("If-None-Match") == null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null && connection.getRequestProperty("If-Modified-Since") == null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+        }
+        String requestLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if ((requestLength != null && !"0".equals(requestLength.trim()))
+            || exchange.getRequestHeaders().containsKey("Transfer-Encoding")) {
+            connection.setDoOutput(true);
+            try (InputStream in = exchange.getRequestBody(); OutputStream out = connection.getOutputStream()) {
+                ByteStreams.copy(in, out);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            connection.disconnect();
+            serveCached(exchange, cached);
+            return;
+        }
+
+        List<Map.Entry<String, String>> headers = responseHeaders(connection);
+        for (Map.Entry<String, String> header : headers) {
+            exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+        }
+        InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        long contentLength = connection.getContentLengthLong();
+        if ("HEAD".equals(method) || status == HttpURLConnection.HTTP_NO_CONTENT
+            || status == HttpURLConnection.HTTP_NOT_MODIFIED || body == null || contentLength == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            if (body != null) {
+                body.close();
+            }
+            return;
+        }
+        // Une longueur 0 demande une réponse par morceaux, quand l'API n'annonce pas la longueur.
+        exchange.sendResponseHeaders(status, contentLength > 0 ? contentLength : 0);
+
+        boolean store = cacheable && status == HttpURLConnection.HTTP_OK && isStorable(connection);
+        try (InputStream in = body;
+             OutputStream out = exchange.getResponseBody();
+             DiskResponseCache.Writer writer = store ? cache.put(key, status, headers) : null) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+                if (writer != null) {
+                    writer.write(buffer, 0, n);
+                }
+            }
+            if (writer != null) {
+                writer.commit();
+            }
+        }
+        if (cacheable) {
+            downloaded.incrementAndGet();
+        }
+    }
+
+    private void serveCached(HttpExchange exchange, DiskResponseCache.CachedResponse cached) throws IOException {
+        long size = cached.getBodySize();
+        for (Map.Entry<String, String> header : cached.getHeaders()) {
+            exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+        }
+        exchange.sendResponseHeaders(cached.getStatus(), size > 0 ? size : -1);
+        if (size > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                ByteStreams.copy(cached.getBody(), out);
+            }
+        }
+        revalidated.incrementAndGet();
+        savedBytes.addAndGet(size);
+    }
+
+    private static boolean isStorable(HttpURLConnection connection) {
+        if (connection.getHeaderField("ETag") == null && connection.getHeaderField("Last-Modified") == null) {
+            return false;
+        }
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        return cacheControl == null || !cacheControl.toLowerCase(Locale.ROOT).contains("no-store");
+    }
+
+    private static List<Map.Entry<String, String>> responseHeaders(HttpURLConnection connection) {
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            // La ligne de statut est rendue avec une clé null.
+            if (header.getKey() == null || HOP_BY_HOP_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<>(header.getKey(), value));
+            }
+        }
+        return headers;
+    }
+
+    private String key(String target, Headers requestHeaders) {
+        String authorization = requestHeaders.getFirst("Authorization");
+        return "GET " + upstream.resolve(target)
+            + "\nAccept: " + nullToEmpty(requestHeaders.getFirst("Accept"))
+            + "\nAccept-Encoding: " + nullToEmpty(requestHeaders.getFirst("Accept-Encoding"))
+            + "\nAuthorization: " + (authorization != null
+            ? Hashing.sha256().hashString(authorization, StandardCharsets.UTF_8).toString() : "");
+    }
+
+    private static String nullToEmpty(@Nullable String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * @return Le nombre de réponses servies depuis le disque après une réponse {@code 304}.
+     */
+    public long getRevalidatedCount() {
+        return revalidated.get();
+    }
+
+    /**
+     * @return Le nombre de réponses à des requêtes {@code GET} téléchargées depuis l'API.
+     */
+    public long getDownloadedCount() {
+        return downloaded.get();
+    }
+
+    /**
+     * Arrête le relais et ferme son cache.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        cache.close();
+        log.info("HTTP cache: {} responses served from disk ({} KiB not downloaded), {} downloaded",
+            revalidated.get(), savedBytes.get() >> 10, downloaded.get());
+    }
+}
@@ -0,0 +1,407 @@
+package com.zeenea.cli.export.cache;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache sur disque des réponses HTTP, avec leur validateur ({@code ETag} ou {@code Last-Modified}).
+ *
+ * <p>Chaque réponse est un fichier du dossier du cache, nommé par l'empreinte SHA-256 de la clé de sa requête. Le
+ * fichier contient la clé, le statut et les entêtes de la réponse, puis son corps tel qu'il a été reçu. Quand la
+ * taille des fichiers dépasse la taille maximale du cache, les réponses les moins récemment utilisées sont
+ * supprimées.</p>
+ *
+ * <p>Un dossier n'est utilisé que par un cache à la fois: il est verrouillé de son ouverture à sa fermeture, et un
+ * second export qui l'ouvre s'en passe.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>L'index des réponses est gardé en mémoire dans l'ordre d'utilisation; il est reconstruit à l'ouverture du
+ * cache à partir des dates de modification des fichiers, mises à jour à chaque utilisation. Il n'est juste que
+ * parce qu'aucun autre processus ne modifie le dossier: c'est le rôle du verrou, posé sur le fichier
+ * {@value #LOCK_FILE}. Une réponse est écrite dans un fichier temporaire puis renommée: un fichier du cache est
+ * toujours complet. Une réponse lue garde son fichier ouvert, des entêtes jusqu'à la fin du corps: elle reste
+ * cohérente si elle est remplacée ou supprimée entre-temps. Un fichier illisible est traité comme une réponse
+ * absente et supprimé.</p>
+ */
+public final class DiskResponseCache implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(DiskResponseCache.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".response";
+    private static final String LOCK_FILE = ".lock";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Map<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private DiskResponseCache(Path directory, long maxBytes, FileChannel lockChannel, FileLock lock) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Ouvre un cache, en créant son dossier si besoin, et verrouille son dossier.
+     *
+     * @param directory Dossier du cache.
+     * @param maxBytes  Taille maximale des réponses du cache.
+     * @return Le cache, à fermer, ou {@code null} si le dossier est verrouillé par un autre cache.
+     * @throws UncheckedIOException Si le dossier ne peut être lu.
+     */
+    @Nullable
+    public static DiskResponseCache tryOpen(Path directory, long maxBytes) {
+        FileChannel lockChannel = null;
+        DiskResponseCache cache;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                return null;
+            }
+            cache = new DiskResponseCache(directory, maxBytes, lockChannel, lock);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            List<FileTime> times = new ArrayList<>(files.size());
+            for (Path file : files) {
+                times.add(Files.getLastModifiedTime(file));
+            }
+            List<Integer> order = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); ++i) {
+                order.add(i);
+            }
+            order.sort((a, b) -> times.get(a).compareTo(times.get(b)));
+            for (int i : order) {
+                Path file = files.get(i);
+                cache.index.put(file.getFileName().toString(), Files.size(file));
+                cache.totalBytes += Files.size(file);
+            }
+        } catch (IOException e) {
+            if (lockChannel != null) {
+                closeQuietly(lockChannel);
+            }
+            throw new UncheckedIOException(e);
+        }
+        synchronized (cache) {
+            cache.evict();
+        }
+        log.info("HTTP cache {}: {} responses, {} KiB", directory, cache.index.size(), cache.totalBytes >> 10);
+        return cache;
+    }
+
+    /**
+     * Cherche la réponse d'une requête.
+     *
+     * @param key Clé de la requête.
+     * @return La réponse, à fermer, ou {@code null} si elle est absente du cache.
+     */
+    @Nullable
+    public synchronized CachedResponse get(String key) {
+        String name = fileName(key);
+        if (index.get(name) == null) return null;
+
+        Path file = directory.resolve(name);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            CountingInputStream counting = new CountingInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel)));
+            DataInputStream in = new DataInputStream(counting);
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                in.close();
+                return null;
+            }
+            int status = in.readInt();
+            int headerCount = in.readInt();
+            List<Map.Entry<String, String>> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; ++i) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<>(in.readUTF(), in.readUTF()));
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new CachedResponse(status, headers, in, size - counting.getCount());
+        } catch (NoSuchFileException e) {
+            remove(name);
+            return null;
+        } catch (IOException e) {
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+            log.warn("Unreadable HTTP cache entry {}, removed: {}", file, e.toString());
+            remove(name);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * Prépare l'écriture de la réponse d'une requête. La réponse n'est dans le cache qu'une fois
+     * {@link Writer#commit() validée}.
+     *
+     * @param key     Clé de la requête.
+     * @param status  Statut de la réponse.
+     * @param headers Entêtes de la réponse.
+     * @return L'écriture du corps de la réponse.
+     * @throws IOException Si le fichier temporaire ne peut être créé.
+     */
+    public Writer put(String key, int status, List<Map.Entry<String, String>> headers) throws IOException {
+        return new Writer(key, status, headers);
+    }
+
+    /**
+     * @return La taille maximale des réponses du cache.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private synchronized void store(String name, Path temp) throws IOException {
+        Path file = directory.resolve(name);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        remove(name);
+        long size = Files.size(file);
+        index.put(name, size);
+        totalBytes += size;
+        evict();
+    }
+
+    private void remove(String name) {
+        Long size = index.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            deleteQuietly(directory.resolve(entry.getKey()));
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Ferme le cache et déverrouille son dossier.
+     */
+    @Override
+    public void close() {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            log.debug("Unable to release lock of {}", directory, e);
+        }
+        closeQuietly(lockChannel);
+    }
+
+    private static String fileName(String key) {
+        return Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + ENTRY_SUFFIX;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Unable to close {}", closeable, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Unable to delete {}", file, e);
+        }
+    }
+
+    /**
+     * Réponse lue dans le cache, dont le fichier reste ouvert jusqu'à sa fermeture.
+     */
+    public static final class CachedResponse implements Closeable {
+        private final int status;
+        private final List<Map.Entry<String, String>> headers;
+        private final InputStream body;
+        private final long bodySize;
+
+        CachedResponse(int status, List<Map.Entry<String, String>> headers, InputStream body, long bodySize) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.bodySize = bodySize;
+        }
+
+        /**
+         * @return Le statut de la réponse.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * @return Les entêtes de la réponse, dans leur ordre de réception.
+         */
+        public List<Map.Entry<String, String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * @param name Nom d'un entête, sans distinction de casse.
+         * @return La première valeur de l'entête, ou {@code null}.
+         */
+        @Nullable
+        public String getHeader(String name) {
+            for (Map.Entry<String, String> header : headers) {
+                if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+            }
+            return null;
+        }
+
+        /**
+         * @return La taille du corps de la réponse.
+         */
+        public long getBodySize() {
+            return bodySize;
+        }
+
+        /**
+         * @return Le corps de la réponse, lu une seule fois, à la suite des entêtes dans le même fichier.
+         */
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Écriture d'une réponse dans le cache, pendant sa réception.
+     *
+     * <p>L'écriture est abandonnée sans erreur si le corps dépasse la taille maximale du cache.</p>
+     */
+    public final class Writer implements AutoCloseable {
+        private final String name;
+        private final Path temp;
+        private final DataOutputStream out;
+        private long bodySize;
+        private boolean abandoned;
+        private boolean committed;
+
+        private Writer(String key, int status, List<Map.Entry<String, String>> headers) throws IOException {
+            this.name = fileName(key);
+            this.temp = Files.createTempFile(directory, "response-", ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeInt(status);
+            out.writeInt(headers.size());
+            for (Map.Entry<String, String> header : headers) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+        }
+
+        /**
+         * Écrit une partie du corps de la réponse.
+         *
+         * @param buffer Les octets.
+         * @param offset Position du premier octet.
+         * @param length Nombre d'octets.
+         */
+        public void write(byte[] buffer, int offset, int length) {
+            if (abandoned) return;
+            try {
+                out.write(buffer, offset, length);
+                bodySize += length;
+                if (bodySize > maxBytes) {
+                    abandon();
+                }
+            } catch (IOException e) {
+                log.warn("Unable to write HTTP cache entry {}: {}", temp, e.toString());
+                abandon();
+            }
+        }
+
+        /**
+         * Ajoute la réponse au cache, une fois son corps entièrement reçu.
+         */
+        public void commit() {
+            if (abandoned) return;
+            try {
+                out.close();
+                store(name, temp);
+                committed = true;
+            } catch (IOException e) {
+                log.warn("Unable to store HTTP cache entry {}: {}", temp, e.toString());
+                abandon();
+            }
+        }
+
+        private void abandon() {
+            abandoned = true;
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.debug("Unable to close {}", temp, e);
+            }
+            deleteQuietly(temp);
+        }
+
+        @Override
+        public void close() {
+            if (!committed && !abandoned) {
+                abandon();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.zeenea.cli.export.checkpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Points de reprise d'un export: les lignes déjà construites de chaque feuille et la position atteinte dans la
+ * liste des assets correspondante.
+ *
+ * <p>Les points de reprise sont écrits, quand l'export le demande ({@code --checkpoint-dir} ou {@code --resume}),
+ * dans un dossier dédié: un fichier de lignes ({@code <feuille>.rows}) et un fichier d'état
+ * ({@code <feuille>.state}) par feuille. Ils sont supprimés à la fin d'un export réussi. Un export interrompu, par
+ * exemple par une erreur réseau persistante, peut être relancé avec l'option {@code --resume}: les feuilles
+ * terminées sont relues sans interroger l'API et la feuille en cours reprend après le dernier asset
+ * enregistré.</p>
+ *
+ * <p>Sans reprise, les points de reprise d'un export précédent sont supprimés à l'ouverture.</p>
+ */
+public final class ExportCheckpoint {
+    private static final Logger log = LoggerFactory.getLogger(ExportCheckpoint.class);
+    static final String ROWS_EXTENSION = ".rows";
+    static final String STATE_EXTENSION = ".state";
+
+    private final Path directory;
+    private final boolean resumed;
+
+    private ExportCheckpoint(Path directory, boolean resumed) {
+        this.directory = directory;
+        this.resumed = resumed;
+    }
+
+    /**
+     * Ouvre le dossier des points de reprise.
+     *
+     * @param directory Dossier des points de reprise, créé s'il n'existe pas.
+     * @param resume    {@code true} pour reprendre à partir des points de reprise existants, {@code false} pour
+     *                  les supprimer.
+     * @return Les points de reprise.
+     * @throws UncheckedIOException Si le dossier ne peut être créé ou nettoyé.
+     */
+    public static ExportCheckpoint open(Path directory, boolean resume) {
+        try {
+            Files.createDirectories(directory);
+            boolean found = !listFiles(directory).isEmpty();
+            if (resume && found) {
+                log.info("Resume export from checkpoint {}", directory);
+            } else if (resume) {
+                log.warn("No checkpoint found in {}, the export starts over", directory);
+            } else if (found) {
+                deleteFiles(directory);
+            }
+            return new ExportCheckpoint(directory, resume && found);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return {@code true} si l'export reprend à partir de points de reprise existants.
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * @return Le dossier des points de reprise.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Ouvre le point de reprise d'une feuille.
+     *
+     * <p>En reprise, l'état enregistré est relu s'il correspond aux colonnes et à la sélection de la feuille; sinon,
+     * par exemple si les filtres de l'export ont changé, la feuille repart du début.</p>
+     *
+     * @param sheet     Nom de la feuille.
+     * @param labels    Libellés des colonnes de la feuille.
+     * @param selection Description des options qui choisissent les assets et les valeurs des lignes: filtres,
+     *                  identifiants, projection des colonnes.
+     * @return Le point de reprise de la feuille, à fermer.
+     * @throws UncheckedIOException En cas d'erreur de lecture ou d'ouverture des fichiers.
+     */
+    public SheetCheckpoint sheet(String sheet, List<String> labels, String selection) {
+        return new SheetCheckpoint(
+            sheet,
+            directory.resolve(sheet + ROWS_EXTENSION),
+            directory.resolve(sheet + STATE_EXTENSION),
+            labels,
+            selection,
+            resumed);
+    }
+
+    /**
+     * Supprime les points de reprise, une fois l'export terminé, puis le dossier s'il est vide.
+     */
+    public void clear() {
+        try {
+            deleteFiles(directory);
+            try (DirectoryStream<Path> rest = Files.newDirectoryStream(directory)) {
+                if (!rest.iterator().hasNext()) {
+                    Files.delete(directory);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete checkpoint {}", directory, e);
+        }
+    }
+
+    private static void deleteFiles(Path directory) throws IOException {
+        for (Path file : listFiles(directory)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+            "*{" + ROWS_EXTENSION + "," + STATE_EXTENSION + "}")) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,471 @@
+package com.zeenea.cli.export.checkpoint;
+
+import com.zeenea.client.api.StreamResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lecture d'une liste d'assets de l'API Zeenea qui résiste aux erreurs passagères et reprend à une position donnée.
+ *
+ * <p>Lorsque la lecture échoue, la liste est rouverte après une attente et reprend après le dernier asset traité.
+ * L'attente double à chaque échec consécutif, avec un tirage aléatoire entre la moitié et la totalité du délai
+ * pour ne pas synchroniser plusieurs exports, dans la limite de {@link Builder#maxBackoff(Duration)}. Le nombre
+ * d'échecs est remis à zéro dès qu'un asset a été lu.</p>
+ *
+ * <p>Seules les erreurs de la lecture de la liste sont retentées: une erreur levée par le traitement d'un asset
+ * interrompt la lecture.</p>
+ *
+ * <p>Les appels à la liste, qui déclenchent le téléchargement des pages, peuvent être limités par un
+ * {@link Builder#requestPermits(Semaphore) sémaphore} partagé entre plusieurs exports. La lecture peut aussi être
+ * arrêtée avant la fin de la liste par une {@link Builder#stopWhen(BooleanSupplier) condition}, par exemple quand
+ * un échantillon est complet.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le SDK ne donne accès qu'au flux paginé de la liste complète, sans curseur: la reprise rouvre la liste et
+ * saute les assets déjà traités. Les pages correspondantes sont téléchargées à nouveau, mais les assets ne sont pas
+ * traités une seconde fois.</p>
+ *
+ * <p>La reprise suppose que l'API rend la liste dans le même ordre à chaque ouverture: un asset ajouté ou supprimé
+ * avant la position atteinte décale les assets suivants, qui seraient alors sautés ou traités deux fois. Avec une
+ * {@link Builder#key(Function) identité des assets}, le dernier asset traité est comparé, à chaque réouverture, à
+ * l'asset trouvé à la même position: s'ils diffèrent, la lecture échoue avec une {@link ListingOrderException}.
+ * {@link #seek(long, String)} fait la même vérification à la reprise d'un export interrompu.</p>
+ *
+ * @param <T> Type des assets.
+ */
+public final class ResumableListing<T> {
+    private static final Logger log = LoggerFactory.getLogger(ResumableListing.class);
+
+    private final String name;
+    private final Supplier<StreamResult<T>> query;
+    private final int retries;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final int checkpointInterval;
+    @Nullable
+    private final Checkpoint checkpoint;
+    @Nullable
+    private final Function<? super T, String> key;
+    @Nullable
+    private final Semaphore requestPermits;
+    @Nullable
+    private final BooleanSupplier stopCondition;
+
+    @Nullable
+    private Long estimatedSize;
+    private long position;
+    @Nullable
+    private String lastKey;
+    @Nullable
+    private StreamResult<T> openResult;
+    @Nullable
+    private Iterator<T> openItems;
+    private int retryCount;
+    private boolean stopped;
+
+    private ResumableListing(Builder<T> builder) {
+        this.name = requireNonNull(builder.name);
+        this.query = requireNonNull(builder.query);
+        this.retries = builder.retries;
+        this.initialBackoff = builder.initialBackoff.toMillis();
+        this.maxBackoff = builder.maxBackoff.toMillis();
+        this.checkpointInterval = builder.checkpointInterval;
+        this.checkpoint = builder.checkpoint;
+        this.key = builder.key;
+        this.requestPermits = builder.requestPermits;
+        this.stopCondition = builder.stopCondition;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Positionne la lecture pour la reprise d'un export interrompu: la liste est ouverte, les assets déjà traités
+     * sont sautés et le dernier d'entre eux est comparé à celui enregistré au point de reprise.
+     *
+     * <p>Si la position est vérifiée, la liste reste ouverte pour {@link #consume(long, Consumer)} à la même
+     * position. Si la liste ne peut être lue, la vérification est faite par {@code consume}, à la réouverture.</p>
+     *
+     * @param offset       Nombre d'assets déjà traités.
+     * @param expectedLast Identité du dernier asset traité, {@code null} si elle n'a pas été enregistrée.
+     * @return {@code false} si la liste a changé d'ordre depuis le point de reprise: la lecture doit reprendre du
+     * début.
+     */
+    public boolean seek(long offset, @Nullable String expectedLast) {
+        closeOpenResult();
+        position = offset;
+        lastKey = expectedLast;
+        if (offset == 0 || expectedLast == null || key == null) return true;
+
+        StreamResult<T> result = null;
+        try {
+            result = fetch(query);
+            if (estimatedSize == null) {
+                estimatedSize = result.getEstimatedSize();
+                log.info("{} {} expected", estimatedSize, name);
+            }
+            openItems = position(result);
+            openResult = result;
+            return true;
+        } catch (ListingOrderException e) {
+            log.warn("{}", e.getMessage());
+            close(result);
+            position = 0;
+            lastKey = null;
+            return false;
+        } catch (ListingFailure e) {
+            log.warn("{}: unable to check the listing order before resuming ({})", name, e.cause.toString());
+            close(result);
+            return true;
+        }
+    }
+
+    /**
+     * Lit la liste à partir d'une position.
+     *
+     * @param offset   Nombre d'assets déjà traités, sautés.
+     * @param consumer Traitement de chaque asset lu.
+     * @return Le nombre total d'assets traités, {@code offset} compris.
+     * @throws ListingOrderException Si la liste a changé d'ordre avant la position atteinte.
+     * @throws RuntimeException      L'erreur de lecture, une fois les tentatives épuisées, ou l'erreur du traitement.
+     */
+    public long consume(long offset, Consumer<? super T> consumer) {
+        if (offset != position) {
+            closeOpenResult();
+            lastKey = null;
+        }
+        position = offset;
+        int failures = 0;
+        while (true) {
+            long start = position;
+            try {
+                read(consumer);
+                return position;
+            } catch (ListingFailure e) {
+                if (position > start) {
+                    failures = 0;
+                }
+                if (++failures > retries) {
+                    throw e.cause;
+                }
+                ++retryCount;
+                long delay = backoff(failures);
+                log.warn("{}: listing failed after {} assets ({}), retry {}/{} in {} ms",
+                    name, position, e.cause.toString(), failures, retries, delay);
+                sleep(delay, e.cause);
+            }
+        }
+    }
+
+    private void read(Consumer<? super T> consumer) {
+        if (shouldStop()) {
+            closeOpenResult();
+            return;
+        }
+
+        StreamResult<T> result = openResult != null ? openResult : fetch(query);
+        Iterator<T> items = openItems;
+        openResult = null;
+        openItems = null;
+        try {
+            if (estimatedSize == null) {
+                estimatedSize = result.getEstimatedSize();
+                log.info("{} {} expected", estimatedSize, name);
+            }
+            if (items == null) {
+                items = position(result);
+            }
+            while (fetch(items::hasNext)) {
+                T item = fetch(items::next);
+                consumer.accept(item);
+                ++position;
+                if (key != null) {
+                    lastKey = key.apply(item);
+                }
+                if (checkpoint != null && checkpointInterval > 0 && position % checkpointInterval == 0) {
+                    checkpoint.mark(position, lastKey);
+                }
+                if (shouldStop()) break;
+            }
+        } finally {
+            close(result);
+        }
+    }
+
+    /**
+     * Saute les assets déjà traités d'une liste ouverte, en vérifiant le dernier d'entre eux s'il est connu.
+     */
+    private Iterator<T> position(StreamResult<T> result) {
+        if (position == 0 || lastKey == null || key == null) {
+            long skip = position;
+            return fetch(() -> result.getStream().skip(skip).iterator());
+        }
+        long skip = position - 1;
+        Iterator<T> items = fetch(() -> result.getStream().skip(skip).iterator());
+        String found = fetch(items::hasNext) ? key.apply(fetch(items::next)) : null;
+        if (!lastKey.equals(found)) {
+            throw new ListingOrderException(name + ": listing order changed, asset " + position + " was " + lastKey
+                + " and is now " + found);
+        }
+        return items;
+    }
+
+    private void closeOpenResult() {
+        if (openResult != null) {
+            close(openResult);
+            openResult = null;
+            openItems = null;
+        }
+    }
+
+    private void close(@Nullable StreamResult<T> result) {
+        if (result == null) return;
+        try {
+            result.close();
+        } catch (RuntimeException e) {
+            log.debug("{}: unable to close listing", name, e);
+        }
+    }
+
+    private boolean shouldStop() {
+        if (stopCondition != null && stopCondition.getAsBoolean()) {
+            if (!stopped) {
+                log.info("{}: listing stopped after {} assets", name, position);
+            }
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private long backoff(int failures) {
+        long delay = initialBackoff << Math.min(failures - 1, 30);
+        if (delay <= 0 || delay > maxBackoff) {
+            delay = maxBackoff;
+        }
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private static void sleep(long delay, RuntimeException cause) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    /**
+     * Appel de l'API dont l'erreur peut être retentée, dans la limite des appels simultanés.
+     */
+    private <V> V fetch(Supplier<V> call) {
+        if (requestPermits != null) {
+            requestPermits.acquireUninterruptibly();
+        }
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            throw new ListingFailure(e);
+        } finally {
+            if (requestPermits != null) {
+                requestPermits.release();
+            }
+        }
+    }
+
+    /**
+     * @return Le nombre d'assets annoncé par l'API à la première ouverture de la liste, ou {@code null}.
+     */
+    @Nullable
+    public Long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * @return {@code true} si la lecture a été arrêtée par sa {@link Builder#stopWhen(BooleanSupplier) condition}
+     * avant la fin de la liste.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return Le nombre de nouvelles tentatives effectuées.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Enregistrement d'un point de reprise.
+     */
+    @FunctionalInterface
+    public interface Checkpoint {
+        /**
+         * @param position Nombre d'assets traités.
+         * @param lastKey  Identité du dernier asset traité, {@code null} sans {@link Builder#key(Function) identité}.
+         */
+        void mark(long position, @Nullable String lastKey);
+    }
+
+    /**
+     * Changement d'ordre de la liste depuis sa première ouverture ou depuis le point de reprise: les assets déjà
+     * traités ne sont plus ceux qui précèdent la position atteinte.
+     */
+    public static final class ListingOrderException extends IllegalStateException {
+        ListingOrderException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Erreur de lecture de la liste, distinguée des erreurs du traitement des assets.
+     */
+    private static final class ListingFailure extends RuntimeException {
+        private final RuntimeException cause;
+
+        ListingFailure(RuntimeException cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Monteur d'une lecture de liste.
+     *
+     * @param <T> Type des assets.
+     */
+    public static final class Builder<T> {
+        private String name;
+        private Supplier<StreamResult<T>> query;
+        private int retries = 5;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofMinutes(1);
+        private int checkpointInterval;
+        private Checkpoint checkpoint;
+        private Function<? super T, String> key;
+        private Semaphore requestPermits;
+        private BooleanSupplier stopCondition;
+
+        private Builder() {
+        }
+
+        /**
+         * Nom de la liste, pour les traces.
+         *
+         * @param name la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Requête d'ouverture de la liste, appelée à chaque tentative.
+         *
+         * @param query la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> query(Supplier<StreamResult<T>> query) {
+            this.query = query;
+            return this;
+        }
+
+        /**
+         * Nombre de nouvelles tentatives après des échecs consécutifs.
+         *
+         * @param retries la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> retries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        /**
+         * Attente avant la première nouvelle tentative.
+         *
+         * @param initialBackoff la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * Attente maximale entre deux tentatives.
+         *
+         * @param maxBackoff la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Point de reprise, appelé avec la position atteinte tous les {@code interval} assets traités.
+         *
+         * @param interval   Nombre d'assets entre deux points de reprise.
+         * @param checkpoint Enregistrement du point de reprise.
+         * @return ce monteur.
+         */
+        public Builder<T> checkpoint(int interval, @Nullable Checkpoint checkpoint) {
+            this.checkpointInterval = interval;
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Identité d'un asset, pour vérifier à chaque réouverture que la liste n'a pas changé d'ordre.
+         *
+         * @param key la nouvelle valeur, {@code null} pour ne pas vérifier l'ordre.
+         * @return ce monteur.
+         */
+        public Builder<T> key(@Nullable Function<? super T, String> key) {
+            this.key = key;
+            return this;
+        }
+
+        /**
+         * Limite des appels simultanés à l'API, partagée entre plusieurs lectures.
+         *
+         * @param requestPermits la nouvelle valeur, {@code null} pour ne pas limiter les appels.
+         * @return ce monteur.
+         */
+        public Builder<T> requestPermits(@Nullable Semaphore requestPermits) {
+            this.requestPermits = requestPermits;
+            return this;
+        }
+
+        /**
+         * Condition d'arrêt de la lecture, évaluée avant l'ouverture de la liste et après chaque asset traité.
+         * Les pages suivantes ne sont pas téléchargées.
+         *
+         * @param stopCondition la nouvelle valeur, {@code null} pour lire toute la liste.
+         * @return ce monteur.
+         */
+        public Builder<T> stopWhen(@Nullable BooleanSupplier stopCondition) {
+            this.stopCondition = stopCondition;
+            return this;
+        }
+
+        public ResumableListing<T> build() {
+            return new ResumableListing<>(this);
+        }
+    }
+}
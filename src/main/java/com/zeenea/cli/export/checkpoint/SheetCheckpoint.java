@@ -0,0 +1,253 @@
+package com.zeenea.cli.export.checkpoint;
+
+import com.zeenea.cli.export.xlsx.RowListener;
+import com.zeenea.cli.export.xlsx.RowRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Point de reprise de l'export d'une feuille.
+ *
+ * <p>Observateur des lignes de la feuille, il les ajoute à un fichier de lignes. Périodiquement,
+ * {@link #mark(long, String)} enregistre dans le fichier d'état le nombre d'assets lus dans la liste de l'API,
+ * l'identité du dernier d'entre eux et la longueur du fichier de lignes correspondante. En reprise, seules les
+ * lignes enregistrées par le dernier {@code mark} sont relues: celles écrites ensuite sont tronquées, leurs assets
+ * seront relus. Si la liste de l'API a changé d'ordre depuis, la feuille est {@link #restart() reprise du
+ * début}.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les lignes sont écrites dans le format binaire de {@link RowRecord#writeTo(java.io.DataOutput)}. Le fichier
+ * d'état est remplacé par un déplacement atomique: il décrit toujours un point de reprise complet, même si le
+ * programme est interrompu pendant son écriture.</p>
+ */
+public final class SheetCheckpoint implements RowListener, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SheetCheckpoint.class);
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    private static final String LABEL_SEPARATOR = "\u001f";
+
+    private final String sheet;
+    private final Path rowsFile;
+    private final Path stateFile;
+    private final String labels;
+    private final String selection;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+
+    private long consumed;
+    @Nullable
+    private String lastKey;
+    private long rowCount;
+    private long restoredRowCount;
+    private boolean complete;
+
+    /**
+     * Ouvre le point de reprise, en relisant son état en reprise.
+     *
+     * @param sheet     Nom de la feuille.
+     * @param rowsFile  Fichier des lignes.
+     * @param stateFile Fichier d'état.
+     * @param labels    Libellés des colonnes de la feuille.
+     * @param selection Description des options qui choisissent les assets et les valeurs des lignes.
+     * @param resume    {@code true} pour relire l'état enregistré.
+     * @throws UncheckedIOException En cas d'erreur de lecture ou d'ouverture des fichiers.
+     */
+    SheetCheckpoint(String sheet, Path rowsFile, Path stateFile, List<String> labels, String selection, boolean resume) {
+        this.sheet = sheet;
+        this.rowsFile = rowsFile;
+        this.stateFile = stateFile;
+        this.labels = String.join(LABEL_SEPARATOR, labels);
+        this.selection = selection;
+        try {
+            long length = resume ? loadState() : 0;
+            channel = FileChannel.open(rowsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(length);
+            channel.position(length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        OutputStream channelOut = Channels.newOutputStream(channel);
+        this.out = new DataOutputStream(new BufferedOutputStream(channelOut, IO_BUFFER_SIZE));
+    }
+
+    /**
+     * Relit l'état enregistré s'il correspond aux colonnes et à la sélection de la feuille.
+     *
+     * @return La longueur valide du fichier de lignes, {@code 0} si la feuille repart du début.
+     * @throws IOException En cas d'erreur de lecture.
+     */
+    private long loadState() throws IOException {
+        if (!Files.isRegularFile(stateFile) || !Files.isRegularFile(rowsFile)) return 0;
+
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+        }
+        long length = Long.parseLong(state.getProperty("length", "0"));
+        if (!labels.equals(state.getProperty("labels")) || Files.size(rowsFile) < length) {
+            log.warn("{}: checkpoint does not match the sheet columns, the sheet starts over", sheet);
+            return 0;
+        }
+        if (!selection.equals(state.getProperty("selection"))) {
+            log.warn("{}: checkpoint was written with other filters, ids or columns, the sheet starts over", sheet);
+            return 0;
+        }
+        consumed = Long.parseLong(state.getProperty("consumed", "0"));
+        lastKey = state.getProperty("last");
+        rowCount = Long.parseLong(state.getProperty("rows", "0"));
+        restoredRowCount = rowCount;
+        complete = Boolean.parseBoolean(state.getProperty("complete"));
+        return length;
+    }
+
+    /**
+     * Relit les lignes enregistrées, dans leur ordre d'écriture.
+     *
+     * @param columnCount Nombre de colonnes des lignes.
+     * @param consumer    Destinataire des lignes. La ligne reçue est réutilisée: elle doit être copiée pour être
+     *                    conservée.
+     * @throws UncheckedIOException En cas d'erreur de lecture.
+     */
+    public void replay(int columnCount, Consumer<RowRecord> consumer) {
+        if (restoredRowCount == 0) return;
+
+        RowRecord row = new RowRecord(columnCount);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(rowsFile), IO_BUFFER_SIZE))) {
+            for (long i = 0; i < restoredRowCount; ++i) {
+                row.readFrom(in);
+                consumer.accept(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("{}: {} rows restored from checkpoint, {} assets already read", sheet, restoredRowCount, consumed);
+    }
+
+    @Override
+    public void onRow(RowRecord record) {
+        try {
+            record.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++rowCount;
+    }
+
+    /**
+     * Abandonne les lignes enregistrées, avant leur relecture, pour reprendre la feuille du début.
+     *
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public void restart() {
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            Files.deleteIfExists(stateFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        consumed = 0;
+        lastKey = null;
+        rowCount = 0;
+        restoredRowCount = 0;
+        complete = false;
+    }
+
+    /**
+     * Enregistre un point de reprise.
+     *
+     * @param consumed Nombre d'assets lus dans la liste de l'API, dont toutes les lignes ont été reçues.
+     * @param lastKey  Identité du dernier asset lu, {@code null} si elle est inconnue.
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public void mark(long consumed, @Nullable String lastKey) {
+        this.lastKey = lastKey;
+        save(consumed, false);
+    }
+
+    /**
+     * Enregistre la fin de la lecture de la liste des assets de la feuille.
+     *
+     * @param consumed Nombre total d'assets lus.
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public void complete(long consumed) {
+        save(consumed, true);
+    }
+
+    private void save(long consumed, boolean complete) {
+        try {
+            out.flush();
+            Properties state = new Properties();
+            state.setProperty("labels", labels);
+            state.setProperty("selection", selection);
+            state.setProperty("consumed", Long.toString(consumed));
+            if (lastKey != null) {
+                state.setProperty("last", lastKey);
+            }
+            state.setProperty("rows", Long.toString(rowCount));
+            state.setProperty("length", Long.toString(channel.position()));
+            state.setProperty("complete", Boolean.toString(complete));
+
+            Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            try (OutputStream stateOut = Files.newOutputStream(temp)) {
+                state.store(stateOut, "catalog-export checkpoint of sheet " + sheet);
+            }
+            Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.consumed = consumed;
+        this.complete = complete;
+    }
+
+    /**
+     * @return Le nombre d'assets de la liste de l'API déjà lus au dernier point de reprise.
+     */
+    public long getConsumed() {
+        return consumed;
+    }
+
+    /**
+     * @return L'identité du dernier asset lu au dernier point de reprise, ou {@code null}.
+     */
+    @Nullable
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * @return {@code true} si la liste des assets de la feuille a été lue entièrement.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Unable to close checkpoint of sheet {}", sheet, e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.zeenea.cli.export.ids;
+
+import com.beust.jcommander.ParameterException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.zeenea.client.api.id.Nature;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Liste des identifiants des assets à exporter, lue dans un fichier.
+ *
+ * <p>Le fichier contient un identifiant par ligne, précédé de la nature de l'asset et d'un deux-points ou d'un
+ * espace; un identifiant sans nature est celui d'un dataset:</p>
+ * <pre>
+ * # Datasets de l'audit
+ * 0b5c6d3e-2f41-4c4e-9a57-1d2e3f405162
+ * Field:7c1a9e20-55b3-4d7f-8e6a-9b0c1d2e3f40
+ * Category 3e4f5a6b-7c8d-4e9f-a0b1-c2d3e4f5a6b7
+ * </pre>
+ *
+ * <p>Les lignes vides et celles qui commencent par {@code #} sont ignorées, comme les identifiants répétés. L'ordre
+ * des lignes est conservé: c'est l'ordre des lignes des feuilles.</p>
+ */
+public final class IdList {
+    private final List<Entry> entries;
+
+    private IdList(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Lit un fichier d'identifiants.
+     *
+     * @param file Le fichier.
+     * @return La liste lue.
+     * @throws UncheckedIOException Si le fichier ne peut être lu.
+     * @throws ParameterException   Si une ligne est invalide.
+     */
+    public static IdList load(Path file) {
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        Set<String> seen = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+                String text = line.trim();
+                if (text.isEmpty() || text.startsWith("#")) continue;
+
+                Entry entry = parse(file, lineNumber, text);
+                if (seen.add(entry.nature + ":" + entry.uuid)) {
+                    entries.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new IdList(entries.build());
+    }
+
+    private static Entry parse(Path file, int lineNumber, String text) {
+        Nature nature = Nature.Dataset;
+        String uuid = text;
+        int separator = indexOfSeparator(text);
+        if (separator >= 0) {
+            String name = text.substring(0, separator).trim();
+            nature = natureOf(name);
+            if (nature == null) {
+                throw new ParameterException("Invalid ids file " + file + ", line " + lineNumber
+                    + ": unknown nature " + name + ", expected Category, Dataset or Field");
+            }
+            uuid = text.substring(separator + 1).trim();
+        }
+        try {
+            return new Entry(nature, UUID.fromString(uuid).toString());
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException("Invalid ids file " + file + ", line " + lineNumber
+                + ": invalid identifier " + uuid);
+        }
+    }
+
+    private static int indexOfSeparator(String text) {
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c == ':' || Character.isWhitespace(c)) return i;
+        }
+        return -1;
+    }
+
+    @Nullable
+    private static Nature natureOf(String name) {
+        for (Nature nature : Nature.values()) {
+            if (nature.toString().equalsIgnoreCase(name)) return nature;
+        }
+        return null;
+    }
+
+    /**
+     * Forme normalisée d'un identifiant, pour le comparer à ceux de la liste.
+     *
+     * @param uuid L'identifiant d'un asset.
+     * @return L'identifiant en minuscules.
+     */
+    static String normalize(String uuid) {
+        return uuid.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Les identifiants, dans l'ordre du fichier.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Empreinte de la liste, pour l'état des points de reprise.
+     *
+     * @return L'empreinte SHA-256 des identifiants et de leur ordre, en hexadécimal.
+     */
+    public String fingerprint() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (Entry entry : entries) {
+            hasher.putString(entry.nature + ":" + entry.uuid + "\n", StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @param nature Une nature d'asset.
+     * @return Le nombre d'identifiants de cette nature.
+     */
+    public int count(Nature nature) {
+        int count = 0;
+        for (Entry entry : entries) {
+            if (entry.nature == nature) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Identifiant de la liste.
+     */
+    public static final class Entry {
+        private final Nature nature;
+        private final String uuid;
+
+        Entry(Nature nature, String uuid) {
+            this.nature = requireNonNull(nature);
+            this.uuid = requireNonNull(uuid);
+        }
+
+        /**
+         * @return La nature de l'asset.
+         */
+        public Nature getNature() {
+            return nature;
+        }
+
+        /**
+         * @return L'identifiant de l'asset, en minuscules.
+         */
+        public String getUuid() {
+            return uuid;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.zeenea.cli.export.ids;
+
+import com.zeenea.client.api.StreamResult;
+import com.zeenea.client.api.asset.Asset;
+import com.zeenea.client.api.asset.RichCategory;
+import com.zeenea.client.api.asset.RichDataset;
+import com.zeenea.client.api.asset.RichField;
+import com.zeenea.client.api.id.Nature;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Assets d'un export ciblé par une {@link IdList liste d'identifiants}.
+ *
+ * <p>Les datasets sont lus en premier, jusqu'à ce que tous ceux de la liste aient été trouvés. Les autres feuilles
+ * sont ensuite restreintes aux assets de la liste et à ceux de ces datasets:</p>
+ * <ul>
+ *     <li>les catégories de la liste et celles des datasets;</li>
+ *     <li>les champs de la liste et tous les champs des datasets.</li>
+ * </ul>
+ *
+ * <p>Les lignes de chaque feuille suivent l'ordre de la liste: les catégories et les champs d'un dataset sont à la
+ * place de ce dataset dans la liste.</p>
+ *
+ * @see OrderedSelection
+ */
+public final class IdSelection {
+    private final IdList ids;
+    private final List<RichDataset> datasets = new ArrayList<>();
+    private final Set<String> requestedDatasets = new HashSet<>();
+    private final Set<String> found = new HashSet<>();
+    private final Map<String, RichDataset> datasetsById = new HashMap<>();
+
+    /**
+     * @param ids La liste d'identifiants.
+     */
+    public IdSelection(IdList ids) {
+        this.ids = ids;
+        for (IdList.Entry entry : ids.getEntries()) {
+            if (entry.getNature() == Nature.Dataset) {
+                requestedDatasets.add(entry.getUuid());
+            }
+        }
+    }
+
+    /**
+     * Présente un dataset de la liste de l'API, pendant la recherche des datasets.
+     *
+     * @param dataset Le dataset.
+     * @return {@code true} si le dataset est dans la liste d'identifiants.
+     */
+    public boolean offerDataset(RichDataset dataset) {
+        String uuid = uuidOf(dataset);
+        if (uuid == null || datasetsById.containsKey(uuid) || !requestedDatasets.contains(uuid)) return false;
+        datasetsById.put(uuid, dataset);
+        found.add(Nature.Dataset + ":" + uuid);
+        return true;
+    }
+
+    /**
+     * Termine la recherche des datasets: les datasets trouvés sont rangés dans l'ordre de la liste d'identifiants.
+     */
+    public void completeDatasets() {
+        datasets.clear();
+        for (IdList.Entry entry : ids.getEntries()) {
+            RichDataset dataset = entry.getNature() == Nature.Dataset ? datasetsById.get(entry.getUuid()) : null;
+            if (dataset != null) {
+                datasets.add(dataset);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} si tous les datasets de la liste d'identifiants ont été trouvés.
+     */
+    public boolean isDatasetComplete() {
+        return datasetsById.size() >= requestedDatasets.size();
+    }
+
+    /**
+     * @return Les datasets trouvés, dans l'ordre de la liste, comme un résultat de l'API.
+     */
+    public StreamResult<RichDataset> listDatasets() {
+        return new StreamResult<RichDataset>() {
+            @Override
+            public Long getEstimatedSize() {
+                return (long) datasets.size();
+            }
+
+            @Override
+            public Stream<RichDataset> getStream() {
+                return datasets.stream();
+            }
+
+            @Override
+            public void close() {
+                // Rien à libérer.
+            }
+        };
+    }
+
+    /**
+     * Restreint la liste des catégories à celles de la liste d'identifiants et à celles des datasets trouvés.
+     *
+     * @param query La liste de toutes les catégories.
+     * @return La liste restreinte, dans l'ordre de la liste d'identifiants.
+     */
+    public Supplier<StreamResult<RichCategory>> categories(Supplier<StreamResult<RichCategory>> query) {
+        Map<String, Integer> idSlots = new HashMap<>();
+        Map<String, Integer> nameSlots = new HashMap<>();
+        for (IdList.Entry entry : ids.getEntries()) {
+            if (entry.getNature() == Nature.Category) {
+                idSlots.putIfAbsent(entry.getUuid(), idSlots.size() + nameSlots.size());
+            } else if (entry.getNature() == Nature.Dataset) {
+                RichDataset dataset = datasetsById.get(entry.getUuid());
+                if (dataset != null && dataset.getCategoryName() != null) {
+                    nameSlots.putIfAbsent(dataset.getCategoryName(), idSlots.size() + nameSlots.size());
+                }
+            }
+        }
+        int slotCount = idSlots.size() + nameSlots.size();
+        return () -> new OrderedSelection<>(query.get(), category -> {
+            Integer slot = slotOf(Nature.Category, category, idSlots);
+            if (slot == null && category.getName() != null) {
+                slot = nameSlots.get(category.getName());
+            }
+            return slot != null ? slot : -1;
+        }, new BitSet(), slotCount);
+    }
+
+    /**
+     * Restreint la liste des champs à ceux de la liste d'identifiants et à ceux des datasets trouvés.
+     *
+     * @param query La liste de tous les champs.
+     * @return La liste restreinte, dans l'ordre de la liste d'identifiants.
+     */
+    public Supplier<StreamResult<RichField>> fields(Supplier<StreamResult<RichField>> query) {
+        Map<String, Integer> idSlots = new HashMap<>();
+        Map<String, Integer> datasetSlots = new HashMap<>();
+        BitSet multiple = new BitSet();
+        for (IdList.Entry entry : ids.getEntries()) {
+            if (entry.getNature() == Nature.Field) {
+                idSlots.putIfAbsent(entry.getUuid(), idSlots.size() + datasetSlots.size());
+            } else if (entry.getNature() == Nature.Dataset) {
+                RichDataset dataset = datasetsById.get(entry.getUuid());
+                if (dataset != null && dataset.getName() != null && !datasetSlots.containsKey(dataset.getName())) {
+                    int slot = idSlots.size() + datasetSlots.size();
+                    datasetSlots.put(dataset.getName(), slot);
+                    multiple.set(slot);
+                }
+            }
+        }
+        int slotCount = idSlots.size() + datasetSlots.size();
+        return () -> new OrderedSelection<>(query.get(), field -> {
+            Integer slot = slotOf(Nature.Field, field, idSlots);
+            if (slot == null && field.getDatasetName() != null) {
+                slot = datasetSlots.get(field.getDatasetName());
+            }
+            return slot != null ? slot : -1;
+        }, multiple, slotCount);
+    }
+
+    @Nullable
+    private Integer slotOf(Nature nature, Asset asset, Map<String, Integer> idSlots) {
+        String uuid = uuidOf(asset);
+        Integer slot = uuid != null ? idSlots.get(uuid) : null;
+        if (slot != null) {
+            found.add(nature + ":" + uuid);
+        }
+        return slot;
+    }
+
+    @Nullable
+    private static String uuidOf(Asset asset) {
+        return asset.getId() != null && asset.getId().getUuid() != null
+            ? IdList.normalize(asset.getId().getUuid()) : null;
+    }
+
+    /**
+     * @return Les identifiants de la liste qui n'ont pas été trouvés, dans l'ordre de la liste.
+     */
+    public List<IdList.Entry> getMissing() {
+        List<IdList.Entry> missing = new ArrayList<>();
+        for (IdList.Entry entry : ids.getEntries()) {
+            if (!found.contains(entry.getNature() + ":" + entry.getUuid())) {
+                missing.add(entry);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return Les datasets trouvés, dans l'ordre de la liste.
+     */
+    public List<RichDataset> getDatasets() {
+        return Collections.unmodifiableList(datasets);
+    }
+
+    /**
+     * @return La liste d'identifiants.
+     */
+    public IdList getIds() {
+        return ids;
+    }
+}
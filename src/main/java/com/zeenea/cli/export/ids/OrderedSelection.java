@@ -0,0 +1,134 @@
+package com.zeenea.cli.export.ids;
+
+import com.zeenea.client.api.StreamResult;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Assets d'une liste de l'API retenus par une {@link IdList liste d'identifiants}, rendus dans l'ordre de la liste
+ * d'identifiants et non dans celui de l'API.
+ *
+ * <p>Chaque asset retenu est associé à un emplacement, dans l'ordre des identifiants. Un emplacement unique reçoit
+ * un seul asset, celui d'un identifiant; un emplacement multiple reçoit plusieurs assets, par exemple les champs
+ * d'un dataset, et n'est complet qu'à la fin de la liste de l'API. La lecture de la liste de l'API s'arrête dès que
+ * tous les emplacements sont complets.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les assets arrivés avant leur tour sont gardés dans le tampon de leur emplacement; le premier emplacement qui
+ * n'a pas été rendu l'est dès qu'il est complet, suivi des emplacements complets qui le suivent. La mémoire utilisée
+ * est au plus celle des assets retenus, jamais celle de la liste de l'API. Le même flux de l'API donne le même
+ * ordre, ce qui permet à une lecture reprise après une erreur de sauter les assets déjà rendus.</p>
+ *
+ * @param <T> Type des assets.
+ */
+public final class OrderedSelection<T> implements StreamResult<T> {
+    private final StreamResult<T> source;
+    private final ToIntFunction<? super T> slotOf;
+    private final BitSet multiple;
+    private final int slotCount;
+
+    /**
+     * @param source    La liste de l'API.
+     * @param slotOf    Emplacement d'un asset, négatif pour un asset qui n'est pas retenu.
+     * @param multiple  Emplacements multiples.
+     * @param slotCount Nombre d'emplacements.
+     */
+    public OrderedSelection(StreamResult<T> source, ToIntFunction<? super T> slotOf, BitSet multiple, int slotCount) {
+        this.source = requireNonNull(source);
+        this.slotOf = requireNonNull(slotOf);
+        this.multiple = requireNonNull(multiple);
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * @return Le nombre d'emplacements s'ils sont tous uniques, {@code null} sinon.
+     */
+    @Nullable
+    @Override
+    public Long getEstimatedSize() {
+        return multiple.isEmpty() ? (long) slotCount : null;
+    }
+
+    @Override
+    public Stream<T> getStream() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(new Reassembly(source.getStream().iterator()), Spliterator.ORDERED),
+            false);
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    /**
+     * Tampon de remise en ordre des assets.
+     */
+    private final class Reassembly implements Iterator<T> {
+        private final Iterator<T> items;
+        private final List<List<T>> buffers = new ArrayList<>(slotCount);
+        private final BitSet complete = new BitSet(slotCount);
+        private final ArrayDeque<T> ready = new ArrayDeque<>();
+        private boolean exhausted;
+        private int next;
+
+        Reassembly(Iterator<T> items) {
+            this.items = items;
+            for (int i = 0; i < slotCount; ++i) {
+                buffers.add(null);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (ready.isEmpty()) {
+                if (next >= slotCount) return false;
+                if (complete.get(next) || exhausted) {
+                    List<T> buffer = buffers.set(next++, null);
+                    if (buffer != null) {
+                        ready.addAll(buffer);
+                    }
+                } else if (items.hasNext()) {
+                    offer(items.next());
+                } else {
+                    exhausted = true;
+                }
+            }
+            return true;
+        }
+
+        private void offer(T item) {
+            int slot = slotOf.applyAsInt(item);
+            if (slot < next || slot >= slotCount || complete.get(slot)) return;
+
+            List<T> buffer = buffers.get(slot);
+            if (buffer == null) {
+                buffer = new ArrayList<>(1);
+                buffers.set(slot, buffer);
+            }
+            buffer.add(item);
+            if (!multiple.get(slot)) {
+                complete.set(slot);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return ready.poll();
+        }
+    }
+}
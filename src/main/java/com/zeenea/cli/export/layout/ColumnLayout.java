@@ -0,0 +1,184 @@
+package com.zeenea.cli.export.layout;
+
+import com.beust.jcommander.ParameterException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.zeenea.cli.export.xlsx.SheetExport;
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Colonnes principales des feuilles, lues dans un fichier JSON au lieu des colonnes prédéfinies de l'export.
+ *
+ * <p>Le fichier associe à un nom de feuille ({@code Category}, {@code Dataset} ou {@code Field}) la liste de ses
+ * colonnes, dans leur ordre:</p>
+ * <pre>
+ * {
+ *   "Dataset": [
+ *     {"label": "Identifiant", "width": 36, "style": "identifiant", "source": "id"},
+ *     {"label": "Path", "source": "datasetLocator.path.path"},
+ *     {"label": "Records", "type": "integer", "width": 10, "source": "nbRecord"},
+ *     {"label": "Concepts", "source": "$.concepts[*].name"}
+ *   ]
+ * }
+ * </pre>
+ *
+ * <p>Seuls {@code label} et {@code source} sont obligatoires; le type est {@code text} par défaut, la présentation
+ * {@code text} et la largeur {@code 20}. Les feuilles absentes du fichier gardent leurs colonnes prédéfinies. Les
+ * colonnes des propriétés et les colonnes ajoutées par les options de l'export ne sont pas concernées.</p>
+ *
+ * @see ValueAccessors Les expressions de {@code source}.
+ */
+public final class ColumnLayout {
+    private static final int DEFAULT_WIDTH = 20;
+
+    private final Path file;
+    private final Map<String, List<ColumnSpec>> sheets;
+
+    private ColumnLayout(Path file, Map<String, List<ColumnSpec>> sheets) {
+        this.file = file;
+        this.sheets = sheets;
+    }
+
+    /**
+     * Lit un fichier de colonnes.
+     *
+     * @param file       Le fichier.
+     * @param sheetNames Noms des feuilles qui peuvent être décrites.
+     * @return Les colonnes lues.
+     * @throws UncheckedIOException Si le fichier ne peut être lu.
+     * @throws ParameterException   Si le fichier est invalide.
+     */
+    public static ColumnLayout load(Path file, Collection<String> sheetNames) {
+        JsonNode root;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            root = new ObjectMapper().readTree(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (root == null || !root.isObject()) {
+            throw new ParameterException("Invalid column file " + file + ": a JSON object is expected");
+        }
+
+        Map<String, List<ColumnSpec>> sheets = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> sheet = fields.next();
+            if (!sheetNames.contains(sheet.getKey())) {
+                throw new ParameterException("Invalid column file " + file + ": unknown sheet " + sheet.getKey()
+                    + ", expected one of " + sheetNames);
+            }
+            if (!sheet.getValue().isArray()) {
+                throw new ParameterException("Invalid column file " + file + ": the columns of " + sheet.getKey()
+                    + " must be an array");
+            }
+            ImmutableList.Builder<ColumnSpec> columns = ImmutableList.builder();
+            Set<String> labels = new HashSet<>();
+            for (JsonNode column : sheet.getValue()) {
+                ColumnSpec spec = parseColumn(file, sheet.getKey(), column);
+                if (!labels.add(spec.getLabel())) {
+                    throw new ParameterException("Invalid column file " + file + ": duplicate column "
+                        + spec.getLabel() + " in " + sheet.getKey());
+                }
+                columns.add(spec);
+            }
+            sheets.put(sheet.getKey(), columns.build());
+        }
+        return new ColumnLayout(file, sheets);
+    }
+
+    private static ColumnSpec parseColumn(Path file, String sheet, JsonNode column) {
+        String label = text(column, "label");
+        String source = text(column, "source");
+        if (label == null || source == null) {
+            throw new ParameterException("Invalid column file " + file + ": each column of " + sheet
+                + " needs a label and a source");
+        }
+        JsonNode width = column.get("width");
+        String type = text(column, "type");
+        String style = text(column, "style");
+        try {
+            return new ColumnSpec(
+                label,
+                width != null && width.isInt() ? width.asInt() : DEFAULT_WIDTH,
+                type != null ? ValueType.valueOf(type.toUpperCase(Locale.ROOT)) : ValueType.TEXT,
+                style != null ? ColumnSpec.Style.valueOf(style.toUpperCase(Locale.ROOT)) : ColumnSpec.Style.TEXT,
+                source);
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException("Invalid column file " + file + ": column " + label + " of " + sheet
+                + " has an unknown type or style");
+        }
+    }
+
+    private static String text(JsonNode column, String name) {
+        JsonNode value = column.get(name);
+        return value != null && value.isTextual() ? value.textValue() : null;
+    }
+
+    /**
+     * @param sheetName Nom d'une feuille.
+     * @return {@code true} si le fichier décrit les colonnes de la feuille.
+     */
+    public boolean covers(String sheetName) {
+        return sheets.containsKey(sheetName);
+    }
+
+    /**
+     * @param sheetName Nom d'une feuille.
+     * @return Les colonnes décrites de la feuille, vide si elle n'est pas décrite.
+     */
+    public List<ColumnSpec> getColumns(String sheetName) {
+        return sheets.getOrDefault(sheetName, ImmutableList.of());
+    }
+
+    /**
+     * Ajoute les colonnes décrites d'une feuille à la section principale de son export.
+     *
+     * <p>Les expressions des colonnes sont compilées par cette méthode, une fois pour toute la feuille.</p>
+     *
+     * @param sheetName Nom de la feuille.
+     * @param type      Type des assets de la feuille.
+     * @param builder   Monteur de l'export de la feuille.
+     * @param <T>       Type des assets de la feuille.
+     * @return {@code true} si la feuille est décrite, {@code false} si elle garde ses colonnes prédéfinies.
+     * @throws ParameterException Si une expression est invalide pour le type des assets.
+     */
+    public <T> boolean prepare(String sheetName, Class<T> type, SheetExport.Builder<T> builder) {
+        List<ColumnSpec> columns = sheets.get(sheetName);
+        if (columns == null) return false;
+
+        ValueAccessors<T> accessors = new ValueAccessors<>(type);
+        for (ColumnSpec spec : columns) {
+            Function<T, Object> accessor;
+            try {
+                accessor = accessors.compile(spec.getSource());
+            } catch (IllegalArgumentException e) {
+                throw new ParameterException("Invalid column file " + file + ": column " + spec.getLabel()
+                    + " of " + sheetName + ": " + e.getMessage());
+            }
+            SpecValueExporter<T> exporter = new SpecValueExporter<>(spec, accessor);
+            builder.addColumn(col ->
+                col.label(spec.getLabel())
+                    .width(spec.getWidth())
+                    .type(spec.getType())
+                    .exporter(exporter));
+        }
+        return true;
+    }
+}
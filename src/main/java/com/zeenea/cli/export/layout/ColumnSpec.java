@@ -0,0 +1,92 @@
+package com.zeenea.cli.export.layout;
+
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Description d'une colonne lue dans un {@link ColumnLayout fichier de colonnes}.
+ */
+public final class ColumnSpec {
+    /**
+     * Présentation des cellules d'une colonne de texte.
+     */
+    public enum Style {
+        /**
+         * Texte simple.
+         */
+        TEXT,
+        /**
+         * Identifiant, dans le style des identifiants du classeur.
+         */
+        IDENTIFIANT,
+        /**
+         * Description, dans le style des descriptions du classeur.
+         */
+        DESCRIPTION
+    }
+
+    private final String label;
+    private final int width;
+    private final ValueType type;
+    private final Style style;
+    private final String source;
+
+    /**
+     * @param label  Libellé de la colonne.
+     * @param width  Largeur de la colonne.
+     * @param type   Type des valeurs.
+     * @param style  Présentation des textes.
+     * @param source Expression de la valeur: chemin de getters ou expression JsonPath.
+     */
+    public ColumnSpec(String label, int width, ValueType type, Style style, String source) {
+        this.label = requireNonNull(label);
+        this.width = width;
+        this.type = requireNonNull(type);
+        this.style = requireNonNull(style);
+        this.source = requireNonNull(source);
+    }
+
+    /**
+     * @return Le libellé de la colonne.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return La largeur de la colonne.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Le type des valeurs de la colonne.
+     */
+    public ValueType getType() {
+        return type;
+    }
+
+    /**
+     * @return La présentation des textes de la colonne.
+     */
+    public Style getStyle() {
+        return style;
+    }
+
+    /**
+     * @return L'expression de la valeur: chemin de getters, comme {@code datasetLocator.path.path}, ou expression
+     * JsonPath, qui commence par {@code $}.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return {@code true} si la source est une expression JsonPath.
+     */
+    public boolean isJsonPath() {
+        return source.startsWith("$");
+    }
+}
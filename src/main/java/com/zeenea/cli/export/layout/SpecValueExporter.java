@@ -0,0 +1,116 @@
+package com.zeenea.cli.export.layout;
+
+import com.zeenea.cli.export.xlsx.SheetExport;
+import com.zeenea.cli.export.xlsx.ValueExporter;
+import com.zeenea.client.api.asset.Description;
+import com.zeenea.client.api.id.Identifiant;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Export de la valeur d'une {@link ColumnSpec colonne décrite}, selon son type et sa présentation.
+ *
+ * <p>Une valeur qui ne peut être convertie dans le type de la colonne est écrite comme un texte. Les éléments d'une
+ * collection sont joints par un retour à la ligne, comme les tags.</p>
+ *
+ * @param <T> Type des assets.
+ */
+final class SpecValueExporter<T> implements ValueExporter<T> {
+    private final ColumnSpec spec;
+    private final Function<T, Object> accessor;
+
+    SpecValueExporter(ColumnSpec spec, Function<T, Object> accessor) {
+        this.spec = spec;
+        this.accessor = accessor;
+    }
+
+    @Override
+    public void export(SheetExport.Writer writer, T item) {
+        Object value = accessor.apply(item);
+        if (value == null) return;
+
+        switch (spec.getType()) {
+            case INTEGER:
+                if (value instanceof Number) {
+                    writer.write(Long.valueOf(((Number) value).longValue()));
+                    return;
+                }
+                break;
+            case DECIMAL:
+                if (value instanceof Number) {
+                    writer.write(((Number) value).doubleValue());
+                    return;
+                }
+                break;
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    writer.write((boolean) (Boolean) value);
+                    return;
+                }
+                break;
+            case TIMESTAMP:
+                Instant instant = toInstant(value);
+                if (instant != null) {
+                    writer.write(instant);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        writeText(writer, toText(value));
+    }
+
+    private void writeText(SheetExport.Writer writer, @Nullable String text) {
+        switch (spec.getStyle()) {
+            case IDENTIFIANT:
+                writer.writeIdentifiant(text);
+                break;
+            case DESCRIPTION:
+                writer.writeDescription(text);
+                break;
+            default:
+                writer.write(text);
+                break;
+        }
+    }
+
+    @Nullable
+    private static Instant toInstant(Object value) {
+        if (value instanceof Instant) return (Instant) value;
+        if (value instanceof Date) return ((Date) value).toInstant();
+        if (value instanceof Number) return Instant.ofEpochMilli(((Number) value).longValue());
+        if (value instanceof String) {
+            try {
+                return Instant.parse((String) value);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String toText(@Nullable Object value) {
+        if (value == null) return null;
+        if (value instanceof Identifiant) return ((Identifiant) value).getUuid();
+        if (value instanceof Description) return ((Description) value).getText();
+        if (value instanceof Collection) {
+            StringJoiner joiner = new StringJoiner("\n");
+            for (Object element : (Collection<?>) value) {
+                String text = toText(element);
+                if (text != null) {
+                    joiner.add(text);
+                }
+            }
+            return joiner.length() > 0 ? joiner.toString() : null;
+        }
+        return value.toString();
+    }
+}
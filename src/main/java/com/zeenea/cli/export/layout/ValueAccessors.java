@@ -0,0 +1,178 @@
+package com.zeenea.cli.export.layout;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Compilation des expressions des {@link ColumnSpec colonnes} en fonctions de lecture d'une valeur d'un asset.
+ *
+ * <p>Deux formes d'expression sont acceptées:</p>
+ * <ul>
+ *     <li>un chemin pointé de propriétés, comme {@code datasetLocator.path.path}: chaque propriété est lue par son
+ *     getter public, {@code getX()} ou {@code isX()}, sur le type déclaré par le getter précédent;</li>
+ *     <li>une expression JsonPath, qui commence par {@code $}, comme {@code $.concepts[*].name}: elle est évaluée
+ *     sur la représentation JSON de l'asset, produite par Jackson.</li>
+ * </ul>
+ *
+ * <p>Une valeur {@code null} au long d'un chemin donne une valeur {@code null}. Une expression JsonPath qui ne
+ * désigne rien donne {@code null}; une expression qui désigne plusieurs valeurs donne la liste de ces valeurs.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les expressions sont compilées une fois, à la préparation de la feuille: les getters en {@link MethodHandle},
+ * les expressions JsonPath en {@link JsonPath}. La représentation JSON d'un asset est construite une fois par asset
+ * et partagée par les colonnes JsonPath de la feuille, qui lisent les assets dans l'ordre, un à la fois.</p>
+ *
+ * @param <T> Type des assets.
+ */
+final class ValueAccessors<T> {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<T> type;
+    private final ObjectMapper mapper;
+    private final Configuration jsonPathConfiguration;
+
+    @Nullable
+    private Object currentItem;
+    @Nullable
+    private JsonNode currentDocument;
+
+    /**
+     * @param type Type déclaré des assets de la feuille.
+     */
+    ValueAccessors(Class<T> type) {
+        this.type = type;
+        this.mapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        this.jsonPathConfiguration = Configuration.builder()
+            .jsonProvider(new JacksonJsonNodeJsonProvider(mapper))
+            .mappingProvider(new JacksonMappingProvider(mapper))
+            .options(Option.SUPPRESS_EXCEPTIONS)
+            .build();
+    }
+
+    /**
+     * Compile une expression.
+     *
+     * @param source L'expression.
+     * @return La fonction de lecture de la valeur; elle retourne {@code null} en l'absence de valeur.
+     * @throws IllegalArgumentException Si l'expression est invalide pour le type des assets.
+     */
+    Function<T, Object> compile(String source) {
+        return source.startsWith("$") ? compileJsonPath(source) : compileGetters(source);
+    }
+
+    private Function<T, Object> compileGetters(String source) {
+        List<MethodHandle> chain = new ArrayList<>();
+        Class<?> current = type;
+        for (String property : source.split("\\.", -1)) {
+            Method getter = findGetter(current, property, source);
+            try {
+                chain.add(MethodHandles.publicLookup().unreflect(getter).asType(GETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Getter " + getter + " of \"" + source + "\" is not accessible", e);
+            }
+            current = getter.getReturnType();
+        }
+        MethodHandle[] getters = chain.toArray(new MethodHandle[0]);
+        return item -> {
+            Object value = item;
+            for (MethodHandle getter : getters) {
+                if (value == null) return null;
+                value = invoke(getter, value);
+                if (value instanceof Optional) {
+                    value = ((Optional<?>) value).orElse(null);
+                }
+            }
+            return value;
+        };
+    }
+
+    private static Method findGetter(Class<?> owner, String property, String source) {
+        if (property.isEmpty()) {
+            throw new IllegalArgumentException("Invalid source \"" + source + "\": empty property name");
+        }
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix, property}) {
+            try {
+                Method method = owner.getMethod(name);
+                if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // Forme suivante.
+            }
+        }
+        throw new IllegalArgumentException("Invalid source \"" + source + "\": no getter for " + property
+            + " in " + owner.getSimpleName());
+    }
+
+    private static Object invoke(MethodHandle getter, Object target) {
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Function<T, Object> compileJsonPath(String source) {
+        JsonPath path;
+        try {
+            path = JsonPath.compile(source);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid source \"" + source + "\": " + e.getMessage(), e);
+        }
+        return item -> toValue(path.<JsonNode>read(documentOf(item), jsonPathConfiguration));
+    }
+
+    private JsonNode documentOf(T item) {
+        if (item != currentItem) {
+            currentDocument = mapper.valueToTree(item);
+            currentItem = item;
+        }
+        return currentDocument;
+    }
+
+    /**
+     * Convertit un nœud JSON en valeur: texte, nombre, booléen ou liste des valeurs d'un tableau.
+     */
+    @Nullable
+    private static Object toValue(@Nullable JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode() || node.isObject()) return null;
+        if (node.isTextual()) return node.textValue();
+        if (node.isNumber()) return node.numberValue();
+        if (node.isBoolean()) return node.booleanValue();
+        if (node.isArray()) {
+            List<Object> values = new ArrayList<>(node.size());
+            for (JsonNode element : node) {
+                Object value = toValue(element);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values.isEmpty() ? null : values;
+        }
+        return node.asText();
+    }
+}
@@ -0,0 +1,472 @@
+package com.zeenea.cli.export.partition;
+
+import com.zeenea.cli.export.xlsx.ExportStyles;
+import com.zeenea.cli.export.xlsx.RowListener;
+import com.zeenea.cli.export.xlsx.RowRecord;
+import com.zeenea.cli.export.xlsx.SheetExport;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Classeurs partitionnés: un classeur par valeur de la colonne de {@link SplitBy partitionnement}, au lieu d'un
+ * classeur unique.
+ *
+ * <p>Pendant la lecture du catalogue, des observateurs des feuilles de l'export routent chaque ligne vers sa
+ * partition, d'après la valeur de la colonne de partitionnement. Les lignes des champs, qui n'ont pas cette colonne,
+ * vont dans la partition de leur dataset, retrouvée par la clé de la ligne. Les lignes sans valeur vont dans la
+ * partition {@link SplitBy#getUnassigned()}, comme les lignes dont la clé désigne plusieurs partitions: les champs
+ * de datasets homonymes rangés dans des partitions différentes ne peuvent être attribués à l'un d'eux.</p>
+ *
+ * <p>Une fois le catalogue lu, {@link #write()} écrit les classeurs des partitions dans un pool de threads: au plus
+ * {@link Builder#threads(int) threads} classeurs sont ouverts en même temps. Chaque classeur reprend la disposition
+ * des feuilles de l'export, avec son propre tri, son propre retrait des colonnes vides et sa propre estimation de la
+ * largeur des colonnes. Les fichiers sont nommés {@code <nom>-<partition>.xlsx}, à côté du fichier de sortie.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Un classeur SXSSF ne peut être fermé puis rouvert pour y ajouter des lignes: les lignes sont d'abord écrites
+ * dans un fichier temporaire par partition et par feuille, au format de {@link RowRecord#writeTo(java.io.DataOutput)}.
+ * Les fichiers ouverts forment un cache LRU borné par {@link Builder#maxOpenFiles(int) maxOpenFiles}: au-delà, le
+ * fichier le moins récemment utilisé est fermé, puis rouvert en ajout à sa ligne suivante. Un catalogue de
+ * nombreuses partitions ne consomme ainsi ni descripteurs de fichiers ni tampons en proportion.</p>
+ *
+ * <p>Les feuilles de chaque classeur trient leurs lignes avec leur propre mémoire de tri: la mémoire utilisée par
+ * l'écriture est celle du tri multipliée par le nombre de threads.</p>
+ */
+public final class PartitionedWorkbooks implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(PartitionedWorkbooks.class);
+    private static final int IO_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_STEM_LENGTH = 100;
+
+    private final SplitBy splitBy;
+    private final Path directory;
+    private final String baseName;
+    private final OpenOption[] outputOptions;
+    private final int threads;
+    private final Path spoolDirectory;
+    private final LinkedHashMap<Path, DataOutputStream> openFiles;
+
+    private final List<SheetExport.Builder<?>> layouts = new ArrayList<>();
+    private final List<Integer> columnCounts = new ArrayList<>();
+    private final Map<String, Partition> partitions = new LinkedHashMap<>();
+    private final Map<String, Partition> keyPartitions = new HashMap<>();
+    private final Set<String> sharedKeys = new HashSet<>();
+    private final Set<String> stems = new HashSet<>();
+    private long reopenCount;
+
+    private PartitionedWorkbooks(Builder builder) {
+        this.splitBy = requireNonNull(builder.splitBy);
+        this.directory = requireNonNull(builder.directory);
+        this.baseName = requireNonNull(builder.baseName);
+        this.outputOptions = builder.outputOptions.clone();
+        this.threads = Math.max(1, builder.threads);
+        int maxOpenFiles = Math.max(1, builder.maxOpenFiles);
+        try {
+            this.spoolDirectory = builder.tempDirectory != null
+                ? Files.createTempDirectory(builder.tempDirectory, "catalog-export-partitions-")
+                : Files.createTempDirectory("catalog-export-partitions-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.openFiles = new LinkedHashMap<Path, DataOutputStream>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, DataOutputStream> eldest) {
+                if (size() <= maxOpenFiles) return false;
+                try {
+                    eldest.getValue().close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Route les lignes d'une feuille d'après la valeur de la colonne de partitionnement.
+     *
+     * @param layout    Monteur de l'export de la feuille, dont la disposition est reprise dans chaque classeur.
+     * @param export    Export de la feuille.
+     * @param indexKeys {@code true} pour retenir la partition de la clé de chaque ligne, cible des lignes routées
+     *                  par {@link #routeByKey(SheetExport.Builder, SheetExport)}.
+     * @param <T>       Type des assets de la feuille.
+     * @return L'observateur des lignes, à ajouter à l'export.
+     * @throws IllegalArgumentException Si la feuille n'a pas de colonne de partitionnement.
+     */
+    public <T> RowListener routeByColumn(SheetExport.Builder<T> layout, SheetExport<T> export, boolean indexKeys) {
+        int column = export.getColumnLabels().indexOf(splitBy.getColumn());
+        if (column < 0) {
+            throw new IllegalArgumentException(export.getName() + ": no \"" + splitBy.getColumn() + "\" column to split by");
+        }
+        int sheet = addSheet(layout, export);
+        return row -> {
+            Partition partition = partition(row.isEmpty(column) ? null : row.getText(column));
+            if (indexKeys && row.getKey() != null) {
+                indexKey(row.getKey(), partition);
+            }
+            append(partition, sheet, row);
+        };
+    }
+
+    /**
+     * Route les lignes d'une feuille vers la partition de leur clé, retenue par une feuille précédente.
+     *
+     * <p>Les lignes dont la clé a été retenue pour plusieurs partitions vont dans la partition
+     * {@link SplitBy#getUnassigned()}.</p>
+     *
+     * @param layout Monteur de l'export de la feuille, dont la disposition est reprise dans chaque classeur.
+     * @param export Export de la feuille.
+     * @param <T>    Type des assets de la feuille.
+     * @return L'observateur des lignes, à ajouter à l'export.
+     */
+    public <T> RowListener routeByKey(SheetExport.Builder<T> layout, SheetExport<T> export) {
+        int sheet = addSheet(layout, export);
+        return row -> {
+            Partition partition = row.getKey() != null ? keyPartitions.get(row.getKey()) : null;
+            append(partition != null ? partition : partition(null), sheet, row);
+        };
+    }
+
+    private void indexKey(String key, Partition partition) {
+        if (sharedKeys.contains(key)) return;
+        Partition previous = keyPartitions.putIfAbsent(key, partition);
+        if (previous != null && previous != partition) {
+            keyPartitions.remove(key);
+            sharedKeys.add(key);
+            log.warn("\"{}\" is in partitions {} and {}, its rows without \"{}\" go to {}", key, previous.stem,
+                partition.stem, splitBy.getColumn(), splitBy.getUnassigned());
+        }
+    }
+
+    private int addSheet(SheetExport.Builder<?> layout, SheetExport<?> export) {
+        layouts.add(layout.copyLayout());
+        columnCounts.add(export.getColumnCount());
+        return layouts.size() - 1;
+    }
+
+    private Partition partition(@Nullable String name) {
+        Partition partition = partitions.get(name);
+        if (partition == null) {
+            partition = new Partition(partitions.size(), name, uniqueStem(name != null ? name : splitBy.getUnassigned()));
+            partitions.put(name, partition);
+        }
+        return partition;
+    }
+
+    /**
+     * Nom de fichier d'une partition, unique sans tenir compte de la casse.
+     */
+    private String uniqueStem(String name) {
+        String stem = name.replaceAll("[^\\p{L}\\p{N}._-]+", "_");
+        if (stem.length() > MAX_STEM_LENGTH) {
+            stem = stem.substring(0, MAX_STEM_LENGTH);
+        }
+        String unique = stem;
+        for (int i = 2; !stems.add(unique.toLowerCase(Locale.ROOT)); ++i) {
+            unique = stem + "-" + i;
+        }
+        return unique;
+    }
+
+    private void append(Partition partition, int sheet, RowRecord row) {
+        Path file = spoolFile(partition, sheet);
+        try {
+            DataOutputStream out = openFiles.get(file);
+            if (out == null) {
+                if (partition.getRowCount(sheet) > 0) {
+                    ++reopenCount;
+                }
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), IO_BUFFER_SIZE));
+                openFiles.put(file, out);
+            }
+            row.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        partition.increment(sheet);
+    }
+
+    private Path spoolFile(Partition partition, int sheet) {
+        return spoolDirectory.resolve(partition.id + "-" + sheet + ".rows");
+    }
+
+    /**
+     * Écrit le classeur de chaque partition, une fois toutes les lignes routées.
+     *
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public void write() {
+        closeOpenFiles();
+        log.info("{} partitions by {}, {} partition files reopened", partitions.size(), splitBy.getOption(), reopenCount);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            runnable -> new Thread(runnable, "catalog-export-partition-" + threadCount.incrementAndGet()));
+        try {
+            List<Future<?>> jobs = new ArrayList<>();
+            for (Partition partition : partitions.values()) {
+                jobs.add(executor.submit(() -> writePartition(partition)));
+            }
+            for (Future<?> job : jobs) {
+                job.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing partition workbooks", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writePartition(Partition partition) {
+        Path file = directory.resolve(baseName + "-" + partition.stem + ".xlsx");
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        try {
+            ExportStyles styles = ExportStyles.of(workbook);
+            for (int sheet = 0; sheet < layouts.size(); ++sheet) {
+                SheetExport.Builder<?> layout;
+                synchronized (layouts) {
+                    layout = layouts.get(sheet).copyLayout();
+                }
+                try (SheetExport<?> export = layout.workbook(workbook).styles(styles).build()) {
+                    replay(partition, sheet, export::restore);
+                    export.finish();
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(file, outputOptions)) {
+                workbook.write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            workbook.dispose();
+        }
+        log.info("Partition {} written to {}", partition.name != null ? partition.name : splitBy.getUnassigned(), file);
+    }
+
+    private void replay(Partition partition, int sheet, Consumer<RowRecord> consumer) throws IOException {
+        long rowCount = partition.getRowCount(sheet);
+        if (rowCount == 0) return;
+
+        RowRecord row = new RowRecord(columnCounts.get(sheet));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(spoolFile(partition, sheet)), IO_BUFFER_SIZE))) {
+            for (long i = 0; i < rowCount; ++i) {
+                row.readFrom(in);
+                consumer.accept(row);
+            }
+        }
+    }
+
+    private void closeOpenFiles() {
+        IOException failure = null;
+        for (Iterator<DataOutputStream> it = openFiles.values().iterator(); it.hasNext(); ) {
+            try {
+                it.next().close();
+            } catch (IOException e) {
+                failure = e;
+            }
+            it.remove();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    /**
+     * @return Le nombre de partitions.
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Supprime les fichiers temporaires des partitions.
+     */
+    @Override
+    public void close() {
+        try {
+            closeOpenFiles();
+        } catch (UncheckedIOException e) {
+            log.warn("Unable to close partition files", e);
+        }
+        try (Stream<Path> walk = Files.walk(spoolDirectory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete partition files in {}", spoolDirectory, e);
+        }
+    }
+
+    /**
+     * Partition: son nom, le nom de son classeur et le nombre de lignes de chaque feuille.
+     */
+    private static final class Partition {
+        private final int id;
+        @Nullable
+        private final String name;
+        private final String stem;
+        private long[] rowCounts = new long[0];
+
+        Partition(int id, @Nullable String name, String stem) {
+            this.id = id;
+            this.name = name;
+            this.stem = stem;
+        }
+
+        long getRowCount(int sheet) {
+            return sheet < rowCounts.length ? rowCounts[sheet] : 0;
+        }
+
+        void increment(int sheet) {
+            if (sheet >= rowCounts.length) {
+                rowCounts = Arrays.copyOf(rowCounts, sheet + 1);
+            }
+            ++rowCounts[sheet];
+        }
+    }
+
+    /**
+     * Monteur des classeurs partitionnés.
+     */
+    public static final class Builder {
+        private SplitBy splitBy;
+        private Path directory;
+        private String baseName;
+        private OpenOption[] outputOptions = {StandardOpenOption.CREATE_NEW};
+        private int threads = 1;
+        private int maxOpenFiles = 64;
+        private Path tempDirectory;
+
+        private Builder() {
+        }
+
+        /**
+         * Partitionnement.
+         *
+         * @param splitBy la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder splitBy(SplitBy splitBy) {
+            this.splitBy = splitBy;
+            return this;
+        }
+
+        /**
+         * Dossier des classeurs.
+         *
+         * @param directory la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Nom de base des classeurs, suivi du nom de la partition.
+         *
+         * @param baseName la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder baseName(String baseName) {
+            this.baseName = baseName;
+            return this;
+        }
+
+        /**
+         * Options d'ouverture des classeurs, par exemple pour remplacer les classeurs existants.
+         *
+         * @param outputOptions la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder outputOptions(OpenOption... outputOptions) {
+            this.outputOptions = outputOptions;
+            return this;
+        }
+
+        /**
+         * Nombre de classeurs écrits en même temps.
+         *
+         * @param threads la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Nombre maximal de fichiers de partition ouverts pendant le routage des lignes.
+         *
+         * @param maxOpenFiles la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder maxOpenFiles(int maxOpenFiles) {
+            this.maxOpenFiles = maxOpenFiles;
+            return this;
+        }
+
+        /**
+         * Dossier des fichiers temporaires.
+         * <p>Par défaut, le dossier temporaire du système est utilisé.</p>
+         *
+         * @param tempDirectory la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder tempDirectory(@Nullable Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public PartitionedWorkbooks build() {
+            return new PartitionedWorkbooks(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.zeenea.cli.export.partition;
+
+/**
+ * Partitionnement du classeur d'export: la colonne dont la valeur désigne le classeur de chaque ligne.
+ */
+public enum SplitBy {
+    /**
+     * Un classeur par catégorie: les catégories, leurs datasets et les champs de ces datasets.
+     */
+    CATEGORY("category", "Category Name", "no-category"),
+
+    /**
+     * Un classeur par data storage: les datasets du data storage et leurs champs, sans les catégories.
+     */
+    DATA_STORAGE("dataStorage", "Data Storage Name", "no-data-storage");
+
+    private final String option;
+    private final String column;
+    private final String unassigned;
+
+    SplitBy(String option, String column, String unassigned) {
+        this.option = option;
+        this.column = column;
+        this.unassigned = unassigned;
+    }
+
+    /**
+     * @return La valeur de l'option {@code --split-by}.
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * @return Le libellé de la colonne de partitionnement.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return Le nom du classeur des lignes sans valeur de partitionnement.
+     */
+    public String getUnassigned() {
+        return unassigned;
+    }
+}
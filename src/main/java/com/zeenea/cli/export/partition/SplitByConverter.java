@@ -0,0 +1,19 @@
+package com.zeenea.cli.export.partition;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Convertisseur JCommander d'un {@link SplitBy partitionnement}, sans tenir compte de la casse.
+ */
+public class SplitByConverter implements IStringConverter<SplitBy> {
+    @Override
+    public SplitBy convert(String value) {
+        for (SplitBy splitBy : SplitBy.values()) {
+            if (splitBy.getOption().equalsIgnoreCase(value.trim())) {
+                return splitBy;
+            }
+        }
+        throw new ParameterException("Unknown partitioning \"" + value + "\", expected category or dataStorage");
+    }
+}
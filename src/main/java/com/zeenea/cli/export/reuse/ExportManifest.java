@@ -0,0 +1,182 @@
+package com.zeenea.cli.export.reuse;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Manifeste d'un classeur exporté: pour chaque feuille, sa partie dans l'archive, l'empreinte de son contenu et le
+ * CRC et la taille compressée de l'entrée ZIP écrite.
+ *
+ * <p>Le manifeste est un fichier de propriétés écrit à côté du classeur. Il permet à l'export suivant de reprendre
+ * telles quelles les feuilles dont le contenu n'a pas changé. Au chargement, chaque feuille est vérifiée dans le
+ * classeur précédent: une feuille dont l'entrée a été modifiée depuis, par exemple par un enregistrement dans Excel,
+ * n'est pas reprise.</p>
+ */
+public final class ExportManifest {
+    private static final Logger log = LoggerFactory.getLogger(ExportManifest.class);
+    private static final String VERSION = "1";
+
+    private final Map<String, SheetEntry> sheets = new LinkedHashMap<>();
+
+    /**
+     * Charge le manifeste d'un export précédent et le vérifie contre son classeur.
+     *
+     * @param manifestFile Fichier du manifeste.
+     * @param workbookFile Classeur de l'export précédent.
+     * @return Le manifeste, vide si le manifeste ou le classeur n'existent pas ou ne sont pas lisibles.
+     */
+    public static ExportManifest load(Path manifestFile, Path workbookFile) {
+        ExportManifest manifest = new ExportManifest();
+        if (!Files.isRegularFile(manifestFile) || !Files.isRegularFile(workbookFile)) {
+            return manifest;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile);
+             ZipFile workbook = new ZipFile(workbookFile.toFile())) {
+            properties.load(in);
+            if (!VERSION.equals(properties.getProperty("version"))) {
+                return manifest;
+            }
+
+            for (String key : properties.stringPropertyNames()) {
+                if (!key.endsWith(".part")) continue;
+
+                String sheet = key.substring(0, key.length() - ".part".length());
+                SheetEntry entry = new SheetEntry(
+                    properties.getProperty(key),
+                    properties.getProperty(sheet + ".digest", ""),
+                    Long.parseLong(properties.getProperty(sheet + ".crc", "-1")),
+                    Long.parseLong(properties.getProperty(sheet + ".size", "-1")));
+
+                ZipArchiveEntry zipEntry = workbook.getEntry(entry.getPart());
+                if (zipEntry != null && zipEntry.getCrc() == entry.getCrc()
+                    && zipEntry.getCompressedSize() == entry.getCompressedSize()) {
+                    manifest.sheets.put(sheet, entry);
+                } else {
+                    log.info("Sheet {} of {} changed since its export, it will be rewritten", sheet, workbookFile);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read previous export manifest {}, all sheets will be rewritten: {}",
+                manifestFile, e.getMessage());
+            manifest.sheets.clear();
+        }
+        return manifest;
+    }
+
+    /**
+     * Teste si une feuille de l'export précédent peut être reprise.
+     *
+     * @param sheet  Nom de la feuille.
+     * @param part   Nom de la partie de la feuille dans le nouveau classeur, par exemple {@code xl/worksheets/sheet1.xml}.
+     * @param digest Empreinte du contenu de la nouvelle feuille.
+     * @return {@code true} si la feuille précédente a la même partie et la même empreinte.
+     */
+    public boolean isReusable(String sheet, String part, String digest) {
+        SheetEntry entry = sheets.get(sheet);
+        return entry != null && entry.getPart().equals(part) && entry.getDigest().equals(digest);
+    }
+
+    /**
+     * @param sheet Nom de la feuille.
+     * @return La description de la feuille ou {@code null}.
+     */
+    @Nullable
+    public SheetEntry get(String sheet) {
+        return sheets.get(sheet);
+    }
+
+    /**
+     * @return Les feuilles, par nom, dans l'ordre d'ajout.
+     */
+    public Map<String, SheetEntry> getSheets() {
+        return Collections.unmodifiableMap(sheets);
+    }
+
+    /**
+     * Ajoute ou remplace une feuille.
+     *
+     * @param sheet Nom de la feuille.
+     * @param entry Description de la feuille.
+     */
+    public void put(String sheet, SheetEntry entry) {
+        sheets.put(sheet, entry);
+    }
+
+    /**
+     * Écrit le manifeste.
+     *
+     * @param manifestFile Fichier du manifeste, remplacé s'il existe.
+     * @throws UncheckedIOException En cas d'erreur d'écriture.
+     */
+    public void save(Path manifestFile) {
+        Properties properties = new Properties();
+        properties.setProperty("version", VERSION);
+        for (Map.Entry<String, SheetEntry> sheet : sheets.entrySet()) {
+            SheetEntry entry = sheet.getValue();
+            properties.setProperty(sheet.getKey() + ".part", entry.getPart());
+            properties.setProperty(sheet.getKey() + ".digest", entry.getDigest());
+            properties.setProperty(sheet.getKey() + ".crc", Long.toString(entry.getCrc()));
+            properties.setProperty(sheet.getKey() + ".size", Long.toString(entry.getCompressedSize()));
+        }
+        try (OutputStream out = Files.newOutputStream(manifestFile)) {
+            properties.store(out, "catalog-export manifest");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Description d'une feuille du classeur.
+     */
+    public static final class SheetEntry {
+        private final String part;
+        private final String digest;
+        private final long crc;
+        private final long compressedSize;
+
+        /**
+         * @param part           Nom de la partie de la feuille dans l'archive.
+         * @param digest         Empreinte du contenu de la feuille.
+         * @param crc            CRC de l'entrée ZIP.
+         * @param compressedSize Taille compressée de l'entrée ZIP.
+         */
+        public SheetEntry(String part, String digest, long crc, long compressedSize) {
+            this.part = part;
+            this.digest = digest;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+        }
+
+        public String getPart() {
+            return part;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+    }
+}
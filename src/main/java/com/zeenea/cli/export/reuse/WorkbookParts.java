@@ -0,0 +1,123 @@
+package com.zeenea.cli.export.reuse;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assemblage d'un classeur à partir des entrées ZIP d'un nouveau classeur et de celles d'un classeur précédent.
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les entrées sont recopiées sous leur forme compressée, avec leur CRC, sans être décompressées ni recompressées:
+ * le coût de l'assemblage est celui de la copie des octets.</p>
+ */
+public final class WorkbookParts {
+    private WorkbookParts() {
+    }
+
+    /**
+     * Assemble un classeur.
+     *
+     * <p>Les entrées du nouveau classeur sont recopiées dans leur ordre, sauf les parties reprises, qui sont
+     * recopiées du classeur précédent avec leurs relations (les liens hypertextes d'une feuille).</p>
+     *
+     * @param written     Nouveau classeur.
+     * @param previous    Classeur précédent.
+     * @param reusedParts Parties reprises du classeur précédent, par exemple {@code xl/worksheets/sheet1.xml}.
+     * @param target      Classeur assemblé.
+     * @return Les entrées du classeur assemblé, par nom.
+     * @throws UncheckedIOException En cas d'erreur de lecture ou d'écriture.
+     */
+    public static Map<String, ZipArchiveEntry> assemble(Path written, Path previous, Collection<String> reusedParts, Path target) {
+        Set<String> replaced = new HashSet<>();
+        for (String part : reusedParts) {
+            replaced.add(part);
+            replaced.add(relationshipsOf(part));
+        }
+
+        Map<String, ZipArchiveEntry> entries = new HashMap<>();
+        try (ZipFile source = new ZipFile(written.toFile());
+             ZipFile reused = new ZipFile(previous.toFile());
+             OutputStream out = Files.newOutputStream(target);
+             ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out)) {
+            Enumeration<ZipArchiveEntry> sourceEntries = source.getEntriesInPhysicalOrder();
+            while (sourceEntries.hasMoreElements()) {
+                ZipArchiveEntry entry = sourceEntries.nextElement();
+                if (!replaced.contains(entry.getName())) {
+                    copyRaw(source, entry, zip, entries);
+                } else if (reusedParts.contains(entry.getName())) {
+                    copyRaw(reused, requireEntry(reused, entry.getName(), previous), zip, entries);
+                    ZipArchiveEntry relationships = reused.getEntry(relationshipsOf(entry.getName()));
+                    if (relationships != null) {
+                        copyRaw(reused, relationships, zip, entries);
+                    }
+                }
+            }
+            zip.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    /**
+     * Lit les entrées d'un classeur.
+     *
+     * @param workbook Le classeur.
+     * @return Les entrées, par nom.
+     * @throws UncheckedIOException En cas d'erreur de lecture.
+     */
+    public static Map<String, ZipArchiveEntry> entries(Path workbook) {
+        Map<String, ZipArchiveEntry> entries = new HashMap<>();
+        try (ZipFile zip = new ZipFile(workbook.toFile())) {
+            Enumeration<ZipArchiveEntry> en = zip.getEntries();
+            while (en.hasMoreElements()) {
+                ZipArchiveEntry entry = en.nextElement();
+                entries.put(entry.getName(), entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    private static void copyRaw(ZipFile source, ZipArchiveEntry entry, ZipArchiveOutputStream zip,
+                                Map<String, ZipArchiveEntry> entries) throws IOException {
+        try (InputStream raw = source.getRawInputStream(entry)) {
+            zip.addRawArchiveEntry(entry, raw);
+        }
+        entries.put(entry.getName(), entry);
+    }
+
+    private static ZipArchiveEntry requireEntry(ZipFile zip, String name, Path file) throws IOException {
+        ZipArchiveEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new IOException("Entry " + name + " not found in " + file);
+        }
+        return entry;
+    }
+
+    /**
+     * Nom de la partie des relations d'une partie.
+     *
+     * @param part La partie, par exemple {@code xl/worksheets/sheet1.xml}.
+     * @return La partie de ses relations, par exemple {@code xl/worksheets/_rels/sheet1.xml.rels}.
+     */
+    static String relationshipsOf(String part) {
+        int slash = part.lastIndexOf('/');
+        return part.substring(0, slash + 1) + "_rels/" + part.substring(slash + 1) + ".rels";
+    }
+}
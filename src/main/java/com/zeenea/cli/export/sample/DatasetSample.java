@@ -0,0 +1,138 @@
+package com.zeenea.cli.export.sample;
+
+import com.zeenea.client.api.StreamResult;
+import com.zeenea.client.api.asset.RichCategory;
+import com.zeenea.client.api.asset.RichDataset;
+import com.zeenea.client.api.asset.RichField;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Échantillon des datasets d'un export d'aperçu, et restriction des autres feuilles à cet échantillon.
+ *
+ * <p>Les catégories sont restreintes à celles des datasets de l'échantillon: leur lecture s'arrête dès qu'elles ont
+ * toutes été rencontrées. Les champs sont restreints à ceux des datasets de l'échantillon.</p>
+ */
+public final class DatasetSample {
+    private final List<RichDataset> datasets;
+    private final long scannedCount;
+    private final int strataCount;
+    private final boolean truncated;
+    private final long seed;
+    private final Set<String> datasetNames = new HashSet<>();
+    private final Set<String> categoryNames = new HashSet<>();
+    private final Set<String> foundCategories = new HashSet<>();
+
+    /**
+     * @param datasets     Datasets de l'échantillon.
+     * @param scannedCount Nombre de datasets lus pour l'échantillonnage.
+     * @param strataCount  Nombre de strates rencontrées.
+     * @param truncated    {@code true} si la lecture des datasets a été arrêtée avant la fin de la liste.
+     * @param seed         Graine du tirage.
+     */
+    public DatasetSample(List<RichDataset> datasets, long scannedCount, int strataCount, boolean truncated, long seed) {
+        this.datasets = datasets;
+        this.scannedCount = scannedCount;
+        this.strataCount = strataCount;
+        this.truncated = truncated;
+        this.seed = seed;
+        for (RichDataset dataset : datasets) {
+            if (dataset.getName() != null) {
+                datasetNames.add(dataset.getName());
+            }
+            if (dataset.getCategoryName() != null) {
+                categoryNames.add(dataset.getCategoryName());
+            }
+        }
+    }
+
+    /**
+     * Filtre d'une catégorie.
+     *
+     * @param category La catégorie.
+     * @return {@code true} si la catégorie est celle d'un dataset de l'échantillon.
+     */
+    public boolean acceptCategory(RichCategory category) {
+        if (category.getName() == null || !categoryNames.contains(category.getName())) return false;
+        foundCategories.add(category.getName());
+        return true;
+    }
+
+    /**
+     * @return {@code true} si toutes les catégories des datasets de l'échantillon ont été rencontrées.
+     */
+    public boolean isCategoryComplete() {
+        return foundCategories.size() >= categoryNames.size();
+    }
+
+    /**
+     * Filtre d'un champ.
+     *
+     * @param field Le champ.
+     * @return {@code true} si le champ appartient à un dataset de l'échantillon.
+     */
+    public boolean acceptField(RichField field) {
+        return field.getDatasetName() != null && datasetNames.contains(field.getDatasetName());
+    }
+
+    /**
+     * @return Les datasets de l'échantillon, comme un résultat de l'API.
+     */
+    public StreamResult<RichDataset> listDatasets() {
+        return new StreamResult<RichDataset>() {
+            @Override
+            public Long getEstimatedSize() {
+                return (long) datasets.size();
+            }
+
+            @Override
+            public Stream<RichDataset> getStream() {
+                return datasets.stream();
+            }
+
+            @Override
+            public void close() {
+                // Rien à libérer.
+            }
+        };
+    }
+
+    /**
+     * @return Les datasets de l'échantillon.
+     */
+    public List<RichDataset> getDatasets() {
+        return Collections.unmodifiableList(datasets);
+    }
+
+    /**
+     * @return Le nombre de datasets lus pour l'échantillonnage.
+     */
+    public long getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * @return Le nombre de strates rencontrées.
+     */
+    public int getStrataCount() {
+        return strataCount;
+    }
+
+    /**
+     * @return {@code true} si la lecture des datasets a été arrêtée avant la fin de la liste.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return La graine du tirage, qui permet de le reproduire avec {@code --sample-seed}.
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
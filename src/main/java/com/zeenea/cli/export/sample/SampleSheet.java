@@ -0,0 +1,60 @@
+package com.zeenea.cli.export.sample;
+
+import com.zeenea.cli.export.xlsx.DataStyle;
+import com.zeenea.cli.export.xlsx.ExportStyles;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.Map;
+
+/**
+ * Feuille d'entête d'un export d'aperçu, qui décrit l'échantillon: paramètres du tirage et nombres de datasets lus
+ * et retenus.
+ */
+public final class SampleSheet {
+    private SampleSheet() {
+    }
+
+    /**
+     * Écrit la feuille et la place en tête du classeur.
+     *
+     * @param workbook   Le classeur.
+     * @param styles     Styles du classeur.
+     * @param name       Nom de la feuille.
+     * @param parameters Paramètres de l'échantillon, par libellé, dans leur ordre d'affichage. Les nombres sont
+     *                   écrits comme des entiers.
+     */
+    public static void write(Workbook workbook, ExportStyles styles, String name, Map<String, Object> parameters) {
+        Sheet sheet = workbook.createSheet(name);
+        sheet.setColumnWidth(0, 30 * 256);
+        sheet.setColumnWidth(1, 24 * 256);
+
+        int rowNum = 0;
+        Row headerRow = sheet.createRow(rowNum++);
+        header(headerRow, 0, "Sample", styles);
+        header(headerRow, 1, "Value", styles);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(parameter.getKey());
+            Cell cell = row.createCell(1);
+            Object value = parameter.getValue();
+            if (value instanceof Number) {
+                cell.setCellValue(((Number) value).doubleValue());
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+            } else {
+                cell.setCellValue(String.valueOf(value));
+            }
+        }
+
+        workbook.setSheetOrder(name, 0);
+        workbook.setActiveSheet(0);
+    }
+
+    private static void header(Row row, int col, String label, ExportStyles styles) {
+        Cell cell = row.createCell(col);
+        cell.setCellValue(label);
+        cell.setCellStyle(styles.getMainHeaderStyle());
+    }
+}
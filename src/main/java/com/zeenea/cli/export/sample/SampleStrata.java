@@ -0,0 +1,48 @@
+package com.zeenea.cli.export.sample;
+
+import com.zeenea.client.api.asset.RichDataset;
+
+import java.util.function.Function;
+
+/**
+ * Strates de l'échantillonnage des datasets: chaque strate est représentée dans l'échantillon en proportion de
+ * sa taille.
+ */
+public enum SampleStrata {
+    /**
+     * Une strate par catégorie.
+     */
+    CATEGORY("category", RichDataset::getCategoryName),
+
+    /**
+     * Une strate par type de data storage.
+     */
+    STORAGE_TYPE("storageType", dataset -> dataset.getDataStorageType() != null
+        ? dataset.getDataStorageType().toString() : null);
+
+    private final String option;
+    private final Function<RichDataset, String> key;
+
+    SampleStrata(String option, Function<RichDataset, String> key) {
+        this.option = option;
+        this.key = key;
+    }
+
+    /**
+     * @return La valeur de l'option {@code --sample-by}.
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * Strate d'un dataset.
+     *
+     * @param dataset Le dataset.
+     * @return La strate, une chaîne vide pour un dataset sans catégorie ou sans type de data storage.
+     */
+    public String stratumOf(RichDataset dataset) {
+        String value = key.apply(dataset);
+        return value != null ? value : "";
+    }
+}
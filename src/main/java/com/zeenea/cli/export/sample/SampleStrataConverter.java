@@ -0,0 +1,19 @@
+package com.zeenea.cli.export.sample;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Convertisseur JCommander des {@link SampleStrata strates d'échantillonnage}, sans tenir compte de la casse.
+ */
+public class SampleStrataConverter implements IStringConverter<SampleStrata> {
+    @Override
+    public SampleStrata convert(String value) {
+        for (SampleStrata strata : SampleStrata.values()) {
+            if (strata.getOption().equalsIgnoreCase(value.trim())) {
+                return strata;
+            }
+        }
+        throw new ParameterException("Unknown sample strata \"" + value + "\", expected category or storageType");
+    }
+}
@@ -0,0 +1,223 @@
+package com.zeenea.cli.export.sample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Échantillon aléatoire stratifié d'un flux d'éléments, en un seul passage et sans connaître la taille du flux.
+ *
+ * <p>L'échantillon est défini par sa taille ou par son taux:</p>
+ * <ul>
+ *     <li>avec une taille {@code n}, chaque strate garde un réservoir uniforme d'au plus {@code n} éléments. À la
+ *     fin du flux, les {@code n} places sont réparties entre les strates en proportion de leur taille (méthode du
+ *     plus fort reste, au moins une place par strate tant qu'il en reste), puis tirées dans chaque réservoir;</li>
+ *     <li>avec un taux {@code p}, chaque élément est retenu avec la probabilité {@code p}. Une strate dont aucun
+ *     élément n'est retenu est représentée par un élément tiré uniformément.</li>
+ * </ul>
+ *
+ * <p>Les éléments de l'échantillon sont rendus dans leur ordre d'arrivée. Pour une même graine et un même flux,
+ * l'échantillon est le même.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les réservoirs suivent l'algorithme R de Vitter: le {@code k}-ième élément d'une strate remplace un élément
+ * tiré au hasard avec la probabilité {@code n/k}. La mémoire utilisée est d'au plus {@code n} éléments par strate
+ * avec une taille, de l'ordre de {@code p} fois le nombre d'éléments avec un taux.</p>
+ *
+ * @param <T> Type des éléments.
+ */
+public final class StratifiedSampler<T> {
+    private final Function<? super T, String> stratumOf;
+    private final int size;
+    private final double rate;
+    private final Random random;
+    private final Map<String, Stratum<T>> strata = new LinkedHashMap<>();
+    private long seen;
+
+    private StratifiedSampler(Function<? super T, String> stratumOf, int size, double rate, long seed) {
+        this.stratumOf = requireNonNull(stratumOf);
+        this.size = size;
+        this.rate = rate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Échantillon d'une taille donnée.
+     *
+     * @param stratumOf Strate d'un élément.
+     * @param size      Nombre d'éléments de l'échantillon.
+     * @param seed      Graine du tirage.
+     * @param <T>       Type des éléments.
+     * @return L'échantillon, vide.
+     */
+    public static <T> StratifiedSampler<T> ofSize(Function<? super T, String> stratumOf, int size, long seed) {
+        if (size <= 0) throw new IllegalArgumentException("The sample size must be positive: " + size);
+        return new StratifiedSampler<>(stratumOf, size, 0, seed);
+    }
+
+    /**
+     * Échantillon d'un taux donné.
+     *
+     * @param stratumOf Strate d'un élément.
+     * @param rate      Part des éléments retenus, dans {@code ]0, 1]}.
+     * @param seed      Graine du tirage.
+     * @param <T>       Type des éléments.
+     * @return L'échantillon, vide.
+     */
+    public static <T> StratifiedSampler<T> ofRate(Function<? super T, String> stratumOf, double rate, long seed) {
+        if (!(rate > 0 && rate <= 1)) throw new IllegalArgumentException("The sample rate must be in ]0, 1]: " + rate);
+        return new StratifiedSampler<>(stratumOf, 0, rate, seed);
+    }
+
+    /**
+     * Présente un élément à l'échantillon.
+     *
+     * @param item L'élément.
+     */
+    public void offer(T item) {
+        Stratum<T> stratum = strata.computeIfAbsent(stratumOf.apply(item), key -> new Stratum<>());
+        Entry<T> entry = new Entry<>(seen++, item);
+        ++stratum.count;
+        if (size > 0) {
+            reservoir(stratum.reservoir, size, stratum.count, entry);
+        } else if (random.nextDouble() < rate) {
+            stratum.accepted.add(entry);
+        } else if (stratum.accepted.isEmpty()) {
+            reservoir(stratum.reservoir, 1, stratum.count, entry);
+        }
+    }
+
+    private void reservoir(List<Entry<T>> reservoir, int capacity, long count, Entry<T> entry) {
+        if (reservoir.size() < capacity) {
+            reservoir.add(entry);
+        } else {
+            long slot = (long) (random.nextDouble() * count);
+            if (slot < capacity) {
+                reservoir.set((int) slot, entry);
+            }
+        }
+    }
+
+    /**
+     * Tire l'échantillon parmi les éléments présentés.
+     *
+     * @return Les éléments de l'échantillon, dans leur ordre d'arrivée.
+     */
+    public List<T> sample() {
+        List<Entry<T>> selected = new ArrayList<>();
+        if (size > 0) {
+            Map<Stratum<T>, Integer> allocation = allocate();
+            for (Map.Entry<Stratum<T>, Integer> share : allocation.entrySet()) {
+                List<Entry<T>> reservoir = new ArrayList<>(share.getKey().reservoir);
+                Collections.shuffle(reservoir, random);
+                selected.addAll(reservoir.subList(0, Math.min(share.getValue(), reservoir.size())));
+            }
+        } else {
+            for (Stratum<T> stratum : strata.values()) {
+                selected.addAll(stratum.accepted.isEmpty() ? stratum.reservoir : stratum.accepted);
+            }
+        }
+        selected.sort(Comparator.comparingLong(entry -> entry.seq));
+
+        List<T> items = new ArrayList<>(selected.size());
+        for (Entry<T> entry : selected) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * Répartit les places de l'échantillon entre les strates, en proportion de leur taille.
+     */
+    private Map<Stratum<T>, Integer> allocate() {
+        Map<Stratum<T>, Integer> allocation = new LinkedHashMap<>();
+        if (seen <= size) {
+            for (Stratum<T> stratum : strata.values()) {
+                allocation.put(stratum, (int) stratum.count);
+            }
+            return allocation;
+        }
+
+        List<Stratum<T>> ordered = new ArrayList<>(strata.values());
+        int remaining = size;
+        // Une place par strate, les plus grandes d'abord, tant qu'il en reste.
+        ordered.sort(Comparator.comparingLong((Stratum<T> stratum) -> stratum.count).reversed());
+        for (Stratum<T> stratum : ordered) {
+            allocation.put(stratum, remaining > 0 ? 1 : 0);
+            if (remaining > 0) --remaining;
+        }
+        if (remaining == 0) return allocation;
+
+        // Les places restantes en proportion de la taille des strates au-delà de leur première place.
+        long total = 0;
+        for (Stratum<T> stratum : ordered) {
+            total += stratum.count - 1;
+        }
+        int distributed = 0;
+        double[] remainders = new double[ordered.size()];
+        for (int i = 0; i < ordered.size(); ++i) {
+            Stratum<T> stratum = ordered.get(i);
+            double quota = total == 0 ? 0 : (double) remaining * (stratum.count - 1) / total;
+            int whole = (int) Math.min(Math.floor(quota), stratum.count - 1);
+            allocation.merge(stratum, whole, Integer::sum);
+            remainders[i] = quota - whole;
+            distributed += whole;
+        }
+        List<Integer> byRemainder = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); ++i) {
+            byRemainder.add(i);
+        }
+        byRemainder.sort((a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int i = 0; i < byRemainder.size() && distributed < remaining; ++i) {
+            Stratum<T> stratum = ordered.get(byRemainder.get(i));
+            if (allocation.get(stratum) < stratum.count) {
+                allocation.merge(stratum, 1, Integer::sum);
+                ++distributed;
+            }
+        }
+        return allocation;
+    }
+
+    /**
+     * @return Le nombre d'éléments présentés.
+     */
+    public long getSeenCount() {
+        return seen;
+    }
+
+    /**
+     * @return Le nombre de strates rencontrées.
+     */
+    public int getStrataCount() {
+        return strata.size();
+    }
+
+    /**
+     * Strate de l'échantillon.
+     */
+    private static final class Stratum<T> {
+        private final List<Entry<T>> reservoir = new ArrayList<>();
+        private final List<Entry<T>> accepted = new ArrayList<>();
+        private long count;
+    }
+
+    /**
+     * Élément présenté, avec son rang d'arrivée.
+     */
+    private static final class Entry<T> {
+        private final long seq;
+        private final T item;
+
+        Entry(long seq, T item) {
+            this.seq = seq;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.zeenea.cli.export.server;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import com.zeenea.cli.export.ExportCatalog;
+import com.zeenea.cli.export.ExportParams;
+import com.zeenea.client.api.ZeeneaClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * File des exports du serveur: un nombre borné d'exports s'exécutent en même temps, avec le même client Zeenea
+ * authentifié, et un nombre borné d'exports attendent leur tour.
+ *
+ * <p>Les options d'un export sont celles de la ligne de commande, sans les options de connexion, qui sont celles
+ * du serveur. Les options des requêtes HTTP sont restreintes au préalable par {@link ExportServer}.</p>
+ */
+public final class ExportJobs implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExportJobs.class);
+    private static final Set<String> SERVER_OPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "--url", "-u", "--user", "-p", "--password", "--help")));
+
+    private final ZeeneaClient client;
+    private final List<String> connectionArguments;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong jobCount = new AtomicLong();
+
+    /**
+     * @param params Configuration du serveur.
+     * @param client Client Zeenea partagé par les exports.
+     */
+    public ExportJobs(ServeParams params, ZeeneaClient client) {
+        this.client = client;
+        this.connectionArguments = Arrays.asList(
+            "--url", params.getUri().toString(),
+            "--user", params.getUser(),
+            "--password", params.getPassword());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            params.getMaxJobs(), params.getMaxJobs(), 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, params.getQueueSize())),
+            runnable -> {
+                Thread thread = new Thread(runnable, "catalog-export-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Analyse les options d'un export.
+     *
+     * @param arguments Options de l'export, sans les options de connexion.
+     * @return La configuration de l'export.
+     * @throws ParameterException Si les options sont invalides ou contiennent des options de connexion.
+     */
+    public ExportParams parse(List<String> arguments) {
+        for (String argument : arguments) {
+            if (SERVER_OPTIONS.contains(argument)) {
+                throw new ParameterException("Option " + argument + " is set by the server");
+            }
+        }
+        List<String> all = new ArrayList<>(connectionArguments);
+        all.addAll(arguments);
+
+        ExportParams params = new ExportParams();
+        JCommander jCommander = JCommander.newBuilder()
+            .addObject(params)
+            .build();
+        // Une valeur @<fichier> serait remplacée par le contenu d'un fichier du serveur.
+        jCommander.setExpandAtSign(false);
+        jCommander.parse(all.toArray(new String[0]));
+        return params;
+    }
+
+    /**
+     * Ajoute un export à la file.
+     *
+     * @param name   Description de l'export, pour les traces.
+     * @param params Configuration de l'export.
+     * @param job    Exécution de l'export.
+     * @return L'export en cours ou en attente.
+     * @throws RejectedExecutionException Si la file est pleine.
+     */
+    public Future<?> submit(String name, ExportParams params, Consumer<ExportCatalog> job) {
+        long id = jobCount.incrementAndGet();
+        return executor.submit(() -> {
+            long start = System.nanoTime();
+            log.info("Job #{} {} started", id, name);
+            try {
+                job.accept(new ExportCatalog(params, client));
+                log.info("Job #{} {} done in {} ms", id, name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                log.error("Job #{} {} failed", id, name, e);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * @return Le nombre d'exports en cours.
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return Le nombre d'exports en attente.
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Refuse les nouveaux exports et attend la fin des exports en cours et en attente.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+                log.warn("Exports still running at shutdown: {}", executor.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.zeenea.cli.export.server;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import com.google.common.collect.ImmutableSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zeenea.cli.export.ExportFormat;
+import com.zeenea.cli.export.ExportParams;
+import com.zeenea.client.api.ZeeneaClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serveur d'export: un processus de longue durée qui garde une JVM chaude et un client Zeenea authentifié, et
+ * exécute des exports à la demande ou périodiquement.
+ *
+ * <p>Le serveur répond sur {@code /export}: les paramètres de la requête sont les options de l'export, sans leurs
+ * deux tirets, et le résultat est écrit directement dans la réponse. Par exemple
+ * {@code GET /export?format=ndjson&tag=PII&tag=GDPR&updated-since=7d} exécute l'export
+ * {@code --format ndjson --tag PII --tag GDPR --updated-since 7d}. Le format doit tenir dans un seul flux:
+ * {@code xlsx}, {@code xlsb} ou {@code ndjson}.</p>
+ *
+ * <p>Le serveur n'authentifie pas ses clients: une requête ne peut choisir que le format, les filtres et la
+ * projection des colonnes. Les autres options, en particulier celles qui désignent un fichier ou un dossier du
+ * serveur, sont refusées avec le statut 400. Les exports périodiques, configurés au lancement du serveur, acceptent
+ * toutes les options.</p>
+ *
+ * <p>{@code /status} donne le nombre d'exports en cours et en attente.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le serveur HTTP est celui du JDK ({@code com.sun.net.httpserver}). Les requêtes sont reçues par un pool de
+ * threads sans limite, mais les exports s'exécutent dans la file bornée de {@link ExportJobs}: une requête qui ne
+ * trouve pas de place dans la file est refusée immédiatement avec le statut 503. La réponse n'est engagée qu'à
+ * l'écriture de son premier octet: un export qui échoue avant reçoit le statut 500, l'erreur n'étant détaillée que
+ * dans les traces du serveur, un export qui échoue après voit sa connexion interrompue.</p>
+ */
+public final class ExportServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExportServer.class);
+    private static final Set<String> REQUEST_OPTIONS = ImmutableSet.of(
+        "format",
+        "category", "storage", "tag", "updated-since", "updated-before", "min-completion", "max-completion",
+        "columns", "properties");
+
+    private final ServeParams params;
+    private final ExportJobs jobs;
+    private final List<ScheduledExport> schedules = new ArrayList<>();
+    @Nullable
+    private HttpServer httpServer;
+    @Nullable
+    private ExecutorService requestExecutor;
+    @Nullable
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Construit le serveur et vérifie les exports périodiques.
+     *
+     * @param params Configuration du serveur.
+     * @param client Client Zeenea partagé par les exports.
+     * @throws ParameterException Si un export périodique est invalide.
+     */
+    public ExportServer(ServeParams params, ZeeneaClient client) {
+        this.params = params;
+        this.jobs = new ExportJobs(params, client);
+        for (String spec : params.getSchedules()) {
+            ScheduledExport schedule = ScheduledExport.parse(spec);
+            jobs.parse(schedule.getArguments());
+            schedules.add(schedule);
+        }
+    }
+
+    /**
+     * Point d'entrée de la commande {@code catalog-export serve}.
+     *
+     * <p>Le serveur s'arrête avec la JVM, par exemple sur un signal {@code SIGTERM}, après la fin des exports en
+     * cours.</p>
+     *
+     * @param args Arguments de la ligne de commande, après {@code serve}.
+     * @throws IOException Si le serveur HTTP ne peut être démarré.
+     */
+    public static void main(String[] args) throws IOException {
+        ServeParams serveParams = new ServeParams();
+        JCommander jCommander = JCommander.newBuilder()
+            .programName("catalog-export serve")
+            .addObject(serveParams)
+            .build();
+        jCommander.parse(args);
+        if (serveParams.isHelp()) {
+            jCommander.usage();
+            System.exit(0);
+        }
+
+        ZeeneaClient client = ZeeneaClient.connect(serveParams.toZeeneaConfig());
+        ExportServer server = new ExportServer(serveParams, client);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            client.close();
+        }, "catalog-export-shutdown"));
+        server.start();
+    }
+
+    /**
+     * Démarre le serveur HTTP et les exports périodiques.
+     *
+     * @throws IOException Si le serveur HTTP ne peut être démarré.
+     */
+    public void start() throws IOException {
+        if (params.getPort() > 0) {
+            requestExecutor = Executors.newCachedThreadPool();
+            httpServer = HttpServer.create(new InetSocketAddress(params.getBind(), params.getPort()), 0);
+            httpServer.createContext("/export", this::handleExport);
+            httpServer.createContext("/status", this::handleStatus);
+            httpServer.setExecutor(requestExecutor);
+            httpServer.start();
+            log.info("Export server listening on http://{}:{}/export", params.getBind(), params.getPort());
+        }
+
+        if (!schedules.isEmpty()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor();
+            for (ScheduledExport schedule : schedules) {
+                long period = schedule.getPeriod().toMillis();
+                scheduler.scheduleAtFixedRate(() -> runScheduled(schedule), period, period, TimeUnit.MILLISECONDS);
+                log.info("Export scheduled every {}: {}", schedule.getPeriod(), schedule.getArguments());
+            }
+        }
+    }
+
+    private void runScheduled(ScheduledExport schedule) {
+        try {
+            ExportParams exportParams = jobs.parse(schedule.getArguments());
+            jobs.submit("scheduled " + schedule.getArguments(), exportParams, catalog -> catalog.exportCatalog());
+        } catch (RejectedExecutionException e) {
+            log.warn("Export queue full, scheduled export skipped: {}", schedule.getSpec());
+        } catch (RuntimeException e) {
+            // Une exception arrêterait les exécutions suivantes de l'export périodique.
+            log.error("Unable to start scheduled export {}", schedule.getSpec(), e);
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"POST".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            ExportParams exportParams;
+            try {
+                exportParams = jobs.parse(queryArguments(exchange.getRequestURI().getRawQuery()));
+            } catch (ParameterException e) {
+                sendText(exchange, 400, e.getMessage());
+                return;
+            }
+            List<ExportFormat> formats = exportParams.getFormats();
+            if (formats.size() != 1 || !formats.get(0).isStreamable()) {
+                sendText(exchange, 400, "A single xlsx, xlsb or ndjson format is expected");
+                return;
+            }
+            if (exportParams.getSplitBy() != null) {
+                sendText(exchange, 400, "Option split-by cannot be used in a streamed export");
+                return;
+            }
+
+            ResponseStream response = new ResponseStream(exchange, formats.get(0));
+            Future<?> job;
+            try {
+                job = jobs.submit(exchange.getRequestURI().toString(), exportParams,
+                    catalog -> catalog.exportCatalog(response));
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "60");
+                sendText(exchange, 503, "Export queue full, " + jobs.getActiveCount() + " exports running");
+                return;
+            }
+
+            try {
+                job.get();
+                response.commit();
+                response.flush();
+            } catch (ExecutionException e) {
+                if (!response.isCommitted()) {
+                    sendText(exchange, 500, "Export failed, see the server log");
+                }
+            } catch (InterruptedException e) {
+                job.cancel(true);
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        try {
+            sendText(exchange, 200, "running=" + jobs.getActiveCount() + "\nqueued=" + jobs.getQueuedCount());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Convertit les paramètres d'une requête en options de la ligne de commande.
+     *
+     * @param rawQuery La requête encodée, ou {@code null}.
+     * @return Les options.
+     * @throws ParameterException Si un paramètre n'est pas une option acceptée dans une requête.
+     */
+    static List<String> queryArguments(@Nullable String rawQuery) {
+        List<String> arguments = new ArrayList<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return arguments;
+
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int separator = pair.indexOf('=');
+            String name = decode(separator < 0 ? pair : pair.substring(0, separator));
+            String value = separator < 0 ? "" : decode(pair.substring(separator + 1));
+            if (!REQUEST_OPTIONS.contains(name)) {
+                throw new ParameterException("Option " + name + " is not allowed in a request");
+            }
+            if (value.isEmpty()) {
+                throw new ParameterException("Option " + name + " expects a value");
+            }
+
+            arguments.add("--" + name);
+            arguments.add(value);
+        }
+        return arguments;
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Arrête le serveur HTTP et les exports périodiques, puis attend la fin des exports en cours.
+     */
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        jobs.close();
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+            requestExecutor = null;
+        }
+    }
+
+    /**
+     * Corps de la réponse d'un export, dont les entêtes sont envoyés à l'écriture du premier octet.
+     */
+    private static final class ResponseStream extends OutputStream {
+        private final HttpExchange exchange;
+        private final ExportFormat format;
+        @Nullable
+        private OutputStream body;
+
+        ResponseStream(HttpExchange exchange, ExportFormat format) {
+            this.exchange = exchange;
+            this.format = format;
+        }
+
+        /**
+         * Envoie les entêtes de la réponse, en transfert par morceaux, s'ils ne l'ont pas été.
+         *
+         * @throws IOException En cas d'erreur d'écriture.
+         */
+        void commit() throws IOException {
+            if (body != null) return;
+            exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+            exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"catalog" + format.getExtension() + "\"");
+            exchange.sendResponseHeaders(200, 0);
+            body = exchange.getResponseBody();
+        }
+
+        boolean isCommitted() {
+            return body != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            commit();
+            body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            commit();
+            body.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                body.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.zeenea.cli.export.server;
+
+import com.beust.jcommander.ParameterException;
+import com.zeenea.cli.util.Arguments;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Export périodique du serveur, décrit par {@code <période>=<options de l'export>}.
+ *
+ * <p>La période s'écrit comme les durées relatives des dates de filtre: {@code 1d}, {@code 6h}, {@code 30m} ou une
+ * durée ISO-8601 comme {@code PT6H}. Les options sont séparées par des espaces; une option qui contient des espaces
+ * est écrite entre guillemets, par exemple {@code 1d=--category "Data Lake" -o /data/lake.xlsx --force}.</p>
+ */
+public final class ScheduledExport {
+    private static final Pattern RELATIVE = Pattern.compile("(\\d+)\\s*([dhm])");
+
+    private final String spec;
+    private final Duration period;
+    private final List<String> arguments;
+
+    private ScheduledExport(String spec, Duration period, List<String> arguments) {
+        this.spec = spec;
+        this.period = period;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Analyse la description d'un export périodique.
+     *
+     * @param spec La description.
+     * @return L'export périodique.
+     * @throws ParameterException Si la description est invalide.
+     */
+    public static ScheduledExport parse(String spec) {
+        int separator = spec.indexOf('=');
+        if (separator < 0) {
+            throw new ParameterException("Invalid schedule \"" + spec + "\": expected <period>=<export options>");
+        }
+        Duration period = parsePeriod(spec.substring(0, separator).trim());
+        if (period.isZero() || period.isNegative()) {
+            throw new ParameterException("Invalid schedule \"" + spec + "\": the period must be positive");
+        }
+        return new ScheduledExport(spec, period, tokenize(spec.substring(separator + 1)));
+    }
+
+    private static Duration parsePeriod(String text) {
+        Matcher matcher = RELATIVE.matcher(text);
+        if (matcher.matches()) {
+            long amount = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "d":
+                    return Duration.ofDays(amount);
+                case "h":
+                    return Duration.ofHours(amount);
+                default:
+                    return Duration.ofMinutes(amount);
+            }
+        }
+        try {
+            return Duration.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ParameterException("Invalid schedule period \"" + text + "\": expected 1d, 6h, 30m or PT6H");
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        try {
+            return Arguments.split(text);
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException("Invalid schedule options: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return La description de l'export périodique.
+     */
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return La période entre deux exports.
+     */
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * @return Les options de l'export.
+     */
+    public List<String> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+}
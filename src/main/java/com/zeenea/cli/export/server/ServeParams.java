@@ -0,0 +1,164 @@
+package com.zeenea.cli.export.server;
+
+import com.beust.jcommander.Parameter;
+import com.zeenea.client.api.ZeeneaConfig;
+import com.zeenea.client.api.ZeeneaConfigBuilder;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration du serveur d'export, commande {@code catalog-export serve}.
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>JCommander est utilisé pour analyser les arguments fournis en ligne de commande et injecter leurs valeurs
+ * dans cet objet.</p>
+ *
+ * @see <a href="http://jcommander.org/">La documentation de JCommander</a> (en).
+ */
+public class ServeParams {
+    @Parameter(names = {"--url"}, description = "URL de connexion à Zeenea", required = true)
+    private URI uri;
+
+    @Parameter(names = {"-u", "--user"}, description = "Utilisateur Zeenea", required = true)
+    private String user;
+
+    @Parameter(names = {"-p", "--password"}, description = "Mot de passe de l'utilisateur Zeenea", required = true, password = true)
+    private String password;
+
+    @Parameter(names = {"--bind"}, description = "Adresse d'écoute du serveur HTTP")
+    private String bind = "127.0.0.1";
+
+    @Parameter(names = {"--port"}, description = "Port d'écoute du serveur HTTP, 0 pour ne pas l'ouvrir")
+    private int port = 8080;
+
+    @Parameter(names = {"--max-jobs"}, description = "Nombre maximal d'exports exécutés en même temps")
+    private int maxJobs = 2;
+
+    @Parameter(names = {"--queue"}, description = "Nombre maximal d'exports en attente")
+    private int queueSize = 8;
+
+    @Parameter(names = {"--schedule"}, description = "Export périodique: <période>=<options de l'export>, par exemple 1d=\"--format ndjson -o /data/catalog.ndjson --force\"")
+    private List<String> schedules = new ArrayList<>();
+
+    @Parameter(names = "--help", description = "Affiche le message d'aide", help = true)
+    private boolean help;
+
+    /**
+     * Convert this {@code ServeParams} to a {@code ZeeneaConfig}.
+     *
+     * @return a ZeeneaConfig.
+     * @see ZeeneaConfig
+     */
+    public ZeeneaConfig toZeeneaConfig() {
+        return new ZeeneaConfigBuilder()
+            .uri(getUri())
+            .username(getUser())
+            .password(getPassword())
+            .build();
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public void setUri(URI uri) {
+        this.uri = uri;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Adresse d'écoute du serveur HTTP, l'interface locale par défaut.
+     * <p>Option: {@code --bind}.</p>
+     *
+     * @return L'adresse ou le nom d'hôte.
+     */
+    public String getBind() {
+        return bind;
+    }
+
+    public void setBind(String bind) {
+        this.bind = bind;
+    }
+
+    /**
+     * Port d'écoute du serveur HTTP.
+     * <p>Option: {@code --port}.</p>
+     *
+     * @return Le port, {@code 0} pour n'exécuter que les exports périodiques.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Nombre maximal d'exports exécutés en même temps, toutes origines confondues.
+     * <p>Option: {@code --max-jobs}.</p>
+     *
+     * @return Le nombre d'exports.
+     */
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    public void setMaxJobs(int maxJobs) {
+        this.maxJobs = maxJobs;
+    }
+
+    /**
+     * Nombre maximal d'exports en attente d'exécution. Au-delà, une requête est refusée avec le statut 503.
+     * <p>Option: {@code --queue}.</p>
+     *
+     * @return Le nombre d'exports.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Exports périodiques.
+     * <p>Option: {@code --schedule}.</p>
+     *
+     * @return La liste des exports périodiques, sous la forme {@code <période>=<options de l'export>}.
+     * @see ScheduledExport
+     */
+    public List<String> getSchedules() {
+        return schedules;
+    }
+
+    public void setSchedules(List<String> schedules) {
+        this.schedules = schedules;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public void setHelp(boolean help) {
+        this.help = help;
+    }
+}
@@ -0,0 +1,189 @@
+package com.zeenea.cli.export.sink;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.RowRecord;
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Destination qui transmet les appels à une autre destination dans un thread dédié.
+ *
+ * <p>Plusieurs destinations asynchrones alimentées par le même export écrivent en parallèle: l'export n'attend
+ * que lorsque la file d'une destination est pleine. La mémoire est bornée par la capacité des files.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Chaque appel est placé dans une file bornée sous forme d'une action sur la destination cible; les lignes
+ * complètes sont copiées. Une erreur de la destination cible est levée par l'appel suivant, ou au plus tard par
+ * {@link #close()}; les actions suivantes l'erreur sont ignorées.</p>
+ */
+public final class AsyncSink implements ExportSink {
+    private static final Consumer<ExportSink> STOP = sink -> {
+    };
+
+    private final String name;
+    private final ExportSink delegate;
+    private final BlockingQueue<Consumer<ExportSink>> queue;
+    private final Thread worker;
+    @Nullable
+    private volatile RuntimeException failure;
+    private boolean closed;
+
+    /**
+     * Crée la destination et démarre son thread.
+     *
+     * @param name     Nom de la destination, pour le nom du thread et les erreurs.
+     * @param delegate Destination cible, utilisée uniquement par le thread dédié jusqu'à la fermeture.
+     * @param capacity Nombre maximal d'appels en attente.
+     */
+    public AsyncSink(String name, ExportSink delegate, int capacity) {
+        this.name = name;
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, "export-sink-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Consumer<ExportSink> action = queue.take();
+                if (action == STOP) break;
+                if (failure != null) continue;
+
+                try {
+                    action.accept(delegate);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Consumer<ExportSink> action) {
+        checkFailure();
+        if (closed) throw new IllegalStateException("Sink " + name + " is closed");
+        try {
+            queue.put(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing to sink " + name, e);
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException e = failure;
+        if (e != null) {
+            throw new IllegalStateException("Sink " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void beginSheet(String sheetName, List<String> labels, List<ValueType> types) {
+        submit(sink -> sink.beginSheet(sheetName, labels, types));
+    }
+
+    @Override
+    public void beginSheet(String sheetName, List<String> groupLabels, List<String> labels, List<ValueType> types) {
+        submit(sink -> sink.beginSheet(sheetName, groupLabels, labels, types));
+    }
+
+    @Override
+    public void beginRow() {
+        submit(ExportSink::beginRow);
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        submit(sink -> sink.writeText(col, kind, text));
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        submit(sink -> sink.writeLink(col, kind, label, address));
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        submit(sink -> sink.writeNumber(col, kind, value));
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        submit(sink -> sink.writeDate(col, epochMillis));
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        submit(sink -> sink.writeBoolean(col, value));
+    }
+
+    @Override
+    public void endRow() {
+        submit(ExportSink::endRow);
+    }
+
+    @Override
+    public void endSheet() {
+        submit(ExportSink::endSheet);
+    }
+
+    /**
+     * Transmet une copie de la ligne en un seul appel.
+     *
+     * @param row La ligne.
+     */
+    @Override
+    public void writeRow(RowRecord row) {
+        RowRecord copy = row.copy();
+        submit(sink -> sink.writeRow(copy));
+    }
+
+    /**
+     * Attend le traitement des appels en attente, puis ferme la destination cible.
+     *
+     * <p>Si le thread appelant est interrompu, les appels en attente sont abandonnés: le thread dédié est
+     * interrompu, et la destination cible n'est fermée qu'une fois l'action en cours terminée.</p>
+     *
+     * @throws IllegalStateException Si la destination cible a échoué.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        boolean interrupted = false;
+        try {
+            queue.put(STOP);
+            worker.join();
+        } catch (InterruptedException e) {
+            interrupted = true;
+            worker.interrupt();
+            // La destination cible ne doit pas être fermée pendant que le thread dédié l'utilise encore.
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException again) {
+                    worker.interrupt();
+                }
+            }
+        } finally {
+            try {
+                delegate.close();
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        checkFailure();
+    }
+}
@@ -0,0 +1,147 @@
+package com.zeenea.cli.export.sink;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Destination des lignes dans des fichiers CSV, un fichier par feuille.
+ *
+ * <p>Les fichiers sont nommés {@code <base>-<feuille>.csv}. Ils sont encodés en UTF-8, avec une ligne d'entête, la
+ * virgule comme séparateur et des fins de ligne CRLF; les valeurs sont protégées selon la RFC 4180. Les dates sont
+ * écrites au format ISO-8601 et les liens par leur libellé.</p>
+ */
+public final class CsvSink implements ExportSink {
+    private static final char SEPARATOR = ',';
+    private static final String LINE_END = "\r\n";
+
+    private final Path directory;
+    private final String baseName;
+    private final OpenOption[] options;
+
+    @Nullable
+    private Writer out;
+    private String[] cells = new String[0];
+
+    /**
+     * @param directory Dossier des fichiers.
+     * @param baseName  Préfixe du nom des fichiers.
+     * @param options   Options d'ouverture des fichiers.
+     */
+    public CsvSink(Path directory, String baseName, OpenOption... options) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.options = options.clone();
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        endSheet();
+        Path file = directory.resolve(baseName + "-" + SinkFiles.safeName(name) + ".csv");
+        try {
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file, options), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        cells = labels.toArray(new String[0]);
+        endRow();
+    }
+
+    @Override
+    public void beginRow() {
+        Arrays.fill(cells, null);
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        cells[col] = text;
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        cells[col] = label;
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        cells[col] = kind == CellKind.INTEGER
+            ? Long.toString((long) value)
+            : BigDecimal.valueOf(value).toPlainString();
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        cells[col] = Instant.ofEpochMilli(epochMillis).toString();
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        cells[col] = Boolean.toString(value);
+    }
+
+    @Override
+    public void endRow() {
+        if (out == null) throw new IllegalStateException("No sheet begun");
+        try {
+            for (int col = 0; col < cells.length; ++col) {
+                if (col > 0) out.write(SEPARATOR);
+                if (cells[col] != null) writeValue(out, cells[col]);
+            }
+            out.write(LINE_END);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeValue(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; ++i) {
+            char c = value.charAt(i);
+            quote = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    public void endSheet() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            out = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        endSheet();
+    }
+}
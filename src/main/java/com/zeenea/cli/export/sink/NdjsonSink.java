@@ -0,0 +1,184 @@
+package com.zeenea.cli.export.sink;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Destination des lignes dans un fichier NDJSON (<i>newline delimited JSON</i>): un objet JSON par ligne.
+ *
+ * <p>Chaque objet porte le nom de sa feuille dans le champ {@value #SHEET_FIELD}, puis une propriété par cellule
+ * remplie, nommée d'après le libellé de la colonne; un libellé en double est suffixé par son rang, par exemple
+ * {@code Description (2)}. Les nombres et les booléens sont écrits comme tels, les dates au format ISO-8601 et les
+ * liens hypertextes sous la forme {@code {"label": ..., "url": ...}}.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les objets sont écrits en flux avec le {@link JsonGenerator} de Jackson, sans construire d'arbre JSON.</p>
+ */
+public final class NdjsonSink implements ExportSink {
+    static final String SHEET_FIELD = "_sheet";
+    // Les objets sont séparés par une fin de ligne écrite après chacun, et non par l'espace par défaut de Jackson.
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    private final JsonGenerator generator;
+    private String sheetName = "";
+    private String[] fieldNames = new String[0];
+
+    /**
+     * Ouvre le fichier de destination.
+     *
+     * @param file    Le fichier.
+     * @param options Options d'ouverture du fichier.
+     * @throws UncheckedIOException Si le fichier ne peut être ouvert.
+     */
+    public NdjsonSink(Path file, OpenOption... options) {
+        try {
+            this.generator = JSON_FACTORY.createGenerator(Files.newOutputStream(file, options), JsonEncoding.UTF8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Écrit dans un flux, par exemple la réponse d'une requête HTTP.
+     *
+     * @param out Le flux, fermé par {@link #close()}.
+     * @throws UncheckedIOException Si le flux ne peut être utilisé.
+     */
+    public NdjsonSink(OutputStream out) {
+        try {
+            this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        sheetName = name;
+        fieldNames = new String[labels.size()];
+        Set<String> used = new HashSet<>();
+        used.add(SHEET_FIELD);
+        for (int col = 0; col < labels.size(); ++col) {
+            String fieldName = labels.get(col);
+            for (int rank = 2; !used.add(fieldName); ++rank) {
+                fieldName = labels.get(col) + " (" + rank + ")";
+            }
+            fieldNames[col] = fieldName;
+        }
+    }
+
+    @Override
+    public void beginRow() {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField(SHEET_FIELD, sheetName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        try {
+            generator.writeStringField(fieldNames[col], text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        try {
+            if (kind == CellKind.HYPERLINK) {
+                generator.writeFieldName(fieldNames[col]);
+                generator.writeStartObject();
+                generator.writeStringField("label", label);
+                if (address != null) {
+                    generator.writeStringField("url", address);
+                }
+                generator.writeEndObject();
+            } else {
+                generator.writeStringField(fieldNames[col], label);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        try {
+            generator.writeFieldName(fieldNames[col]);
+            if (kind == CellKind.INTEGER) {
+                generator.writeNumber((long) value);
+            } else {
+                generator.writeNumber(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        try {
+            generator.writeStringField(fieldNames[col], Instant.ofEpochMilli(epochMillis).toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        try {
+            generator.writeFieldName(fieldNames[col]);
+            generator.writeBoolean(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endRow() {
+        try {
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endSheet() {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
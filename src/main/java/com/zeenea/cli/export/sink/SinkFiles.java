@@ -0,0 +1,45 @@
+package com.zeenea.cli.export.sink;
+
+import java.nio.file.Path;
+
+/**
+ * Méthodes utilitaires pour nommer les fichiers des destinations.
+ */
+public final class SinkFiles {
+    private SinkFiles() {
+    }
+
+    /**
+     * Nom d'un fichier sans son extension.
+     *
+     * @param file Le fichier, par exemple {@code export/zeenea-datasets.xlsx}.
+     * @return Le nom sans extension, par exemple {@code zeenea-datasets}.
+     */
+    public static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * Dossier d'un fichier.
+     *
+     * @param file Le fichier.
+     * @return Le dossier du fichier, le dossier courant si le chemin est relatif sans dossier.
+     */
+    public static Path directory(Path file) {
+        Path parent = file.toAbsolutePath().getParent();
+        return parent != null ? parent : file.toAbsolutePath();
+    }
+
+    /**
+     * Remplace les caractères qui ne sont ni des lettres ASCII, ni des chiffres, ni {@code .}, {@code _} ou
+     * {@code -} par {@code _}.
+     *
+     * @param name Le nom, par exemple celui d'une feuille.
+     * @return Un nom utilisable dans un nom de fichier.
+     */
+    static String safeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,371 @@
+package com.zeenea.cli.export.sink;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.ValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Destination des lignes dans une base de données H2 embarquée, une table par feuille.
+ *
+ * <p>Chaque feuille devient une table du même nom et chaque colonne une colonne typée d'après son
+ * {@link ValueType type}: {@code VARCHAR}, {@code BIGINT}, {@code DOUBLE}, {@code TIMESTAMP} ou {@code BOOLEAN}. Un
+ * libellé en double est suffixé par son rang, par exemple {@code Description (2)}; les noms des tables et des
+ * colonnes sont entre guillemets et respectent donc la casse des libellés. Une valeur qui ne correspond pas au type
+ * de sa colonne, comme le texte {@code ## Not a number ##}, est écrite {@code NULL} et comptée.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les lignes sont insérées par lots avec une requête préparée, et validées toutes les {@value #COMMIT_ROWS}
+ * lignes plutôt qu'une à une. Les index demandés sont créés une fois la table chargée, ce qui évite de les maintenir
+ * pendant le chargement.</p>
+ */
+public final class SqlSink implements ExportSink {
+    private static final Logger log = LoggerFactory.getLogger(SqlSink.class);
+    private static final String DATABASE_EXTENSION = ".mv.db";
+    private static final int BATCH_SIZE = 5_000;
+    private static final int COMMIT_ROWS = 500_000;
+
+    private final Connection connection;
+    private final Set<String> indexedLabels = new HashSet<>();
+
+    @Nullable
+    private PreparedStatement insert;
+    private String table = "";
+    private String[] columnNames = new String[0];
+    private ValueType[] types = new ValueType[0];
+    private Object[] values = new Object[0];
+    private int batched;
+    private long uncommitted;
+    private long rowCount;
+    private long rejectedCount;
+
+    /**
+     * Crée et ouvre la base de données.
+     *
+     * @param database      Chemin de la base, sans extension: H2 ajoute {@value #DATABASE_EXTENSION}.
+     * @param replace       {@code true} pour remplacer une base existante.
+     * @param indexedLabels Libellés des colonnes à indexer dans chaque table où elles existent, sans tenir compte de
+     *                      la casse.
+     * @throws UncheckedIOException  Si la base existe déjà et ne doit pas être remplacée, ou ne peut être supprimée.
+     * @throws IllegalStateException Si la base ne peut être ouverte.
+     */
+    public SqlSink(Path database, boolean replace, Collection<String> indexedLabels) {
+        Path absolute = database.toAbsolutePath();
+        Path file = Paths.get(absolute + DATABASE_EXTENSION);
+        try {
+            if (replace) {
+                Files.deleteIfExists(file);
+            } else if (Files.exists(file)) {
+                throw new FileAlreadyExistsException(file.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (String label : indexedLabels) {
+            this.indexedLabels.add(label.toLowerCase(Locale.ROOT));
+        }
+        try {
+            this.connection = DriverManager.getConnection("jdbc:h2:" + absolute);
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw failure("Unable to open database " + file, e);
+        }
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        endSheet();
+        table = name;
+        columnNames = new String[labels.size()];
+        Set<String> used = new HashSet<>();
+        for (int col = 0; col < labels.size(); ++col) {
+            String columnName = labels.get(col);
+            for (int rank = 2; !used.add(columnName); ++rank) {
+                columnName = labels.get(col) + " (" + rank + ")";
+            }
+            columnNames[col] = columnName;
+        }
+        this.types = types.toArray(new ValueType[0]);
+        values = new Object[labels.size()];
+        rowCount = 0;
+        rejectedCount = 0;
+
+        StringBuilder create = new StringBuilder("CREATE TABLE ").append(quote(table)).append(" (");
+        StringBuilder insertSql = new StringBuilder("INSERT INTO ").append(quote(table)).append(" (");
+        StringBuilder parameters = new StringBuilder();
+        for (int col = 0; col < columnNames.length; ++col) {
+            String separator = col == 0 ? "" : ", ";
+            create.append(separator).append(quote(columnNames[col])).append(' ').append(sqlType(this.types[col]));
+            insertSql.append(separator).append(quote(columnNames[col]));
+            parameters.append(separator).append('?');
+        }
+        create.append(')');
+        insertSql.append(") VALUES (").append(parameters).append(')');
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(create.toString());
+            insert = connection.prepareStatement(insertSql.toString());
+        } catch (SQLException e) {
+            throw failure("Unable to create table " + table, e);
+        }
+    }
+
+    @Override
+    public void beginRow() {
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        switch (types[col]) {
+            case TEXT:
+                values[col] = text;
+                break;
+            case INTEGER:
+                values[col] = parse(text, ValueType.INTEGER);
+                break;
+            case DECIMAL:
+                values[col] = parse(text, ValueType.DECIMAL);
+                break;
+            case TIMESTAMP:
+                values[col] = parse(text, ValueType.TIMESTAMP);
+                break;
+            default:
+                reject(col);
+                break;
+        }
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        writeText(col, kind, label);
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        switch (types[col]) {
+            case TEXT:
+                values[col] = kind == CellKind.INTEGER ? Long.toString((long) value) : BigDecimal.valueOf(value).toPlainString();
+                break;
+            case INTEGER:
+                values[col] = (long) value;
+                break;
+            case DECIMAL:
+                values[col] = value;
+                break;
+            case BOOLEAN:
+                values[col] = value != 0;
+                break;
+            default:
+                reject(col);
+                break;
+        }
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        switch (types[col]) {
+            case TIMESTAMP:
+                values[col] = new Timestamp(epochMillis);
+                break;
+            case TEXT:
+                values[col] = Instant.ofEpochMilli(epochMillis).toString();
+                break;
+            default:
+                reject(col);
+                break;
+        }
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        switch (types[col]) {
+            case BOOLEAN:
+                values[col] = value;
+                break;
+            case TEXT:
+                values[col] = Boolean.toString(value);
+                break;
+            case INTEGER:
+                values[col] = value ? 1L : 0L;
+                break;
+            default:
+                reject(col);
+                break;
+        }
+    }
+
+    @Override
+    public void endRow() {
+        if (insert == null) return;
+        try {
+            for (int col = 0; col < values.length; ++col) {
+                if (values[col] == null) {
+                    insert.setNull(col + 1, jdbcType(types[col]));
+                } else {
+                    insert.setObject(col + 1, values[col]);
+                }
+            }
+            insert.addBatch();
+            ++rowCount;
+            if (++batched >= BATCH_SIZE) {
+                flush();
+            }
+        } catch (SQLException e) {
+            throw failure("Unable to insert into table " + table, e);
+        }
+    }
+
+    @Override
+    public void endSheet() {
+        if (insert == null) return;
+        try {
+            flush();
+            connection.commit();
+            uncommitted = 0;
+            insert.close();
+            insert = null;
+
+            int indexCount = createIndexes();
+            log.info("{} rows loaded into table {}, {} values of the wrong type ignored, {} indexes created",
+                rowCount, table, rejectedCount, indexCount);
+        } catch (SQLException e) {
+            throw failure("Unable to load table " + table, e);
+        }
+    }
+
+    /**
+     * Termine le chargement de la table en cours et ferme la base.
+     *
+     * @throws IllegalStateException En cas d'erreur de la base.
+     */
+    @Override
+    public void close() {
+        try {
+            endSheet();
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Unable to close database", e);
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (insert == null || batched == 0) return;
+        insert.executeBatch();
+        uncommitted += batched;
+        batched = 0;
+        if (uncommitted >= COMMIT_ROWS) {
+            connection.commit();
+            uncommitted = 0;
+        }
+    }
+
+    private int createIndexes() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        for (String columnName : columnNames) {
+            if (indexedLabels.contains(columnName.toLowerCase(Locale.ROOT))) {
+                statements.add("CREATE INDEX " + quote(table + " " + columnName) + " ON " + quote(table)
+                    + " (" + quote(columnName) + ")");
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+        connection.commit();
+        return statements.size();
+    }
+
+    @Nullable
+    private Object parse(String text, ValueType type) {
+        try {
+            switch (type) {
+                case INTEGER:
+                    return Long.parseLong(text.trim());
+                case DECIMAL:
+                    return Double.parseDouble(text.trim());
+                case TIMESTAMP:
+                    return Timestamp.from(Instant.parse(text.trim()));
+                default:
+                    return text;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            ++rejectedCount;
+            return null;
+        }
+    }
+
+    private void reject(int col) {
+        values[col] = null;
+        ++rejectedCount;
+    }
+
+    private static String sqlType(ValueType type) {
+        switch (type) {
+            case INTEGER:
+                return "BIGINT";
+            case DECIMAL:
+                return "DOUBLE";
+            case TIMESTAMP:
+                return "TIMESTAMP";
+            case BOOLEAN:
+                return "BOOLEAN";
+            default:
+                return "VARCHAR";
+        }
+    }
+
+    private static int jdbcType(ValueType type) {
+        switch (type) {
+            case INTEGER:
+                return Types.BIGINT;
+            case DECIMAL:
+                return Types.DOUBLE;
+            case TIMESTAMP:
+                return Types.TIMESTAMP;
+            case BOOLEAN:
+                return Types.BOOLEAN;
+            default:
+                return Types.VARCHAR;
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static IllegalStateException failure(String message, SQLException e) {
+        return new IllegalStateException(message + ": " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,259 @@
+package com.zeenea.cli.export.sort;
+
+import com.zeenea.cli.export.xlsx.RowRecord;
+import com.zeenea.cli.util.StringPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Tri externe de lignes en mémoire bornée.
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les lignes sont accumulées en mémoire jusqu'à la limite fixée. Le lot est alors trié et écrit sous forme
+ * binaire dans un fichier temporaire (un <i>run</i>). À la lecture, les runs sont fusionnés avec une file de
+ * priorité (fusion k-voies). Si toutes les lignes tiennent en mémoire, aucun fichier n'est écrit.</p>
+ *
+ * <p>Une ligne retournée par l'itérateur {@link #sorted()} reste valide jusqu'à l'appel suivant de
+ * {@link Iterator#next()}; elle doit être copiée pour être conservée plus longtemps.</p>
+ *
+ * <p>Les fichiers temporaires sont supprimés par {@link #close()}.</p>
+ */
+public final class ExternalRowSorter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ExternalRowSorter.class);
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final Comparator<RowRecord> comparator;
+    private final int columnCount;
+    private final long memoryLimit;
+    @Nullable
+    private final Path tempDirectory;
+    @Nullable
+    private final StringPool stringPool;
+
+    private final List<RowRecord> buffer = new ArrayList<>();
+    private long bufferSize;
+    private final List<Run> runs = new ArrayList<>();
+    private final List<RunReader> readers = new ArrayList<>();
+    private long count;
+    private boolean consumed;
+
+    /**
+     * @param comparator    Ordre des lignes.
+     * @param columnCount   Nombre de colonnes des lignes.
+     * @param memoryLimit   Mémoire maximale occupée par les lignes en attente, en octets.
+     * @param tempDirectory Dossier des fichiers temporaires, {@code null} pour le dossier temporaire du système.
+     */
+    public ExternalRowSorter(Comparator<RowRecord> comparator, int columnCount, long memoryLimit, @Nullable Path tempDirectory) {
+        this(comparator, columnCount, memoryLimit, tempDirectory, null);
+    }
+
+    /**
+     * @param comparator    Ordre des lignes.
+     * @param columnCount   Nombre de colonnes des lignes.
+     * @param memoryLimit   Mémoire maximale occupée par les lignes en attente, en octets.
+     * @param tempDirectory Dossier des fichiers temporaires, {@code null} pour le dossier temporaire du système.
+     * @param stringPool    Table des instances canoniques des textes des lignes relues, {@code null} pour les garder
+     *                      tels quels.
+     */
+    public ExternalRowSorter(Comparator<RowRecord> comparator, int columnCount, long memoryLimit,
+                             @Nullable Path tempDirectory, @Nullable StringPool stringPool) {
+        this.comparator = comparator;
+        this.columnCount = columnCount;
+        this.memoryLimit = memoryLimit;
+        this.tempDirectory = tempDirectory;
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Ajoute une copie de la ligne.
+     *
+     * @param record la ligne.
+     * @throws UncheckedIOException En cas d'erreur d'écriture d'un fichier temporaire.
+     */
+    public void add(RowRecord record) {
+        if (consumed) throw new IllegalStateException("Sorter already consumed");
+
+        RowRecord copy = record.copy();
+        buffer.add(copy);
+        bufferSize += copy.estimatedSize();
+        ++count;
+        if (bufferSize >= memoryLimit) {
+            spill();
+        }
+    }
+
+    /**
+     * @return Le nombre de lignes ajoutées.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Itérateur des lignes triées. Cette méthode ne peut être appelée qu'une fois.
+     *
+     * @return l'itérateur.
+     * @throws UncheckedIOException En cas d'erreur de lecture d'un fichier temporaire.
+     */
+    public Iterator<RowRecord> sorted() {
+        if (consumed) throw new IllegalStateException("Sorter already consumed");
+        consumed = true;
+
+        if (runs.isEmpty()) {
+            buffer.sort(comparator);
+            return buffer.iterator();
+        }
+
+        spill();
+        log.debug("Merging {} sorted runs of {} rows", runs.size(), count);
+        try {
+            for (Run run : runs) {
+                readers.add(new RunReader(run, columnCount, stringPool));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new MergeIterator();
+    }
+
+    private void spill() {
+        if (buffer.isEmpty()) return;
+
+        buffer.sort(comparator);
+        try {
+            Path file = tempDirectory != null
+                ? Files.createTempFile(tempDirectory, "catalog-export-", ".run")
+                : Files.createTempFile("catalog-export-", ".run");
+            runs.add(new Run(file, buffer.size()));
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE))) {
+                for (RowRecord record : buffer) {
+                    record.writeTo(out);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+        bufferSize = 0;
+    }
+
+    /**
+     * Supprime les fichiers temporaires.
+     */
+    @Override
+    public void close() {
+        buffer.clear();
+        for (RunReader reader : readers) {
+            reader.close();
+        }
+        readers.clear();
+        for (Run run : runs) {
+            try {
+                Files.deleteIfExists(run.file);
+            } catch (IOException e) {
+                log.warn("Unable to delete temporary file {}", run.file, e);
+            }
+        }
+        runs.clear();
+    }
+
+    private static final class Run {
+        private final Path file;
+        private final long size;
+
+        private Run(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Lecteur d'un run. Il alterne entre deux lignes pour que la ligne retournée reste valide pendant la lecture
+     * de la suivante.
+     */
+    private static final class RunReader {
+        private final DataInputStream in;
+        private final RowRecord[] records;
+        private long remaining;
+        private int current;
+
+        private RunReader(Run run, int columnCount, @Nullable StringPool stringPool) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file), IO_BUFFER_SIZE));
+            this.records = new RowRecord[]{
+                new RowRecord(columnCount, stringPool), new RowRecord(columnCount, stringPool)};
+            this.remaining = run.size;
+            this.current = 1;
+        }
+
+        private boolean advance() {
+            if (remaining == 0) return false;
+            current ^= 1;
+            try {
+                records[current].readFrom(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            --remaining;
+            return true;
+        }
+
+        private RowRecord current() {
+            return records[current];
+        }
+
+        private void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                log.warn("Unable to close temporary file", e);
+            }
+        }
+    }
+
+    private final class MergeIterator implements Iterator<RowRecord> {
+        private final PriorityQueue<RunReader> queue =
+            new PriorityQueue<>(Math.max(1, readers.size()), (a, b) -> comparator.compare(a.current(), b.current()));
+
+        private MergeIterator() {
+            for (RunReader reader : readers) {
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public RowRecord next() {
+            RunReader reader = queue.poll();
+            if (reader == null) throw new NoSuchElementException();
+
+            RowRecord record = reader.current();
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+            return record;
+        }
+    }
+}
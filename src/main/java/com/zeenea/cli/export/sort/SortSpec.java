@@ -0,0 +1,164 @@
+package com.zeenea.cli.export.sort;
+
+import com.google.common.collect.ImmutableList;
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.RowRecord;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Spécification du tri des lignes d'une feuille.
+ *
+ * <p>La spécification est une liste de libellés de colonnes séparés par des virgules. Chaque libellé peut être
+ * suivi de {@code :desc} pour un tri décroissant, par exemple {@code Category Name,Dataset Name:desc}.</p>
+ *
+ * <p>Les cellules vides sont placées en dernier, les nombres avant les textes, et les textes sont comparés
+ * sans tenir compte de la casse. En cas d'égalité, l'ordre d'arrivée des lignes est conservé.</p>
+ */
+public final class SortSpec {
+    private final List<SortKey> keys;
+
+    private SortSpec(List<SortKey> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Analyse une spécification de tri.
+     *
+     * @param spec La spécification, éventuellement {@code null} ou vide.
+     * @return La spécification analysée, vide si aucun tri n'est demandé.
+     */
+    public static SortSpec parse(@Nullable String spec) {
+        ImmutableList.Builder<SortKey> keys = ImmutableList.builder();
+        if (spec != null) {
+            for (String part : spec.split(",")) {
+                String label = part.trim();
+                if (label.isEmpty()) continue;
+
+                boolean descending = false;
+                int sep = label.lastIndexOf(':');
+                if (sep > 0) {
+                    String direction = label.substring(sep + 1).trim().toLowerCase(Locale.ROOT);
+                    if (direction.equals("desc") || direction.equals("asc")) {
+                        descending = direction.equals("desc");
+                        label = label.substring(0, sep).trim();
+                    }
+                }
+                keys.add(new SortKey(label, descending));
+            }
+        }
+        return new SortSpec(keys.build());
+    }
+
+    /**
+     * @return {@code true} si aucun tri n'est demandé.
+     */
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * @return Les clés de tri.
+     */
+    public List<SortKey> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Construit le comparateur de lignes correspondant à la spécification.
+     *
+     * @param labels Libellés des colonnes de la feuille, dans l'ordre des colonnes des lignes.
+     * @return Le comparateur.
+     * @throws IllegalArgumentException Si une colonne de la spécification n'existe pas dans la feuille.
+     */
+    public Comparator<RowRecord> comparator(List<String> labels) {
+        Comparator<RowRecord> comparator = null;
+        for (SortKey key : keys) {
+            int col = indexOf(labels, key.getLabel());
+            if (col < 0) {
+                throw new IllegalArgumentException("Unknown sort column \"" + key.getLabel() + "\", expected one of " + labels);
+            }
+            Comparator<RowRecord> cellComparator = (a, b) -> compareCells(a, b, col, key.isDescending());
+            comparator = comparator == null ? cellComparator : comparator.thenComparing(cellComparator);
+        }
+        Comparator<RowRecord> byRank = Comparator.comparingLong(RowRecord::getRank);
+        return comparator == null ? byRank : comparator.thenComparing(byRank);
+    }
+
+    /**
+     * Comparateur des lignes par {@link RowRecord#getKey() clé}.
+     * <p>Les clés sont comparées sans tenir compte de la casse, puis en en tenant compte pour départager les clés
+     * qui ne diffèrent que par la casse; les clés absentes sont placées en dernier. Deux clés sont égales pour ce
+     * comparateur si et seulement si elles sont identiques.</p>
+     *
+     * @return Le comparateur.
+     */
+    public static Comparator<RowRecord> byKey() {
+        return (a, b) -> compareText(a.getKey(), b.getKey());
+    }
+
+    private static int indexOf(List<String> labels, String label) {
+        for (int i = 0; i < labels.size(); ++i) {
+            if (labels.get(i).equalsIgnoreCase(label)) return i;
+        }
+        return -1;
+    }
+
+    private static int compareCells(RowRecord a, RowRecord b, int col, boolean descending) {
+        boolean aEmpty = a.isEmpty(col);
+        boolean bEmpty = b.isEmpty(col);
+        if (aEmpty || bEmpty) {
+            return Boolean.compare(aEmpty, bEmpty);
+        }
+
+        CellKind aKind = a.getKind(col);
+        CellKind bKind = b.getKind(col);
+        int result;
+        if (aKind.isNumeric() && bKind.isNumeric()) {
+            result = Double.compare(a.getNumber(col), b.getNumber(col));
+        } else if (aKind.isNumeric() != bKind.isNumeric()) {
+            result = aKind.isNumeric() ? -1 : 1;
+        } else {
+            result = compareText(a.getText(col), b.getText(col));
+        }
+        return descending ? -result : result;
+    }
+
+    static int compareText(@Nullable String a, @Nullable String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        int result = String.CASE_INSENSITIVE_ORDER.compare(a, b);
+        return result != 0 ? result : a.compareTo(b);
+    }
+
+    /**
+     * Clé de tri: une colonne et un sens.
+     */
+    public static final class SortKey {
+        private final String label;
+        private final boolean descending;
+
+        SortKey(String label, boolean descending) {
+            this.label = label;
+            this.descending = descending;
+        }
+
+        /**
+         * @return Le libellé de la colonne.
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return {@code true} pour un tri décroissant.
+         */
+        public boolean isDescending() {
+            return descending;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.zeenea.cli.export.summary;
+
+/**
+ * Estimation du nombre de valeurs distinctes d'un flux, en mémoire constante.
+ *
+ * <p>L'algorithme HyperLogLog conserve, pour chacun des {@code 2^precision} registres, le rang du premier bit à 1
+ * des empreintes qui lui sont attribuées. Avec une précision de 11, les registres occupent 2 Kio et l'erreur
+ * relative type est d'environ 2,3%.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ *
+ * @see <a href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">HyperLogLog: the analysis of a
+ * near-optimal cardinality estimation algorithm</a> (en).
+ */
+public final class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision Nombre de bits de l'empreinte désignant le registre, entre 4 et 16.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Empreinte de 64 bits d'un texte, adaptée à {@link #add(long)}.
+     *
+     * @param value Le texte.
+     * @return L'empreinte.
+     */
+    public static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); ++i) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Empreinte de 64 bits d'un nombre, adaptée à {@link #add(long)}.
+     *
+     * @param value Le nombre.
+     * @return L'empreinte.
+     */
+    public static long hash(double value) {
+        return mix(Double.doubleToLongBits(value));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Ajoute une valeur, par son empreinte.
+     *
+     * @param hash Empreinte de 64 bits de la valeur.
+     */
+    public void add(long hash) {
+        int idx = (int) (hash >>> (64 - precision));
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[idx]) {
+            registers[idx] = rank;
+        }
+    }
+
+    /**
+     * @return L'estimation du nombre de valeurs distinctes ajoutées.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) ++zeros;
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Correction pour les petites cardinalités: comptage linéaire.
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
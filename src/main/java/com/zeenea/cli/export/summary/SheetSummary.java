@@ -0,0 +1,203 @@
+package com.zeenea.cli.export.summary;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.RowListener;
+import com.zeenea.cli.export.xlsx.RowRecord;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agrégats des lignes d'une feuille, accumulés au fil de l'export.
+ *
+ * <p>Les agrégats sont:</p>
+ * <ul>
+ *     <li>le nombre de lignes,</li>
+ *     <li>pour chaque colonne, le nombre de cellules remplies et une estimation du nombre de valeurs distinctes,</li>
+ *     <li>le nombre de lignes par valeur de quelques colonnes de regroupement,</li>
+ *     <li>l'histogramme et les quantiles de la colonne "Completion",</li>
+ *     <li>la répartition et les quantiles de l'ancienneté de la colonne "Last Update".</li>
+ * </ul>
+ *
+ * <p>La mémoire utilisée est constante: les valeurs distinctes sont estimées par {@link HyperLogLog}, les quantiles
+ * par {@link TDigest}, et le nombre de groupes est borné.</p>
+ */
+final class SheetSummary implements RowListener {
+    static final String COMPLETION_LABEL = "Completion";
+    static final String LAST_UPDATE_LABEL = "Last Update";
+    static final long[] FRESHNESS_LIMITS = {7, 30, 90, 365};
+    static final int COMPLETION_BUCKETS = 11;
+
+    private static final int DISTINCT_PRECISION = 11;
+    private static final double COMPRESSION = 100;
+    private static final int MAX_GROUPS = 1000;
+    static final String OTHER_GROUP = "(other)";
+    static final String EMPTY_GROUP = "(none)";
+
+    private final String name;
+    private final List<String> labels;
+    private final long now = Instant.now().toEpochMilli();
+
+    private long rowCount;
+    private final long[] filled;
+    private final HyperLogLog[] distinct;
+    private final List<GroupCount> groups = new ArrayList<>();
+
+    private final int completionCol;
+    private final long[] completionHistogram = new long[COMPLETION_BUCKETS];
+    private final TDigest completion = new TDigest(COMPRESSION);
+
+    private final int lastUpdateCol;
+    private final long[] freshness = new long[FRESHNESS_LIMITS.length + 1];
+    private final TDigest ageDays = new TDigest(COMPRESSION);
+
+    /**
+     * @param name        Nom de la feuille.
+     * @param labels      Libellés des colonnes de la feuille.
+     * @param groupLabels Libellés des colonnes de regroupement; celles absentes de la feuille sont ignorées.
+     */
+    SheetSummary(String name, List<String> labels, List<String> groupLabels) {
+        this.name = name;
+        this.labels = labels;
+        this.filled = new long[labels.size()];
+        this.distinct = new HyperLogLog[labels.size()];
+        for (int col = 0; col < labels.size(); ++col) {
+            distinct[col] = new HyperLogLog(DISTINCT_PRECISION);
+        }
+        for (String groupLabel : groupLabels) {
+            int col = labels.indexOf(groupLabel);
+            if (col >= 0) {
+                groups.add(new GroupCount(groupLabel, col));
+            }
+        }
+        this.completionCol = labels.indexOf(COMPLETION_LABEL);
+        this.lastUpdateCol = labels.indexOf(LAST_UPDATE_LABEL);
+    }
+
+    @Override
+    public void onRow(RowRecord record) {
+        ++rowCount;
+
+        for (int col = 0; col < filled.length; ++col) {
+            if (record.isEmpty(col)) continue;
+
+            ++filled[col];
+            CellKind kind = record.getKind(col);
+            distinct[col].add(kind.isNumeric()
+                ? HyperLogLog.hash(record.getNumber(col))
+                : HyperLogLog.hash(record.getText(col) == null ? "" : record.getText(col)));
+        }
+
+        for (GroupCount group : groups) {
+            group.add(record.isEmpty(group.col) || record.getKind(group.col).isNumeric()
+                ? EMPTY_GROUP : record.getText(group.col));
+        }
+
+        if (completionCol >= 0 && record.getKind(completionCol).isNumeric()) {
+            double value = record.getNumber(completionCol);
+            completion.add(value);
+            int bucket = (int) Math.max(0, Math.min(COMPLETION_BUCKETS - 1, Math.floor(value / 10)));
+            ++completionHistogram[bucket];
+        }
+
+        if (lastUpdateCol >= 0 && record.getKind(lastUpdateCol) == CellKind.DATE) {
+            double days = (double) (now - (long) record.getNumber(lastUpdateCol)) / Duration.ofDays(1).toMillis();
+            ageDays.add(days);
+            int bucket = 0;
+            while (bucket < FRESHNESS_LIMITS.length && days >= FRESHNESS_LIMITS[bucket]) {
+                ++bucket;
+            }
+            ++freshness[bucket];
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getLabels() {
+        return labels;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    long getFilled(int col) {
+        return filled[col];
+    }
+
+    long getDistinct(int col) {
+        return Math.min(filled[col], distinct[col].estimate());
+    }
+
+    List<GroupCount> getGroups() {
+        return groups;
+    }
+
+    boolean hasCompletion() {
+        return completionCol >= 0;
+    }
+
+    long[] getCompletionHistogram() {
+        return completionHistogram;
+    }
+
+    TDigest getCompletion() {
+        return completion;
+    }
+
+    boolean hasLastUpdate() {
+        return lastUpdateCol >= 0;
+    }
+
+    long[] getFreshness() {
+        return freshness;
+    }
+
+    TDigest getAgeDays() {
+        return ageDays;
+    }
+
+    /**
+     * Nombre de lignes par valeur d'une colonne, pour au plus {@value #MAX_GROUPS} valeurs.
+     * <p>Les lignes des valeurs au-delà de la limite sont comptées dans le groupe {@value #OTHER_GROUP}.</p>
+     */
+    static final class GroupCount {
+        private final String label;
+        private final int col;
+        private final Map<String, long[]> counts = new HashMap<>();
+
+        GroupCount(String label, int col) {
+            this.label = label;
+            this.col = col;
+        }
+
+        void add(String value) {
+            long[] count = counts.get(value);
+            if (count == null) {
+                if (counts.size() >= MAX_GROUPS) {
+                    value = OTHER_GROUP;
+                    count = counts.get(value);
+                }
+                if (count == null) {
+                    count = new long[1];
+                    counts.put(value, count);
+                }
+            }
+            ++count[0];
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        Map<String, long[]> getCounts() {
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.zeenea.cli.export.summary;
+
+import com.zeenea.cli.export.xlsx.DataStyle;
+import com.zeenea.cli.export.xlsx.ExportStyles;
+import com.zeenea.cli.export.xlsx.SheetExport;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Export d'une feuille de synthèse des autres feuilles du classeur.
+ *
+ * <p>Pour chaque feuille rattachée, la synthèse présente le nombre d'assets, le taux de remplissage et le nombre
+ * approximatif de valeurs distinctes de chaque colonne, le nombre d'assets par valeur des colonnes de regroupement
+ * (par exemple par catégorie et par type de stockage), la répartition de la complétion et celle de l'ancienneté de
+ * la dernière mise à jour.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les agrégats sont accumulés par des {@link com.zeenea.cli.export.xlsx.RowListener observateurs} des lignes,
+ * pendant l'unique passage sur les résultats de l'API et en mémoire constante (voir {@link SheetSummary}). La
+ * feuille est écrite une fois toutes les autres terminées, puis placée en tête du classeur.</p>
+ */
+@ParametersAreNonnullByDefault
+public final class SummarySheetExport {
+    private static final String[] COMPLETION_BUCKET_LABELS = {
+        "0-9", "10-19", "20-29", "30-39", "40-49", "50-59", "60-69", "70-79", "80-89", "90-99", "100"
+    };
+    private static final String[] FRESHNESS_BUCKET_LABELS = {
+        "< 7 days", "7-29 days", "30-89 days", "90-364 days", ">= 365 days"
+    };
+
+    private final String name;
+    private final Workbook workbook;
+    private final ExportStyles styles;
+    private final List<SheetSummary> summaries = new ArrayList<>();
+
+    private Sheet sheet;
+    private int rowNum;
+
+    private SummarySheetExport(Builder builder) {
+        this.name = requireNonNull(builder.name);
+        this.workbook = requireNonNull(builder.workbook);
+        this.styles = requireNonNull(builder.styles);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Rattache l'export d'une feuille à la synthèse.
+     *
+     * @param export      Export de la feuille, avant l'export des résultats.
+     * @param groupLabels Libellés des colonnes par valeur desquelles les assets sont comptés.
+     */
+    public void attach(SheetExport<?> export, List<String> groupLabels) {
+        SheetSummary summary = new SheetSummary(export.getName(), export.getColumnLabels(), groupLabels);
+        summaries.add(summary);
+        export.addListener(summary);
+    }
+
+    /**
+     * Écrit la feuille de synthèse et la place en tête du classeur.
+     * <p>Cette méthode doit être appelée une fois toutes les feuilles rattachées exportées.</p>
+     */
+    public void finish() {
+        sheet = workbook.createSheet(name);
+        sheet.setColumnWidth(0, 40 * 256);
+        for (int col = 1; col <= 3; ++col) {
+            sheet.setColumnWidth(col, 18 * 256);
+        }
+
+        for (SheetSummary summary : summaries) {
+            writeSummary(summary);
+        }
+
+        workbook.setSheetOrder(name, 0);
+        workbook.setActiveSheet(0);
+    }
+
+    private void writeSummary(SheetSummary summary) {
+        Row titleRow = sheet.createRow(rowNum++);
+        header(titleRow, 0, summary.getName());
+        header(titleRow, 1, "Items");
+        integer(titleRow, 2, summary.getRowCount());
+        ++rowNum;
+
+        Row headerRow = sheet.createRow(rowNum++);
+        header(headerRow, 0, "Column");
+        header(headerRow, 1, "Filled");
+        header(headerRow, 2, "Fill rate (%)");
+        header(headerRow, 3, "Distinct values (approx.)");
+        List<String> labels = summary.getLabels();
+        for (int col = 0; col < labels.size(); ++col) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(labels.get(col));
+            integer(row, 1, summary.getFilled(col));
+            decimal(row, 2, percent(summary.getFilled(col), summary.getRowCount()));
+            integer(row, 3, summary.getDistinct(col));
+        }
+        ++rowNum;
+
+        for (SheetSummary.GroupCount group : summary.getGroups()) {
+            headers(group.getLabel(), "Items");
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(group.getCounts().entrySet());
+            entries.sort((a, b) -> {
+                int result = Long.compare(b.getValue()[0], a.getValue()[0]);
+                return result != 0 ? result : String.CASE_INSENSITIVE_ORDER.compare(a.getKey(), b.getKey());
+            });
+            for (Map.Entry<String, long[]> entry : entries) {
+                countRow(entry.getKey(), entry.getValue()[0]);
+            }
+            ++rowNum;
+        }
+
+        if (summary.hasCompletion()) {
+            headers(SheetSummary.COMPLETION_LABEL + " (%)", "Items");
+            long[] histogram = summary.getCompletionHistogram();
+            for (int bucket = 0; bucket < histogram.length; ++bucket) {
+                countRow(COMPLETION_BUCKET_LABELS[bucket], histogram[bucket]);
+            }
+            quantileRows(summary.getCompletion(), "completion");
+            ++rowNum;
+        }
+
+        if (summary.hasLastUpdate()) {
+            headers(SheetSummary.LAST_UPDATE_LABEL, "Items");
+            long[] freshness = summary.getFreshness();
+            long dated = 0;
+            for (int bucket = 0; bucket < freshness.length; ++bucket) {
+                countRow(FRESHNESS_BUCKET_LABELS[bucket], freshness[bucket]);
+                dated += freshness[bucket];
+            }
+            countRow("No date", summary.getRowCount() - dated);
+            quantileRows(summary.getAgeDays(), "age (days)");
+            ++rowNum;
+        }
+        ++rowNum;
+    }
+
+    private void headers(String first, String second) {
+        Row row = sheet.createRow(rowNum++);
+        header(row, 0, first);
+        header(row, 1, second);
+    }
+
+    private void countRow(String label, long count) {
+        Row row = sheet.createRow(rowNum++);
+        row.createCell(0).setCellValue(label);
+        integer(row, 1, count);
+    }
+
+    private void quantileRows(TDigest digest, String what) {
+        if (digest.size() == 0) return;
+
+        Row median = sheet.createRow(rowNum++);
+        median.createCell(0).setCellValue("Median " + what);
+        decimal(median, 1, digest.quantile(0.5));
+        Row p90 = sheet.createRow(rowNum++);
+        p90.createCell(0).setCellValue("90th percentile " + what);
+        decimal(p90, 1, digest.quantile(0.9));
+    }
+
+    private void header(Row row, int col, String label) {
+        Cell cell = row.createCell(col);
+        cell.setCellValue(label);
+        cell.setCellStyle(styles.getMainHeaderStyle());
+    }
+
+    private void integer(Row row, int col, long value) {
+        Cell cell = row.createCell(col);
+        cell.setCellValue(value);
+        cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+    }
+
+    private void decimal(Row row, int col, double value) {
+        Cell cell = row.createCell(col);
+        cell.setCellValue(value);
+        cell.setCellStyle(styles.getDataCellStyle(DataStyle.decimalStyle));
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    /**
+     * Monteur d'un {@link SummarySheetExport}.
+     */
+    public static class Builder {
+        private String name;
+        private Workbook workbook;
+        private ExportStyles styles;
+
+        /**
+         * Nom de la feuille.
+         *
+         * @param name la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Classeur Excel.
+         *
+         * @param workbook la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder workbook(Workbook workbook) {
+            this.workbook = workbook;
+            return this;
+        }
+
+        /**
+         * Cache des styles associés
+         *
+         * @param styles la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder styles(ExportStyles styles) {
+            this.styles = styles;
+            return this;
+        }
+
+        /**
+         * Assemble l'export de la feuille de synthèse.
+         *
+         * @return la nouvelle instance.
+         */
+        public SummarySheetExport build() {
+            return new SummarySheetExport(this);
+        }
+    }
+}
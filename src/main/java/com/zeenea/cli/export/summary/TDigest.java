@@ -0,0 +1,168 @@
+package com.zeenea.cli.export.summary;
+
+import java.util.Arrays;
+
+/**
+ * Estimation des quantiles d'un flux de nombres, en mémoire bornée.
+ *
+ * <p>Le t-digest résume la distribution par des centroïdes (une moyenne et un poids) d'autant plus petits qu'ils
+ * sont proches des extrémités, ce qui rend les quantiles extrêmes précis. Le nombre de centroïdes est de l'ordre de
+ * la compression, quelle que soit la taille du flux.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Il s'agit de la variante par fusion: les valeurs sont accumulées dans un tampon, trié puis fusionné avec les
+ * centroïdes lorsqu'il est plein.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ *
+ * @see <a href="https://github.com/tdunning/t-digest">t-digest</a> (en).
+ */
+public final class TDigest {
+    private final double compression;
+
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+
+    private final double[] buffer;
+    private int bufferCount;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression Compression, typiquement 100: plus elle est grande, plus l'estimation est précise.
+     */
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[capacity * 5];
+    }
+
+    /**
+     * Ajoute une valeur.
+     *
+     * @param value La valeur, ignorée si elle n'est pas un nombre.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+
+        buffer[bufferCount++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (bufferCount == buffer.length) {
+            compress();
+        }
+    }
+
+    /**
+     * @return Le nombre de valeurs ajoutées.
+     */
+    public long size() {
+        return (long) totalWeight + bufferCount;
+    }
+
+    /**
+     * Estimation d'un quantile.
+     *
+     * @param q Le quantile, entre 0 et 1.
+     * @return La valeur estimée ou {@link Double#NaN} si aucune valeur n'a été ajoutée.
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroidCount == 0) return Double.NaN;
+        if (centroidCount == 1) return means[0];
+
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return interpolate(min, means[0], index / (weights[0] / 2));
+        }
+
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroidCount - 1; ++i) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (index < cumulative + step) {
+                return interpolate(means[i], means[i + 1], (index - cumulative) / step);
+            }
+            cumulative += step;
+        }
+
+        int last = centroidCount - 1;
+        double tail = weights[last] / 2;
+        return interpolate(means[last], max, Math.min(1, (index - cumulative) / tail));
+    }
+
+    private static double interpolate(double from, double to, double ratio) {
+        return from + (to - from) * ratio;
+    }
+
+    /**
+     * Fusionne le tampon avec les centroïdes.
+     */
+    private void compress() {
+        if (bufferCount == 0) return;
+
+        Arrays.sort(buffer, 0, bufferCount);
+        double newTotal = totalWeight + bufferCount;
+        double[] newMeans = new double[means.length];
+        double[] newWeights = new double[weights.length];
+        int count = 0;
+
+        int c = 0;
+        int b = 0;
+        double soFar = 0;
+        double mean = Double.NaN;
+        double weight = 0;
+        while (c < centroidCount || b < bufferCount) {
+            double nextMean;
+            double nextWeight;
+            if (b >= bufferCount || (c < centroidCount && means[c] <= buffer[b])) {
+                nextMean = means[c];
+                nextWeight = weights[c++];
+            } else {
+                nextMean = buffer[b++];
+                nextWeight = 1;
+            }
+
+            if (weight == 0) {
+                mean = nextMean;
+                weight = nextWeight;
+                continue;
+            }
+
+            double proposed = weight + nextWeight;
+            double q0 = soFar / newTotal;
+            double q2 = (soFar + proposed) / newTotal;
+            double limit = 4 * newTotal * Math.min(q0 * (1 - q0), q2 * (1 - q2)) / compression;
+            if (proposed <= limit) {
+                mean += (nextMean - mean) * nextWeight / proposed;
+                weight = proposed;
+            } else {
+                if (count == newMeans.length) {
+                    newMeans = Arrays.copyOf(newMeans, count * 2);
+                    newWeights = Arrays.copyOf(newWeights, count * 2);
+                }
+                newMeans[count] = mean;
+                newWeights[count++] = weight;
+                soFar += weight;
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        if (count == newMeans.length) {
+            newMeans = Arrays.copyOf(newMeans, count + 1);
+            newWeights = Arrays.copyOf(newWeights, count + 1);
+        }
+        newMeans[count] = mean;
+        newWeights[count++] = weight;
+
+        means = newMeans;
+        weights = newWeights;
+        centroidCount = count;
+        totalWeight = newTotal;
+        bufferCount = 0;
+    }
+}
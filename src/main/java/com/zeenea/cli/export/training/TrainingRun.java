@@ -0,0 +1,143 @@
+package com.zeenea.cli.export.training;
+
+import com.beust.jcommander.JCommander;
+import com.zeenea.cli.export.ExportParams;
+import com.zeenea.cli.export.sink.AsyncSink;
+import com.zeenea.cli.export.sink.CsvSink;
+import com.zeenea.cli.export.sink.NdjsonSink;
+import com.zeenea.cli.export.sort.SortSpec;
+import com.zeenea.cli.export.xlsb.XlsbSink;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.ExportStyles;
+import com.zeenea.cli.export.xlsx.SheetExport;
+import com.zeenea.cli.export.xlsx.ValueType;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export d'entraînement, utilisé pour créer l'archive AppCDS de la distribution à démarrage rapide.
+ *
+ * <p>Les classes chargées par cet export sont enregistrées dans l'archive, puis chargées depuis l'archive au
+ * démarrage des exports suivants. L'export d'entraînement ne se connecte pas à Zeenea: il remplace l'API par des
+ * assets synthétiques et parcourt le reste de la chaîne d'export. Il analyse les options avec JCommander et
+ * construit une feuille triée, dont les colonnes vides sont retirées et la largeur des colonnes estimée. Il
+ * l'écrit en XLSX avec POI, et en CSV, NDJSON et XLSB dans leurs threads.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les classes du SDK Zeenea et de son client HTTP ne sont pas chargées par l'entraînement, et donc pas
+ * archivées: elles restent chargées depuis leurs JAR.</p>
+ */
+public final class TrainingRun {
+    private static final Logger log = LoggerFactory.getLogger(TrainingRun.class);
+    private static final int ITEM_COUNT = 2_000;
+
+    private TrainingRun() {
+    }
+
+    /**
+     * Exécute l'export d'entraînement dans un dossier temporaire, supprimé ensuite.
+     *
+     * @param args Ignorés.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        Path directory = Files.createTempDirectory("catalog-export-training-");
+        try {
+            parseOptions(directory);
+            exportSheet(directory);
+        } finally {
+            deleteRecursively(directory);
+        }
+        log.info("Training export done in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void parseOptions(Path directory) {
+        ExportParams params = new ExportParams();
+        JCommander.newBuilder()
+            .programName("catalog-export")
+            .addObject(params)
+            .build()
+            .parse("--url", "http://localhost/", "-u", "training", "-p", "training",
+                "--format", "xlsx", "--format", "csv", "--format", "ndjson", "--format", "xlsb",
+                "--updated-since", "7d", "--sort-by", "Dataset=Dataset Name:desc",
+                "-o", directory.resolve("training.xlsx").toString());
+    }
+
+    private static void exportSheet(Path directory) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        List<ExportSink> sinks = new ArrayList<>();
+        try {
+            sinks.add(new AsyncSink("csv", new CsvSink(directory, "training"), 256));
+            sinks.add(new AsyncSink("ndjson", new NdjsonSink(directory.resolve("training.ndjson")), 256));
+            sinks.add(new AsyncSink("xlsb", new XlsbSink(directory.resolve("training.xlsb"), directory), 256));
+
+            Instant now = Instant.now();
+            SheetExport.Builder<Integer> builder = SheetExport.<Integer>builder()
+                .name("Dataset")
+                .workbook(workbook)
+                .styles(ExportStyles.of(workbook))
+                .sort(SortSpec.parse("Dataset Name:desc"))
+                .tempDirectory(directory)
+                .pruneEmptyColumns(true)
+                .widthSampleSize(100)
+                .key(i -> "dataset-" + i)
+                .addColumn(col -> col.label("Identifiant").width(36)
+                    .exporter((writer, i) -> writer.write("00000000-0000-0000-0000-" + String.format("%012d", i))))
+                .addColumn(col -> col.label("Dataset Name").width(20)
+                    .exporter((writer, i) -> writer.write("dataset-" + i)))
+                .addColumn(col -> col.label("Description").width(70)
+                    .exporter((writer, i) -> writer.writeDescription("Synthetic dataset " + i + "\nfor the training export")))
+                .addColumn(col -> col.label("Last Update").width(19).type(ValueType.TIMESTAMP)
+                    .exporter((writer, i) -> writer.write(now.minusSeconds(i * 3600L))))
+                .addColumn(col -> col.label("Records").width(10).type(ValueType.INTEGER)
+                    .exporter((writer, i) -> writer.write(Long.valueOf(i * 1000L))))
+                .addColumn(col -> col.label("Completion").width(10).type(ValueType.DECIMAL)
+                    .exporter((writer, i) -> writer.write(i % 100 / 100.0)))
+                .addColumn(col -> col.label("Nullable").width(3).type(ValueType.BOOLEAN)
+                    .exporter((writer, i) -> writer.write(i % 2 == 0)))
+                .addColumn(col -> col.label("Link").width(20)
+                    .exporter((writer, i) -> writer.writeHyperlink("dataset-" + i, "http://localhost/datasets/" + i)))
+                .addColumn(col -> col.label("Empty").width(10)
+                    .exporter((writer, i) -> writer.write((String) null)));
+            sinks.forEach(builder::addSink);
+
+            try (SheetExport<Integer> export = builder.build()) {
+                for (int i = 0; i < ITEM_COUNT; ++i) {
+                    export.exportItem(i);
+                }
+                export.finish();
+            }
+            for (ExportSink sink : sinks) {
+                sink.close();
+            }
+            try (OutputStream out = Files.newOutputStream(directory.resolve("training.xlsx"))) {
+                workbook.write(out);
+            }
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.zeenea.cli.export.xlsb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Écriture des enregistrements binaires BIFF12 d'une partie d'un classeur XLSB.
+ *
+ * <p>Un enregistrement est formé de son type et de sa taille, encodés sur un nombre variable d'octets de 7 bits,
+ * suivis de ses données. Les entiers et les nombres flottants sont écrits en petit-boutiste, les chaînes en UTF-16LE
+ * précédées de leur nombre de caractères ({@code XLWideString}).</p>
+ *
+ * <p>Le flux sous-jacent n'est pas fermé par cette classe.</p>
+ */
+final class BiffWriter {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8];
+
+    BiffWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Écrit un enregistrement sans données.
+     *
+     * @param type Type de l'enregistrement.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void record(int type) throws IOException {
+        header(type, 0);
+    }
+
+    /**
+     * Écrit l'entête d'un enregistrement; ses données doivent suivre.
+     *
+     * @param type Type de l'enregistrement.
+     * @param size Taille des données, en octets.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void header(int type, int size) throws IOException {
+        if (type < 0x80) {
+            out.write(type);
+        } else {
+            out.write((type & 0x7F) | 0x80);
+            out.write(type >>> 7);
+        }
+        int remaining = size;
+        do {
+            int b = remaining & 0x7F;
+            remaining >>>= 7;
+            out.write(remaining != 0 ? b | 0x80 : b);
+        } while (remaining != 0);
+    }
+
+    void writeByte(int value) throws IOException {
+        out.write(value);
+    }
+
+    void writeShort(int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >>> 8);
+        out.write(buffer, 0, 2);
+    }
+
+    void writeInt(int value) throws IOException {
+        buffer[0] = (byte) value;
+        buffer[1] = (byte) (value >>> 8);
+        buffer[2] = (byte) (value >>> 16);
+        buffer[3] = (byte) (value >>> 24);
+        out.write(buffer, 0, 4);
+    }
+
+    void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; ++i) {
+            buffer[i] = (byte) (bits >>> (i << 3));
+        }
+        out.write(buffer, 0, 8);
+    }
+
+    /**
+     * Écrit une chaîne {@code XLWideString}.
+     *
+     * @param value La chaîne.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void writeString(String value) throws IOException {
+        writeInt(value.length());
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            out.write(c);
+            out.write(c >>> 8);
+        }
+    }
+
+    /**
+     * Taille d'une chaîne {@code XLWideString}.
+     *
+     * @param value La chaîne.
+     * @return Le nombre d'octets écrits par {@link #writeString(String)}.
+     */
+    static int sizeOf(String value) {
+        return 4 + 2 * value.length();
+    }
+
+    /**
+     * Écrit l'entête commune des enregistrements de cellule: la colonne et l'indice du format.
+     *
+     * @param col Indice de la colonne.
+     * @param xf  Indice du format de cellule.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void writeCell(int col, int xf) throws IOException {
+        writeInt(col);
+        writeInt(xf & 0xFFFFFF);
+    }
+
+    /**
+     * Écrit une couleur de la palette indexée ({@code BrtColor}).
+     *
+     * @param index Indice de la couleur dans la palette, comme ceux de {@link org.apache.poi.ss.usermodel.IndexedColors}.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void writeIndexedColor(int index) throws IOException {
+        writeByte(0x02);
+        writeByte(index);
+        writeShort(0);
+        writeInt(0);
+    }
+
+    /**
+     * Écrit une couleur automatique ({@code BrtColor}).
+     *
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    void writeAutoColor() throws IOException {
+        writeByte(0);
+        writeByte(0);
+        writeShort(0);
+        writeInt(0);
+    }
+}
@@ -0,0 +1,565 @@
+package com.zeenea.cli.export.xlsb;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ExportSink;
+import com.zeenea.cli.export.xlsx.ValueType;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Destination des lignes dans un classeur Excel binaire (XLSB).
+ *
+ * <p>Le format XLSB stocke les feuilles sous forme d'enregistrements binaires BIFF12 plutôt qu'en XML: le fichier
+ * est plus petit, plus rapide à écrire et surtout plus rapide à ouvrir dans Excel que le classeur XLSX équivalent.
+ * Les feuilles reprennent la disposition de celles du classeur XLSX, de sorte que les liens entre feuilles
+ * désignent les mêmes cellules: une ligne des libellés des groupes de colonnes, fusionnés sur les colonnes de
+ * chaque groupe, puis une ligne des libellés des colonnes. Les {@link XlsbStyles styles} reprennent ceux du classeur
+ * XLSX, sans les couleurs propres à chaque groupe.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le classeur est écrit en flux dans l'archive ZIP, une partie après l'autre: chaque feuille est écrite au fil
+ * des lignes, sans les conserver en mémoire. Les textes sont écrits dans les cellules ({@code BrtCellSt}), sans
+ * table des chaînes partagées. Les liens, qui suivent les données de la feuille dans le format, sont écrits au fil
+ * de l'eau dans un fichier temporaire puis recopiés à la fin de la feuille; les liens entre feuilles sont des liens
+ * natifs vers une cellule plutôt que des formules {@code HYPERLINK}. Les parties décrivant le classeur, qui
+ * dépendent de la liste des feuilles, sont écrites à la fermeture.</p>
+ */
+public final class XlsbSink implements ExportSink {
+    private static final int MAX_ROWS = 1 << 20;
+    private static final int MAX_TEXT_LENGTH = 32767;
+    private static final int COLUMN_BLOCK = 1024;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int EPOCH_SERIAL = 25569;
+
+    private static final int BRT_ROW_HDR = 0;
+    private static final int BRT_CELL_BOOL = 4;
+    private static final int BRT_CELL_REAL = 5;
+    private static final int BRT_CELL_ST = 6;
+    private static final int BRT_COL_INFO = 60;
+    private static final int BRT_BEGIN_SHEET = 129;
+    private static final int BRT_END_SHEET = 130;
+    private static final int BRT_BEGIN_BOOK = 131;
+    private static final int BRT_END_BOOK = 132;
+    private static final int BRT_BEGIN_BUNDLE_SHS = 143;
+    private static final int BRT_END_BUNDLE_SHS = 144;
+    private static final int BRT_BEGIN_SHEET_DATA = 145;
+    private static final int BRT_END_SHEET_DATA = 146;
+    private static final int BRT_BUNDLE_SH = 156;
+    private static final int BRT_MERGE_CELL = 176;
+    private static final int BRT_BEGIN_MERGE_CELLS = 177;
+    private static final int BRT_END_MERGE_CELLS = 178;
+    private static final int BRT_BEGIN_COL_INFOS = 390;
+    private static final int BRT_END_COL_INFOS = 391;
+    private static final int BRT_HLINK = 494;
+
+    private static final String CT_WORKBOOK = "application/vnd.ms-excel.sheet.binary.macroEnabled.main";
+    private static final String CT_WORKSHEET = "application/vnd.ms-excel.worksheet";
+    private static final String CT_STYLES = "application/vnd.ms-excel.styles";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    @Nullable
+    private final Path tempDirectory;
+    private final ZipOutputStream zip;
+    private final OutputStream entryOut;
+    private final BiffWriter out;
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<int[]> mergedGroups = new ArrayList<>();
+
+    private boolean inSheet;
+    private boolean closed;
+    private int rowNum;
+    private int colCount;
+    @Nullable
+    private Path linkFile;
+    @Nullable
+    private DataOutputStream links;
+    private int linkCount;
+    private int externalLinkCount;
+
+    /**
+     * Ouvre le fichier de destination.
+     *
+     * @param file          Le fichier.
+     * @param tempDirectory Dossier des fichiers temporaires, {@code null} pour le dossier par défaut du système.
+     * @param options       Options d'ouverture du fichier.
+     * @throws UncheckedIOException Si le fichier ne peut être ouvert.
+     */
+    public XlsbSink(Path file, @Nullable Path tempDirectory, OpenOption... options) {
+        this(openFile(file, options), tempDirectory);
+    }
+
+    /**
+     * Écrit dans un flux, par exemple la réponse d'une requête HTTP.
+     *
+     * @param out           Le flux, fermé par {@link #close()}.
+     * @param tempDirectory Dossier des fichiers temporaires, {@code null} pour le dossier par défaut du système.
+     */
+    public XlsbSink(OutputStream out, @Nullable Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, 1 << 16));
+        // L'intérêt du format est la vitesse: la compression rapide suffit pour des enregistrements déjà compacts.
+        zip.setLevel(Deflater.BEST_SPEED);
+        this.entryOut = new BufferedOutputStream(zip, 1 << 16);
+        this.out = new BiffWriter(entryOut);
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        beginSheet(name, Collections.nCopies(labels.size(), ""), labels, types);
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> groupLabels, List<String> labels, List<ValueType> types) {
+        endSheet();
+        sheetNames.add(name);
+        colCount = labels.size();
+        rowNum = 0;
+        linkCount = 0;
+        externalLinkCount = 0;
+        try {
+            zip.putNextEntry(new ZipEntry("xl/worksheets/" + sheetPart(sheetNames.size())));
+            inSheet = true;
+            out.record(BRT_BEGIN_SHEET);
+            writeColumnWidths(labels);
+            out.record(BRT_BEGIN_SHEET_DATA);
+
+            // Deux lignes d'entête, comme dans le classeur XLSX: les groupes de colonnes puis les libellés.
+            writeRowHeader();
+            writeGroupLabels(groupLabels);
+            ++rowNum;
+            writeRowHeader();
+            for (int col = 0; col < labels.size(); ++col) {
+                writeString(col, XlsbStyles.XF_HEADER, labels.get(col));
+            }
+            ++rowNum;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void beginRow() {
+        if (rowNum >= MAX_ROWS) {
+            throw new IllegalStateException("Sheet " + sheetNames.get(sheetNames.size() - 1)
+                + " exceeds the " + MAX_ROWS + " rows of an Excel worksheet");
+        }
+        try {
+            writeRowHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        try {
+            writeString(col, XlsbStyles.xfOf(kind), text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        try {
+            if (address == null || address.isEmpty()) {
+                writeString(col, XlsbStyles.XF_DEFAULT, label);
+                return;
+            }
+            writeString(col, XlsbStyles.XF_HYPERLINK, label);
+            DataOutputStream spool = openLinks();
+            spool.writeInt(rowNum);
+            spool.writeInt(col);
+            boolean external = kind == CellKind.HYPERLINK;
+            spool.writeBoolean(external);
+            String target = !external && address.startsWith("#") ? address.substring(1) : address;
+            spool.writeInt(target.length());
+            spool.writeChars(target);
+            ++linkCount;
+            if (external) ++externalLinkCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        try {
+            writeReal(col, XlsbStyles.xfOf(kind), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        // Même conversion que POI: la date est exprimée dans le fuseau horaire local, en jours depuis 1900.
+        double serial = (double) (epochMillis + timeZone.getOffset(epochMillis)) / MILLIS_PER_DAY + EPOCH_SERIAL;
+        try {
+            writeReal(col, XlsbStyles.XF_DATE, serial);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        try {
+            out.header(BRT_CELL_BOOL, 9);
+            out.writeCell(col, XlsbStyles.XF_DEFAULT);
+            out.writeByte(value ? 1 : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void endRow() {
+        ++rowNum;
+    }
+
+    @Override
+    public void endSheet() {
+        if (!inSheet) return;
+        inSheet = false;
+        try {
+            out.record(BRT_END_SHEET_DATA);
+            writeMergedGroups();
+            if (links != null) {
+                links.close();
+                links = null;
+                writeHyperlinks();
+            }
+            out.record(BRT_END_SHEET);
+            entryOut.flush();
+            zip.closeEntry();
+
+            if (externalLinkCount > 0) {
+                writeSheetRelationships();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteLinks();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            try {
+                endSheet();
+                zip.putNextEntry(new ZipEntry("xl/styles.bin"));
+                XlsbStyles.write(out);
+                entryOut.flush();
+                zip.closeEntry();
+
+                writeWorkbook();
+                writePackageParts();
+            } finally {
+                entryOut.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeColumnWidths(List<String> labels) throws IOException {
+        if (labels.isEmpty()) return;
+
+        out.record(BRT_BEGIN_COL_INFOS);
+        for (int col = 0; col < labels.size(); ++col) {
+            int width = Math.min(Math.max(labels.get(col).length(), 10) + 2, 60);
+            out.header(BRT_COL_INFO, 18);
+            out.writeInt(col);
+            out.writeInt(col);
+            out.writeInt(width << 8);
+            out.writeInt(XlsbStyles.XF_DEFAULT);
+            out.writeShort(0x02);
+        }
+        out.record(BRT_END_COL_INFOS);
+    }
+
+    /**
+     * Écrit les libellés des groupes sur la ligne courante et retient les groupes à fusionner: un groupe s'étend de
+     * sa première colonne jusqu'à la colonne qui précède le groupe suivant.
+     */
+    private void writeGroupLabels(List<String> groupLabels) throws IOException {
+        mergedGroups.clear();
+        int groupCol = -1;
+        for (int col = 0; col <= groupLabels.size(); ++col) {
+            if (col < groupLabels.size() && groupLabels.get(col).isEmpty()) continue;
+
+            if (groupCol >= 0 && col - 1 > groupCol) {
+                mergedGroups.add(new int[]{groupCol, col - 1});
+            }
+            if (col < groupLabels.size()) {
+                writeString(col, XlsbStyles.XF_HEADER, groupLabels.get(col));
+                groupCol = col;
+            }
+        }
+    }
+
+    private void writeMergedGroups() throws IOException {
+        if (mergedGroups.isEmpty()) return;
+
+        out.header(BRT_BEGIN_MERGE_CELLS, 4);
+        out.writeInt(mergedGroups.size());
+        for (int[] group : mergedGroups) {
+            out.header(BRT_MERGE_CELL, 16);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(group[0]);
+            out.writeInt(group[1]);
+        }
+        out.record(BRT_END_MERGE_CELLS);
+    }
+
+    /**
+     * Écrit l'entête de la ligne courante, avec ses plages de colonnes par bloc de 1024 colonnes.
+     */
+    private void writeRowHeader() throws IOException {
+        int spans = colCount == 0 ? 0 : (colCount - 1) / COLUMN_BLOCK + 1;
+        out.header(BRT_ROW_HDR, 17 + 8 * spans);
+        out.writeInt(rowNum);
+        out.writeInt(XlsbStyles.XF_DEFAULT);
+        out.writeShort(15 * 20);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeInt(spans);
+        for (int span = 0; span < spans; ++span) {
+            out.writeInt(span * COLUMN_BLOCK);
+            out.writeInt(Math.min(colCount, (span + 1) * COLUMN_BLOCK) - 1);
+        }
+    }
+
+    private void writeString(int col, int xf, String text) throws IOException {
+        String value = text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+        out.header(BRT_CELL_ST, 8 + BiffWriter.sizeOf(value));
+        out.writeCell(col, xf);
+        out.writeString(value);
+    }
+
+    private void writeReal(int col, int xf, double value) throws IOException {
+        out.header(BRT_CELL_REAL, 16);
+        out.writeCell(col, xf);
+        out.writeDouble(value);
+    }
+
+    private DataOutputStream openLinks() throws IOException {
+        if (links == null) {
+            linkFile = tempDirectory != null
+                ? Files.createTempFile(tempDirectory, "catalog-export-", ".links")
+                : Files.createTempFile("catalog-export-", ".links");
+            links = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(linkFile)));
+        }
+        return links;
+    }
+
+    private void writeHyperlinks() throws IOException {
+        int externalId = 0;
+        try (DataInputStream in = readLinks()) {
+            for (int i = 0; i < linkCount; ++i) {
+                int row = in.readInt();
+                int col = in.readInt();
+                boolean external = in.readBoolean();
+                String target = readString(in);
+
+                String relId = external ? "rId" + (++externalId) : "";
+                String location = external ? "" : target;
+                out.header(BRT_HLINK, 16 + BiffWriter.sizeOf(relId) + BiffWriter.sizeOf(location) + 2 * BiffWriter.sizeOf(""));
+                out.writeInt(row);
+                out.writeInt(row);
+                out.writeInt(col);
+                out.writeInt(col);
+                out.writeString(relId);
+                out.writeString(location);
+                out.writeString("");
+                out.writeString("");
+            }
+        }
+    }
+
+    private void writeSheetRelationships() throws IOException {
+        StringBuilder xml = new StringBuilder(256);
+        int externalId = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/_rels/" + sheetPart(sheetNames.size()) + ".rels"));
+        entryOut.write(bytes(xmlHeader() + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"));
+        try (DataInputStream in = readLinks()) {
+            for (int i = 0; i < linkCount; ++i) {
+                in.readInt();
+                in.readInt();
+                boolean external = in.readBoolean();
+                String target = readString(in);
+                if (!external) continue;
+
+                xml.setLength(0);
+                xml.append("<Relationship Id=\"rId").append(++externalId)
+                    .append("\" Type=\"").append(REL_NS).append("/hyperlink\" Target=\"").append(escape(target))
+                    .append("\" TargetMode=\"External\"/>");
+                entryOut.write(bytes(xml.toString()));
+            }
+        }
+        entryOut.write(bytes("</Relationships>"));
+        entryOut.flush();
+        zip.closeEntry();
+    }
+
+    private DataInputStream readLinks() throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(linkFile)));
+    }
+
+    private void deleteLinks() {
+        if (links != null) {
+            try {
+                links.close();
+            } catch (IOException ignored) {
+                // Le fichier est supprimé ci-dessous.
+            }
+            links = null;
+        }
+        if (linkFile != null) {
+            try {
+                Files.deleteIfExists(linkFile);
+            } catch (IOException ignored) {
+                // Fichier temporaire, tant pis.
+            }
+            linkFile = null;
+        }
+    }
+
+    private void writeWorkbook() throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/workbook.bin"));
+        out.record(BRT_BEGIN_BOOK);
+        out.record(BRT_BEGIN_BUNDLE_SHS);
+        for (int i = 0; i < sheetNames.size(); ++i) {
+            String relId = "rId" + (i + 1);
+            String name = sheetNames.get(i);
+            out.header(BRT_BUNDLE_SH, 8 + BiffWriter.sizeOf(relId) + BiffWriter.sizeOf(name));
+            out.writeInt(0);
+            out.writeInt(i + 1);
+            out.writeString(relId);
+            out.writeString(name);
+        }
+        out.record(BRT_END_BUNDLE_SHS);
+        out.record(BRT_END_BOOK);
+        entryOut.flush();
+        zip.closeEntry();
+    }
+
+    private void writePackageParts() throws IOException {
+        StringBuilder xml = new StringBuilder(1024);
+        xml.append(xmlHeader()).append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheetNames.size(); ++i) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(REL_NS)
+                .append("/worksheet\" Target=\"worksheets/").append(sheetPart(i)).append("\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetNames.size() + 1).append("\" Type=\"").append(REL_NS)
+            .append("/styles\" Target=\"styles.bin\"/>");
+        xml.append("</Relationships>");
+        writeEntry("xl/_rels/workbook.bin.rels", xml);
+
+        xml.setLength(0);
+        xml.append(xmlHeader()).append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+            .append("<Relationship Id=\"rId1\" Type=\"").append(REL_NS)
+            .append("/officeDocument\" Target=\"xl/workbook.bin\"/>")
+            .append("</Relationships>");
+        writeEntry("_rels/.rels", xml);
+
+        xml.setLength(0);
+        xml.append(xmlHeader()).append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+            .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+            .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+            .append("<Override PartName=\"/xl/workbook.bin\" ContentType=\"").append(CT_WORKBOOK).append("\"/>")
+            .append("<Override PartName=\"/xl/styles.bin\" ContentType=\"").append(CT_STYLES).append("\"/>");
+        for (int i = 1; i <= sheetNames.size(); ++i) {
+            xml.append("<Override PartName=\"/xl/worksheets/").append(sheetPart(i))
+                .append("\" ContentType=\"").append(CT_WORKSHEET).append("\"/>");
+        }
+        xml.append("</Types>");
+        writeEntry("[Content_Types].xml", xml);
+    }
+
+    private void writeEntry(String name, CharSequence content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        entryOut.write(bytes(content.toString()));
+        entryOut.flush();
+        zip.closeEntry();
+    }
+
+    private static OutputStream openFile(Path file, OpenOption... options) {
+        try {
+            return Files.newOutputStream(file, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String sheetPart(int sheetNum) {
+        return "sheet" + sheetNum + ".bin";
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; ++i) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+
+    private static String xmlHeader() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,236 @@
+package com.zeenea.cli.export.xlsb;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+import java.io.IOException;
+
+/**
+ * Feuille de styles d'un classeur XLSB ({@code xl/styles.bin}).
+ *
+ * <p>Les styles reprennent ceux d'{@link com.zeenea.cli.export.xlsx.ExportStyles}: entête principal sur fond
+ * coloré, identifiants en Consolas gris, dates, nombres entiers et décimaux formatés, descriptions renvoyées à la
+ * ligne et liens soulignés en bleu. Leurs indices sont fixes, ce qui évite toute table de correspondance lors de
+ * l'écriture des cellules.</p>
+ */
+final class XlsbStyles {
+    static final int XF_DEFAULT = 0;
+    static final int XF_HEADER = 1;
+    static final int XF_IDENTIFIANT = 2;
+    static final int XF_DATE = 3;
+    static final int XF_INTEGER = 4;
+    static final int XF_DECIMAL = 5;
+    static final int XF_DESCRIPTION = 6;
+    static final int XF_HYPERLINK = 7;
+
+    private static final int BRT_FONT = 43;
+    private static final int BRT_FMT = 44;
+    private static final int BRT_FILL = 45;
+    private static final int BRT_BORDER = 46;
+    private static final int BRT_XF = 47;
+    private static final int BRT_STYLE = 48;
+    private static final int BRT_BEGIN_STYLE_SHEET = 278;
+    private static final int BRT_END_STYLE_SHEET = 279;
+    private static final int BRT_BEGIN_DXFS = 505;
+    private static final int BRT_END_DXFS = 506;
+    private static final int BRT_BEGIN_TABLE_STYLES = 508;
+    private static final int BRT_END_TABLE_STYLES = 509;
+    private static final int BRT_BEGIN_FILLS = 603;
+    private static final int BRT_END_FILLS = 604;
+    private static final int BRT_BEGIN_FONTS = 611;
+    private static final int BRT_END_FONTS = 612;
+    private static final int BRT_BEGIN_BORDERS = 613;
+    private static final int BRT_END_BORDERS = 614;
+    private static final int BRT_BEGIN_FMTS = 615;
+    private static final int BRT_END_FMTS = 616;
+    private static final int BRT_BEGIN_CELL_XFS = 617;
+    private static final int BRT_END_CELL_XFS = 618;
+    private static final int BRT_BEGIN_STYLES = 619;
+    private static final int BRT_END_STYLES = 620;
+    private static final int BRT_BEGIN_CELL_STYLE_XFS = 626;
+    private static final int BRT_END_CELL_STYLE_XFS = 627;
+
+    private static final int FMT_DATE = 164;
+    private static final int FMT_INTEGER = 3;
+    private static final int FMT_DECIMAL = 4;
+
+    private static final int FONT_DEFAULT = 0;
+    private static final int FONT_BOLD = 1;
+    private static final int FONT_IDENTIFIANT = 2;
+    private static final int FONT_HYPERLINK = 3;
+
+    private static final int FILL_NONE = 0;
+    private static final int FILL_HEADER = 2;
+
+    private static final int MAIN_STYLE_BG_COLOR_INDEX = 50;
+    private static final int IDENTIFIANT_COLOR_INDEX = 22;
+
+    private static final int ALIGN_CENTER = 0x02;
+    private static final int VALIGN_BOTTOM = 0x10;
+    private static final int WRAP = 0x40;
+    private static final int LOCKED = 0x1000;
+
+    private static final int ATR_NUM = 0x01;
+    private static final int ATR_FONT = 0x02;
+    private static final int ATR_ALIGN = 0x04;
+    private static final int ATR_FILL = 0x10;
+
+    private XlsbStyles() {
+    }
+
+    /**
+     * Format de cellule associé à un type de cellule.
+     *
+     * @param kind Type de la cellule.
+     * @return L'indice du format de cellule.
+     */
+    static int xfOf(CellKind kind) {
+        switch (kind) {
+            case IDENTIFIANT:
+                return XF_IDENTIFIANT;
+            case DESCRIPTION:
+                return XF_DESCRIPTION;
+            case HYPERLINK:
+            case INTERNAL_LINK:
+                return XF_HYPERLINK;
+            case DATE:
+                return XF_DATE;
+            case INTEGER:
+                return XF_INTEGER;
+            case DECIMAL:
+                return XF_DECIMAL;
+            default:
+                return XF_DEFAULT;
+        }
+    }
+
+    /**
+     * Écrit la feuille de styles.
+     *
+     * @param out Flux de la partie {@code xl/styles.bin}.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    static void write(BiffWriter out) throws IOException {
+        out.record(BRT_BEGIN_STYLE_SHEET);
+
+        String dateFormat = "yyyy-mm-dd hh:mm:ss";
+        out.header(BRT_BEGIN_FMTS, 4);
+        out.writeInt(1);
+        out.header(BRT_FMT, 2 + BiffWriter.sizeOf(dateFormat));
+        out.writeShort(FMT_DATE);
+        out.writeString(dateFormat);
+        out.record(BRT_END_FMTS);
+
+        out.header(BRT_BEGIN_FONTS, 4);
+        out.writeInt(4);
+        writeFont(out, "Calibri", false, false, IndexedColors.BLACK.getIndex());
+        writeFont(out, "Calibri", true, false, IndexedColors.BLACK.getIndex());
+        writeFont(out, "Consolas", false, false, IDENTIFIANT_COLOR_INDEX);
+        writeFont(out, "Calibri", false, true, IndexedColors.BLUE.getIndex());
+        out.record(BRT_END_FONTS);
+
+        // Les deux premiers remplissages sont réservés par Excel: aucun et gris 12,5 %.
+        out.header(BRT_BEGIN_FILLS, 4);
+        out.writeInt(3);
+        writeFill(out, 0, -1);
+        writeFill(out, 17, -1);
+        writeFill(out, 1, MAIN_STYLE_BG_COLOR_INDEX);
+        out.record(BRT_END_FILLS);
+
+        out.header(BRT_BEGIN_BORDERS, 4);
+        out.writeInt(1);
+        out.header(BRT_BORDER, 51);
+        out.writeByte(0);
+        for (int i = 0; i < 5; ++i) {
+            out.writeShort(0);
+            out.writeAutoColor();
+        }
+        out.record(BRT_END_BORDERS);
+
+        out.header(BRT_BEGIN_CELL_STYLE_XFS, 4);
+        out.writeInt(1);
+        writeXf(out, 0xFFFF, 0, FONT_DEFAULT, FILL_NONE, 0, 0);
+        out.record(BRT_END_CELL_STYLE_XFS);
+
+        // L'ordre des formats suit les constantes XF_*.
+        out.header(BRT_BEGIN_CELL_XFS, 4);
+        out.writeInt(8);
+        writeXf(out, 0, 0, FONT_DEFAULT, FILL_NONE, 0, 0);
+        writeXf(out, 0, 0, FONT_BOLD, FILL_HEADER, ALIGN_CENTER, ATR_FONT | ATR_FILL | ATR_ALIGN);
+        writeXf(out, 0, 0, FONT_IDENTIFIANT, FILL_NONE, 0, ATR_FONT);
+        writeXf(out, 0, FMT_DATE, FONT_DEFAULT, FILL_NONE, 0, ATR_NUM);
+        writeXf(out, 0, FMT_INTEGER, FONT_DEFAULT, FILL_NONE, 0, ATR_NUM);
+        writeXf(out, 0, FMT_DECIMAL, FONT_DEFAULT, FILL_NONE, 0, ATR_NUM);
+        writeXf(out, 0, 0, FONT_DEFAULT, FILL_NONE, WRAP, ATR_ALIGN);
+        writeXf(out, 0, 0, FONT_HYPERLINK, FILL_NONE, 0, ATR_FONT);
+        out.record(BRT_END_CELL_XFS);
+
+        String normal = "Normal";
+        out.header(BRT_BEGIN_STYLES, 4);
+        out.writeInt(1);
+        out.header(BRT_STYLE, 8 + BiffWriter.sizeOf(normal));
+        out.writeInt(XF_DEFAULT);
+        out.writeShort(1);
+        out.writeByte(0);
+        out.writeByte(0xFF);
+        out.writeString(normal);
+        out.record(BRT_END_STYLES);
+
+        out.header(BRT_BEGIN_DXFS, 4);
+        out.writeInt(0);
+        out.record(BRT_END_DXFS);
+
+        String tableStyle = "TableStyleMedium9";
+        String pivotStyle = "PivotStyleLight16";
+        out.header(BRT_BEGIN_TABLE_STYLES, 4 + BiffWriter.sizeOf(tableStyle) + BiffWriter.sizeOf(pivotStyle));
+        out.writeInt(0);
+        out.writeString(tableStyle);
+        out.writeString(pivotStyle);
+        out.record(BRT_END_TABLE_STYLES);
+
+        out.record(BRT_END_STYLE_SHEET);
+    }
+
+    private static void writeFont(BiffWriter out, String name, boolean bold, boolean underline, int color) throws IOException {
+        out.header(BRT_FONT, 21 + BiffWriter.sizeOf(name));
+        out.writeShort(11 * 20);
+        out.writeShort(0);
+        out.writeShort(bold ? 700 : 400);
+        out.writeShort(0);
+        out.writeByte(underline ? 1 : 0);
+        out.writeByte(2);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeIndexedColor(color);
+        out.writeByte(0);
+        out.writeString(name);
+    }
+
+    private static void writeFill(BiffWriter out, int pattern, int foreground) throws IOException {
+        out.header(BRT_FILL, 68);
+        out.writeInt(pattern);
+        if (foreground >= 0) {
+            out.writeIndexedColor(foreground);
+        } else {
+            out.writeAutoColor();
+        }
+        out.writeAutoColor();
+        for (int i = 0; i < 12; ++i) {
+            out.writeInt(0);
+        }
+    }
+
+    private static void writeXf(BiffWriter out, int parent, int format, int font, int fill, int alignment, int applied) throws IOException {
+        out.header(BRT_XF, 16);
+        out.writeShort(parent);
+        out.writeShort(format);
+        out.writeShort(font);
+        out.writeShort(fill);
+        out.writeShort(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeShort(VALIGN_BOTTOM | LOCKED | alignment);
+        out.writeByte(applied);
+        out.writeByte(0);
+    }
+}
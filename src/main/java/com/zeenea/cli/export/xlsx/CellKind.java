@@ -0,0 +1,79 @@
+package com.zeenea.cli.export.xlsx;
+
+/**
+ * Type d'une cellule d'une {@link RowRecord ligne}.
+ *
+ * <p>Le type détermine la valeur portée par la cellule (texte ou nombre) et le {@link DataStyle style} appliqué
+ * lors de l'écriture.</p>
+ */
+public enum CellKind {
+    /**
+     * Cellule vide.
+     */
+    EMPTY(false, false),
+    /**
+     * Texte simple, sans style.
+     */
+    TEXT(false, false),
+    /**
+     * Identifiant d'un asset.
+     */
+    IDENTIFIANT(false, false),
+    /**
+     * Texte long, renvoyé à la ligne.
+     */
+    DESCRIPTION(false, false),
+    /**
+     * Lien hypertexte: le texte est le libellé, la valeur complémentaire est l'adresse.
+     */
+    HYPERLINK(false, true),
+    /**
+     * Lien vers une cellule du classeur, écrit sous forme de formule {@code HYPERLINK}: le texte est le libellé,
+     * la valeur complémentaire est l'adresse, par exemple {@code #'Dataset'!A12}.
+     */
+    INTERNAL_LINK(false, true),
+    /**
+     * Date, en millisecondes depuis l'epoch.
+     */
+    DATE(true, false),
+    /**
+     * Nombre entier.
+     */
+    INTEGER(true, false),
+    /**
+     * Nombre décimal.
+     */
+    DECIMAL(true, false),
+    /**
+     * Booléen: {@code 1} pour vrai, {@code 0} pour faux.
+     */
+    BOOLEAN(true, false);
+
+    private static final CellKind[] VALUES = values();
+
+    private final boolean numeric;
+    private final boolean extra;
+
+    CellKind(boolean numeric, boolean extra) {
+        this.numeric = numeric;
+        this.extra = extra;
+    }
+
+    /**
+     * @return {@code true} si la cellule porte une valeur numérique, {@code false} si elle porte un texte.
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * @return {@code true} si la cellule porte une valeur complémentaire en plus de son texte.
+     */
+    public boolean hasExtra() {
+        return extra;
+    }
+
+    static CellKind ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -8,11 +8,13 @@ package com.zeenea.cli.export.xlsx;
 public final class ColumnExport<T> {
     private final String label;
     private final int width;
+    private final ValueType type;
     private final ValueExporter<T> exporter;
 
     private ColumnExport(Builder<T> builder) {
         this.label = builder.label;
         this.width = builder.width;
+        this.type = builder.type;
         this.exporter = builder.exporter;
     }
 
@@ -34,6 +36,13 @@ public final class ColumnExport<T> {
         return width;
     }
 
+    /**
+     * @return Le type des valeurs de la colonne, {@link ValueType#TEXT} par défaut.
+     */
+    public ValueType getType() {
+        return type;
+    }
+
     /**
      * @return L'object qui permet d'exporter une valeur.
      */
@@ -54,6 +63,7 @@ public final class ColumnExport<T> {
     public static class Builder<T> {
         private String label;
         private int width = 0;
+        private ValueType type = ValueType.TEXT;
         private ValueExporter<T> exporter;
 
         public Builder<T> label(String label) {
@@ -66,6 +76,11 @@ public final class ColumnExport<T> {
             return this;
         }
 
+        public Builder<T> type(ValueType type) {
+            this.type = type;
+            return this;
+        }
+
         public Builder<T> exporter(ValueExporter<T> exporter) {
             this.exporter = exporter;
             return this;
@@ -0,0 +1,78 @@
+package com.zeenea.cli.export.xlsx;
+
+import java.util.BitSet;
+
+/**
+ * Occupation des colonnes d'une feuille: nombre de cellules remplies par colonne.
+ *
+ * <p>L'occupation est mise à jour par le {@link SheetExport} pour chaque ligne construite. Elle permet de retirer
+ * les colonnes vides de la feuille et de rendre compte du taux de remplissage des propriétés.</p>
+ */
+public final class ColumnOccupancy implements RowListener {
+    private final long[] counts;
+    private final BitSet occupied;
+    private long rowCount;
+
+    /**
+     * @param columnCount Nombre de colonnes de la feuille.
+     */
+    public ColumnOccupancy(int columnCount) {
+        this.counts = new long[columnCount];
+        this.occupied = new BitSet(columnCount);
+    }
+
+    @Override
+    public void onRow(RowRecord record) {
+        ++rowCount;
+        for (int col = 0; col < counts.length; ++col) {
+            if (!record.isEmpty(col)) {
+                ++counts[col];
+                occupied.set(col);
+            }
+        }
+    }
+
+    /**
+     * @return Le nombre de lignes observées.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Le nombre de colonnes de la feuille.
+     */
+    public int getColumnCount() {
+        return counts.length;
+    }
+
+    /**
+     * @param col Indice de la colonne.
+     * @return Le nombre de cellules remplies de la colonne.
+     */
+    public long getCount(int col) {
+        return counts[col];
+    }
+
+    /**
+     * @param col Indice de la colonne.
+     * @return Le taux de remplissage de la colonne, entre 0 et 1.
+     */
+    public double getFillRate(int col) {
+        return rowCount == 0 ? 0 : (double) counts[col] / rowCount;
+    }
+
+    /**
+     * @return Une copie de l'ensemble des indices des colonnes ayant au moins une cellule remplie.
+     */
+    public BitSet getOccupied() {
+        return (BitSet) occupied.clone();
+    }
+
+    /**
+     * @return Le nombre de colonnes sans aucune cellule remplie.
+     */
+    public int getEmptyCount() {
+        return counts.length - occupied.cardinality();
+    }
+}
@@ -0,0 +1,140 @@
+package com.zeenea.cli.export.xlsx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Estimation de la largeur d'affichage des colonnes d'une feuille à partir d'un échantillon de ses lignes.
+ *
+ * <p>L'échantillon est composé des premières lignes et d'un réservoir uniforme des lignes suivantes, de même
+ * taille. La largeur estimée d'une colonne est le 90<sup>e</sup> centile de la longueur d'affichage de ses cellules
+ * remplies, au moins celle du libellé de la colonne et au plus un plafond.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Seule la longueur d'affichage des cellules échantillonnées est conservée, dans un tableau d'entiers de taille
+ * fixe; le coût par ligne non échantillonnée est un tirage aléatoire. Le réservoir suit l'algorithme R de
+ * Vitter.</p>
+ */
+public final class ColumnWidthEstimator implements RowListener {
+    private static final int DATE_LENGTH = 19;
+    private static final int BOOLEAN_LENGTH = 5;
+    private static final int DESCRIPTION_MAX_WIDTH = 70;
+    private static final int MAX_WIDTH = 100;
+    private static final double PERCENTILE = 0.9;
+
+    private final int columnCount;
+    private final int headSize;
+    private final int[][] samples;
+    private final Random random = new Random(0x5EED);
+    private final boolean[] wrapped;
+    private int sampleCount;
+    private long rowCount;
+
+    /**
+     * @param columnCount Nombre de colonnes de la feuille.
+     * @param sampleSize  Nombre de premières lignes échantillonnées, et taille du réservoir des lignes suivantes.
+     */
+    public ColumnWidthEstimator(int columnCount, int sampleSize) {
+        this.columnCount = columnCount;
+        this.headSize = sampleSize;
+        this.samples = new int[2 * sampleSize][];
+        this.wrapped = new boolean[columnCount];
+    }
+
+    @Override
+    public void onRow(RowRecord record) {
+        ++rowCount;
+        int slot;
+        if (sampleCount < samples.length) {
+            slot = sampleCount++;
+        } else {
+            long pick = (long) (random.nextDouble() * (rowCount - headSize));
+            if (pick >= headSize) return;
+            slot = headSize + (int) pick;
+        }
+
+        int[] lengths = samples[slot];
+        if (lengths == null) {
+            lengths = new int[columnCount];
+            samples[slot] = lengths;
+        }
+        for (int col = 0; col < columnCount; ++col) {
+            lengths[col] = displayLength(record, col);
+            if (record.getKind(col) == CellKind.DESCRIPTION) {
+                wrapped[col] = true;
+            }
+        }
+    }
+
+    /**
+     * Largeur estimée d'une colonne.
+     *
+     * @param col      Indice de la colonne.
+     * @param minWidth Largeur minimale, par exemple la longueur du libellé de la colonne.
+     * @return La largeur en nombre de caractères.
+     */
+    public int estimate(int col, int minWidth) {
+        int[] lengths = new int[sampleCount];
+        int count = 0;
+        for (int i = 0; i < sampleCount; ++i) {
+            int length = samples[i][col];
+            if (length >= 0) lengths[count++] = length;
+        }
+        if (count == 0) return minWidth;
+
+        Arrays.sort(lengths, 0, count);
+        int percentile = lengths[(int) Math.ceil(PERCENTILE * count) - 1];
+        int maxWidth = wrapped[col] ? DESCRIPTION_MAX_WIDTH : MAX_WIDTH;
+        return Math.max(minWidth, Math.min(percentile, maxWidth));
+    }
+
+    /**
+     * @return Le nombre de lignes échantillonnées.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Longueur d'affichage d'une cellule: la plus longue ligne d'un texte, la longueur formatée d'un nombre.
+     *
+     * @return La longueur ou {@code -1} si la cellule est vide.
+     */
+    private static int displayLength(RowRecord record, int col) {
+        CellKind kind = record.getKind(col);
+        switch (kind) {
+            case EMPTY:
+                return -1;
+            case DATE:
+                return DATE_LENGTH;
+            case BOOLEAN:
+                return BOOLEAN_LENGTH;
+            case INTEGER:
+                return numberLength(record.getNumber(col), 0);
+            case DECIMAL:
+                return numberLength(record.getNumber(col), 3);
+            default:
+                return longestLine(record.getText(col));
+        }
+    }
+
+    private static int numberLength(double value, int fractionLength) {
+        long integer = Math.abs((long) value);
+        int digits = Long.toString(integer).length();
+        return digits + (digits - 1) / 3 + (value < 0 ? 1 : 0) + fractionLength;
+    }
+
+    private static int longestLine(String text) {
+        if (text == null) return 0;
+
+        int longest = 0;
+        int start = 0;
+        for (int i = 0; i <= text.length(); ++i) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                longest = Math.max(longest, i - start);
+                start = i + 1;
+            }
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,280 @@
+package com.zeenea.cli.export.xlsx;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.zeenea.cli.export.sort.ExternalRowSorter;
+import com.zeenea.cli.export.sort.SortSpec;
+import com.zeenea.cli.util.StringPool;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Export d'une feuille combinant les datasets et leurs champs.
+ *
+ * <p>Chaque dataset est suivi de ses champs. Les lignes des champs sont regroupées sous la ligne de leur dataset
+ * avec le plan Excel (<i>outline</i>), ce qui permet de les replier. Les colonnes des champs suivent celles des
+ * datasets, de sorte que les lignes des champs apparaissent en retrait.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les lignes construites par les exports des feuilles "Dataset" et "Field" sont reçues par des
+ * {@link RowListener observateurs}, sans nouvel appel à l'API. Elles sont triées par
+ * {@link RowRecord#getKey() clé}, le nom du dataset, avec deux {@link ExternalRowSorter tris externes}, puis
+ * fusionnées par une jointure. La mémoire utilisée reste bornée quelle que soit la taille du catalogue.</p>
+ *
+ * <p>Les champs dont le dataset n'a pas été exporté sont écrits sans regroupement, à leur place dans l'ordre des
+ * clés. Lorsque plusieurs datasets portent le même nom, les champs sont rattachés au premier.</p>
+ */
+@ParametersAreNonnullByDefault
+public final class CombinedSheetExport implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CombinedSheetExport.class);
+
+    private final String name;
+    private final Workbook workbook;
+    private final ExportStyles styles;
+    private final long sortMemory;
+    @Nullable
+    private final Path tempDirectory;
+    @Nullable
+    private final StringPool stringPool;
+
+    @Nullable
+    private SheetExport<?> datasetExport;
+    @Nullable
+    private SheetExport<?> fieldExport;
+    @Nullable
+    private ExternalRowSorter datasets;
+    @Nullable
+    private ExternalRowSorter fields;
+
+    private CombinedSheetExport(Builder builder) {
+        this.name = requireNonNull(builder.name);
+        this.workbook = requireNonNull(builder.workbook);
+        this.styles = requireNonNull(builder.styles);
+        this.sortMemory = builder.sortMemory;
+        this.tempDirectory = builder.tempDirectory;
+        this.stringPool = builder.stringPool;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Rattache l'export de la feuille des datasets.
+     * <p>Les lignes doivent avoir pour clé le nom du dataset.</p>
+     *
+     * @param export Export des datasets, avant l'export des résultats.
+     */
+    public void attachDatasets(SheetExport<?> export) {
+        ExternalRowSorter sorter = new ExternalRowSorter(
+            SortSpec.byKey().thenComparing(Comparator.comparingLong(RowRecord::getRank)),
+            export.getColumnCount(), sortMemory / 2, tempDirectory, stringPool);
+        this.datasetExport = export;
+        this.datasets = sorter;
+        export.addListener(sorter::add);
+    }
+
+    /**
+     * Rattache l'export de la feuille des champs.
+     * <p>Les lignes doivent avoir pour clé le nom du dataset du champ.</p>
+     *
+     * @param export     Export des champs, avant l'export des résultats.
+     * @param fieldOrder Ordre des champs d'un même dataset.
+     */
+    public void attachFields(SheetExport<?> export, SortSpec fieldOrder) {
+        ExternalRowSorter sorter = new ExternalRowSorter(
+            SortSpec.byKey().thenComparing(fieldOrder.comparator(export.getColumnLabels())),
+            export.getColumnCount(), sortMemory / 2, tempDirectory, stringPool);
+        this.fieldExport = export;
+        this.fields = sorter;
+        export.addListener(sorter::add);
+    }
+
+    /**
+     * Écrit la feuille combinée.
+     * <p>Cette méthode doit être appelée une fois les datasets et les champs exportés.</p>
+     *
+     * @throws IllegalStateException Si les exports des datasets et des champs n'ont pas été rattachés.
+     * @throws java.io.UncheckedIOException En cas d'erreur de lecture des fichiers temporaires du tri.
+     */
+    public void finish() {
+        if (datasetExport == null || fieldExport == null || datasets == null || fields == null) {
+            throw new IllegalStateException("Dataset and field exports must be attached before finishing " + name);
+        }
+
+        Sheet sheet = workbook.createSheet(name);
+        sheet.setRowSumsBelow(false);
+        RowRenderer renderer = new RowRenderer(workbook, styles);
+
+        Row groupHeaderRow = sheet.createRow(0);
+        Row headerRow = sheet.createRow(1);
+        int fieldCol = datasetExport.writeHeaders(sheet, groupHeaderRow, headerRow, 0);
+        fieldExport.writeHeaders(sheet, groupHeaderRow, headerRow, fieldCol);
+        writeSectionLabel(sheet, groupHeaderRow, 0, datasetExport.getMainSection().size(), datasetExport.getName());
+        writeSectionLabel(sheet, groupHeaderRow, fieldCol, fieldExport.getMainSection().size(), fieldExport.getName());
+
+        Comparator<RowRecord> byKey = SortSpec.byKey();
+        Iterator<RowRecord> datasetRows = datasets.sorted();
+        PeekingIterator<RowRecord> fieldRows = Iterators.peekingIterator(fields.sorted());
+        int rowNum = 2;
+        long datasetCount = 0;
+        long fieldCount = 0;
+        long orphanCount = 0;
+
+        while (datasetRows.hasNext()) {
+            RowRecord dataset = datasetRows.next();
+
+            while (fieldRows.hasNext() && byKey.compare(fieldRows.peek(), dataset) < 0) {
+                renderer.render(sheet.createRow(rowNum++), fieldRows.next(), fieldCol);
+                ++orphanCount;
+            }
+
+            renderer.render(sheet.createRow(rowNum++), dataset, 0);
+            ++datasetCount;
+
+            while (fieldRows.hasNext() && byKey.compare(fieldRows.peek(), dataset) == 0) {
+                renderer.render(sheet.createRow(rowNum), fieldRows.next(), fieldCol);
+                // Le regroupement est fait ligne par ligne, tant que la ligne est dans la fenêtre du classeur.
+                sheet.groupRow(rowNum, rowNum);
+                ++rowNum;
+                ++fieldCount;
+            }
+        }
+
+        while (fieldRows.hasNext()) {
+            renderer.render(sheet.createRow(rowNum++), fieldRows.next(), fieldCol);
+            ++orphanCount;
+        }
+
+        log.info("{} datasets and {} fields written to {}, {} fields without dataset",
+            datasetCount, fieldCount, name, orphanCount);
+        close();
+    }
+
+    private void writeSectionLabel(Sheet sheet, Row groupHeaderRow, int firstCol, int size, String label) {
+        if (size == 0) return;
+
+        Cell cell = groupHeaderRow.createCell(firstCol);
+        cell.setCellStyle(styles.getMainHeaderStyle());
+        cell.setCellValue(label);
+        if (size >= 2) {
+            int rowIdx = groupHeaderRow.getRowNum();
+            sheet.addMergedRegion(new CellRangeAddress(rowIdx, rowIdx, firstCol, firstCol + size - 1));
+        }
+    }
+
+    /**
+     * Libère les fichiers temporaires des tris.
+     */
+    @Override
+    public void close() {
+        if (datasets != null) {
+            datasets.close();
+            datasets = null;
+        }
+        if (fields != null) {
+            fields.close();
+            fields = null;
+        }
+    }
+
+    /**
+     * Monteur d'un {@link CombinedSheetExport}.
+     */
+    public static class Builder {
+        private String name;
+        private Workbook workbook;
+        private ExportStyles styles;
+        private long sortMemory = 64L << 20;
+        private Path tempDirectory;
+        private StringPool stringPool;
+
+        /**
+         * Nom de la feuille.
+         *
+         * @param name nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Classeur Excel.
+         *
+         * @param workbook la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder workbook(Workbook workbook) {
+            this.workbook = workbook;
+            return this;
+        }
+
+        /**
+         * Cache des styles associés
+         *
+         * @param styles la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder styles(ExportStyles styles) {
+            this.styles = styles;
+            return this;
+        }
+
+        /**
+         * Mémoire maximale utilisée par les deux tris avant d'écrire des fichiers temporaires.
+         *
+         * @param sortMemory la nouvelle valeur, en octets.
+         * @return ce monteur.
+         */
+        public Builder sortMemory(long sortMemory) {
+            this.sortMemory = sortMemory;
+            return this;
+        }
+
+        /**
+         * Dossier des fichiers temporaires.
+         *
+         * @param tempDirectory la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder tempDirectory(@Nullable Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * Table des instances canoniques des textes des lignes relues des tris.
+         *
+         * @param stringPool la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder stringPool(@Nullable StringPool stringPool) {
+            this.stringPool = stringPool;
+            return this;
+        }
+
+        /**
+         * Assemble l'export de la feuille combinée.
+         *
+         * @return la nouvelle instance.
+         */
+        public CombinedSheetExport build() {
+            return new CombinedSheetExport(this);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.zeenea.cli.export.xlsx;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Destination des lignes exportées: classeur Excel, fichiers CSV, flux NDJSON...
+ *
+ * <p>Un {@link SheetExport} transmet ses lignes à une ou plusieurs destinations, dans l'ordre suivant:</p>
+ * <ol>
+ *     <li>{@link #beginSheet(String, List, List, List)} au début de chaque feuille,</li>
+ *     <li>pour chaque ligne, {@link #beginRow()}, une écriture typée par cellule remplie, puis {@link #endRow()},</li>
+ *     <li>{@link #endSheet()} à la fin de chaque feuille,</li>
+ *     <li>{@link #close()} une fois toutes les feuilles exportées.</li>
+ * </ol>
+ *
+ * <p>Les cellules vides ne sont pas transmises. Une destination n'est utilisée que par un thread à la fois.</p>
+ *
+ * @see com.zeenea.cli.export.sink.AsyncSink
+ */
+public interface ExportSink extends AutoCloseable {
+    /**
+     * Début d'une feuille.
+     *
+     * @param name   Nom de la feuille.
+     * @param labels Libellés des colonnes.
+     * @param types  Types des valeurs des colonnes, dans le même ordre que les libellés.
+     */
+    void beginSheet(String name, List<String> labels, List<ValueType> types);
+
+    /**
+     * Début d'une feuille dont les colonnes sont regroupées.
+     * <p>Par défaut, les groupes sont ignorés et la feuille commence par
+     * {@link #beginSheet(String, List, List)}.</p>
+     *
+     * @param name        Nom de la feuille.
+     * @param groupLabels Libellés des groupes de colonnes, un par colonne: le libellé d'un groupe sur sa première
+     *                    colonne, une chaîne vide sur les autres colonnes et sur celles de la section principale.
+     * @param labels      Libellés des colonnes.
+     * @param types       Types des valeurs des colonnes, dans le même ordre que les libellés.
+     */
+    default void beginSheet(String name, List<String> groupLabels, List<String> labels, List<ValueType> types) {
+        beginSheet(name, labels, types);
+    }
+
+    /**
+     * Début d'une ligne.
+     */
+    void beginRow();
+
+    /**
+     * Écrit un texte.
+     *
+     * @param col  Indice de la colonne.
+     * @param kind Type de la cellule: {@link CellKind#TEXT}, {@link CellKind#IDENTIFIANT} ou
+     *             {@link CellKind#DESCRIPTION}.
+     * @param text Le texte.
+     */
+    void writeText(int col, CellKind kind, String text);
+
+    /**
+     * Écrit un lien.
+     *
+     * @param col     Indice de la colonne.
+     * @param kind    Type de la cellule: {@link CellKind#HYPERLINK} ou {@link CellKind#INTERNAL_LINK}.
+     * @param label   Libellé du lien.
+     * @param address Adresse du lien.
+     */
+    void writeLink(int col, CellKind kind, String label, @Nullable String address);
+
+    /**
+     * Écrit un nombre.
+     *
+     * @param col   Indice de la colonne.
+     * @param kind  Type de la cellule: {@link CellKind#INTEGER} ou {@link CellKind#DECIMAL}.
+     * @param value Le nombre.
+     */
+    void writeNumber(int col, CellKind kind, double value);
+
+    /**
+     * Écrit une date.
+     *
+     * @param col         Indice de la colonne.
+     * @param epochMillis La date, en millisecondes depuis l'epoch.
+     */
+    void writeDate(int col, long epochMillis);
+
+    /**
+     * Écrit un booléen.
+     *
+     * @param col   Indice de la colonne.
+     * @param value Le booléen.
+     */
+    void writeBoolean(int col, boolean value);
+
+    /**
+     * Fin d'une ligne.
+     */
+    void endRow();
+
+    /**
+     * Fin d'une feuille.
+     */
+    void endSheet();
+
+    /**
+     * Libère les ressources de la destination.
+     *
+     * @throws java.io.UncheckedIOException En cas d'erreur d'écriture.
+     */
+    @Override
+    void close();
+
+    /**
+     * Écrit une ligne complète, par des appels à {@link #beginRow()}, aux écritures typées et à {@link #endRow()}.
+     *
+     * @param row La ligne; elle n'est plus utilisée par la destination au retour de la méthode.
+     */
+    default void writeRow(RowRecord row) {
+        beginRow();
+        for (int col = 0; col < row.size(); ++col) {
+            CellKind kind = row.getKind(col);
+            switch (kind) {
+                case EMPTY:
+                    break;
+                case TEXT:
+                case IDENTIFIANT:
+                case DESCRIPTION:
+                    writeText(col, kind, row.getText(col));
+                    break;
+                case HYPERLINK:
+                case INTERNAL_LINK:
+                    writeLink(col, kind, row.getText(col), row.getExtra(col));
+                    break;
+                case DATE:
+                    writeDate(col, (long) row.getNumber(col));
+                    break;
+                case INTEGER:
+                case DECIMAL:
+                    writeNumber(col, kind, row.getNumber(col));
+                    break;
+                case BOOLEAN:
+                    writeBoolean(col, row.getNumber(col) != 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+        endRow();
+    }
+}
@@ -123,7 +123,7 @@ public final class ExportStyles {
     public CellStyle getPropertyHeaderStyle(int groupIdx) {
         int idx = groupIdx % PROPERTY_GROUP_STYLE_COLOR_INDEX.length;
         for (int i = propertyHeaderStyles.size(); i <= idx; ++i) {
-            propertyHeaderStyles.add(createStyleWithColor(workbook, PROPERTY_GROUP_STYLE_COLOR_INDEX[idx], headerFont));
+            propertyHeaderStyles.add(createStyleWithColor(workbook, PROPERTY_GROUP_STYLE_COLOR_INDEX[i], headerFont));
         }
         return propertyHeaderStyles.get(idx);
     }
@@ -139,7 +139,7 @@ public final class ExportStyles {
         for (int i = propertyGroupHeaderStyles.size(); i <= idx; ++i) {
             CellStyle style = workbook.createCellStyle();
             Font font = workbook.createFont();
-            short groupColor = PROPERTY_GROUP_STYLE_COLOR_INDEX[idx];
+            short groupColor = PROPERTY_GROUP_STYLE_COLOR_INDEX[i];
 
             font.setFontName("Consolas");
             font.setColor(groupColor);
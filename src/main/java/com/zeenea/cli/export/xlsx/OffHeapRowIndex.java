@@ -0,0 +1,219 @@
+package com.zeenea.cli.export.xlsx;
+
+import com.google.common.collect.ImmutableList;
+import com.zeenea.cli.util.Hash128Map;
+import com.zeenea.cli.util.OffHeapArena;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Index de quelques colonnes des lignes d'une feuille, par {@link RowRecord#getKey() clé}.
+ *
+ * <p>L'index est alimenté comme {@link RowListener observateur} d'un {@link SheetExport} pendant l'export de la
+ * feuille, puis interrogé pendant l'export d'une autre feuille, sans nouvel appel à l'API. Il sert par exemple à
+ * recopier des colonnes des datasets sur les lignes de leurs champs.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les cellules des colonnes retenues sont sérialisées avec {@link RowRecord#writeTo(java.io.DataOutput)} dans
+ * une {@link OffHeapArena zone hors du tas}. La clé est réduite à une empreinte de 128 bits, associée à l'adresse de
+ * l'entrée par une {@link Hash128Map table de primitifs}. Une entrée coûte ainsi une quarantaine d'octets sur le tas
+ * plus la taille de ses cellules hors du tas, soit plusieurs fois moins qu'une {@code HashMap} d'objets.</p>
+ *
+ * <p>La dernière ligne lue est conservée: les champs d'un même dataset arrivant généralement à la suite, la plupart
+ * des recherches ne décodent rien. Lorsque plusieurs lignes portent la même clé, la première est retenue.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ */
+@ParametersAreNonnullByDefault
+public final class OffHeapRowIndex implements RowListener {
+    private static final long MISSING = -1L;
+
+    private final List<String> labels;
+    private final int[] widths;
+    private final ValueType[] types;
+    private final int[] sourceCols;
+    private final Hash128Map addresses = new Hash128Map();
+    private final OffHeapArena arena = new OffHeapArena();
+
+    private final RowRecord projected;
+    private final RowRecord decoded;
+    private final EncodeBuffer encodeBuffer = new EncodeBuffer();
+    private final DataOutputStream encoder = new DataOutputStream(encodeBuffer);
+    private byte[] decodeBuffer = new byte[256];
+
+    @Nullable
+    private String lastKey;
+    private boolean lastFound;
+    private long duplicateCount;
+
+    private OffHeapRowIndex(List<String> labels, int[] widths, ValueType[] types, int[] sourceCols) {
+        this.labels = labels;
+        this.widths = widths;
+        this.types = types;
+        this.sourceCols = sourceCols;
+        this.projected = new RowRecord(labels.size());
+        this.decoded = new RowRecord(labels.size());
+    }
+
+    /**
+     * Crée un index de colonnes d'une feuille et l'attache à son export.
+     *
+     * @param export Export de la feuille, avant l'export des résultats.
+     * @param labels Libellés des colonnes à indexer, sans tenir compte de la casse.
+     * @return L'index.
+     * @throws IllegalArgumentException Si une colonne n'existe pas dans la feuille.
+     */
+    public static OffHeapRowIndex attach(SheetExport<?> export, List<String> labels) {
+        List<? extends ColumnExport<?>> columns = export.getColumns();
+        ImmutableList.Builder<String> resolvedLabels = ImmutableList.builder();
+        int[] widths = new int[labels.size()];
+        ValueType[] types = new ValueType[labels.size()];
+        int[] sourceCols = new int[labels.size()];
+        for (int i = 0; i < labels.size(); ++i) {
+            int col = indexOf(export.getColumnLabels(), labels.get(i));
+            if (col < 0) {
+                throw new IllegalArgumentException("Unknown " + export.getName() + " column \"" + labels.get(i)
+                    + "\", expected one of " + export.getColumnLabels());
+            }
+            resolvedLabels.add(columns.get(col).getLabel());
+            widths[i] = columns.get(col).getWidth();
+            types[i] = columns.get(col).getType();
+            sourceCols[i] = col;
+        }
+
+        OffHeapRowIndex index = new OffHeapRowIndex(resolvedLabels.build(), widths, types, sourceCols);
+        export.addListener(index);
+        return index;
+    }
+
+    private static int indexOf(List<String> labels, String label) {
+        for (int i = 0; i < labels.size(); ++i) {
+            if (labels.get(i).equalsIgnoreCase(label.trim())) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public void onRow(RowRecord record) {
+        String key = record.getKey();
+        if (key == null) return;
+
+        long[] fingerprint = Hash128Map.fingerprint(key);
+        if (addresses.get(fingerprint[0], fingerprint[1], MISSING) != MISSING) {
+            ++duplicateCount;
+            return;
+        }
+
+        projected.clear();
+        for (int i = 0; i < sourceCols.length; ++i) {
+            projected.copyCell(i, record, sourceCols[i]);
+        }
+        encodeBuffer.reset();
+        try {
+            projected.writeTo(encoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long address = arena.append(encodeBuffer.array(), encodeBuffer.size());
+        addresses.putIfAbsent(fingerprint[0], fingerprint[1], address);
+    }
+
+    /**
+     * Recherche les colonnes indexées d'une ligne.
+     * <p>La ligne retournée est réutilisée par l'index: elle reste valide jusqu'à la recherche suivante d'une autre
+     * clé.</p>
+     *
+     * @param key Clé de la ligne.
+     * @return Les colonnes de la ligne, dans l'ordre de {@link #getLabels()}, ou {@code null} si la clé est absente.
+     */
+    @Nullable
+    public RowRecord get(@Nullable String key) {
+        if (key == null) return null;
+        if (key.equals(lastKey)) return lastFound ? decoded : null;
+
+        long[] fingerprint = Hash128Map.fingerprint(key);
+        long address = addresses.get(fingerprint[0], fingerprint[1], MISSING);
+        lastKey = key;
+        lastFound = address != MISSING;
+        if (lastFound) {
+            int length = arena.length(address);
+            if (decodeBuffer.length < length) {
+                decodeBuffer = new byte[Math.max(length, decodeBuffer.length * 2)];
+            }
+            arena.read(address, decodeBuffer);
+            try {
+                decoded.readFrom(new DataInputStream(new ByteArrayInputStream(decodeBuffer, 0, length)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return lastFound ? decoded : null;
+    }
+
+    /**
+     * @return Les libellés des colonnes indexées, tels qu'ils apparaissent dans la feuille indexée.
+     */
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Taille minimale d'une colonne indexée, reprise de la feuille indexée.
+     *
+     * @param col Indice de la colonne dans l'index.
+     * @return La taille en nombre de caractères.
+     */
+    public int getWidth(int col) {
+        return widths[col];
+    }
+
+    /**
+     * Type des valeurs d'une colonne indexée, repris de la feuille indexée.
+     *
+     * @param col Indice de la colonne dans l'index.
+     * @return Le type.
+     */
+    public ValueType getType(int col) {
+        return types[col];
+    }
+
+    /**
+     * @return Le nombre de lignes indexées.
+     */
+    public int size() {
+        return addresses.size();
+    }
+
+    /**
+     * @return Le nombre de lignes ignorées car leur clé était déjà indexée.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Estimation de la mémoire occupée par l'index, sur le tas et hors du tas.
+     *
+     * @return Le nombre d'octets.
+     */
+    public long memoryUsage() {
+        return addresses.memoryUsage() + arena.getAllocatedBytes();
+    }
+
+    /**
+     * Tampon d'encodage dont le contenu est lu sans copie.
+     */
+    private static final class EncodeBuffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.zeenea.cli.export.xlsx;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Destination des lignes d'un {@link SheetExport} dans sa feuille Excel, écrites en XML par plusieurs threads.
+ *
+ * <p>Les lignes sont découpées en blocs de lignes consécutives. Chaque bloc est écrit en un fragment XML par
+ * {@link SheetXmlRenderer} dans le pool de {@link WorkbookRendering}, avec les numéros de ligne connus au découpage.
+ * Les fragments sont ajoutés dans leur ordre au fichier des lignes de la feuille par le thread de l'export, qui
+ * n'attend un fragment que lorsque le nombre de blocs en cours dépasse le double du nombre de threads.</p>
+ *
+ * <p>Les entêtes sont écrits dans la feuille par le {@link SheetExport}, au travers de POI; le fichier des lignes
+ * est inséré à la suite à l'écriture du classeur, par {@link WorkbookRendering#write}.</p>
+ */
+final class ParallelSheetSink implements ExportSink {
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final WorkbookRendering rendering;
+    private final String sheetName;
+    private final ExportStyles styles;
+    private final AtomicInteger rowCount;
+    private final ForkJoinPool pool;
+    private final int chunkRows;
+    private final int maxPending;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    @Nullable
+    private SheetXmlRenderer renderer;
+    private int columnCount;
+    private long rendered;
+    private List<RowRecord> chunk = new ArrayList<>();
+    private int chunkFirstRow;
+    @Nullable
+    private Path file;
+    @Nullable
+    private OutputStream out;
+    @Nullable
+    private RowRecord current;
+
+    /**
+     * @param rendering Rendu du classeur, qui fournit le pool et reçoit le fichier des lignes.
+     * @param sheetName Nom de la feuille.
+     * @param styles    Styles du classeur.
+     * @param rowCount  Numéro de la ligne courante de la feuille, tenu par l'export.
+     */
+    ParallelSheetSink(WorkbookRendering rendering, String sheetName, ExportStyles styles, AtomicInteger rowCount) {
+        this.rendering = rendering;
+        this.sheetName = sheetName;
+        this.styles = styles;
+        this.rowCount = rowCount;
+        this.pool = rendering.getPool();
+        this.chunkRows = rendering.getChunkRows();
+        this.maxPending = 2 * pool.getParallelism();
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        columnCount = labels.size();
+        renderer = new SheetXmlRenderer(styles, columnCount);
+        try {
+            file = rendering.createFragmentFile();
+            out = new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void beginRow() {
+        current = new RowRecord(columnCount);
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        currentRow().setText(col, kind, text);
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        if (kind == CellKind.INTERNAL_LINK && address != null) {
+            currentRow().setInternalLink(col, label, address);
+        } else {
+            currentRow().setHyperlink(col, label, address);
+        }
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        currentRow().setNumber(col, kind, value);
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        currentRow().setNumber(col, CellKind.DATE, epochMillis);
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        currentRow().setNumber(col, CellKind.BOOLEAN, value ? 1 : 0);
+    }
+
+    @Override
+    public void endRow() {
+        add(currentRow());
+        current = null;
+    }
+
+    /**
+     * Ajoute une copie de la ligne au bloc courant, sans passer par les écritures typées.
+     *
+     * @param row La ligne.
+     */
+    @Override
+    public void writeRow(RowRecord row) {
+        add(row.copy());
+    }
+
+    private void add(RowRecord row) {
+        if (chunk.isEmpty()) {
+            chunkFirstRow = rowCount.get();
+        }
+        chunk.add(row);
+        ++rendered;
+        if (chunk.size() >= chunkRows) {
+            submitChunk();
+        }
+    }
+
+    private void submitChunk() {
+        if (chunk.isEmpty()) return;
+
+        List<RowRecord> rows = chunk;
+        int firstRow = chunkFirstRow;
+        SheetXmlRenderer chunkRenderer = renderer;
+        pending.add(pool.submit(() -> chunkRenderer.render(rows, firstRow)));
+        chunk = new ArrayList<>(chunkRows);
+        while (pending.size() > maxPending) {
+            writeFragment(pending.poll());
+        }
+    }
+
+    private void writeFragment(Future<byte[]> fragment) {
+        try {
+            out.write(fragment.get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering sheet " + sheetName, e);
+        }
+    }
+
+    /**
+     * Écrit les blocs restants et transmet le fichier des lignes au rendu du classeur, s'il contient des lignes:
+     * une feuille reprise d'un export précédent n'en reçoit pas et reste telle que POI l'écrit.
+     */
+    @Override
+    public void endSheet() {
+        if (out == null) return;
+
+        submitChunk();
+        while (!pending.isEmpty()) {
+            writeFragment(pending.poll());
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        out = null;
+        if (rendered > 0) {
+            rendering.addFragment(sheetName, file);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Future<byte[]> fragment : pending) {
+            fragment.cancel(false);
+        }
+        pending.clear();
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    private RowRecord currentRow() {
+        if (current == null) throw new IllegalStateException("No row begun in sheet " + sheetName);
+        return current;
+    }
+}
@@ -0,0 +1,99 @@
+package com.zeenea.cli.export.xlsx;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Destination des lignes d'un {@link SheetExport} dans sa feuille Excel.
+ *
+ * <p>Les entêtes, avec leurs groupes de colonnes, sont écrits par le {@link SheetExport}: {@link #beginSheet} et
+ * {@link #endSheet()} n'ont pas d'effet. Chaque ligne est créée au numéro de ligne courant de l'export, que
+ * l'export fait avancer après chaque ligne.</p>
+ */
+final class PoiSheetSink implements ExportSink {
+    private final Sheet sheet;
+    private final RowRenderer renderer;
+    private final AtomicInteger rowCount;
+    @Nullable
+    private Row current;
+
+    /**
+     * @param sheet    Feuille de destination.
+     * @param renderer Écriture des cellules.
+     * @param rowCount Numéro de la ligne courante de la feuille, tenu par l'export.
+     */
+    PoiSheetSink(Sheet sheet, RowRenderer renderer, AtomicInteger rowCount) {
+        this.sheet = sheet;
+        this.renderer = renderer;
+        this.rowCount = rowCount;
+    }
+
+    @Override
+    public void beginSheet(String name, List<String> labels, List<ValueType> types) {
+        // Les entêtes sont écrits par SheetExport.
+    }
+
+    @Override
+    public void beginRow() {
+        current = sheet.createRow(rowCount.get());
+    }
+
+    @Override
+    public void writeText(int col, CellKind kind, String text) {
+        renderer.renderCell(currentRow(), col, kind, text, null, 0);
+    }
+
+    @Override
+    public void writeLink(int col, CellKind kind, String label, @Nullable String address) {
+        renderer.renderCell(currentRow(), col, kind, label, address, 0);
+    }
+
+    @Override
+    public void writeNumber(int col, CellKind kind, double value) {
+        renderer.renderCell(currentRow(), col, kind, null, null, value);
+    }
+
+    @Override
+    public void writeDate(int col, long epochMillis) {
+        renderer.renderCell(currentRow(), col, CellKind.DATE, null, null, epochMillis);
+    }
+
+    @Override
+    public void writeBoolean(int col, boolean value) {
+        renderer.renderCell(currentRow(), col, CellKind.BOOLEAN, null, null, value ? 1 : 0);
+    }
+
+    @Override
+    public void endRow() {
+        current = null;
+    }
+
+    @Override
+    public void endSheet() {
+        // La feuille appartient au classeur, écrit par l'appelant.
+    }
+
+    @Override
+    public void close() {
+        // Le classeur est libéré par l'appelant.
+    }
+
+    /**
+     * Écrit une ligne complète, sans passer par les écritures typées.
+     *
+     * @param row La ligne.
+     */
+    @Override
+    public void writeRow(RowRecord row) {
+        renderer.render(sheet.createRow(rowCount.get()), row, 0);
+    }
+
+    private Row currentRow() {
+        if (current == null) throw new IllegalStateException("No row begun in sheet " + sheet.getSheetName());
+        return current;
+    }
+}
@@ -0,0 +1,12 @@
+package com.zeenea.cli.export.xlsx;
+
+/**
+ * Observateur des lignes construites par un {@link SheetExport}.
+ *
+ * <p>L'observateur est appelé pour chaque ligne dans l'ordre des résultats de l'API, avant un éventuel tri.
+ * La ligne reçue est réutilisée par l'export: elle doit être copiée pour être conservée.</p>
+ */
+@FunctionalInterface
+public interface RowListener {
+    void onRow(RowRecord record);
+}
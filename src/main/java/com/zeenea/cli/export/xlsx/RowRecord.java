@@ -0,0 +1,295 @@
+package com.zeenea.cli.export.xlsx;
+
+import com.zeenea.cli.util.StringPool;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Représentation compacte et typée d'une ligne exportée.
+ *
+ * <p>Le {@link SheetExport.Writer} remplit une ligne par élément exporté. La ligne peut ensuite être écrite
+ * immédiatement dans la feuille Excel ou conservée, par exemple pour un tri, sous une forme binaire compacte
+ * ({@link #writeTo(DataOutput)} et {@link #readFrom(DataInput)}).</p>
+ *
+ * <p>En plus des cellules, une ligne porte une clé et un rang optionnels. Le rang est par défaut le numéro d'ordre
+ * de l'élément dans le flux d'export, ce qui rend les tris stables.</p>
+ *
+ * <p>Avec une {@link StringPool table de chaînes}, les textes des cellules, libellés des liens compris, sont
+ * remplacés par leur instance canonique quand ils sont écrits dans la ligne ou relus par
+ * {@link #readFrom(DataInput)}: les lignes gardées en mémoire partagent leurs valeurs répétées.</p>
+ */
+public final class RowRecord {
+    private final byte[] kinds;
+    private final String[] texts;
+    private final String[] extras;
+    private final double[] numbers;
+    @Nullable
+    private final StringPool stringPool;
+
+    @Nullable
+    private String key;
+    private long rank;
+
+    /**
+     * @param size Nombre de colonnes de la ligne.
+     */
+    public RowRecord(int size) {
+        this(size, null);
+    }
+
+    /**
+     * @param size       Nombre de colonnes de la ligne.
+     * @param stringPool Table des instances canoniques des textes, {@code null} pour garder les textes tels quels.
+     */
+    public RowRecord(int size, @Nullable StringPool stringPool) {
+        this.kinds = new byte[size];
+        this.texts = new String[size];
+        this.extras = new String[size];
+        this.numbers = new double[size];
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * @return Le nombre de colonnes de la ligne.
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * Type de la cellule d'une colonne.
+     *
+     * @param col Indice de la colonne.
+     * @return Le type.
+     */
+    public CellKind getKind(int col) {
+        return CellKind.ofOrdinal(kinds[col]);
+    }
+
+    /**
+     * @param col Indice de la colonne.
+     * @return {@code true} si la cellule est vide.
+     */
+    public boolean isEmpty(int col) {
+        return kinds[col] == 0;
+    }
+
+    /**
+     * Texte de la cellule, pour les types non numériques.
+     *
+     * @param col Indice de la colonne.
+     * @return Le texte ou {@code null}.
+     */
+    @Nullable
+    public String getText(int col) {
+        return texts[col];
+    }
+
+    /**
+     * Valeur complémentaire de la cellule, comme l'adresse d'un lien hypertexte.
+     *
+     * @param col Indice de la colonne.
+     * @return La valeur ou {@code null}.
+     */
+    @Nullable
+    public String getExtra(int col) {
+        return extras[col];
+    }
+
+    /**
+     * Valeur de la cellule, pour les types numériques.
+     *
+     * @param col Indice de la colonne.
+     * @return La valeur.
+     */
+    public double getNumber(int col) {
+        return numbers[col];
+    }
+
+    /**
+     * @return La clé de la ligne ou {@code null}.
+     */
+    @Nullable
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return Le rang de la ligne.
+     */
+    public long getRank() {
+        return rank;
+    }
+
+    void setKey(@Nullable String key) {
+        this.key = key;
+    }
+
+    void setRank(long rank) {
+        this.rank = rank;
+    }
+
+    void setText(int col, CellKind kind, String text) {
+        kinds[col] = (byte) kind.ordinal();
+        texts[col] = canonical(text);
+    }
+
+    void setHyperlink(int col, String label, @Nullable String address) {
+        kinds[col] = (byte) CellKind.HYPERLINK.ordinal();
+        texts[col] = canonical(label);
+        extras[col] = address;
+    }
+
+    void setInternalLink(int col, String label, String address) {
+        kinds[col] = (byte) CellKind.INTERNAL_LINK.ordinal();
+        texts[col] = canonical(label);
+        extras[col] = address;
+    }
+
+    /**
+     * Remplace les textes de la ligne par leur instance canonique, par exemple pour une ligne relue sans table de
+     * chaînes et gardée ensuite en mémoire.
+     *
+     * @param pool La table des instances canoniques.
+     */
+    public void canonicalize(StringPool pool) {
+        for (int col = 0; col < texts.length; ++col) {
+            texts[col] = pool.canonical(texts[col]);
+        }
+    }
+
+    @Nullable
+    private String canonical(@Nullable String text) {
+        return stringPool != null ? stringPool.canonical(text) : text;
+    }
+
+    void setNumber(int col, CellKind kind, double value) {
+        kinds[col] = (byte) kind.ordinal();
+        numbers[col] = value;
+    }
+
+    void copyCell(int col, RowRecord source, int sourceCol) {
+        kinds[col] = source.kinds[sourceCol];
+        texts[col] = source.texts[sourceCol];
+        extras[col] = source.extras[sourceCol];
+        numbers[col] = source.numbers[sourceCol];
+    }
+
+    /**
+     * Vide toutes les cellules de la ligne.
+     */
+    public void clear() {
+        Arrays.fill(kinds, (byte) 0);
+        Arrays.fill(texts, null);
+        Arrays.fill(extras, null);
+        key = null;
+        rank = 0;
+    }
+
+    /**
+     * Crée une copie indépendante de la ligne.
+     *
+     * @return La copie.
+     */
+    public RowRecord copy() {
+        RowRecord copy = new RowRecord(kinds.length, stringPool);
+        System.arraycopy(kinds, 0, copy.kinds, 0, kinds.length);
+        System.arraycopy(texts, 0, copy.texts, 0, texts.length);
+        System.arraycopy(extras, 0, copy.extras, 0, extras.length);
+        System.arraycopy(numbers, 0, copy.numbers, 0, numbers.length);
+        copy.key = key;
+        copy.rank = rank;
+        return copy;
+    }
+
+    /**
+     * Estimation de l'empreinte mémoire de la ligne.
+     *
+     * @return Le nombre d'octets estimé.
+     */
+    public long estimatedSize() {
+        long size = 64 + 21L * kinds.length;
+        for (int col = 0; col < kinds.length; ++col) {
+            if (texts[col] != null) size += 40 + 2L * texts[col].length();
+            if (extras[col] != null) size += 40 + 2L * extras[col].length();
+        }
+        if (key != null) size += 40 + 2L * key.length();
+        return size;
+    }
+
+    /**
+     * Écrit la ligne sous forme binaire.
+     *
+     * @param out Destination.
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeString(out, key);
+        out.writeLong(rank);
+        for (int col = 0; col < kinds.length; ++col) {
+            CellKind kind = CellKind.ofOrdinal(kinds[col]);
+            out.writeByte(kinds[col]);
+            if (kind == CellKind.EMPTY) continue;
+
+            if (kind.isNumeric()) {
+                out.writeDouble(numbers[col]);
+            } else {
+                writeString(out, texts[col]);
+                if (kind.hasExtra()) {
+                    writeString(out, extras[col]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Relit dans cette instance une ligne écrite par {@link #writeTo(DataOutput)}.
+     * <p>La ligne lue doit avoir le même nombre de colonnes que cette instance.</p>
+     *
+     * @param in Source.
+     * @throws IOException En cas d'erreur de lecture.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        key = readString(in);
+        rank = in.readLong();
+        for (int col = 0; col < kinds.length; ++col) {
+            kinds[col] = in.readByte();
+            CellKind kind = CellKind.ofOrdinal(kinds[col]);
+            if (kind == CellKind.EMPTY) continue;
+
+            if (kind.isNumeric()) {
+                numbers[col] = in.readDouble();
+            } else {
+                texts[col] = canonical(readString(in));
+                if (kind.hasExtra()) {
+                    extras[col] = readString(in);
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutput out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    @Nullable
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package com.zeenea.cli.export.xlsx;
+
+import org.apache.poi.common.usermodel.HyperlinkType;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+
+/**
+ * Écriture d'une {@link RowRecord ligne} dans une ligne de feuille Excel.
+ *
+ * <p>Le style de chaque cellule est déterminé par son {@link CellKind type}.</p>
+ */
+final class RowRenderer {
+    private final ExportStyles styles;
+    private final CreationHelper createHelper;
+
+    RowRenderer(Workbook workbook, ExportStyles styles) {
+        this.styles = styles;
+        this.createHelper = workbook.getCreationHelper();
+    }
+
+    /**
+     * Écrit les cellules d'une ligne.
+     *
+     * @param sheetRow  Ligne de la feuille Excel.
+     * @param row       Ligne à écrire.
+     * @param colOffset Indice de la colonne Excel de la première cellule.
+     */
+    void render(Row sheetRow, RowRecord row, int colOffset) {
+        for (int colIdx = 0; colIdx < row.size(); ++colIdx) {
+            renderCell(sheetRow, colOffset + colIdx, row.getKind(colIdx),
+                row.getText(colIdx), row.getExtra(colIdx), row.getNumber(colIdx));
+        }
+    }
+
+    /**
+     * Écrit une cellule.
+     *
+     * @param sheetRow Ligne de la feuille Excel.
+     * @param colIdx   Indice de la colonne Excel.
+     * @param kind     Type de la cellule.
+     * @param text     Texte de la cellule, pour les types non numériques.
+     * @param extra    Valeur complémentaire de la cellule, comme l'adresse d'un lien.
+     * @param number   Valeur de la cellule, pour les types numériques.
+     */
+    void renderCell(Row sheetRow, int colIdx, CellKind kind, @Nullable String text, @Nullable String extra, double number) {
+        if (kind == CellKind.EMPTY) return;
+
+        Cell cell = sheetRow.createCell(colIdx);
+        switch (kind) {
+            case TEXT:
+                cell.setCellValue(text);
+                break;
+            case IDENTIFIANT:
+                cell.setCellValue(text);
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.identifiantStyle));
+                break;
+            case DESCRIPTION:
+                cell.setCellValue(text);
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.descriptionStyle));
+                break;
+            case HYPERLINK:
+                cell.setCellValue(text);
+                Hyperlink link = createHelper.createHyperlink(HyperlinkType.URL);
+                link.setAddress(extra);
+                cell.setHyperlink(link);
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.hyperlinkStyle));
+                break;
+            case INTERNAL_LINK:
+                cell.setCellFormula("HYPERLINK(" + formulaString(extra) + "," + formulaString(text) + ")");
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.hyperlinkStyle));
+                break;
+            case DATE:
+                cell.setCellValue(new Date((long) number));
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.dateStyle));
+                break;
+            case INTEGER:
+                cell.setCellValue(number);
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+                break;
+            case DECIMAL:
+                cell.setCellValue(number);
+                cell.setCellStyle(styles.getDataCellStyle(DataStyle.decimalStyle));
+                break;
+            case BOOLEAN:
+                cell.setCellValue(number != 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String formulaString(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
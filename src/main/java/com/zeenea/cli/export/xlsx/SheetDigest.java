@@ -0,0 +1,102 @@
+package com.zeenea.cli.export.xlsx;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Empreinte SHA-256 du contenu d'une feuille, calculée au fil des lignes.
+ *
+ * <p>L'empreinte couvre la description de la feuille, fournie à la construction, puis chaque ligne dans son ordre
+ * d'arrivée, avec le type et la valeur de chaque cellule, et enfin la table des styles du classeur. Deux exports de
+ * même empreinte produisent la même feuille.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Les cellules d'une feuille désignent leur style par son indice dans la table des styles du classeur. Ces
+ * indices dépendent des styles créés avant eux, y compris par les autres feuilles: les bordures des groupes de
+ * colonnes sont par exemple des styles dérivés créés à la demande, dans l'ordre d'écriture des entêtes. La table
+ * est prise en compte telle qu'elle est quand la feuille est terminée: les styles créés ensuite s'y ajoutent sans
+ * changer les indices déjà utilisés par la feuille.</p>
+ */
+final class SheetDigest implements RowListener {
+    private final MessageDigest digest;
+    private final DataOutputStream out;
+
+    /**
+     * @param layout Description de la feuille: nom, colonnes, options qui modifient son contenu.
+     */
+    SheetDigest(String layout) {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+        try {
+            byte[] bytes = layout.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onRow(RowRecord row) {
+        try {
+            row.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ajoute à l'empreinte la table des styles du classeur, telle qu'elle serait écrite dans {@code xl/styles.xml}.
+     *
+     * @param workbook Le classeur de la feuille.
+     * @throws UncheckedIOException En cas d'erreur d'écriture de la table.
+     */
+    void onStyles(Workbook workbook) {
+        XSSFWorkbook xssf = workbook instanceof SXSSFWorkbook ? ((SXSSFWorkbook) workbook).getXSSFWorkbook()
+            : workbook instanceof XSSFWorkbook ? (XSSFWorkbook) workbook : null;
+        if (xssf == null) return;
+
+        try {
+            xssf.getStylesSource().writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Termine le calcul.
+     *
+     * @return L'empreinte en hexadécimal.
+     */
+    String finish() {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -1,38 +1,71 @@
 package com.zeenea.cli.export.xlsx;
 
 import com.google.common.collect.ImmutableList;
+import com.zeenea.cli.export.sort.ExternalRowSorter;
+import com.zeenea.cli.export.sort.SortSpec;
+import com.zeenea.cli.util.StringPool;
 import com.zeenea.client.api.StreamResult;
 import com.zeenea.client.api.asset.Description;
 import com.zeenea.client.api.id.Identifiant;
-import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.RegionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.annotation.ParametersAreNullableByDefault;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.time.Instant;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Export vers une feuille dans un classeur Excel.
  *
+ * <p>Chaque élément exporté est d'abord converti en une {@link RowRecord ligne} typée par les exporteurs de
+ * colonnes. La ligne est ensuite écrite dans la feuille, immédiatement ou, lorsqu'un tri est demandé, après être
+ * passée par un {@link ExternalRowSorter tri externe}. Dans ce dernier cas, les lignes ne sont écrites que par
+ * {@link #finish()}.</p>
+ *
+ * <p>Lorsque les colonnes vides doivent être retirées, les lignes sont mises en attente de la même façon: les
+ * entêtes et les lignes ne sont écrits que par {@link #finish()}, une fois l'{@link ColumnOccupancy occupation} des
+ * colonnes connue.</p>
+ *
+ * <p>Les lignes sont écrites au travers d'{@link ExportSink destinations}: la feuille Excel lorsqu'un classeur est
+ * fourni, et les destinations ajoutées au monteur, qui reçoivent ainsi les mêmes lignes sans nouvel appel à
+ * l'API.</p>
+ *
+ * <p>L'export doit être fermé pour libérer les fichiers temporaires éventuels.</p>
+ *
  * @param <T> Type de l'élément à exporter.
  */
 @ParametersAreNonnullByDefault
-public final class SheetExport<T> {
+public final class SheetExport<T> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(SheetExport.class);
+    private static final int MAX_FORMULA_STRING_LENGTH = 255;
+
     private final String name;
+    @Nullable
     private final Workbook workbook;
+    @Nullable
     private final Sheet sheet;
+    @Nullable
     private final ExportStyles styles;
 
     @Nullable
@@ -41,8 +74,40 @@ public final class SheetExport<T> {
     private final AtomicInteger rowCount = new AtomicInteger();
     private final List<ColumnExport<T>> mainSection;
     private final List<ColumnGroupExport<T>> groups;
+    private final List<ColumnExport<T>> columns;
+    private final List<String> labels;
+    private final List<ValueType> types;
+    private final RowRecord record;
+    @Nullable
+    private final Function<? super T, String> keyExtractor;
+    private final List<RowListener> listeners = new ArrayList<>();
+    @Nullable
+    private final SheetRowIndex rowIndex;
+    private final ColumnOccupancy occupancy;
+    @Nullable
+    private final ColumnWidthEstimator widthEstimator;
+    private final boolean pruneEmptyColumns;
+    @Nullable
+    private int[] keptColumns;
+    @Nullable
+    private RowRecord keptRecord;
 
-    private final CreationHelper createHelper;
+    @Nullable
+    private ExternalRowSorter sorter;
+
+    @Nullable
+    private final SheetDigest digest;
+    @Nullable
+    private final Predicate<String> reusable;
+    @Nullable
+    private String digestValue;
+    private boolean reused;
+
+    @Nullable
+    private final ExportSink sheetSink;
+    private final List<ExportSink> sinks;
+    @Nullable
+    private final StringPool stringPool;
 
     /**
      * Construit l'export vers une feuille de calcul.
@@ -58,28 +123,176 @@ public final class SheetExport<T> {
      */
     private SheetExport(Builder<T> builder) {
         this.name = requireNonNull(builder.name);
-        this.styles = requireNonNull(builder.styles);
-        this.mainSection = builder.mainSection.build();
+        this.styles = builder.workbook != null ? requireNonNull(builder.styles) : null;
+        this.mainSection = builder.mainSection.build().stream()
+            .filter(builder.columnFilter)
+            .collect(ImmutableList.toImmutableList());
         this.groups = builder.groups.build();
 
-        this.workbook = requireNonNull(builder.workbook);
-        this.sheet = builder.sheet != null ? builder.sheet : workbook.createSheet(builder.name);
+        ImmutableList.Builder<ColumnExport<T>> allColumns = ImmutableList.builder();
+        allColumns.addAll(mainSection);
+        for (ColumnGroupExport<T> group : groups) {
+            allColumns.addAll(group.getColumns());
+        }
+        this.columns = allColumns.build();
+        this.labels = columns.stream().map(ColumnExport::getLabel).collect(ImmutableList.toImmutableList());
+        this.types = columns.stream().map(ColumnExport::getType).collect(ImmutableList.toImmutableList());
+        this.stringPool = builder.stringPool;
+        this.record = new RowRecord(columns.size(), stringPool);
+        this.keyExtractor = builder.keyExtractor;
+        this.rowIndex = builder.rowIndex;
+        this.occupancy = new ColumnOccupancy(columns.size());
+        this.pruneEmptyColumns = builder.pruneEmptyColumns;
+        this.widthEstimator = builder.widthSampleSize > 0
+            ? new ColumnWidthEstimator(columns.size(), builder.widthSampleSize) : null;
+
+        if (builder.reusable != null && builder.workbook != null) {
+            this.digest = new SheetDigest(describeLayout(builder.contentSeed));
+            this.reusable = builder.reusable;
+        } else {
+            this.digest = null;
+            this.reusable = null;
+        }
+
+        if (!builder.sort.isEmpty()) {
+            this.sorter = new ExternalRowSorter(builder.sort.comparator(labels), columns.size(),
+                builder.sortMemory, builder.tempDirectory, stringPool);
+        } else if (pruneEmptyColumns || digest != null) {
+            // Mise en attente des lignes dans leur ordre d'arrivée.
+            this.sorter = new ExternalRowSorter(Comparator.comparingLong(RowRecord::getRank), columns.size(),
+                builder.sortMemory, builder.tempDirectory, stringPool);
+        }
+
+        this.workbook = builder.workbook;
+        if (workbook != null) {
+            this.sheet = builder.sheet != null ? builder.sheet : workbook.createSheet(builder.name);
+            this.sheetSink = builder.rendering != null
+                ? builder.rendering.sink(sheet.getSheetName(), styles, rowCount)
+                : new PoiSheetSink(sheet, new RowRenderer(workbook, styles), rowCount);
+        } else {
+            this.sheet = null;
+            this.sheetSink = null;
+        }
 
-        createHelper = workbook.getCreationHelper();
+        ImmutableList.Builder<ExportSink> allSinks = ImmutableList.builder();
+        if (sheetSink != null) {
+            allSinks.add(sheetSink);
+        }
+        this.sinks = allSinks.addAll(builder.sinks).build();
 
-        createHeaders();
+        if (!pruneEmptyColumns) {
+            createHeaders(null);
+        }
+    }
+
+    /**
+     * Décrit la disposition de la feuille pour son empreinte: nom, groupes et colonnes avec leur taille et leur type.
+     *
+     * @param contentSeed Options qui modifient le contenu de la feuille.
+     * @return La description.
+     */
+    private String describeLayout(String contentSeed) {
+        StringBuilder layout = new StringBuilder(name).append('\n').append(contentSeed).append('\n');
+        for (ColumnExport<T> column : mainSection) {
+            describeColumn(layout, column);
+        }
+        for (ColumnGroupExport<T> group : groups) {
+            layout.append('[').append(group.getLabel()).append("]\n");
+            for (ColumnExport<T> column : group.getColumns()) {
+                describeColumn(layout, column);
+            }
+        }
+        return layout.toString();
+    }
+
+    private static void describeColumn(StringBuilder layout, ColumnExport<?> column) {
+        layout.append(column.getLabel()).append('\t').append(column.getWidth()).append('\t').append(column.getType())
+            .append('\n');
     }
 
     /**
      * Créer les entêtes de la feuille.
+     *
+     * @param kept Indices des colonnes à écrire, {@code null} pour toutes les colonnes.
+     */
+    private void createHeaders(@Nullable BitSet kept) {
+        if (sheet != null) {
+            Row groupHeaderRow = sheet.createRow(rowCount.getAndIncrement());
+            Row headerRow = sheet.createRow(rowCount.getAndIncrement());
+            writeHeaders(sheet, groupHeaderRow, headerRow, 0, kept);
+        }
+
+        List<String> keptLabels = labels;
+        List<ValueType> keptTypes = types;
+        if (kept != null) {
+            keptLabels = kept.stream().mapToObj(labels::get).collect(ImmutableList.toImmutableList());
+            keptTypes = kept.stream().mapToObj(types::get).collect(ImmutableList.toImmutableList());
+        }
+        List<String> groupLabels = groupLabels(kept);
+        for (ExportSink sink : sinks) {
+            sink.beginSheet(name, groupLabels, keptLabels, keptTypes);
+        }
+    }
+
+    /**
+     * Libellés des groupes des colonnes écrites, tels qu'ils figurent sur la ligne des entêtes des groupes.
+     *
+     * @param kept Indices des colonnes écrites, {@code null} pour toutes les colonnes.
+     * @return Un libellé par colonne écrite: celui du groupe sur sa première colonne, une chaîne vide ailleurs.
+     */
+    private List<String> groupLabels(@Nullable BitSet kept) {
+        ImmutableList.Builder<String> groupLabels = ImmutableList.builder();
+        int sourceCol = 0;
+        for (int i = 0; i < mainSection.size(); ++i) {
+            if (kept == null || kept.get(sourceCol)) {
+                groupLabels.add("");
+            }
+            ++sourceCol;
+        }
+        for (ColumnGroupExport<T> group : groups) {
+            boolean first = true;
+            for (int i = 0; i < group.size(); ++i) {
+                if (kept == null || kept.get(sourceCol)) {
+                    groupLabels.add(first ? group.getLabel() : "");
+                    first = false;
+                }
+                ++sourceCol;
+            }
+        }
+        return groupLabels.build();
+    }
+
+    /**
+     * Écrit les entêtes des colonnes de cet export dans une feuille, à partir d'une colonne donnée.
+     *
+     * @param target         Feuille de destination.
+     * @param groupHeaderRow Ligne des entêtes des groupes de colonnes.
+     * @param headerRow      Ligne des entêtes des colonnes.
+     * @param firstCol       Indice de la première colonne.
+     * @return L'indice de la colonne qui suit la dernière colonne écrite.
      */
-    private void createHeaders() {
-        Row groupHeaderRow = sheet.createRow(rowCount.getAndIncrement());
-        Row headerRow = sheet.createRow(rowCount.getAndIncrement());
+    int writeHeaders(Sheet target, Row groupHeaderRow, Row headerRow, int firstCol) {
+        return writeHeaders(target, groupHeaderRow, headerRow, firstCol, null);
+    }
 
-        int colIdx = 0;
+    /**
+     * Écrit les entêtes d'une partie des colonnes de cet export dans une feuille, à partir d'une colonne donnée.
+     * <p>Les groupes dont aucune colonne n'est écrite sont omis.</p>
+     *
+     * @param target         Feuille de destination.
+     * @param groupHeaderRow Ligne des entêtes des groupes de colonnes.
+     * @param headerRow      Ligne des entêtes des colonnes.
+     * @param firstCol       Indice de la première colonne.
+     * @param kept           Indices des colonnes à écrire, {@code null} pour toutes les colonnes.
+     * @return L'indice de la colonne qui suit la dernière colonne écrite.
+     */
+    private int writeHeaders(Sheet target, Row groupHeaderRow, Row headerRow, int firstCol, @Nullable BitSet kept) {
+        int colIdx = firstCol;
+        int sourceCol = 0;
         for (ColumnExport<T> columnExport : mainSection) {
-            setColumnWidth(colIdx, columnExport);
+            if (kept != null && !kept.get(sourceCol++)) continue;
+
+            setColumnWidth(target, colIdx, columnExport);
             Cell cell = headerRow.createCell(colIdx);
             cell.setCellStyle(styles.getMainHeaderStyle());
             cell.setCellValue(columnExport.getLabel());
@@ -88,29 +301,36 @@ public final class SheetExport<T> {
 
         int groupIdx = 0;
         for (ColumnGroupExport<T> group : groups) {
-            if (group.isEmpty()) continue;
+            int groupFirstCol = sourceCol;
+            sourceCol += group.size();
+            int groupSize = kept == null ? group.size() : kept.get(groupFirstCol, sourceCol).cardinality();
+            if (groupSize == 0) continue;
 
             Cell groupCell = groupHeaderRow.createCell(colIdx);
             groupCell.setCellStyle(styles.getPropertyGroupHeaderStyle(groupIdx));
             groupCell.setCellValue(group.getLabel());
 
-            if (group.size() >= 2) {
-                CellRangeAddress groupRegion = new CellRangeAddress(0, 0, colIdx, colIdx + group.size() - 1);
-                sheet.addMergedRegion(groupRegion);
-                RegionUtil.setBorderTop(BorderStyle.MEDIUM, groupRegion, sheet);
-                RegionUtil.setBorderLeft(BorderStyle.MEDIUM, groupRegion, sheet);
-                RegionUtil.setBorderRight(BorderStyle.MEDIUM, groupRegion, sheet);
-                RegionUtil.setBorderBottom(BorderStyle.THIN, groupRegion, sheet);
+            if (groupSize >= 2) {
+                int groupRowIdx = groupHeaderRow.getRowNum();
+                CellRangeAddress groupRegion = new CellRangeAddress(groupRowIdx, groupRowIdx, colIdx, colIdx + groupSize - 1);
+                target.addMergedRegion(groupRegion);
+                RegionUtil.setBorderTop(BorderStyle.MEDIUM, groupRegion, target);
+                RegionUtil.setBorderLeft(BorderStyle.MEDIUM, groupRegion, target);
+                RegionUtil.setBorderRight(BorderStyle.MEDIUM, groupRegion, target);
+                RegionUtil.setBorderBottom(BorderStyle.THIN, groupRegion, target);
 
                 int groupColor = styles.getPropertyGroupColor(groupIdx);
-                RegionUtil.setTopBorderColor(groupColor, groupRegion, sheet);
-                RegionUtil.setLeftBorderColor(groupColor, groupRegion, sheet);
-                RegionUtil.setRightBorderColor(groupColor, groupRegion, sheet);
-                RegionUtil.setBottomBorderColor(groupColor, groupRegion, sheet);
+                RegionUtil.setTopBorderColor(groupColor, groupRegion, target);
+                RegionUtil.setLeftBorderColor(groupColor, groupRegion, target);
+                RegionUtil.setRightBorderColor(groupColor, groupRegion, target);
+                RegionUtil.setBottomBorderColor(groupColor, groupRegion, target);
             }
 
-            for (ColumnExport<T> columnExport : group.getColumns()) {
-                setColumnWidth(colIdx, columnExport);
+            for (int i = 0; i < group.size(); ++i) {
+                if (kept != null && !kept.get(groupFirstCol + i)) continue;
+
+                ColumnExport<T> columnExport = group.getColumns().get(i);
+                setColumnWidth(target, colIdx, columnExport);
                 Cell colCell = headerRow.createCell(colIdx);
                 colCell.setCellStyle(styles.getPropertyHeaderStyle(groupIdx));
                 colCell.setCellValue(columnExport.getLabel());
@@ -119,17 +339,19 @@ public final class SheetExport<T> {
 
             ++groupIdx;
         }
+        return colIdx;
     }
 
     /**
      * Défini la taille de la colonne depuis la définition de la colonne à exporter.
      *
+     * @param target       Feuille de destination.
      * @param colIdx       Indice de la colonne.
      * @param columnExport Définition de la colonne à exporté.
      */
-    private void setColumnWidth(int colIdx, ColumnExport<T> columnExport) {
+    private void setColumnWidth(Sheet target, int colIdx, ColumnExport<T> columnExport) {
         int length = Math.max(columnExport.getWidth(), columnExport.getLabel().length());
-        sheet.setColumnWidth(colIdx, Math.min(length + 2, 255) << 8);
+        target.setColumnWidth(colIdx, Math.min(length + 2, 255) << 8);
     }
 
     /**
@@ -138,26 +360,200 @@ public final class SheetExport<T> {
      * @param streamResult Le flux résultat de recherche.
      */
     public void export(StreamResult<T> streamResult) {
+        export(streamResult, item -> true);
+    }
+
+    /**
+     * Export le résutat d'une requête dans l'API Zeenea en ne retenant que les éléments acceptés par le filtre.
+     * <p>Le filtre est évalué avant la construction de la ligne.</p>
+     *
+     * @param streamResult Le flux résultat de recherche.
+     * @param filter       Filtre des éléments à exporter.
+     */
+    public void export(StreamResult<T> streamResult, Predicate<? super T> filter) {
         expectedItemCount = sum(expectedItemCount, streamResult.getEstimatedSize());
-        streamResult.getStream().forEach(item -> {
-            itemCount.incrementAndGet();
-            Row row = sheet.createRow(rowCount.getAndIncrement());
-
-            Writer writer = new Writer(row);
-            for (ColumnExport<T> columnExport : mainSection) {
-                columnExport.exportValue(writer, item);
-                writer.forward();
-            }
+        streamResult.getStream().filter(filter).forEach(this::exportItem);
+    }
+
+    /**
+     * Exporte un élément: construit sa ligne et la prend en charge.
+     *
+     * @param item L'élément.
+     */
+    public void exportItem(T item) {
+        record.clear();
+        record.setRank(itemCount.getAndIncrement());
+        if (keyExtractor != null) {
+            record.setKey(keyExtractor.apply(item));
+        }
 
-            for (ColumnGroupExport<T> group : groups) {
-                if (group.isEmpty()) continue;
+        Writer writer = new Writer(record);
+        for (ColumnExport<T> columnExport : columns) {
+            columnExport.exportValue(writer, item);
+            writer.forward();
+        }
 
-                for (ColumnExport<T> columnExport : group.getColumns()) {
-                    columnExport.exportValue(writer, item);
-                    writer.forward();
+        accept(record);
+    }
+
+    /**
+     * Reprend une ligne construite par un export précédent, par exemple relue d'un point de reprise.
+     * <p>La ligne est prise en charge comme une ligne construite, observateurs compris. Les lignes reprises doivent
+     * l'être dans leur ordre de construction et avant l'export des éléments suivants.</p>
+     *
+     * @param row La ligne, de même disposition que les lignes de cet export.
+     */
+    public void restore(RowRecord row) {
+        if (stringPool != null) {
+            row.canonicalize(stringPool);
+        }
+        itemCount.set(row.getRank() + 1);
+        accept(row);
+    }
+
+    /**
+     * Prend en charge une ligne construite: elle est écrite immédiatement ou transmise au tri.
+     *
+     * @param row La ligne.
+     */
+    private void accept(RowRecord row) {
+        occupancy.onRow(row);
+        if (digest != null) {
+            digest.onRow(row);
+        }
+        if (widthEstimator != null) {
+            widthEstimator.onRow(row);
+        }
+        for (RowListener listener : listeners) {
+            listener.onRow(row);
+        }
+
+        if (sorter != null) {
+            sorter.add(row);
+        } else {
+            writeRow(row);
+        }
+    }
+
+    /**
+     * Ajoute un observateur des lignes construites.
+     * <p>L'observateur doit être ajouté avant l'export des résultats.</p>
+     *
+     * @param listener L'observateur.
+     */
+    public void addListener(RowListener listener) {
+        listeners.add(requireNonNull(listener));
+    }
+
+    /**
+     * Termine l'export: écrit les entêtes s'ils ont été différés, puis les lignes en attente.
+     * <p>Cette méthode doit être appelée une fois tous les résultats exportés.</p>
+     *
+     * @throws java.io.UncheckedIOException En cas d'erreur de lecture des fichiers temporaires du tri.
+     */
+    public void finish() {
+        logOccupancy();
+        if (pruneEmptyColumns) {
+            BitSet kept = occupancy.getRowCount() == 0 ? null : occupancy.getOccupied();
+            if (kept != null && kept.cardinality() < columns.size()) {
+                keptColumns = kept.stream().toArray();
+                keptRecord = new RowRecord(keptColumns.length);
+            }
+            createHeaders(kept);
+        }
+        if (widthEstimator != null) {
+            applyEstimatedWidths();
+        }
+        if (digest != null && reusable != null) {
+            digest.onStyles(workbook);
+            digestValue = digest.finish();
+            reused = reusable.test(digestValue);
+            if (reused) {
+                log.info("{}: content unchanged since the previous export, sheet reused", name);
+            }
+        }
+        if (sorter != null) {
+            try {
+                Iterator<RowRecord> sorted = sorter.sorted();
+                while (sorted.hasNext()) {
+                    writeRow(sorted.next());
                 }
+            } finally {
+                sorter.close();
+                sorter = null;
+            }
+        }
+
+        for (ExportSink sink : sinks) {
+            sink.endSheet();
+        }
+    }
+
+    /**
+     * Remplace la largeur des colonnes écrites par leur largeur estimée.
+     */
+    private void applyEstimatedWidths() {
+        if (sheet == null || widthEstimator == null || widthEstimator.getSampleCount() == 0) return;
+
+        int writtenCount = keptColumns != null ? keptColumns.length : columns.size();
+        for (int colIdx = 0; colIdx < writtenCount; ++colIdx) {
+            int sourceCol = keptColumns != null ? keptColumns[colIdx] : colIdx;
+            int width = widthEstimator.estimate(sourceCol, labels.get(sourceCol).length());
+            sheet.setColumnWidth(colIdx, Math.min(width + 2, 255) << 8);
+        }
+    }
+
+    private void logOccupancy() {
+        if (occupancy.getEmptyCount() > 0) {
+            List<String> empty = new ArrayList<>();
+            for (int col = 0; col < columns.size(); ++col) {
+                if (occupancy.getCount(col) == 0) empty.add(labels.get(col));
+            }
+            log.info("{}: {} of {} columns empty{}: {}", name, empty.size(), columns.size(),
+                pruneEmptyColumns ? " and pruned" : "", empty);
+        }
+        if (log.isDebugEnabled()) {
+            for (int col = 0; col < columns.size(); ++col) {
+                log.debug("{}: column \"{}\" filled in {} rows ({}%)", name, labels.get(col),
+                    occupancy.getCount(col), Math.round(occupancy.getFillRate(col) * 1000) / 10.0);
             }
-        });
+        }
+    }
+
+    /**
+     * Libère les fichiers temporaires éventuels, sans écrire les lignes en attente.
+     */
+    @Override
+    public void close() {
+        if (sorter != null) {
+            sorter.close();
+            sorter = null;
+        }
+    }
+
+    /**
+     * Écrit une ligne dans la feuille de calcul et dans les autres destinations.
+     *
+     * @param row La ligne à écrire.
+     */
+    private void writeRow(RowRecord row) {
+        if (rowIndex != null) {
+            rowIndex.record(row.getKey(), rowCount.get());
+        }
+
+        RowRecord written = row;
+        if (keptColumns != null && keptRecord != null) {
+            for (int col = 0; col < keptColumns.length; ++col) {
+                keptRecord.copyCell(col, row, keptColumns[col]);
+            }
+            written = keptRecord;
+        }
+        for (ExportSink sink : sinks) {
+            // Une feuille réutilisée est reprise telle quelle de l'export précédent: POI n'en écrit que les entêtes.
+            if (reused && sink == sheetSink) continue;
+            sink.writeRow(written);
+        }
+        rowCount.incrementAndGet();
     }
 
     /**
@@ -231,73 +627,129 @@ public final class SheetExport<T> {
     }
 
     /**
-     * Classe utilitaire permettant à un exporteur de valeur d'écrire dans la cellule courante de la feuille Excel.
+     * Toutes les colonnes exportées, dans l'ordre des colonnes de la feuille.
+     *
+     * @return La liste des colonnes.
+     */
+    public List<ColumnExport<T>> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Empreinte SHA-256 du contenu de la feuille, disponible après {@link #finish()}.
+     *
+     * @return L'empreinte en hexadécimal, {@code null} si aucun {@link Builder#reusable(Predicate) test de
+     * réutilisation} n'est défini.
+     */
+    @Nullable
+    public String getDigest() {
+        return digestValue;
+    }
+
+    /**
+     * @return {@code true} si la feuille du classeur doit être reprise de l'export précédent.
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * Occupation des colonnes exportées, mise à jour à chaque ligne construite.
+     *
+     * @return L'occupation.
+     */
+    public ColumnOccupancy getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Nombre de colonnes exportées.
+     *
+     * @return Le nombre de colonnes.
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Libellés de toutes les colonnes exportées, dans l'ordre des colonnes de la feuille.
+     *
+     * @return La liste des libellés.
+     */
+    public List<String> getColumnLabels() {
+        return labels;
+    }
+
+    /**
+     * Classe utilitaire permettant à un exporteur de valeur d'écrire dans la cellule courante de la ligne exportée.
      */
     @ParametersAreNullableByDefault
     public class Writer {
-        private final Row row;
+        private final RowRecord row;
         private int colIdx = 0;
 
-        private Writer(@Nonnull Row row) {
+        private Writer(@Nonnull RowRecord row) {
             this.row = requireNonNull(row);
         }
 
         public void write(String value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value);
+                row.setText(colIdx, CellKind.TEXT, value);
             }
         }
 
         public <E extends Enum<? extends E>> void write(E value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value.toString());
+                row.setText(colIdx, CellKind.TEXT, value.toString());
             }
         }
 
+        /**
+         * Écrit un lien hypertexte. La cellule reste vide si le libellé ou l'adresse est absent.
+         *
+         * @param label   Libellé du lien.
+         * @param address Adresse du lien.
+         * @throws IllegalArgumentException Si l'adresse n'est pas une URI valide.
+         */
         public void writeHyperlink(String label, String address) {
-            if (label != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(label);
-
-                Hyperlink link = createHelper.createHyperlink(HyperlinkType.URL);
-                link.setAddress(address);
-                cell.setHyperlink(link);
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.hyperlinkStyle));
+            if (label != null && address != null) {
+                try {
+                    new URI(address);
+                } catch (URISyntaxException e) {
+                    throw new IllegalArgumentException("Address of hyperlink must be a valid URI", e);
+                }
+                row.setHyperlink(colIdx, label, address);
             }
         }
 
 
         public void write(Identifiant value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value.getUuid());
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.identifiantStyle));
+                row.setText(colIdx, CellKind.IDENTIFIANT, value.getUuid());
             }
         }
 
-        public void writeDescription(Description value) {
+        public void writeIdentifiant(String value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value.getText());
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.descriptionStyle));
+                row.setText(colIdx, CellKind.IDENTIFIANT, value);
+            }
+        }
+
+        public void writeDescription(Description value) {
+            if (value != null && value.getText() != null) {
+                row.setText(colIdx, CellKind.DESCRIPTION, value.getText());
             }
         }
 
         public void writeDescription(String value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value);
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.descriptionStyle));
+                row.setText(colIdx, CellKind.DESCRIPTION, value);
             }
         }
 
         public void write(Instant value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(Date.from(value));
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.dateStyle));
+                row.setNumber(colIdx, CellKind.DATE, value.toEpochMilli());
             }
         }
 
@@ -308,23 +760,17 @@ public final class SheetExport<T> {
         }
 
         public void write(int value) {
-            Cell cell = row.createCell(colIdx);
-            cell.setCellValue(value);
-            cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+            row.setNumber(colIdx, CellKind.INTEGER, value);
         }
 
         public void write(Long value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value);
-                cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+                row.setNumber(colIdx, CellKind.INTEGER, value);
             }
         }
 
         public void write(double value) {
-            Cell cell = row.createCell(colIdx);
-            cell.setCellValue(value);
-            cell.setCellStyle(styles.getDataCellStyle(DataStyle.decimalStyle));
+            row.setNumber(colIdx, CellKind.DECIMAL, value);
         }
 
         public void write(Double value) {
@@ -334,23 +780,45 @@ public final class SheetExport<T> {
         }
 
         public void write(boolean value) {
-            Cell cell = row.createCell(colIdx);
-            cell.setCellValue(value);
-//            cell.setCellStyle(styles.getDataCellStyle(DataStyle.booleanStyle));
+            row.setNumber(colIdx, CellKind.BOOLEAN, value ? 1 : 0);
         }
 
         public void write(BigDecimal value) {
             if (value != null) {
-                Cell cell = row.createCell(colIdx);
-                cell.setCellValue(value.doubleValue());
-                if (value.scale() > 0) {
-                    cell.setCellStyle(styles.getDataCellStyle(DataStyle.decimalStyle));
+                row.setNumber(colIdx, value.scale() > 0 ? CellKind.DECIMAL : CellKind.INTEGER, value.doubleValue());
+            }
+        }
+
+        /**
+         * Écrit un lien vers une cellule du classeur.
+         * <p>Le lien est écrit sous forme de formule {@code HYPERLINK}, qui ne coûte rien en mémoire contrairement
+         * aux liens hypertextes de POI. Le libellé est écrit comme un simple texte lorsque l'adresse est absente ou
+         * qu'il dépasse la longueur maximale d'une chaîne dans une formule.</p>
+         *
+         * @param label   Libellé du lien.
+         * @param address Adresse du lien, par exemple {@code #'Dataset'!A12}.
+         * @see SheetRowIndex#addressOf(String)
+         */
+        public void writeInternalLink(String label, String address) {
+            if (label != null) {
+                if (address != null && label.length() <= MAX_FORMULA_STRING_LENGTH) {
+                    row.setInternalLink(colIdx, label, address);
                 } else {
-                    cell.setCellStyle(styles.getDataCellStyle(DataStyle.integerStyle));
+                    row.setText(colIdx, CellKind.TEXT, label);
                 }
             }
         }
 
+        /**
+         * Recopie une cellule d'une autre ligne, avec son type.
+         *
+         * @param source Ligne source.
+         * @param col    Indice de la colonne dans la ligne source.
+         */
+        public void copy(@Nonnull RowRecord source, int col) {
+            row.copyCell(colIdx, source, col);
+        }
+
         private void forward() {
             ++colIdx;
         }
@@ -376,8 +844,21 @@ public final class SheetExport<T> {
         private Workbook workbook;
         private Sheet sheet;
         private ExportStyles styles;
+        private final List<ExportSink> sinks = new ArrayList<>();
         private ImmutableList.Builder<ColumnExport<T>> mainSection = ImmutableList.builder();
         private ImmutableList.Builder<ColumnGroupExport<T>> groups = ImmutableList.builder();
+        private Predicate<ColumnExport<T>> columnFilter = column -> true;
+        private SortSpec sort = SortSpec.parse(null);
+        private long sortMemory = 64L << 20;
+        private Path tempDirectory;
+        private Function<? super T, String> keyExtractor;
+        private SheetRowIndex rowIndex;
+        private boolean pruneEmptyColumns;
+        private int widthSampleSize;
+        private String contentSeed = "";
+        private Predicate<String> reusable;
+        private WorkbookRendering rendering;
+        private StringPool stringPool;
 
         /**
          * Nom de la feuille.
@@ -405,15 +886,56 @@ public final class SheetExport<T> {
 
         /**
          * Classeur Excel.
+         * <p>Sans classeur, les lignes ne sont transmises qu'aux destinations ajoutées par
+         * {@link #addSink(ExportSink)}.</p>
          *
          * @param workbook la nouvelle valeur.
          * @return ce monteur.
          */
-        public Builder<T> workbook(Workbook workbook) {
+        public Builder<T> workbook(@Nullable Workbook workbook) {
             this.workbook = workbook;
             return this;
         }
 
+        /**
+         * Écriture en parallèle des lignes de la feuille.
+         * <p>Par défaut, les lignes sont écrites dans la feuille par POI. Avec une écriture en parallèle, POI n'écrit
+         * que les entêtes et le classeur doit être écrit par {@link WorkbookRendering#write}.</p>
+         *
+         * @param rendering la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> rendering(@Nullable WorkbookRendering rendering) {
+            this.rendering = rendering;
+            return this;
+        }
+
+        /**
+         * Table des instances canoniques des textes des lignes.
+         * <p>Les textes des lignes construites, reprises ou relues du tri sont remplacés par leur instance
+         * canonique: les lignes gardées en mémoire, pour un tri ou une écriture différée, partagent leurs valeurs
+         * répétées.</p>
+         *
+         * @param stringPool la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> stringPool(@Nullable StringPool stringPool) {
+            this.stringPool = stringPool;
+            return this;
+        }
+
+        /**
+         * Ajoute une destination des lignes, en plus de la feuille Excel.
+         * <p>La destination reçoit les entêtes et les lignes de la feuille; elle n'est pas fermée par l'export.</p>
+         *
+         * @param sink la destination.
+         * @return ce monteur.
+         */
+        public Builder<T> addSink(ExportSink sink) {
+            this.sinks.add(requireNonNull(sink));
+            return this;
+        }
+
         /**
          * Cache des styles associés
          *
@@ -451,6 +973,152 @@ public final class SheetExport<T> {
             return this;
         }
 
+        /**
+         * Filtre des colonnes de la section principale.
+         * <p>Seules les colonnes acceptées par le filtre sont exportées. Par défaut, toutes les colonnes le sont.</p>
+         *
+         * @param columnFilter la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> columnFilter(Predicate<ColumnExport<T>> columnFilter) {
+            this.columnFilter = requireNonNull(columnFilter);
+            return this;
+        }
+
+        /**
+         * Clé des lignes de la feuille, par exemple le nom du dataset auquel se rattache l'élément.
+         * <p>La clé est portée par les {@link RowRecord lignes} et permet de les rapprocher d'une autre feuille.</p>
+         *
+         * @param keyExtractor la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> key(@Nullable Function<? super T, String> keyExtractor) {
+            this.keyExtractor = keyExtractor;
+            return this;
+        }
+
+        /**
+         * Index des numéros de ligne par clé, alimenté à l'écriture des lignes.
+         *
+         * @param rowIndex la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> rowIndex(@Nullable SheetRowIndex rowIndex) {
+            this.rowIndex = rowIndex;
+            return this;
+        }
+
+        /**
+         * Retire de la feuille les colonnes dont aucune cellule n'est remplie.
+         * <p>Les lignes sont alors mises en attente et écrites par {@link SheetExport#finish()}.</p>
+         *
+         * @param pruneEmptyColumns la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> pruneEmptyColumns(boolean pruneEmptyColumns) {
+            this.pruneEmptyColumns = pruneEmptyColumns;
+            return this;
+        }
+
+        /**
+         * Taille de l'échantillon de lignes utilisé pour estimer la largeur des colonnes.
+         * <p>Par défaut, {@code 0}: la largeur des colonnes est celle de leur définition.</p>
+         *
+         * @param widthSampleSize la nouvelle valeur.
+         * @return ce monteur.
+         * @see ColumnWidthEstimator
+         */
+        public Builder<T> widthSampleSize(int widthSampleSize) {
+            this.widthSampleSize = widthSampleSize;
+            return this;
+        }
+
+        /**
+         * Tri des lignes de la feuille.
+         * <p>Par défaut, les lignes sont écrites dans l'ordre des résultats de l'API.</p>
+         *
+         * @param sort la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> sort(SortSpec sort) {
+            this.sort = requireNonNull(sort);
+            return this;
+        }
+
+        /**
+         * Mémoire maximale utilisée par le tri avant d'écrire des fichiers temporaires.
+         *
+         * @param sortMemory la nouvelle valeur, en octets.
+         * @return ce monteur.
+         */
+        public Builder<T> sortMemory(long sortMemory) {
+            this.sortMemory = sortMemory;
+            return this;
+        }
+
+        /**
+         * Dossier des fichiers temporaires.
+         * <p>Par défaut, le dossier temporaire du système est utilisé.</p>
+         *
+         * @param tempDirectory la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder<T> tempDirectory(@Nullable Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * Description des options qui modifient le contenu de la feuille sans changer ses lignes, comme le tri ou le
+         * calcul de la largeur des colonnes; elle est incluse dans l'empreinte du contenu.
+         *
+         * @param contentSeed la nouvelle valeur.
+         * @return ce monteur.
+         * @see #reusable(Predicate)
+         */
+        public Builder<T> contentSeed(String contentSeed) {
+            this.contentSeed = contentSeed;
+            return this;
+        }
+
+        /**
+         * Test de réutilisation de la feuille d'un export précédent.
+         * <p>L'empreinte SHA-256 du contenu de la feuille est calculée pendant l'export, et soumise à ce test avant
+         * l'écriture des lignes dans le classeur. Si elle est acceptée, les lignes ne sont transmises qu'aux autres
+         * destinations: la feuille du classeur est reprise de l'export précédent. Les lignes sont mises en attente
+         * jusqu'au test.</p>
+         *
+         * @param reusable la nouvelle valeur, {@code null} pour toujours écrire la feuille.
+         * @return ce monteur.
+         * @see SheetExport#getDigest()
+         */
+        public Builder<T> reusable(@Nullable Predicate<String> reusable) {
+            this.reusable = reusable;
+            return this;
+        }
+
+        /**
+         * Crée un monteur de même disposition: nom, colonnes, clé, tri et mise en forme des colonnes.
+         * <p>Le classeur, la feuille, les destinations, l'index des lignes et le test de réutilisation ne sont pas
+         * repris. Le nouveau monteur permet d'écrire dans un autre classeur des lignes construites par cet export,
+         * avec {@link SheetExport#restore(RowRecord)}.</p>
+         *
+         * @return le nouveau monteur.
+         */
+        public Builder<T> copyLayout() {
+            Builder<T> copy = new Builder<>();
+            copy.name = name;
+            copy.mainSection.addAll(mainSection.build());
+            copy.groups.addAll(groups.build());
+            copy.columnFilter = columnFilter;
+            copy.sort = sort;
+            copy.sortMemory = sortMemory;
+            copy.tempDirectory = tempDirectory;
+            copy.keyExtractor = keyExtractor;
+            copy.pruneEmptyColumns = pruneEmptyColumns;
+            copy.widthSampleSize = widthSampleSize;
+            return copy;
+        }
 
         /**
          * Assemble une nouvelle version d'export de feuille de calcul.
@@ -0,0 +1,98 @@
+package com.zeenea.cli.export.xlsx;
+
+import com.zeenea.cli.util.Hash128Map;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Index des numéros de ligne d'une feuille, par {@link RowRecord#getKey() clé}.
+ *
+ * <p>L'index est alimenté par un {@link SheetExport} au moment où les lignes sont écrites, donc après un éventuel
+ * tri. Il permet à l'export d'une autre feuille de construire des liens internes vers ces lignes, avec
+ * {@link SheetExport.Writer#writeInternalLink(String, String)}.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>La clé est réduite à une empreinte de 128 bits dans une {@link Hash128Map table de primitifs}: une entrée
+ * coûte une quarantaine d'octets, sans objet. Lorsque plusieurs lignes portent la même clé, la première est
+ * retenue.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ */
+@ParametersAreNonnullByDefault
+public final class SheetRowIndex {
+    private static final long MISSING = -1L;
+
+    private final String sheetName;
+    private final String addressPrefix;
+    private final Hash128Map rows = new Hash128Map();
+
+    /**
+     * @param sheetName Nom de la feuille indexée.
+     */
+    public SheetRowIndex(String sheetName) {
+        this.sheetName = sheetName;
+        this.addressPrefix = "#'" + sheetName.replace("'", "''") + "'!A";
+    }
+
+    /**
+     * Enregistre le numéro de ligne d'une clé.
+     *
+     * @param key    Clé de la ligne.
+     * @param rowNum Numéro de la ligne dans la feuille, à partir de 0.
+     */
+    void record(@Nullable String key, int rowNum) {
+        if (key == null) return;
+
+        long[] fingerprint = Hash128Map.fingerprint(key);
+        rows.putIfAbsent(fingerprint[0], fingerprint[1], rowNum);
+    }
+
+    /**
+     * Numéro de la ligne d'une clé.
+     *
+     * @param key Clé de la ligne.
+     * @return Le numéro de la ligne à partir de 0, ou {@code -1} si la clé est absente.
+     */
+    public int rowOf(@Nullable String key) {
+        if (key == null) return -1;
+
+        long[] fingerprint = Hash128Map.fingerprint(key);
+        return (int) rows.get(fingerprint[0], fingerprint[1], MISSING);
+    }
+
+    /**
+     * Adresse d'un lien interne vers la ligne d'une clé, par exemple {@code #'Dataset'!A12}.
+     *
+     * @param key Clé de la ligne.
+     * @return L'adresse ou {@code null} si la clé est absente.
+     */
+    @Nullable
+    public String addressOf(@Nullable String key) {
+        int rowNum = rowOf(key);
+        return rowNum < 0 ? null : addressPrefix + (rowNum + 1);
+    }
+
+    /**
+     * @return Le nom de la feuille indexée.
+     */
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * @return Le nombre de lignes indexées.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Estimation de la mémoire occupée par l'index.
+     *
+     * @return Le nombre d'octets.
+     */
+    public long memoryUsage() {
+        return rows.memoryUsage();
+    }
+}
@@ -0,0 +1,255 @@
+package com.zeenea.cli.export.xlsx;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Écriture de {@link RowRecord lignes} en fragments XML SpreadsheetML, les éléments {@code <row>} de la partie
+ * {@code sheetData} d'une feuille.
+ *
+ * <p>Le XML produit est celui qu'écrit POI pour les mêmes cellules, chaînes incluses dans les cellules
+ * ({@code inlineStr}), à une exception: les liens hypertextes vers une URL sont écrits, comme les liens internes,
+ * sous forme de formule {@code HYPERLINK}, car un fragment ne peut ajouter de relation à la feuille. Un lien dont
+ * l'adresse ou le libellé dépasse la longueur d'une chaîne de formule est écrit comme un texte.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le rendu est appelé en parallèle par plusieurs threads. Les références des colonnes et les indices des styles
+ * sont calculés à la construction; chaque thread encode ses fragments en UTF-8 dans un tampon qui lui est propre et
+ * réutilisé d'un fragment à l'autre.</p>
+ */
+final class SheetXmlRenderer {
+    private static final int MAX_FORMULA_STRING_LENGTH = 255;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final byte[][] columnRefs;
+    private final String[] styleAttributes;
+
+    /**
+     * @param styles      Styles du classeur, dont les indices sont repris.
+     * @param columnCount Nombre maximal de colonnes des lignes.
+     */
+    SheetXmlRenderer(ExportStyles styles, int columnCount) {
+        this.columnRefs = new byte[columnCount][];
+        for (int col = 0; col < columnCount; ++col) {
+            columnRefs[col] = columnName(col).getBytes(StandardCharsets.US_ASCII);
+        }
+        this.styleAttributes = new String[CellKind.values().length];
+        styleAttributes[CellKind.IDENTIFIANT.ordinal()] = styleAttribute(styles, DataStyle.identifiantStyle);
+        styleAttributes[CellKind.DESCRIPTION.ordinal()] = styleAttribute(styles, DataStyle.descriptionStyle);
+        styleAttributes[CellKind.HYPERLINK.ordinal()] = styleAttribute(styles, DataStyle.hyperlinkStyle);
+        styleAttributes[CellKind.INTERNAL_LINK.ordinal()] = styleAttribute(styles, DataStyle.hyperlinkStyle);
+        styleAttributes[CellKind.DATE.ordinal()] = styleAttribute(styles, DataStyle.dateStyle);
+        styleAttributes[CellKind.INTEGER.ordinal()] = styleAttribute(styles, DataStyle.integerStyle);
+        styleAttributes[CellKind.DECIMAL.ordinal()] = styleAttribute(styles, DataStyle.decimalStyle);
+    }
+
+    private static String styleAttribute(ExportStyles styles, DataStyle dataStyle) {
+        int index = styles.getDataCellStyle(dataStyle).getIndex() & 0xffff;
+        return index == 0 ? "" : " s=\"" + index + "\"";
+    }
+
+    /**
+     * Nom d'une colonne Excel: {@code A}, ..., {@code Z}, {@code AA}...
+     *
+     * @param col Indice de la colonne.
+     * @return Le nom.
+     */
+    static String columnName(int col) {
+        StringBuilder name = new StringBuilder();
+        for (int n = col + 1; n > 0; n = (n - 1) / 26) {
+            name.append((char) ('A' + (n - 1) % 26));
+        }
+        return name.reverse().toString();
+    }
+
+    /**
+     * Écrit des lignes consécutives.
+     *
+     * @param rows         Les lignes.
+     * @param firstRowNum  Numéro de la première ligne dans la feuille, à partir de {@code 0}.
+     * @return Le fragment XML, en UTF-8.
+     */
+    byte[] render(List<RowRecord> rows, int firstRowNum) {
+        Scratch out = SCRATCH.get();
+        out.reset();
+        for (int i = 0; i < rows.size(); ++i) {
+            renderRow(out, rows.get(i), Integer.toString(firstRowNum + i + 1));
+        }
+        return out.toByteArray();
+    }
+
+    private void renderRow(Scratch out, RowRecord row, String rowRef) {
+        out.ascii("<row r=\"").ascii(rowRef).ascii("\">");
+        for (int col = 0; col < row.size(); ++col) {
+            CellKind kind = row.getKind(col);
+            if (kind == CellKind.EMPTY) continue;
+
+            out.ascii("<c r=\"").bytes(columnRefs[col]).ascii(rowRef).ascii("\"");
+            if (styleAttributes[kind.ordinal()] != null) {
+                out.ascii(styleAttributes[kind.ordinal()]);
+            }
+            switch (kind) {
+                case TEXT:
+                case IDENTIFIANT:
+                case DESCRIPTION:
+                    inlineString(out, row.getText(col));
+                    break;
+                case HYPERLINK:
+                case INTERNAL_LINK:
+                    link(out, row.getText(col), row.getExtra(col));
+                    break;
+                case DATE:
+                    number(out, DateUtil.getExcelDate(new Date((long) row.getNumber(col))));
+                    break;
+                case INTEGER:
+                case DECIMAL:
+                    number(out, row.getNumber(col));
+                    break;
+                case BOOLEAN:
+                    out.ascii(" t=\"b\"><v>").ascii(row.getNumber(col) != 0 ? "1" : "0").ascii("</v>");
+                    break;
+                default:
+                    out.ascii(">");
+                    break;
+            }
+            out.ascii("</c>");
+        }
+        out.ascii("</row>\n");
+    }
+
+    private static void inlineString(Scratch out, String text) {
+        out.ascii(" t=\"inlineStr\"><is><t");
+        if (!text.isEmpty() && (Character.isWhitespace(text.charAt(0))
+            || Character.isWhitespace(text.charAt(text.length() - 1)))) {
+            out.ascii(" xml:space=\"preserve\"");
+        }
+        out.ascii(">").text(text).ascii("</t></is>");
+    }
+
+    private static void link(Scratch out, String label, String address) {
+        if (address == null || address.length() > MAX_FORMULA_STRING_LENGTH || label.length() > MAX_FORMULA_STRING_LENGTH) {
+            inlineString(out, label);
+            return;
+        }
+        out.ascii(" t=\"str\"><f>HYPERLINK(")
+            .text(formulaString(address)).ascii(",").text(formulaString(label))
+            .ascii(")</f><v>").text(label).ascii("</v>");
+    }
+
+    private static void number(Scratch out, double value) {
+        out.ascii(" t=\"n\"><v>").ascii(Double.toString(value)).ascii("</v>");
+    }
+
+    private static String formulaString(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Tampon d'encodage d'un thread.
+     */
+    private static final class Scratch {
+        private byte[] buffer = new byte[64 * 1024];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+
+        Scratch bytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, length, value.length);
+            length += value.length;
+            return this;
+        }
+
+        Scratch ascii(String value) {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); ++i) {
+                buffer[length++] = (byte) value.charAt(i);
+            }
+            return this;
+        }
+
+        /**
+         * Ajoute un texte échappé pour XML, comme POI: les caractères interdits en XML 1.0 sont remplacés par
+         * {@code ?}.
+         */
+        Scratch text(String value) {
+            ensure(value.length() * 3);
+            for (int i = 0; i < value.length(); ++i) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '<':
+                        ascii("&lt;");
+                        break;
+                    case '>':
+                        ascii("&gt;");
+                        break;
+                    case '&':
+                        ascii("&amp;");
+                        break;
+                    case '"':
+                        ascii("&quot;");
+                        break;
+                    case '\n':
+                        ascii("&#xa;");
+                        break;
+                    case '\r':
+                        ascii("&#xd;");
+                        break;
+                    case '\t':
+                        ascii("&#x9;");
+                        break;
+                    default:
+                        if (c < 0x20 || c == 0xfffe || c == 0xffff) {
+                            ensure(1);
+                            buffer[length++] = '?';
+                        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                            codePoint(Character.toCodePoint(c, value.charAt(++i)));
+                        } else if (Character.isSurrogate(c)) {
+                            ensure(1);
+                            buffer[length++] = '?';
+                        } else {
+                            codePoint(c);
+                        }
+                        break;
+                }
+            }
+            return this;
+        }
+
+        private void codePoint(int cp) {
+            ensure(4);
+            if (cp < 0x80) {
+                buffer[length++] = (byte) cp;
+            } else if (cp < 0x800) {
+                buffer[length++] = (byte) (0xc0 | cp >> 6);
+                buffer[length++] = (byte) (0x80 | cp & 0x3f);
+            } else if (cp < 0x10000) {
+                buffer[length++] = (byte) (0xe0 | cp >> 12);
+                buffer[length++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                buffer[length++] = (byte) (0x80 | cp & 0x3f);
+            } else {
+                buffer[length++] = (byte) (0xf0 | cp >> 18);
+                buffer[length++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                buffer[length++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                buffer[length++] = (byte) (0x80 | cp & 0x3f);
+            }
+        }
+    }
+}
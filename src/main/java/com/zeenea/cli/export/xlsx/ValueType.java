@@ -0,0 +1,30 @@
+package com.zeenea.cli.export.xlsx;
+
+/**
+ * Type des valeurs d'une {@link ColumnExport colonne}.
+ *
+ * <p>Le type est indicatif pour le classeur Excel, dont chaque cellule porte son propre {@link CellKind type}. Il
+ * permet aux destinations typées, comme une base de données, de déclarer leurs colonnes avant la première ligne.</p>
+ */
+public enum ValueType {
+    /**
+     * Texte, y compris les identifiants, les descriptions et les libellés des liens.
+     */
+    TEXT,
+    /**
+     * Nombre entier.
+     */
+    INTEGER,
+    /**
+     * Nombre décimal.
+     */
+    DECIMAL,
+    /**
+     * Date et heure.
+     */
+    TIMESTAMP,
+    /**
+     * Booléen.
+     */
+    BOOLEAN
+}
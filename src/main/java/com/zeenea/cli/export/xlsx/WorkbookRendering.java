@@ -0,0 +1,259 @@
+package com.zeenea.cli.export.xlsx;
+
+import com.google.common.io.ByteStreams;
+import com.zeenea.cli.util.UnclosableOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Écriture en parallèle des lignes des feuilles d'un classeur Excel.
+ *
+ * <p>Les lignes de chaque feuille sont écrites en XML par des {@link ParallelSheetSink destinations} qui se
+ * partagent le pool de cette instance. Le classeur écrit par POI ne contient que les entêtes des feuilles: ses
+ * lignes sont insérées dans les parties des feuilles par {@link #write(SXSSFWorkbook, OutputStream)}.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>Le classeur est d'abord écrit par POI dans un fichier temporaire. Ses entrées sont ensuite recopiées sous leur
+ * forme compressée, comme le fait {@link com.zeenea.cli.export.reuse.WorkbookParts}, sauf les parties des feuilles
+ * rendues, qui sont recompressées avec leurs lignes insérées avant la fin de l'élément {@code sheetData}.</p>
+ */
+public final class WorkbookRendering implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WorkbookRendering.class);
+    private static final byte[] SHEET_DATA_END = "</sheetData>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHEET_DATA_EMPTY = "<sheetData/>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHEET_DATA_START = "<sheetData>".getBytes(StandardCharsets.US_ASCII);
+
+    private final ForkJoinPool pool;
+    private final int chunkRows;
+    @Nullable
+    private final Path tempDirectory;
+    private final Map<String, Path> fragments = new LinkedHashMap<>();
+    private final List<Path> files = new ArrayList<>();
+
+    private WorkbookRendering(Builder builder) {
+        this.pool = new ForkJoinPool(Math.max(1, builder.threads));
+        this.chunkRows = Math.max(1, builder.chunkRows);
+        this.tempDirectory = builder.tempDirectory;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Crée la destination des lignes d'une feuille.
+     *
+     * @param sheetName Nom de la feuille.
+     * @param styles    Styles du classeur.
+     * @param rowCount  Numéro de la ligne courante de la feuille, tenu par l'export.
+     * @return La destination.
+     */
+    ExportSink sink(String sheetName, ExportStyles styles, AtomicInteger rowCount) {
+        return new ParallelSheetSink(this, sheetName, styles, rowCount);
+    }
+
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    int getChunkRows() {
+        return chunkRows;
+    }
+
+    synchronized Path createFragmentFile() throws IOException {
+        Path file = tempDirectory != null
+            ? Files.createTempFile(tempDirectory, "catalog-export-", ".rows.xml")
+            : Files.createTempFile("catalog-export-", ".rows.xml");
+        files.add(file);
+        return file;
+    }
+
+    synchronized void addFragment(String sheetName, Path fragment) {
+        fragments.put(sheetName, fragment);
+    }
+
+    /**
+     * Écrit le classeur, avec les lignes des feuilles rendues.
+     *
+     * @param workbook Le classeur, dont les feuilles rendues ne contiennent que les entêtes.
+     * @param out      Flux de destination; il n'est pas fermé.
+     * @throws IOException En cas d'erreur de lecture ou d'écriture.
+     */
+    public void write(SXSSFWorkbook workbook, OutputStream out) throws IOException {
+        Map<String, Path> parts = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, Path> fragment : fragments.entrySet()) {
+                parts.put(sheetPart(workbook, fragment.getKey()), fragment.getValue());
+            }
+        }
+        if (parts.isEmpty()) {
+            workbook.write(out);
+            return;
+        }
+
+        Path written = tempDirectory != null
+            ? Files.createTempFile(tempDirectory, "catalog-export-", ".xlsx")
+            : Files.createTempFile("catalog-export-", ".xlsx");
+        try {
+            try (OutputStream file = Files.newOutputStream(written)) {
+                workbook.write(file);
+            }
+            try (ZipFile source = new ZipFile(written.toFile());
+                 ZipArchiveOutputStream zip = new ZipArchiveOutputStream(new UnclosableOutputStream(out))) {
+                Enumeration<ZipArchiveEntry> entries = source.getEntriesInPhysicalOrder();
+                while (entries.hasMoreElements()) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    Path fragment = parts.get(entry.getName());
+                    if (fragment == null) {
+                        try (InputStream raw = source.getRawInputStream(entry)) {
+                            zip.addRawArchiveEntry(entry, raw);
+                        }
+                    } else {
+                        byte[] sheetXml;
+                        try (InputStream in = source.getInputStream(entry)) {
+                            sheetXml = ByteStreams.toByteArray(in);
+                        }
+                        zip.putArchiveEntry(new ZipArchiveEntry(entry.getName()));
+                        splice(sheetXml, fragment, zip, entry.getName());
+                        zip.closeArchiveEntry();
+                    }
+                }
+                zip.finish();
+            }
+        } finally {
+            deleteQuietly(written);
+        }
+        log.debug("{} sheets rendered in parallel", parts.size());
+    }
+
+    /**
+     * Écrit la partie d'une feuille en insérant ses lignes à la fin de l'élément {@code sheetData}.
+     */
+    private static void splice(byte[] sheetXml, Path fragment, OutputStream out, String part) throws IOException {
+        int end = indexOf(sheetXml, SHEET_DATA_END);
+        if (end >= 0) {
+            out.write(sheetXml, 0, end);
+            Files.copy(fragment, out);
+            out.write(sheetXml, end, sheetXml.length - end);
+            return;
+        }
+        int empty = indexOf(sheetXml, SHEET_DATA_EMPTY);
+        if (empty < 0) {
+            throw new IOException("No sheetData element in " + part);
+        }
+        out.write(sheetXml, 0, empty);
+        out.write(SHEET_DATA_START);
+        Files.copy(fragment, out);
+        out.write(SHEET_DATA_END);
+        int after = empty + SHEET_DATA_EMPTY.length;
+        out.write(sheetXml, after, sheetXml.length - after);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = data.length - pattern.length; i >= 0; --i) {
+            for (int j = 0; j < pattern.length; ++j) {
+                if (data[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String sheetPart(SXSSFWorkbook workbook, String name) {
+        return workbook.getXSSFWorkbook().getSheet(name).getPackagePart().getPartName().getName().substring(1);
+    }
+
+    /**
+     * Arrête le pool et supprime les fichiers des lignes, y compris ceux d'une feuille interrompue.
+     */
+    @Override
+    public synchronized void close() {
+        pool.shutdownNow();
+        for (Path file : files) {
+            deleteQuietly(file);
+        }
+        files.clear();
+        fragments.clear();
+    }
+
+    private static void deleteQuietly(@Nullable Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete temporary file {}", file, e);
+        }
+    }
+
+    /**
+     * Monteur de l'écriture en parallèle des lignes d'un classeur.
+     */
+    public static final class Builder {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int chunkRows = 1000;
+        private Path tempDirectory;
+
+        private Builder() {
+        }
+
+        /**
+         * Nombre de threads d'écriture des lignes.
+         *
+         * @param threads la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Nombre de lignes des blocs écrits par un thread.
+         *
+         * @param chunkRows la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder chunkRows(int chunkRows) {
+            this.chunkRows = chunkRows;
+            return this;
+        }
+
+        /**
+         * Dossier des fichiers temporaires.
+         * <p>Par défaut, le dossier temporaire du système est utilisé.</p>
+         *
+         * @param tempDirectory la nouvelle valeur.
+         * @return ce monteur.
+         */
+        public Builder tempDirectory(@Nullable Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public WorkbookRendering build() {
+            return new WorkbookRendering(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.zeenea.cli.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpage d'une ligne d'options, telle qu'écrite dans un fichier de configuration, en arguments.
+ *
+ * <p>Les arguments sont séparés par des espaces; un argument qui contient des espaces est écrit entre guillemets,
+ * par exemple {@code --category "Data Lake" --force}.</p>
+ */
+public final class Arguments {
+    private Arguments() {
+    }
+
+    /**
+     * Découpe une ligne d'options.
+     *
+     * @param text La ligne.
+     * @return Les arguments, dans leur ordre.
+     * @throws IllegalArgumentException Si un guillemet n'est pas fermé.
+     */
+    public static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                pending = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (pending) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    pending = false;
+                }
+            } else {
+                token.append(c);
+                pending = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unbalanced quote in \"" + text + "\"");
+        }
+        if (pending) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
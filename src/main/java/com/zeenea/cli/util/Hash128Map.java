@@ -0,0 +1,147 @@
+package com.zeenea.cli.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table associative à adressage ouvert dont les clés sont des valeurs de 128 bits (deux entiers longs, comme un
+ * UUID) et les valeurs des entiers longs.
+ *
+ * <p>Les données sont stockées dans trois tableaux de {@code long}, sans objet par entrée: une entrée occupe
+ * environ 40 octets, contre plus de 100 pour une {@code HashMap<String, Long>}.</p>
+ *
+ * <p>Une clé textuelle est réduite à 128 bits par {@link #fingerprint(String)}; le risque de collision est
+ * négligeable pour des dizaines de millions de clés.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ */
+public final class Hash128Map {
+    private static final HashFunction FINGERPRINT = Hashing.murmur3_128();
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] highs;
+    private long[] lows;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int threshold;
+
+    public Hash128Map() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize Nombre d'entrées attendues.
+     */
+    public Hash128Map(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    /**
+     * Empreinte de 128 bits d'une clé textuelle.
+     *
+     * @param key La clé.
+     * @return Un tableau de deux entiers longs: les 64 bits de poids fort puis ceux de poids faible.
+     */
+    public static long[] fingerprint(String key) {
+        ByteBuffer bytes = ByteBuffer.wrap(FINGERPRINT.hashString(key, StandardCharsets.UTF_8).asBytes())
+            .order(ByteOrder.LITTLE_ENDIAN);
+        return new long[]{bytes.getLong(0), bytes.getLong(8)};
+    }
+
+    /**
+     * Associe une valeur à une clé si elle est absente.
+     *
+     * @param high  64 bits de poids fort de la clé.
+     * @param low   64 bits de poids faible de la clé.
+     * @param value La valeur.
+     * @return {@code true} si la valeur a été associée, {@code false} si la clé était déjà présente.
+     */
+    public boolean putIfAbsent(long high, long low, long value) {
+        int mask = highs.length - 1;
+        int idx = mix(high, low) & mask;
+        while (used[idx]) {
+            if (highs[idx] == high && lows[idx] == low) return false;
+            idx = (idx + 1) & mask;
+        }
+        used[idx] = true;
+        highs[idx] = high;
+        lows[idx] = low;
+        values[idx] = value;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Valeur associée à une clé.
+     *
+     * @param high    64 bits de poids fort de la clé.
+     * @param low     64 bits de poids faible de la clé.
+     * @param missing Valeur retournée si la clé est absente.
+     * @return La valeur associée ou {@code missing}.
+     */
+    public long get(long high, long low, long missing) {
+        int mask = highs.length - 1;
+        int idx = mix(high, low) & mask;
+        while (used[idx]) {
+            if (highs[idx] == high && lows[idx] == low) return values[idx];
+            idx = (idx + 1) & mask;
+        }
+        return missing;
+    }
+
+    /**
+     * @return Le nombre d'entrées.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimation de la mémoire occupée par la table.
+     *
+     * @return Le nombre d'octets.
+     */
+    public long memoryUsage() {
+        return 25L * highs.length;
+    }
+
+    private void rehash() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldHighs.length << 1);
+        int mask = highs.length - 1;
+        for (int i = 0; i < oldHighs.length; ++i) {
+            if (!oldUsed[i]) continue;
+            int idx = mix(oldHighs[i], oldLows[i]) & mask;
+            while (used[idx]) {
+                idx = (idx + 1) & mask;
+            }
+            used[idx] = true;
+            highs[idx] = oldHighs[i];
+            lows[idx] = oldLows[i];
+            values[idx] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long high, long low) {
+        long h = (high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,107 @@
+package com.zeenea.cli.util;
+
+/**
+ * Ensemble d'entiers longs à adressage ouvert.
+ *
+ * <p>Les valeurs sont stockées dans un simple tableau de {@code long}, sans objet par élément. C'est la structure
+ * utilisée pour conserver de grands ensembles d'identifiants compactés (par exemple des empreintes de noms).</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ */
+public final class LongHashSet {
+    private static final long EMPTY = 0L;
+    private static final long ZERO_SUBSTITUTE = 0x9E3779B97F4A7C15L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+    private int size;
+    private int threshold;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize Nombre d'éléments attendus.
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Ajoute une valeur.
+     *
+     * @param value la valeur.
+     * @return {@code true} si la valeur n'était pas déjà présente.
+     */
+    public boolean add(long value) {
+        long key = value == EMPTY ? ZERO_SUBSTITUTE : value;
+        int mask = table.length - 1;
+        int idx = mix(key) & mask;
+        while (table[idx] != EMPTY) {
+            if (table[idx] == key) return false;
+            idx = (idx + 1) & mask;
+        }
+        table[idx] = key;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Teste la présence d'une valeur.
+     *
+     * @param value la valeur.
+     * @return {@code true} si la valeur est présente.
+     */
+    public boolean contains(long value) {
+        long key = value == EMPTY ? ZERO_SUBSTITUTE : value;
+        int mask = table.length - 1;
+        int idx = mix(key) & mask;
+        while (table[idx] != EMPTY) {
+            if (table[idx] == key) return true;
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return Le nombre d'éléments.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} si l'ensemble est vide.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash() {
+        long[] old = table;
+        allocate(old.length << 1);
+        int mask = table.length - 1;
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int idx = mix(key) & mask;
+            while (table[idx] != EMPTY) {
+                idx = (idx + 1) & mask;
+            }
+            table[idx] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,103 @@
+package com.zeenea.cli.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zone de stockage d'octets hors du tas Java (<i>off-heap</i>).
+ *
+ * <p>Les entrées sont ajoutées les unes à la suite des autres dans des blocs alloués avec
+ * {@link ByteBuffer#allocateDirect(int)}; elles ne sont ni modifiées ni supprimées. Chaque entrée est désignée par
+ * une adresse: l'indice du bloc sur les 32 bits de poids fort et la position dans le bloc sur les 32 bits de poids
+ * faible. Une entrée n'est jamais répartie sur deux blocs.</p>
+ *
+ * <p>Les données ne coûtent rien au ramasse-miettes, qui ne voit que quelques objets par bloc.</p>
+ *
+ * <p>Cette classe n'est pas thread-safe.</p>
+ */
+public final class OffHeapArena {
+    private static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long usedBytes;
+
+    public OffHeapArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize Taille des blocs alloués, en octets.
+     */
+    public OffHeapArena(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Ajoute une entrée.
+     *
+     * @param data   Octets de l'entrée.
+     * @param length Nombre d'octets à ajouter.
+     * @return L'adresse de l'entrée.
+     */
+    public long append(byte[] data, int length) {
+        int needed = length + Integer.BYTES;
+        if (current == null || current.remaining() < needed) {
+            current = ByteBuffer.allocateDirect(Math.max(chunkSize, needed));
+            chunks.add(current);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.putInt(length);
+        current.put(data, 0, length);
+        usedBytes += needed;
+        return address;
+    }
+
+    /**
+     * Taille d'une entrée.
+     *
+     * @param address Adresse de l'entrée.
+     * @return Le nombre d'octets de l'entrée.
+     */
+    public int length(long address) {
+        return chunks.get((int) (address >>> 32)).getInt((int) address);
+    }
+
+    /**
+     * Copie une entrée.
+     *
+     * @param address Adresse de l'entrée.
+     * @param target  Destination, d'une taille au moins égale à celle de l'entrée.
+     * @return Le nombre d'octets copiés.
+     */
+    public int read(long address, byte[] target) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32)).duplicate();
+        int position = (int) address;
+        int length = chunk.getInt(position);
+        // Appel par Buffer: ByteBuffer.position(int) n'existe qu'à partir de Java 9.
+        ((Buffer) chunk).position(position + Integer.BYTES);
+        chunk.get(target, 0, length);
+        return length;
+    }
+
+    /**
+     * @return Le nombre d'octets occupés par les entrées.
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return Le nombre d'octets alloués hors du tas.
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer chunk : chunks) {
+            allocated += chunk.capacity();
+        }
+        return allocated;
+    }
+}
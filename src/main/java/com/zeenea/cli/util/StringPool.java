@@ -0,0 +1,86 @@
+package com.zeenea.cli.util;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table bornée d'instances canoniques de chaînes, pour que les valeurs répétées d'un export (noms de catégorie, de
+ * dataset, types de données, tags, ...) ne soient gardées en mémoire qu'une fois.
+ *
+ * <p>Une chaîne présentée à la table est remplacée par une chaîne égale déjà présente, si elle existe. La table ne
+ * grandit pas: quand les emplacements d'une chaîne sont tous occupés, l'un d'eux est remplacé. Les chaînes plus
+ * longues que la longueur maximale, souvent uniques comme les descriptions, ne sont pas conservées.</p>
+ *
+ * <p>Cette classe est thread-safe.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>La table est à adressage ouvert, sans verrou: une chaîne est cherchée dans {@value #PROBES} emplacements
+ * consécutifs à partir de son empreinte, et insérée par compare-and-set dans le premier emplacement libre. Une
+ * course entre deux threads peut au pire garder deux instances égales: la chaîne rendue est toujours égale à la
+ * chaîne présentée.</p>
+ */
+public final class StringPool {
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param capacity  Nombre maximal de chaînes conservées, arrondi à la puissance de deux supérieure.
+     * @param maxLength Longueur maximale des chaînes conservées.
+     */
+    public StringPool(int capacity, int maxLength) {
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity) - 1) << 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Instance canonique d'une chaîne.
+     *
+     * @param value La chaîne.
+     * @return Une chaîne égale déjà présente dans la table, ou la chaîne elle-même.
+     */
+    @Nullable
+    public String canonical(@Nullable String value) {
+        if (value == null || value.isEmpty() || value.length() > maxLength) return value;
+
+        lookups.increment();
+        int hash = value.hashCode();
+        int start = (hash ^ (hash >>> 16)) & mask;
+        for (int probe = 0; probe < PROBES; ++probe) {
+            int idx = (start + probe) & mask;
+            String current = table.get(idx);
+            if (current == null) {
+                if (table.compareAndSet(idx, null, value)) return value;
+                current = table.get(idx);
+            }
+            if (current != null && current.hashCode() == hash && current.equals(value)) {
+                hits.increment();
+                return current;
+            }
+        }
+        table.set((start + ThreadLocalRandom.current().nextInt(PROBES)) & mask, value);
+        return value;
+    }
+
+    /**
+     * @return Le nombre de chaînes présentées à la table, hors chaînes trop longues.
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return Le nombre de chaînes remplacées par une instance déjà présente.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+}
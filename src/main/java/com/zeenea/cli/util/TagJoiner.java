@@ -0,0 +1,71 @@
+package com.zeenea.cli.util;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jointure mémorisée des tags d'un asset: triés sans distinction de casse et séparés par un retour à la ligne.
+ *
+ * <p>Les assets d'un catalogue partagent peu de combinaisons de tags: la jointure d'une combinaison déjà
+ * rencontrée, dans n'importe quel ordre, est rendue sans être recalculée. Au-delà du nombre maximal de listes
+ * mémorisées, les nouvelles combinaisons sont jointes sans être mémorisées.</p>
+ *
+ * <h3>Détails d'implantation</h3>
+ * <p>La jointure est d'abord cherchée avec la liste reçue comme clé, sans copie ni tri: les assets qui portent la
+ * même combinaison la reçoivent en général dans le même ordre. Ce n'est qu'en l'absence de cette clé que la liste est
+ * copiée et triée. La liste triée est la seconde clé: deux listes qui ne diffèrent que par leur ordre partagent la
+ * même jointure, mémorisée sous chacune d'elles. Les tags égaux sans distinction de casse sont départagés par
+ * l'ordre naturel, pour que la jointure ne dépende pas de l'ordre de la liste reçue.</p>
+ *
+ * <p>Cette classe est thread-safe.</p>
+ */
+public final class TagJoiner {
+    private static final Comparator<String> ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final Map<List<String>, String> joined = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    /**
+     * @param maxEntries Nombre maximal de listes de tags mémorisées, triées ou dans l'ordre reçu.
+     */
+    public TagJoiner(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Joint une liste de tags.
+     *
+     * @param tags Les tags, dans un ordre quelconque.
+     * @return Les tags triés et joints, ou {@code null} si la liste est vide.
+     */
+    @Nullable
+    public String join(@Nullable List<String> tags) {
+        if (tags == null || tags.isEmpty()) return null;
+
+        String value = joined.get(tags);
+        if (value != null) return value;
+
+        List<String> sorted = new ArrayList<>(tags);
+        sorted.sort(ORDER);
+        value = joined.get(sorted);
+        if (value == null) {
+            value = String.join("\n", sorted);
+            remember(sorted, value);
+        }
+        remember(tags, value);
+        return value;
+    }
+
+    private void remember(List<String> tags, String value) {
+        if (joined.size() < maxEntries) {
+            joined.putIfAbsent(ImmutableList.copyOf(tags), value);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.zeenea.cli.export.cache;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CachingProxyTest {
+    private static final String ETAG = "\"v1\"";
+    private static final int BODY_SIZE = 1000;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private HttpServer upstream;
+    private final List<String> upstreamRequests = new CopyOnWriteArrayList<>();
+    private CachingProxy proxy;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.createContext("/", this::serve);
+        upstream.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (proxy != null) {
+            proxy.close();
+        }
+        upstream.stop(0);
+    }
+
+    /**
+     * API de test: {@code /etag/*} porte un {@code ETag} et répond {@code 304} à une requête conditionnelle,
+     * {@code /plain/*} n'a pas de validateur, {@code /no-store/*} porte un {@code ETag} et {@code no-store}.
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+        upstreamRequests.add(path + (condition != null ? " If-None-Match: " + condition : ""));
+        try {
+            if (!path.startsWith("/plain/")) {
+                exchange.getResponseHeaders().add("ETag", ETAG);
+            }
+            if (path.startsWith("/no-store/")) {
+                exchange.getResponseHeaders().add("Cache-Control", "no-store");
+            }
+            if (ETAG.equals(condition)) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                return;
+            }
+            byte[] body = bodyOf(path).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String bodyOf(String path) {
+        StringBuilder body = new StringBuilder(path);
+        while (body.length() < BODY_SIZE) {
+            body.append('.');
+        }
+        return body.toString();
+    }
+
+    private void startProxy(long maxBytes) {
+        DiskResponseCache cache = DiskResponseCache.tryOpen(cacheDirectory, maxBytes);
+        proxy = CachingProxy.start(URI.create("http://" + upstream.getAddress().getAddress().getHostAddress()
+            + ":" + upstream.getAddress().getPort() + "/"), cache);
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(proxy.getUri().toURL(), path).openConnection();
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                body.write(buffer, 0, n);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private long cachedResponseCount() throws IOException {
+        long count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, "*.response")) {
+            for (Path ignored : files) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void firstResponseIsDownloadedThenServedFromDiskAfter304() throws IOException {
+        startProxy(1 << 20);
+
+        assertEquals(bodyOf("/etag/a"), get("etag/a"));
+        assertEquals(bodyOf("/etag/a"), get("etag/a"));
+
+        assertEquals(2, upstreamRequests.size());
+        assertEquals("/etag/a", upstreamRequests.get(0));
+        assertEquals("/etag/a If-None-Match: " + ETAG, upstreamRequests.get(1));
+        assertEquals(1, cachedResponseCount());
+    }
+
+    @Test
+    void responseWithoutValidatorIsNotStored() throws IOException {
+        startProxy(1 << 20);
+
+        assertEquals(bodyOf("/plain/a"), get("plain/a"));
+        assertEquals(bodyOf("/plain/a"), get("plain/a"));
+
+        assertEquals("/plain/a", upstreamRequests.get(0));
+        assertEquals("/plain/a", upstreamRequests.get(1));
+        assertEquals(0, cachedResponseCount());
+    }
+
+    @Test
+    void noStoreResponseIsNotStored() throws IOException {
+        startProxy(1 << 20);
+
+        assertEquals(bodyOf("/no-store/a"), get("no-store/a"));
+        assertEquals(bodyOf("/no-store/a"), get("no-store/a"));
+
+        assertEquals("/no-store/a", upstreamRequests.get(0));
+        assertEquals("/no-store/a", upstreamRequests.get(1));
+        assertEquals(0, cachedResponseCount());
+    }
+
+    @Test
+    void leastRecentlyUsedResponseIsEvicted() throws IOException {
+        // Deux réponses tiennent dans le cache, pas trois.
+        startProxy(3 * BODY_SIZE);
+
+        get("etag/a");
+        get("etag/b");
+        // a est utilisée après b: b est la moins récemment utilisée quand c est ajoutée.
+        get("etag/a");
+        get("etag/c");
+        assertEquals(2, cachedResponseCount());
+
+        upstreamRequests.clear();
+        assertEquals(bodyOf("/etag/a"), get("etag/a"));
+        assertEquals(bodyOf("/etag/b"), get("etag/b"));
+
+        assertEquals("/etag/a If-None-Match: " + ETAG, upstreamRequests.get(0));
+        assertEquals("/etag/b", upstreamRequests.get(1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.zeenea.cli.export.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DiskResponseCacheTest {
+    private static final List<Map.Entry<String, String>> HEADERS =
+        Collections.singletonList(new AbstractMap.SimpleImmutableEntry<>("ETag", "\"v1\""));
+
+    @TempDir
+    Path directory;
+
+    private static void put(DiskResponseCache cache, String key, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (DiskResponseCache.Writer writer = cache.put(key, 200, HEADERS)) {
+            writer.write(bytes, 0, bytes.length);
+            writer.commit();
+        }
+    }
+
+    private static String read(DiskResponseCache.CachedResponse response) throws IOException {
+        byte[] body = new byte[(int) response.getBodySize()];
+        int length = 0;
+        try (InputStream in = response.getBody()) {
+            int n;
+            while (length < body.length && (n = in.read(body, length, body.length - length)) > 0) {
+                length += n;
+            }
+        }
+        return new String(body, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void directoryIsUsedByOneCacheAtATime() {
+        DiskResponseCache first = DiskResponseCache.tryOpen(directory, 1 << 20);
+        assertNotNull(first);
+        assertNull(DiskResponseCache.tryOpen(directory, 1 << 20));
+
+        first.close();
+        DiskResponseCache second = DiskResponseCache.tryOpen(directory, 1 << 20);
+        assertNotNull(second);
+        second.close();
+    }
+
+    @Test
+    void responseReadStaysConsistentWhenReplaced() throws IOException {
+        DiskResponseCache cache = DiskResponseCache.tryOpen(directory, 1 << 20);
+        assertNotNull(cache);
+        try {
+            put(cache, "key", "first body");
+            try (DiskResponseCache.CachedResponse response = cache.get("key")) {
+                assertNotNull(response);
+                put(cache, "key", "second, longer body");
+                assertEquals("first body", read(response));
+            }
+            try (DiskResponseCache.CachedResponse response = cache.get("key")) {
+                assertNotNull(response);
+                assertEquals("second, longer body", read(response));
+            }
+        } finally {
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.zeenea.cli.export.server;
+
+import com.beust.jcommander.ParameterException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExportServerTest {
+    @Test
+    void formatFiltersAndProjectionBecomeOptions() {
+        assertEquals(
+            Arrays.asList("--format", "ndjson", "--tag", "PII", "--tag", "GDPR", "--updated-since", "7d",
+                "--columns", "name,description"),
+            ExportServer.queryArguments(
+                "format=ndjson&tag=PII&tag=GDPR&updated-since=7d&columns=name%2Cdescription"));
+    }
+
+    @Test
+    void emptyQueryHasNoOption() {
+        assertEquals(Collections.emptyList(), ExportServer.queryArguments(null));
+        assertEquals(Collections.emptyList(), ExportServer.queryArguments(""));
+    }
+
+    @Test
+    void optionsNamingServerFilesAreRejected() {
+        for (String query : Arrays.asList("o=%2Ftmp%2Fx.xlsx", "output=x.xlsx", "force", "ids-file=%2Fetc%2Fpasswd",
+            "layout=l.json", "profile=p.json", "cache-dir=%2Ftmp", "temp-dir=%2Ftmp", "checkpoint-dir=%2Ftmp",
+            "resume", "url=http%3A%2F%2Fexample.com", "password=x")) {
+            assertThrows(ParameterException.class, () -> ExportServer.queryArguments("format=ndjson&" + query));
+        }
+    }
+
+    @Test
+    void optionWithoutValueIsRejected() {
+        assertThrows(ParameterException.class, () -> ExportServer.queryArguments("format=ndjson&tag"));
+    }
+}
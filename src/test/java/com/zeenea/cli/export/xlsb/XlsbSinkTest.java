@@ -0,0 +1,149 @@
+package com.zeenea.cli.export.xlsb;
+
+import com.zeenea.cli.export.xlsx.CellKind;
+import com.zeenea.cli.export.xlsx.ValueType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class XlsbSinkTest {
+    private static final int BRT_ROW_HDR = 0;
+    private static final int BRT_CELL_ST = 6;
+    private static final int BRT_MERGE_CELL = 176;
+
+    @TempDir
+    Path tempDirectory;
+
+    /**
+     * Feuille relue depuis ses enregistrements BIFF12: les textes par ligne et par colonne, et les cellules
+     * fusionnées.
+     */
+    private static final class SheetRecords {
+        final Map<Integer, Map<Integer, String>> texts = new TreeMap<>();
+        final List<int[]> merges = new ArrayList<>();
+    }
+
+    private static byte[] entry(byte[] workbook, String name) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(workbook))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(name)) {
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    int n;
+                    while ((n = zip.read(buffer)) > 0) {
+                        content.write(buffer, 0, n);
+                    }
+                    return content.toByteArray();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int readVariable(InputStream in, int maxBytes) throws IOException {
+        int value = 0;
+        for (int i = 0; i < maxBytes; ++i) {
+            int b = in.read();
+            value |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) break;
+        }
+        return value;
+    }
+
+    private static SheetRecords readSheet(byte[] part) throws IOException {
+        SheetRecords sheet = new SheetRecords();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(part));
+        int row = -1;
+        while (in.available() > 0) {
+            int first = in.read();
+            int type = (first & 0x80) == 0 ? first : (first & 0x7F) | (in.read() << 7);
+            byte[] data = new byte[readVariable(in, 4)];
+            in.readFully(data);
+            ByteBuffer record = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+            switch (type) {
+                case BRT_ROW_HDR:
+                    row = record.getInt();
+                    break;
+                case BRT_CELL_ST:
+                    int col = record.getInt();
+                    record.getInt();
+                    char[] chars = new char[record.getInt()];
+                    for (int i = 0; i < chars.length; ++i) {
+                        chars[i] = record.getChar();
+                    }
+                    sheet.texts.computeIfAbsent(row, r -> new TreeMap<>()).put(col, new String(chars));
+                    break;
+                case BRT_MERGE_CELL:
+                    sheet.merges.add(new int[]{record.getInt(), record.getInt(), record.getInt(), record.getInt()});
+                    break;
+                default:
+                    break;
+            }
+        }
+        return sheet;
+    }
+
+    @Test
+    void headerRowsHoldGroupAndColumnLabels() throws IOException {
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        try (XlsbSink sink = new XlsbSink(workbook, tempDirectory)) {
+            sink.beginSheet("Dataset",
+                Arrays.asList("", "", "Owner", "", "Quality"),
+                Arrays.asList("Id", "Name", "Team", "Contact", "Score"),
+                Arrays.asList(ValueType.TEXT, ValueType.TEXT, ValueType.TEXT, ValueType.TEXT, ValueType.TEXT));
+            sink.beginRow();
+            sink.writeText(1, CellKind.TEXT, "orders");
+            sink.endRow();
+        }
+
+        byte[] part = entry(workbook.toByteArray(), "xl/worksheets/sheet1.bin");
+        assertNotNull(part);
+        SheetRecords sheet = readSheet(part);
+
+        Map<Integer, String> groupRow = new TreeMap<>();
+        groupRow.put(2, "Owner");
+        groupRow.put(4, "Quality");
+        assertEquals(groupRow, sheet.texts.get(0));
+        assertEquals(Arrays.asList("Id", "Name", "Team", "Contact", "Score"),
+            new ArrayList<>(sheet.texts.get(1).values()));
+        assertEquals("orders", sheet.texts.get(2).get(1));
+
+        assertEquals(1, sheet.merges.size());
+        assertArrayEquals(new int[]{0, 0, 2, 3}, sheet.merges.get(0));
+    }
+
+    @Test
+    void sheetWithoutGroupsHasAnEmptyGroupRow() throws IOException {
+        ByteArrayOutputStream workbook = new ByteArrayOutputStream();
+        try (XlsbSink sink = new XlsbSink(workbook, tempDirectory)) {
+            sink.beginSheet("Category", Arrays.asList("Id", "Name"), Arrays.asList(ValueType.TEXT, ValueType.TEXT));
+        }
+
+        SheetRecords sheet = readSheet(entry(workbook.toByteArray(), "xl/worksheets/sheet1.bin"));
+        assertNull(sheet.texts.get(0));
+        assertEquals(Arrays.asList("Id", "Name"), new ArrayList<>(sheet.texts.get(1).values()));
+        assertEquals(0, sheet.merges.size());
+    }
+}